@@ -25,6 +25,7 @@ import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
 import android.util.Log;
 
+import com.cyanogenmod.filemanager.commands.shell.CommandDefinitionRegistry;
 import com.cyanogenmod.filemanager.console.Console;
 import com.cyanogenmod.filemanager.console.ConsoleAllocException;
 import com.cyanogenmod.filemanager.console.ConsoleBuilder;
@@ -32,8 +33,10 @@ import com.cyanogenmod.filemanager.console.ConsoleHolder;
 import com.cyanogenmod.filemanager.console.shell.PrivilegedConsole;
 import com.cyanogenmod.filemanager.preferences.AccessMode;
 import com.cyanogenmod.filemanager.preferences.FileManagerSettings;
-import com.cyanogenmod.filemanager.preferences.ObjectStringIdentifier;
 import com.cyanogenmod.filemanager.preferences.Preferences;
+import com.cyanogenmod.filemanager.ui.IconCache;
+import com.cyanogenmod.filemanager.util.AIDCache;
+import com.cyanogenmod.filemanager.util.AIDHelper;
 import com.cyanogenmod.filemanager.util.ExceptionUtil;
 import com.cyanogenmod.filemanager.util.FileHelper;
 import com.cyanogenmod.filemanager.util.MimeTypeHelper;
@@ -73,7 +76,8 @@ public final class FileManagerApplication extends Application {
             if (intent != null &&
                 intent.getAction().compareTo(FileManagerSettings.INTENT_SETTING_CHANGED) == 0) {
 
-                // The settings has changed
+                // The settings has changed. Rebuild the snapshot of the preferences
+                Preferences.reloadSnapshot();
                 String key = intent.getStringExtra(FileManagerSettings.EXTRA_SETTING_CHANGED_KEY);
                 if (key != null &&
                     key.compareTo(FileManagerSettings.SETTINGS_SHOW_TRACES.getId()) == 0) {
@@ -97,6 +101,16 @@ public final class FileManagerApplication extends Application {
         }
     };
 
+    private final BroadcastReceiver mOnPackageChangeReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            // The installed applications have changed. The identifiers of the users
+            // and groups must be resolved again
+            AIDCache.clear();
+            AIDHelper.clearCache();
+        }
+    };
+
 
     /**
      * {@inheritDoc}
@@ -110,6 +124,16 @@ public final class FileManagerApplication extends Application {
         init();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        // The icons can be loaded again
+        IconCache.trimMemory(level);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -123,6 +147,11 @@ public final class FileManagerApplication extends Application {
         } catch (Throwable ex) {
             /**NON BLOCK**/
         }
+        try {
+            unregisterReceiver(this.mOnPackageChangeReceiver);
+        } catch (Throwable ex) {
+            /**NON BLOCK**/
+        }
         try {
             destroyBackgroundConsole();
         } catch (Throwable ex) {
@@ -159,6 +188,14 @@ public final class FileManagerApplication extends Application {
         IntentFilter filter = new IntentFilter();
         filter.addAction(FileManagerSettings.INTENT_SETTING_CHANGED);
         registerReceiver(this.mOnSettingChangeReceiver, filter);
+
+        // Register the packages broadcast receiver
+        IntentFilter packageFilter = new IntentFilter();
+        packageFilter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        packageFilter.addDataScheme("package"); //$NON-NLS-1$
+        registerReceiver(this.mOnPackageChangeReceiver, packageFilter);
     }
 
     /**
@@ -169,6 +206,9 @@ public final class FileManagerApplication extends Application {
         FileHelper.ROOT_DIRECTORY = getString(R.string.root_dir);
         Preferences.loadDefaults();
 
+        //Load the command definitions (before any console is created)
+        CommandDefinitionRegistry.getInstance(getResources());
+
         //Create a console for background tasks
         allocBackgroundConsole(getApplicationContext());
 
@@ -338,13 +378,7 @@ public final class FileManagerApplication extends Application {
      * @return boolean If the access mode of the application
      */
     public static AccessMode getAccessMode() {
-        String defaultValue =
-                ((ObjectStringIdentifier)FileManagerSettings.
-                            SETTINGS_ACCESS_MODE.getDefaultValue()).getId();
-        String id = FileManagerSettings.SETTINGS_ACCESS_MODE.getId();
-        AccessMode mode =
-                AccessMode.fromId(Preferences.getSharedPreferences().getString(id, defaultValue));
-        return mode;
+        return Preferences.getSnapshot().getAccessMode();
     }
 
     /**
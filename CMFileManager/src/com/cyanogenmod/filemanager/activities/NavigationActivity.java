@@ -66,6 +66,7 @@ import com.cyanogenmod.filemanager.model.DiskUsage;
 import com.cyanogenmod.filemanager.model.FileSystemObject;
 import com.cyanogenmod.filemanager.model.History;
 import com.cyanogenmod.filemanager.model.MountPoint;
+import com.cyanogenmod.filemanager.model.Selection;
 import com.cyanogenmod.filemanager.parcelables.HistoryNavigable;
 import com.cyanogenmod.filemanager.parcelables.NavigationViewInfoParcelable;
 import com.cyanogenmod.filemanager.parcelables.SearchInfoParcelable;
@@ -976,8 +977,8 @@ public class NavigationActivity extends Activity
      * {@inheritDoc}
      */
     @Override
-    public void onSelectionChanged(NavigationView navView, List<FileSystemObject> selectedItems) {
-        this.mSelectionBar.setSelection(selectedItems);
+    public void onSelectionChanged(NavigationView navView, Selection selection) {
+        this.mSelectionBar.setSelection(selection);
     }
 
     /**
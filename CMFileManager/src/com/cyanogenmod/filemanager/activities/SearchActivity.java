@@ -67,6 +67,7 @@ import com.cyanogenmod.filemanager.preferences.FileManagerSettings;
 import com.cyanogenmod.filemanager.preferences.Preferences;
 import com.cyanogenmod.filemanager.providers.RecentSearchesContentProvider;
 import com.cyanogenmod.filemanager.tasks.SearchResultDrawingAsyncTask;
+import com.cyanogenmod.filemanager.ui.SymlinkResolver;
 import com.cyanogenmod.filemanager.ui.dialogs.ActionsDialog;
 import com.cyanogenmod.filemanager.ui.dialogs.MessageProgressDialog;
 import com.cyanogenmod.filemanager.ui.policy.DeleteActionPolicy;
@@ -844,10 +845,16 @@ public class SearchActivity extends Activity
             if (fso instanceof Directory) {
                 back(false, fso, false);
             } else if (fso instanceof Symlink) {
-                Symlink symlink = (Symlink)fso;
-                if (symlink.getLinkRef() != null && symlink.getLinkRef() instanceof Directory) {
-                    back(false, symlink.getLinkRef(), false);
-                }
+                // The link is resolved on demand (in background)
+                SymlinkResolver.resolve(this, (Symlink)fso,
+                        new SymlinkResolver.OnSymlinkResolvedListener() {
+                    @Override
+                    public void onSymlinkResolved(Symlink symlink, FileSystemObject linkRef) {
+                        if (linkRef != null && linkRef instanceof Directory) {
+                            back(false, linkRef, false);
+                        }
+                    }
+                });
             } else {
                 // Open the file with the preferred registered app
                 back(false, fso, false);
@@ -1065,10 +1072,6 @@ public class SearchActivity extends Activity
                         SearchActivity.this.mDialog.dismiss();
                     }
 
-                    // Resolve the symlinks
-                    FileHelper.resolveSymlinks(
-                                SearchActivity.this, SearchActivity.this.mResultList);
-
                     // Draw the results
                     drawResults();
 
@@ -30,7 +30,7 @@ import android.widget.TextView;
 import com.cyanogenmod.filemanager.R;
 import com.cyanogenmod.filemanager.model.Bookmark;
 import com.cyanogenmod.filemanager.model.Bookmark.BOOKMARK_TYPE;
-import com.cyanogenmod.filemanager.ui.IconHolder;
+import com.cyanogenmod.filemanager.ui.IconCache;
 import com.cyanogenmod.filemanager.util.BookmarksHelper;
 
 import java.util.List;
@@ -77,7 +77,6 @@ public class BookmarksAdapter extends ArrayAdapter<Bookmark> {
 
 
     private DataHolder[] mData;
-    private IconHolder mIconHolder;
     private final OnClickListener mOnActionClickListener;
 
     //The resource item layout
@@ -102,7 +101,6 @@ public class BookmarksAdapter extends ArrayAdapter<Bookmark> {
     public BookmarksAdapter(
             Context context, List<Bookmark> bookmarks, OnClickListener onActionClickListener) {
         super(context, RESOURCE_ITEM_NAME, bookmarks);
-        this.mIconHolder = new IconHolder();
         this.mOnActionClickListener = onActionClickListener;
 
         //Do cache of the data for better performance
@@ -124,7 +122,6 @@ public class BookmarksAdapter extends ArrayAdapter<Bookmark> {
     public void dispose() {
         clear();
         this.mData = null;
-        this.mIconHolder = null;
     }
 
     /**
@@ -140,20 +137,20 @@ public class BookmarksAdapter extends ArrayAdapter<Bookmark> {
             //Build the data holder
             this.mData[i] = new BookmarksAdapter.DataHolder();
             this.mData[i].mDwIcon =
-                    this.mIconHolder.getDrawable(getContext(), BookmarksHelper.getIcon(bookmark));
+                    IconCache.getDrawable(getContext(), BookmarksHelper.getIcon(bookmark));
             this.mData[i].mName = bookmark.mName;
             this.mData[i].mPath = bookmark.mPath;
             this.mData[i].mDwAction = null;
             this.mData[i].mActionCd = null;
             if (bookmark.mType.compareTo(BOOKMARK_TYPE.HOME) == 0) {
                 this.mData[i].mDwAction =
-                        this.mIconHolder.getDrawable(
+                        IconCache.getDrawable(
                                 getContext(), R.drawable.ic_holo_light_config);
                 this.mData[i].mActionCd =
                         getContext().getString(R.string.bookmarks_button_config_cd);
             } else if (bookmark.mType.compareTo(BOOKMARK_TYPE.USER_DEFINED) == 0) {
                 this.mData[i].mDwAction =
-                        this.mIconHolder.getDrawable(getContext(), R.drawable.ic_holo_light_close);
+                        IconCache.getDrawable(getContext(), R.drawable.ic_holo_light_close);
                 this.mData[i].mActionCd =
                         getContext().getString(R.string.bookmarks_button_remove_bookmark_cd);
             }
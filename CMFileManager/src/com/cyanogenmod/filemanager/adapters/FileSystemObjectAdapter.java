@@ -19,6 +19,8 @@ package com.cyanogenmod.filemanager.adapters;
 import android.content.Context;
 import android.content.res.Resources;
 import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.View.OnClickListener;
@@ -29,18 +31,38 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import com.cyanogenmod.filemanager.R;
+import com.cyanogenmod.filemanager.console.ConsoleExecutor;
+import com.cyanogenmod.filemanager.model.DirectorySnapshot;
 import com.cyanogenmod.filemanager.model.FileSystemObject;
 import com.cyanogenmod.filemanager.model.ParentDirectory;
-import com.cyanogenmod.filemanager.ui.IconHolder;
+import com.cyanogenmod.filemanager.model.Selection;
+import com.cyanogenmod.filemanager.model.Symlink;
+import com.cyanogenmod.filemanager.ui.IconCache;
+import com.cyanogenmod.filemanager.ui.SymlinkResolver;
+import com.cyanogenmod.filemanager.ui.SymlinkResolver.OnSymlinksResolvedListener;
 import com.cyanogenmod.filemanager.util.FileHelper;
 import com.cyanogenmod.filemanager.util.MimeTypeHelper;
 
 import java.text.DateFormat;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 
 /**
- * An implementation of {@link ArrayAdapter} for display file system objects.
+ * An implementation of {@link ArrayAdapter} for display file system objects.<br/>
+ * <br/>
+ * The adapter can be backed by a {@link DirectorySnapshot} instead of its own list
+ * (see {@link #setSnapshot(DirectorySnapshot)}), so the objects of a large directory
+ * are only created when they are requested. The symbolic links of the rows shown
+ * are resolved in background (see {@link SymlinkResolver}).<br/>
+ * <br/>
+ * The data of the rows (the summary, the size and the icon) is prepared when a row
+ * is shown, and cached per position. The rows next to the shown rows are prepared
+ * in background, so scrolling doesn't need to format them. The selection isn't part
+ * of the cached data, so selecting an item doesn't rebuild any row. The selection
+ * (see {@link Selection}) can be shared with the owner of the adapter.
  */
 public class FileSystemObjectAdapter
     extends ArrayAdapter<FileSystemObject> implements OnClickListener {
@@ -52,9 +74,9 @@ public class FileSystemObjectAdapter
         /**
          * Method invoked when the selection changed.
          *
-         * @param selectedItems The new selected items
+         * @param selection The selection (shared, not a copy)
          */
-        void onSelectionChanged(List<FileSystemObject> selectedItems);
+        void onSelectionChanged(Selection selection);
     }
 
     /**
@@ -85,19 +107,33 @@ public class FileSystemObjectAdapter
         public DataHolder() {
             super();
         }
-        boolean mSelected;
-        Drawable mDwCheck;
-        Drawable mDwIcon;
+        int mIconId;
         String mName;
         String mSummary;
         String mSize;
+        // The row must be prepared again when the link is resolved
+        boolean mLinkPending;
     }
 
+    // The number of rows around the shown row that are prepared in background
+    private static final int PREFETCH_ROWS = 16;
+    private static final long KEEP_ALIVE = 10000L;
+
+    private static final ConsoleExecutor PREPARE_EXECUTOR =
+            new ConsoleExecutor("row-prepare", 1, KEEP_ALIVE); //$NON-NLS-1$
 
     private DataHolder[] mData;
-    private IconHolder mIconHolder;
+    // Incremented every time the positions of the cached data are no longer valid
+    private int mGeneration;
+    // The positions already requested to be prepared in background [from, to)
+    private int mPrefetchFrom;
+    private int mPrefetchTo;
+    private final Handler mHandler;
+    private final DateFormat mDateFormat;
+    private DirectorySnapshot mSnapshot;
+    private SymlinkResolver mSymlinkResolver;
     private final int mItemViewResourceId;
-    private List<FileSystemObject> mSelectedItems;
+    private Selection mSelection;
     private final boolean mPickable;
 
     private OnSelectionChangedListener mOnSelectionChangedListener;
@@ -126,14 +162,23 @@ public class FileSystemObjectAdapter
             Context context, List<FileSystemObject> files,
             int itemViewResourceId, boolean pickable) {
         super(context, RESOURCE_ITEM_NAME, files);
-        this.mIconHolder = new IconHolder();
         this.mItemViewResourceId = itemViewResourceId;
-        this.mSelectedItems = new ArrayList<FileSystemObject>();
+        this.mSelection = new Selection();
         this.mPickable = pickable;
+        this.mHandler = new Handler(Looper.getMainLooper());
+        this.mDateFormat = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT);
+        this.mSymlinkResolver = new SymlinkResolver(context, new OnSymlinksResolvedListener() {
+            @Override
+            public void onSymlinksResolved() {
+                // The icons and the sizes of the links changed. Only the rows of the
+                // links are prepared again (see getData)
+                notifyDataSetChanged();
+            }
+        });
 
         //Do cache of the data for better performance
         loadDefaultIcons();
-        processData();
+        invalidateData();
     }
 
     /**
@@ -150,19 +195,133 @@ public class FileSystemObjectAdapter
      * Method that loads the default icons (known icons and more common icons).
      */
     private void loadDefaultIcons() {
-        this.mIconHolder.getDrawable(getContext(), R.drawable.btn_holo_light_check_on_normal);
-        this.mIconHolder.getDrawable(getContext(), R.drawable.btn_holo_light_check_off_normal);
-        this.mIconHolder.getDrawable(getContext(), R.drawable.ic_fso_default);
-        this.mIconHolder.getDrawable(getContext(), R.drawable.ic_fso_folder);
+        IconCache.getDrawable(getContext(), R.drawable.btn_holo_light_check_on_normal);
+        IconCache.getDrawable(getContext(), R.drawable.btn_holo_light_check_off_normal);
+        IconCache.getDrawable(getContext(), R.drawable.ic_fso_default);
+        IconCache.getDrawable(getContext(), R.drawable.ic_fso_folder);
+
+        // The mime types must be loaded before the rows are prepared in background
+        MimeTypeHelper.loadMimeTypes(getContext());
+    }
+
+    /**
+     * Method that replaces the data of the adapter with the entries of a snapshot.
+     *
+     * @param snapshot The snapshot of the directory
+     */
+    public void setSnapshot(DirectorySnapshot snapshot) {
+        clear();
+        this.mSnapshot = snapshot;
+        invalidateData();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getCount() {
+        if (this.mSnapshot != null) {
+            return this.mSnapshot.size();
+        }
+        return super.getCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FileSystemObject getItem(int position) {
+        if (this.mSnapshot != null) {
+            return this.mSnapshot.get(position);
+        }
+        return super.getItem(position);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getPosition(FileSystemObject item) {
+        if (this.mSnapshot != null) {
+            return this.mSnapshot.indexOf(item);
+        }
+        return super.getPosition(item);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void remove(FileSystemObject object) {
+        if (this.mSnapshot != null) {
+            int position = this.mSnapshot.indexOf(object);
+            if (position != -1) {
+                this.mSnapshot.remove(position);
+                removeData(position);
+                notifyDataSetChanged();
+            }
+            return;
+        }
+        int position = super.getPosition(object);
+        if (position != -1) {
+            removeData(position);
+        }
+        super.remove(object);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        this.mSnapshot = null;
+        invalidateData();
+        super.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void add(FileSystemObject object) {
+        invalidateData();
+        super.add(object);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addAll(Collection<? extends FileSystemObject> collection) {
+        invalidateData();
+        super.addAll(collection);
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public void notifyDataSetChanged() {
-        processData();
-        super.notifyDataSetChanged();
+    public void addAll(FileSystemObject ... items) {
+        invalidateData();
+        super.addAll(items);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void insert(FileSystemObject object, int index) {
+        invalidateData();
+        super.insert(object, index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void sort(Comparator<? super FileSystemObject> comparator) {
+        invalidateData();
+        super.sort(comparator);
     }
 
     /**
@@ -171,8 +330,7 @@ public class FileSystemObjectAdapter
     public void dispose() {
         clear();
         this.mData = null;
-        this.mIconHolder = null;
-        this.mSelectedItems.clear();
+        this.mSymlinkResolver.dispose();
     }
 
     /**
@@ -194,43 +352,176 @@ public class FileSystemObjectAdapter
     }
 
     /**
-     * Method that process the data before use {@link #getView} method.
+     * Method that discards the cached data of all the rows. The data is prepared again
+     * when the rows are shown.
      */
-    private void processData() {
-        Resources res = getContext().getResources();
-        DateFormat df = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT);
-        this.mData = new DataHolder[getCount()];
+    private void invalidateData() {
+        this.mData = null;
+        this.mGeneration++;
+        this.mPrefetchFrom = 0;
+        this.mPrefetchTo = 0;
+    }
+
+    /**
+     * Method that discards the cached data of a removed row, keeping the data of
+     * the rest of rows.
+     *
+     * @param position The position of the removed row
+     */
+    private void removeData(int position) {
+        if (this.mData == null || position >= this.mData.length) {
+            invalidateData();
+            return;
+        }
+        DataHolder[] data = new DataHolder[this.mData.length - 1];
+        System.arraycopy(this.mData, 0, data, 0, position);
+        System.arraycopy(
+                this.mData, position + 1, data, position, this.mData.length - position - 1);
+        this.mData = data;
+        // The pending background data refers to the old positions
+        this.mGeneration++;
+        this.mPrefetchFrom = 0;
+        this.mPrefetchTo = 0;
+    }
+
+    /**
+     * Method that returns the data of a row, preparing it if it isn't cached.
+     *
+     * @param position The position of the row
+     * @param fso The file system object of the row
+     * @return DataHolder The data of the row
+     */
+    private DataHolder getData(int position, FileSystemObject fso) {
         int cc = getCount();
-        for (int i = 0; i < cc; i++) {
-            //File system object info
-            FileSystemObject fso = getItem(i);
+        if (this.mData == null || this.mData.length != cc) {
+            invalidateData();
+            this.mData = new DataHolder[cc];
+        }
+        DataHolder data = this.mData[position];
+        if (data == null
+                || (data.mLinkPending && fso instanceof Symlink
+                        && ((Symlink)fso).isLinkResolved())) {
+            data = prepareData(getContext(), fso, this.mDateFormat);
+            this.mData[position] = data;
+        }
+        return data;
+    }
 
-            //Parse the last modification time and permissions
-            StringBuilder sbSummary = new StringBuilder();
-            if (fso instanceof ParentDirectory) {
-                sbSummary.append(res.getString(R.string.parent_dir));
-            } else {
-                sbSummary.append(df.format(fso.getLastModifiedTime()));
-                sbSummary.append("   "); //$NON-NLS-1$
-                sbSummary.append(fso.toRawString());
+    /**
+     * Method that requests the preparation in background of the rows around a
+     * shown row, if they weren't requested yet.
+     *
+     * @param position The position of the shown row
+     */
+    private void prefetchData(int position) {
+        if (position - PREFETCH_ROWS >= this.mPrefetchFrom
+                && position + PREFETCH_ROWS < this.mPrefetchTo) {
+            return;
+        }
+        int from = Math.max(0, position - (PREFETCH_ROWS * 2));
+        int to = Math.min(this.mData.length, position + (PREFETCH_ROWS * 2) + 1);
+        this.mPrefetchFrom = from;
+        this.mPrefetchTo = to;
+
+        // The objects are retrieved here, the formatting is done in background
+        final List<Integer> positions = new ArrayList<Integer>(to - from);
+        final List<FileSystemObject> files = new ArrayList<FileSystemObject>(to - from);
+        for (int i = from; i < to; i++) {
+            if (this.mData[i] == null) {
+                positions.add(Integer.valueOf(i));
+                files.add(getItem(i));
+            }
+        }
+        if (files.isEmpty()) {
+            return;
+        }
+
+        final Context ctx = getContext();
+        final int generation = this.mGeneration;
+        PREPARE_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                DateFormat df =
+                        DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT);
+                final DataHolder[] data = new DataHolder[files.size()];
+                for (int i = 0; i < data.length; i++) {
+                    data[i] = prepareData(ctx, files.get(i), df);
+                }
+                FileSystemObjectAdapter.this.mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        onDataPrepared(generation, positions, data);
+                    }
+                });
             }
+        });
+    }
 
-            //Build the data holder
-            this.mData[i] = new FileSystemObjectAdapter.DataHolder();
-            this.mData[i].mSelected = this.mSelectedItems.contains(fso);
-            this.mData[i].mDwCheck = (this.mData[i].mSelected)
-                    ? this.mIconHolder.getDrawable(
-                            getContext(), R.drawable.btn_holo_light_check_on_normal)
-                    : this.mIconHolder.getDrawable(
-                            getContext(), R.drawable.btn_holo_light_check_off_normal);
-            this.mData[i].mDwIcon = this.mIconHolder.getDrawable(
-                    getContext(),
-                    MimeTypeHelper.getIcon(getContext(), fso));
-            this.mData[i].mName = fso.getName();
-            this.mData[i].mSummary = sbSummary.toString();
-            this.mData[i].mSize = FileHelper.getHumanReadableSize(fso);
+    /**
+     * Method invoked when the data of a number of rows was prepared in background
+     * (invoked from the ui thread).
+     *
+     * @param generation The generation of the data when it was requested
+     * @param positions The positions of the rows
+     * @param data The data of the rows
+     */
+    void onDataPrepared(int generation, List<Integer> positions, DataHolder[] data) {
+        if (this.mData == null || generation != this.mGeneration) {
+            // The rows changed meanwhile
+            return;
+        }
+        for (int i = 0; i < data.length; i++) {
+            int position = positions.get(i).intValue();
+            if (this.mData[position] == null) {
+                this.mData[position] = data[i];
+            }
+        }
+    }
 
+    /**
+     * Method that prepares the data of a row. This method can be invoked from
+     * background.
+     *
+     * @param ctx The current context
+     * @param fso The file system object of the row
+     * @param df The date format (it isn't thread-safe, so every thread has its own)
+     * @return DataHolder The data of the row
+     */
+    static DataHolder prepareData(Context ctx, FileSystemObject fso, DateFormat df) {
+        Resources res = ctx.getResources();
+
+        //Parse the last modification time and permissions
+        StringBuilder sbSummary = new StringBuilder();
+        if (fso instanceof ParentDirectory) {
+            sbSummary.append(res.getString(R.string.parent_dir));
+        } else {
+            sbSummary.append(df.format(fso.getLastModifiedTime()));
+            sbSummary.append("   "); //$NON-NLS-1$
+            sbSummary.append(fso.toRawString());
         }
+
+        //Build the data holder
+        DataHolder data = new FileSystemObjectAdapter.DataHolder();
+        data.mIconId = MimeTypeHelper.getIcon(ctx, fso);
+        data.mName = fso.getName();
+        data.mSummary = sbSummary.toString();
+        data.mSize = FileHelper.getHumanReadableSize(fso);
+        data.mLinkPending = fso instanceof Symlink && !((Symlink)fso).isLinkResolved();
+        return data;
+    }
+
+    /**
+     * Method that returns the drawable of the check of an item.
+     *
+     * @param selected If the item is selected
+     * @return Drawable The drawable of the check
+     */
+    private Drawable getCheckDrawable(boolean selected) {
+        return IconCache.getDrawable(
+                getContext(),
+                selected
+                    ? R.drawable.btn_holo_light_check_on_normal
+                    : R.drawable.btn_holo_light_check_off_normal);
     }
 
     /**
@@ -261,13 +552,19 @@ public class FileSystemObjectAdapter
         }
 
         //Retrieve data holder
-        final DataHolder dataHolder = this.mData[position];
+        final FileSystemObject fso = getItem(position);
+        final DataHolder dataHolder = getData(position, fso);
+        prefetchData(position);
+
+        //Resolve the link of the row, if needed
+        this.mSymlinkResolver.request(fso);
 
         //Retrieve the view holder
         ViewHolder viewHolder = (ViewHolder)v.getTag();
 
         //Set the data
-        viewHolder.mIvIcon.setImageDrawable(dataHolder.mDwIcon);
+        viewHolder.mIvIcon.setImageDrawable(
+                IconCache.getDrawable(getContext(), dataHolder.mIconId));
         viewHolder.mTvName.setText(dataHolder.mName);
         if (viewHolder.mTvSummary != null) {
             viewHolder.mTvSummary.setText(dataHolder.mSummary);
@@ -276,13 +573,14 @@ public class FileSystemObjectAdapter
             viewHolder.mTvSize.setText(dataHolder.mSize);
         }
         if (!this.mPickable) {
+            boolean selected = this.mSelection.isSelected(fso);
             viewHolder.mBtCheck.setVisibility(
                     dataHolder.mName.compareTo(
                             FileHelper.PARENT_DIRECTORY) == 0 ? View.INVISIBLE : View.VISIBLE);
-            viewHolder.mBtCheck.setImageDrawable(dataHolder.mDwCheck);
+            viewHolder.mBtCheck.setImageDrawable(getCheckDrawable(selected));
             viewHolder.mBtCheck.setTag(Integer.valueOf(position));
             v.setBackgroundResource(
-                    dataHolder.mSelected
+                    selected
                         ? R.drawable.holo_list_selector_selected
                         : R.drawable.holo_list_selector_deseleted);
         }
@@ -298,7 +596,7 @@ public class FileSystemObjectAdapter
      * @return boolean If the item of the passed position is selected
      */
     public boolean isSelected(int position) {
-        return this.mData[position].mSelected;
+        return this.mSelection.isSelected(getItem(position));
     }
 
     /**
@@ -327,131 +625,125 @@ public class FileSystemObjectAdapter
      * @param fso The file system object to select
      */
     private void toggleSelection(View v, FileSystemObject fso) {
-        if (this.mData != null) {
-            int cc = this.mData.length;
-            for (int i = 0; i < cc; i++) {
-                DataHolder data = this.mData[i];
-                if (data.mName.compareTo(fso.getName()) == 0) {
-                    //Select/Deselect the item
-                    data.mSelected = !data.mSelected;
-                    if (v != null) {
-                        ((View)v.getParent()).setSelected(data.mSelected);
-                    }
-                    data.mDwCheck = data.mSelected
-                            ? this.mIconHolder.getDrawable(
-                                    getContext(), R.drawable.btn_holo_light_check_on_normal)
-                            : this.mIconHolder.getDrawable(
-                                    getContext(), R.drawable.btn_holo_light_check_off_normal);
-                    if (v != null) {
-                        ((ImageView)v).setImageDrawable(data.mDwCheck);
-                        ((View)v.getParent()).setBackgroundResource(
-                                data.mSelected
-                                        ? R.drawable.holo_list_selector_selected
-                                        : R.drawable.holo_list_selector_deseleted);
-                    }
-
-                    //Add or remove from the global selected items
-                    if (data.mSelected) {
-                        FileSystemObjectAdapter.this.mSelectedItems.add(fso);
-                    } else {
-                        FileSystemObjectAdapter.this.mSelectedItems.remove(fso);
-                    }
-
-                    //Communicate event
-                    if (this.mOnSelectionChangedListener != null) {
-                        List<FileSystemObject> selection =
-                                new ArrayList<FileSystemObject>(
-                                        FileSystemObjectAdapter.this.mSelectedItems);
-                        this.mOnSelectionChangedListener.onSelectionChanged(selection);
-                    }
-
-                    //Found
-                    return;
-                }
-            }
+        //Select/Deselect the item. Only the row of the item is updated
+        boolean selected = this.mSelection.toggle(fso);
+        if (v != null) {
+            ((View)v.getParent()).setSelected(selected);
+            ((ImageView)v).setImageDrawable(getCheckDrawable(selected));
+            ((View)v.getParent()).setBackgroundResource(
+                    selected
+                            ? R.drawable.holo_list_selector_selected
+                            : R.drawable.holo_list_selector_deseleted);
+        } else {
+            notifyDataSetChanged();
         }
+
+        //Communicate event
+        onSelectionChanged();
     }
 
     /**
      * Method that deselect all items.
      */
     public void deselectedAll() {
-        this.mSelectedItems.clear();
-        doSelectDeselectAllVisibleItems(false);
+        this.mSelection.clear();
+        notifyDataSetChanged();
+        onSelectionChanged();
     }
 
     /**
      * Method that select all visible items.
      */
     public void selectedAllVisibleItems() {
-        doSelectDeselectAllVisibleItems(true);
+        selectRange(0, getCount(), true);
     }
 
     /**
      * Method that deselect all visible items.
      */
     public void deselectedAllVisibleItems() {
-        doSelectDeselectAllVisibleItems(false);
+        selectRange(0, getCount(), false);
     }
 
     /**
-     * Method that select/deselect all items.
+     * Method that selects or deselects a range of items. The parent directory is
+     * never selected.
      *
-     * @param select Indicates if select (true) or deselect (false) all items.
-     */
-    private void doSelectDeselectAllVisibleItems(boolean select) {
-        if (this.mData != null && this.mData.length > 0) {
-            int cc = this.mData.length;
-            for (int i = 0; i < cc; i++) {
-                DataHolder data = this.mData[i];
-                if (data.mName.compareTo(FileHelper.PARENT_DIRECTORY) == 0) {
-                    // No select the parent directory
-                    continue;
-                }
-                data.mSelected = select;
-                data.mDwCheck = data.mSelected
-                        ? this.mIconHolder.getDrawable(
-                                getContext(), R.drawable.btn_holo_light_check_on_normal)
-                        : this.mIconHolder.getDrawable(
-                                getContext(), R.drawable.btn_holo_light_check_off_normal);
-
-                //Add or remove from the global selected items
-                FileSystemObject fso = getItem(i);
-                if (data.mSelected) {
-                    FileSystemObjectAdapter.this.mSelectedItems.add(fso);
-                } else {
-                    if (FileSystemObjectAdapter.this.mSelectedItems.contains(fso)) {
-                        FileSystemObjectAdapter.this.mSelectedItems.remove(fso);
-                    }
-                }
+     * @param from The position of the first item (inclusive)
+     * @param to The position of the last item (exclusive)
+     * @param select Indicates if select (true) or deselect (false) the items
+     */
+    public void selectRange(int from, int to, boolean select) {
+        if (this.mSelection.setSelected(getItems(), from, to, select)) {
+            notifyDataSetChanged();
+            onSelectionChanged();
+        }
+    }
+
+    /**
+     * Method that inverts the selection of all the items. The parent directory is
+     * never selected.
+     */
+    public void invertSelection() {
+        if (this.mSelection.invert(getItems(), 0, getCount())) {
+            notifyDataSetChanged();
+            onSelectionChanged();
+        }
+    }
+
+    /**
+     * Method that communicates the selection to the listener.
+     */
+    private void onSelectionChanged() {
+        if (this.mOnSelectionChangedListener != null) {
+            this.mOnSelectionChangedListener.onSelectionChanged(this.mSelection);
+        }
+    }
+
+    /**
+     * Method that returns a view of the items of the adapter.
+     *
+     * @return List<FileSystemObject> The items of the adapter
+     */
+    private List<FileSystemObject> getItems() {
+        return new AbstractList<FileSystemObject>() {
+            @Override
+            public FileSystemObject get(int location) {
+                return getItem(location);
             }
 
-            //Communicate event
-            if (this.mOnSelectionChangedListener != null) {
-                List<FileSystemObject> selection =
-                        new ArrayList<FileSystemObject>(
-                                FileSystemObjectAdapter.this.mSelectedItems);
-                this.mOnSelectionChangedListener.onSelectionChanged(selection);
+            @Override
+            public int size() {
+                return getCount();
             }
-        }
+        };
     }
 
     /**
      * Method that returns the selected items.
      *
-     * @return List<FileSystemObject> The selected items
+     * @return List<FileSystemObject> The selected items (shared, it can't be modified)
      */
     public List<FileSystemObject> getSelectedItems() {
-        return new ArrayList<FileSystemObject>(this.mSelectedItems);
+        return this.mSelection.getItems();
+    }
+
+    /**
+     * Method that returns the selection of the adapter.
+     *
+     * @return Selection The selection
+     */
+    public Selection getSelection() {
+        return this.mSelection;
     }
 
     /**
-     * Method that sets the selected items.
+     * Method that sets the selection of the adapter. The selection is shared, not copied.
      *
-     * @param selectedItems The selected items
+     * @param selection The selection
      */
-    public void setSelectedItems(List<FileSystemObject> selectedItems) {
-        this.mSelectedItems = selectedItems;
+    public void setSelection(Selection selection) {
+        this.mSelection = selection;
     }
 
     /**
@@ -29,7 +29,7 @@ import com.cyanogenmod.filemanager.R;
 import com.cyanogenmod.filemanager.model.History;
 import com.cyanogenmod.filemanager.parcelables.NavigationViewInfoParcelable;
 import com.cyanogenmod.filemanager.parcelables.SearchInfoParcelable;
-import com.cyanogenmod.filemanager.ui.IconHolder;
+import com.cyanogenmod.filemanager.ui.IconCache;
 
 import java.util.List;
 
@@ -74,7 +74,6 @@ public class HistoryAdapter extends ArrayAdapter<History> {
 
 
     private DataHolder[] mData;
-    private IconHolder mIconHolder;
 
     //The resource item layout
     private static final int RESOURCE_LAYOUT = R.layout.history_item;
@@ -96,7 +95,6 @@ public class HistoryAdapter extends ArrayAdapter<History> {
      */
     public HistoryAdapter(Context context, List<History> history) {
         super(context, RESOURCE_ITEM_NAME, history);
-        this.mIconHolder = new IconHolder();
 
         //Do cache of the data for better performance
         processData();
@@ -117,7 +115,6 @@ public class HistoryAdapter extends ArrayAdapter<History> {
     public void dispose() {
         clear();
         this.mData = null;
-        this.mIconHolder = null;
     }
 
     /**
@@ -134,10 +131,10 @@ public class HistoryAdapter extends ArrayAdapter<History> {
             this.mData[i] = new HistoryAdapter.DataHolder();
             if (history.getItem() instanceof NavigationViewInfoParcelable) {
                 this.mData[i].mDwIcon =
-                        this.mIconHolder.getDrawable(getContext(), R.drawable.ic_fso_folder);
+                        IconCache.getDrawable(getContext(), R.drawable.ic_fso_folder);
             } else if (history.getItem() instanceof SearchInfoParcelable) {
                 this.mData[i].mDwIcon =
-                        this.mIconHolder.getDrawable(
+                        IconCache.getDrawable(
                                 getContext(), R.drawable.ic_holo_light_history_search);
             }
             this.mData[i].mName = history.getItem().getTitle();
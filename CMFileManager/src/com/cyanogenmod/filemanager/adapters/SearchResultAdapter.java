@@ -29,9 +29,10 @@ import com.cyanogenmod.filemanager.R;
 import com.cyanogenmod.filemanager.model.FileSystemObject;
 import com.cyanogenmod.filemanager.model.Query;
 import com.cyanogenmod.filemanager.model.SearchResult;
-import com.cyanogenmod.filemanager.preferences.FileManagerSettings;
 import com.cyanogenmod.filemanager.preferences.Preferences;
-import com.cyanogenmod.filemanager.ui.IconHolder;
+import com.cyanogenmod.filemanager.ui.IconCache;
+import com.cyanogenmod.filemanager.ui.SymlinkResolver;
+import com.cyanogenmod.filemanager.ui.SymlinkResolver.OnSymlinksResolvedListener;
 import com.cyanogenmod.filemanager.ui.widgets.RelevanceView;
 import com.cyanogenmod.filemanager.util.MimeTypeHelper;
 import com.cyanogenmod.filemanager.util.SearchHelper;
@@ -41,7 +42,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * An implementation of {@link ArrayAdapter} for display search results.
+ * An implementation of {@link ArrayAdapter} for display search results. The symbolic
+ * links of the rows shown are resolved in background (see {@link SymlinkResolver}).
  */
 public class SearchResultAdapter extends ArrayAdapter<SearchResult> {
 
@@ -80,7 +82,7 @@ public class SearchResultAdapter extends ArrayAdapter<SearchResult> {
 
 
     private DataHolder[] mData;
-    private IconHolder mIconHolder;
+    private SymlinkResolver mSymlinkResolver;
     private final int mItemViewResourceId;
 
     private final boolean mHighlightTerms;
@@ -109,19 +111,19 @@ public class SearchResultAdapter extends ArrayAdapter<SearchResult> {
     public SearchResultAdapter(
             Context context, List<SearchResult> files, int itemViewResourceId, Query queries) {
         super(context, RESOURCE_ITEM_NAME, files);
-        this.mIconHolder = new IconHolder();
         this.mItemViewResourceId = itemViewResourceId;
         this.mQueries = queries.getQueries();
+        this.mSymlinkResolver = new SymlinkResolver(context, new OnSymlinksResolvedListener() {
+            @Override
+            public void onSymlinksResolved() {
+                // The icons of the links changed
+                notifyDataSetChanged();
+            }
+        });
 
         // Load settings
-        this.mHighlightTerms = Preferences.getSharedPreferences().getBoolean(
-                FileManagerSettings.SETTINGS_HIGHLIGHT_TERMS.getId(),
-                ((Boolean)FileManagerSettings.SETTINGS_HIGHLIGHT_TERMS.
-                        getDefaultValue()).booleanValue());
-        this.mShowRelevanceWidget = Preferences.getSharedPreferences().getBoolean(
-                FileManagerSettings.SETTINGS_SHOW_RELEVANCE_WIDGET.getId(),
-                ((Boolean)FileManagerSettings.SETTINGS_SHOW_RELEVANCE_WIDGET.
-                        getDefaultValue()).booleanValue());
+        this.mHighlightTerms = Preferences.getSnapshot().isHighlightTerms();
+        this.mShowRelevanceWidget = Preferences.getSnapshot().isShowRelevanceWidget();
 
         //Do cache of the data for better performance
         loadDefaultIcons();
@@ -132,8 +134,8 @@ public class SearchResultAdapter extends ArrayAdapter<SearchResult> {
      * Method that loads the default icons (known icons and more common icons).
      */
     private void loadDefaultIcons() {
-        this.mIconHolder.getDrawable(getContext(), R.drawable.ic_fso_default);
-        this.mIconHolder.getDrawable(getContext(), R.drawable.ic_fso_folder);
+        IconCache.getDrawable(getContext(), R.drawable.ic_fso_default);
+        IconCache.getDrawable(getContext(), R.drawable.ic_fso_folder);
     }
 
     /**
@@ -151,7 +153,7 @@ public class SearchResultAdapter extends ArrayAdapter<SearchResult> {
     public void dispose() {
         clear();
         this.mData = null;
-        this.mIconHolder = null;
+        this.mSymlinkResolver.dispose();
     }
 
     /**
@@ -167,7 +169,7 @@ public class SearchResultAdapter extends ArrayAdapter<SearchResult> {
             //Build the data holder
             this.mData[i] = new SearchResultAdapter.DataHolder();
             this.mData[i].mDwIcon =
-                    this.mIconHolder.getDrawable(
+                    IconCache.getDrawable(
                             getContext(), MimeTypeHelper.getIcon(getContext(), result.getFso()));
             if (this.mHighlightTerms) {
                 this.mData[i].mName = SearchHelper.getHighlightedName(result, this.mQueries);
@@ -240,6 +242,9 @@ public class SearchResultAdapter extends ArrayAdapter<SearchResult> {
         //Retrieve data holder
         final DataHolder dataHolder = this.mData[position];
 
+        //Resolve the link of the row, if needed
+        this.mSymlinkResolver.request(getItem(position).getFso());
+
         //Retrieve the view holder
         ViewHolder viewHolder = (ViewHolder)v.getTag();
 
@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.commands;
+
+import com.cyanogenmod.filemanager.model.FileSystemObject;
+
+import java.util.List;
+
+/**
+ * An interface that represents an executable for list a directory in an
+ * asynchronous way. The objects of the directory are communicated in chunks
+ * (a <code>List&lt;FileSystemObject&gt;</code> per partial result) while the
+ * directory is still being listed, in the order returned by the filesystem.
+ * The {@link AsyncResultListener#onAsyncExitCode(int)} event is only communicated
+ * when the listing ended successfully.
+ */
+public interface AsyncListExecutable extends AsyncResultExecutable {
+
+    /**
+     * Method that returns the objects of the directory listed so far.
+     *
+     * @return List<FileSystemObject> The objects of the directory
+     */
+    List<FileSystemObject> getResult();
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.commands;
+
+import com.cyanogenmod.filemanager.model.FileSystemObject;
+
+import java.util.List;
+
+/**
+ * An interface that represents an executable for retrieve the information of
+ * a list of file system objects in a single invocation.
+ */
+public interface BatchFileInfoExecutable extends SyncResultExecutable {
+
+    /**
+     * Method that returns the information of the file system objects, in the same
+     * order than the requested paths. The entry of a file system object that doesn't
+     * exist is <code>null</code>.
+     *
+     * @return List<FileSystemObject> The information of the file system objects
+     */
+    @Override
+    List<FileSystemObject> getResult();
+}
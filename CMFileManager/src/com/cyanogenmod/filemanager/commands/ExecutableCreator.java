@@ -25,6 +25,8 @@ import com.cyanogenmod.filemanager.model.Query;
 import com.cyanogenmod.filemanager.model.User;
 import com.cyanogenmod.filemanager.preferences.CompressionMode;
 
+import java.util.List;
+
 /**
  * A interface that defines methods for create {@link Executable} objects.
  */
@@ -234,6 +236,20 @@ public interface ExecutableCreator {
     ListExecutable createListExecutable(String src)
             throws CommandNotFoundException;
 
+    /**
+     * Method that creates an executable for list files of a directory in an
+     * asynchronous way.
+     *
+     * @param src The directory where to do the listing
+     * @param asyncResultListener The listener where to return partial results
+     * @return AsyncListExecutable A {@link AsyncListExecutable} executable
+     * implementation reference
+     * @throws CommandNotFoundException If the executable can't be created
+     */
+    AsyncListExecutable createAsyncListExecutable(
+            String src, AsyncResultListener asyncResultListener)
+            throws CommandNotFoundException;
+
     /**
      * Method that creates an executable for retrieve information of a file
      *
@@ -246,6 +262,20 @@ public interface ExecutableCreator {
     ListExecutable createFileInfoExecutable(String src, boolean followSymlinks)
             throws CommandNotFoundException;
 
+    /**
+     * Method that creates an executable for retrieve information of a list of files
+     * in a single invocation.
+     *
+     * @param srcs The absolute paths of the files
+     * @param followSymlinks If follow the symlinks (the information of a symlink is
+     * the information of its reference)
+     * @return BatchFileInfoExecutable A {@link BatchFileInfoExecutable} executable
+     * implementation reference
+     * @throws CommandNotFoundException If the executable can't be created
+     */
+    BatchFileInfoExecutable createFileInfoExecutable(List<String> srcs, boolean followSymlinks)
+            throws CommandNotFoundException;
+
     /**
      * Method that creates an executable for retrieve identity information of the current user.
      *
@@ -368,6 +398,27 @@ public interface ExecutableCreator {
     SendSignalExecutable createKillExecutable(
             int process) throws CommandNotFoundException;
 
+    /**
+     * Method that creates an executable for send a signal to several processes.
+     *
+     * @param processes The processes which to send the signal
+     * @param signal The signal to send
+     * @return SendSignalExecutable A {@link SendSignalExecutable} executable implementation reference
+     * @throws CommandNotFoundException If the executable can't be created
+     */
+    SendSignalExecutable createSendSignalExecutable(
+            int[] processes, SIGNAL signal) throws CommandNotFoundException;
+
+    /**
+     * Method that creates an executable for send a kill signal to several processes.
+     *
+     * @param processes The processes which to send the signal
+     * @return SendSignalExecutable A {@link SendSignalExecutable} executable implementation reference
+     * @throws CommandNotFoundException If the executable can't be created
+     */
+    SendSignalExecutable createKillExecutable(
+            int[] processes) throws CommandNotFoundException;
+
     /**
      * Method that creates an executable for write data to disk.
      *
@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.commands.java;
+
+import android.util.Log;
+
+import com.cyanogenmod.filemanager.commands.AsyncListExecutable;
+import com.cyanogenmod.filemanager.commands.AsyncResultListener;
+import com.cyanogenmod.filemanager.console.ExecutionException;
+import com.cyanogenmod.filemanager.console.InsufficientPermissionsException;
+import com.cyanogenmod.filemanager.console.NoSuchFileOrDirectory;
+import com.cyanogenmod.filemanager.model.FileSystemObject;
+import com.cyanogenmod.filemanager.model.ParentDirectory;
+import com.cyanogenmod.filemanager.util.FileHelper;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A class for list a directory in an asynchronous way. The directory is read
+ * in chunks (see {@link DirectoryReader#iterate(File, int, int)}); the first chunk
+ * is small, so the first entries are communicated as soon as possible.
+ */
+public class AsyncListCommand extends Program implements AsyncListExecutable {
+
+    private static final String TAG = "AsyncListCommand"; //$NON-NLS-1$
+
+    // The number of entries of the first chunk (about a screen of entries)
+    private static final int FIRST_CHUNK = 64;
+    // The number of entries of the rest of chunks
+    private static final int CHUNK = 512;
+
+    private final String mSrc;
+    private final AsyncResultListener mAsyncResultListener;
+    private final List<FileSystemObject> mFiles;
+
+    private boolean mCancelled;
+    private boolean mEnded;
+    private final Object mSync = new Object();
+
+    /**
+     * Constructor of <code>AsyncListCommand</code>.
+     *
+     * @param src The directory to be listed
+     * @param asyncResultListener The partial result listener
+     */
+    public AsyncListCommand(String src, AsyncResultListener asyncResultListener) {
+        super();
+        this.mSrc = src;
+        this.mAsyncResultListener = asyncResultListener;
+        this.mFiles = new ArrayList<FileSystemObject>();
+        this.mCancelled = false;
+        this.mEnded = false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isAsynchronous() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<FileSystemObject> getResult() {
+        synchronized (this.mFiles) {
+            return new ArrayList<FileSystemObject>(this.mFiles);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void execute()
+            throws InsufficientPermissionsException, NoSuchFileOrDirectory, ExecutionException {
+        if (isTrace()) {
+            Log.v(TAG, String.format("Listing %s", this.mSrc)); //$NON-NLS-1$
+        }
+        if (this.mAsyncResultListener != null) {
+            this.mAsyncResultListener.onAsyncStart();
+        }
+
+        File f = new File(this.mSrc);
+        if (!f.exists()) {
+            if (isTrace()) {
+                Log.v(TAG, "Result: FAIL. NoSuchFileOrDirectory"); //$NON-NLS-1$
+            }
+            if (this.mAsyncResultListener != null) {
+                this.mAsyncResultListener.onAsyncEnd(false);
+                this.mAsyncResultListener.onException(new NoSuchFileOrDirectory(this.mSrc));
+            }
+            return;
+        }
+
+        // The parent directory goes first
+        List<FileSystemObject> partialFiles = new ArrayList<FileSystemObject>();
+        if (this.mSrc.compareTo(FileHelper.ROOT_DIRECTORY) != 0) {
+            partialFiles.add(new ParentDirectory(new File(this.mSrc).getParent()));
+        }
+
+        // Read the directory in chunks
+        boolean completed = true;
+        Iterator<List<FileSystemObject>> it = DirectoryReader.iterate(f, FIRST_CHUNK, CHUNK);
+        while (it.hasNext()) {
+            partialFiles.addAll(it.next());
+            communicate(partialFiles);
+            partialFiles = new ArrayList<FileSystemObject>();
+
+            // Check if the process was cancelled
+            synchronized (this.mSync) {
+                if (this.mCancelled || this.mEnded) {
+                    completed = false;
+                    break;
+                }
+            }
+        }
+        if (!partialFiles.isEmpty()) {
+            communicate(partialFiles);
+        }
+
+        if (this.mAsyncResultListener != null) {
+            this.mAsyncResultListener.onAsyncEnd(this.mCancelled);
+        }
+        synchronized (this.mSync) {
+            this.mSync.notify();
+        }
+        // Only a complete listing is communicated as successful
+        if (completed && this.mAsyncResultListener != null) {
+            this.mAsyncResultListener.onAsyncExitCode(0);
+        }
+
+        if (isTrace()) {
+            Log.v(TAG, "Result: OK"); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Method that communicates a chunk of the directory.
+     *
+     * @param partialFiles The objects of the chunk
+     */
+    private void communicate(List<FileSystemObject> partialFiles) {
+        if (isTrace()) {
+            int cc = partialFiles.size();
+            for (int i = 0; i < cc; i++) {
+                Log.v(TAG, String.valueOf(partialFiles.get(i)));
+            }
+        }
+        synchronized (this.mFiles) {
+            this.mFiles.addAll(partialFiles);
+        }
+        if (this.mAsyncResultListener != null) {
+            this.mAsyncResultListener.onPartialResult(partialFiles);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCancelled() {
+        synchronized (this.mSync) {
+            return this.mCancelled;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean cancel() {
+        try {
+            synchronized (this.mSync) {
+                this.mCancelled = true;
+                this.mSync.wait(5000L);
+            }
+        } catch (Exception e) {/**NON BLOCK**/}
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean end() {
+        try {
+            synchronized (this.mSync) {
+                this.mEnded = true;
+                this.mSync.wait(5000L);
+            }
+        } catch (Exception e) {/**NON BLOCK**/}
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setOnEndListener(OnEndListener onEndListener) {
+        //Ignore. Java console don't use this
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setOnCancelListener(OnCancelListener onCancelListener) {
+        //Ignore. Java console don't use this
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCancellable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AsyncResultListener getAsyncResultListener() {
+        return this.mAsyncResultListener;
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.commands.java;
+
+import android.util.Log;
+
+import com.cyanogenmod.filemanager.commands.BatchFileInfoExecutable;
+import com.cyanogenmod.filemanager.console.ExecutionException;
+import com.cyanogenmod.filemanager.console.InsufficientPermissionsException;
+import com.cyanogenmod.filemanager.console.NoSuchFileOrDirectory;
+import com.cyanogenmod.filemanager.model.FileSystemObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * A class for retrieve the information of a list of files and directories. The
+ * attributes of the files are read with a single stat per file, spread over a
+ * small pool of threads.
+ *
+ * @see DirectoryReader#stat(List, boolean, boolean)
+ */
+public class BatchFileInfoCommand extends Program implements BatchFileInfoExecutable {
+
+    private static final String TAG = "BatchFileInfoCommand"; //$NON-NLS-1$
+
+    private final List<String> mSrcs;
+    private final boolean mFollowSymlinks;
+    private List<FileSystemObject> mFiles;
+
+    /**
+     * Constructor of <code>BatchFileInfoCommand</code>.
+     *
+     * @param srcs The file system objects to retrieve
+     * @param followSymlinks If follow the symlinks
+     */
+    public BatchFileInfoCommand(List<String> srcs, boolean followSymlinks) {
+        super();
+        this.mSrcs = new ArrayList<String>(srcs);
+        this.mFollowSymlinks = followSymlinks;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<FileSystemObject> getResult() {
+        return this.mFiles;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void execute()
+            throws InsufficientPermissionsException, NoSuchFileOrDirectory, ExecutionException {
+        if (isTrace()) {
+            Log.v(TAG,
+                    String.format("Retrieving information of %d files", //$NON-NLS-1$
+                            Integer.valueOf(this.mSrcs.size())));
+        }
+
+        // The java api always follows the symlinks. If the symlinks must be followed
+        // the objects are referenced by their real paths
+        this.mFiles = DirectoryReader.stat(this.mSrcs, this.mFollowSymlinks, true);
+        if (isTrace()) {
+            int cc = this.mFiles.size();
+            for (int i = 0; i < cc; i++) {
+                Log.v(TAG, String.valueOf(this.mFiles.get(i)));
+            }
+        }
+
+        if (isTrace()) {
+            Log.v(TAG, "Result: OK"); //$NON-NLS-1$
+        }
+    }
+
+}
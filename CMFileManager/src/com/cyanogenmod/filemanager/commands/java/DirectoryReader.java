@@ -0,0 +1,319 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.commands.java;
+
+import com.cyanogenmod.filemanager.console.ConsoleExecutor;
+import com.cyanogenmod.filemanager.model.FileSystemObject;
+import com.cyanogenmod.filemanager.util.FileHelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import libcore.io.ErrnoException;
+import libcore.io.Libcore;
+import libcore.io.OsConstants;
+import libcore.io.StructStat;
+
+/**
+ * A class that reads the content of a directory with a single stat per entry.<br/>
+ * <br/>
+ * The {@link File} api needs a stat for every attribute (<code>isDirectory</code>,
+ * <code>lastModified</code> and <code>length</code>), and every stat is expensive in
+ * the FUSE-backed storages. This reader reads the names of the directory once, and
+ * obtains all the attributes of every entry from one stat. The stats of the large
+ * directories are spread over a small pool of threads, so the latency of the
+ * storage is overlapped. The content can be read in chunks too (see
+ * {@link #iterate(File, int, int)}), and the attributes of a list of unrelated files
+ * can be read in the same way (see {@link #stat(List, boolean, boolean)}).
+ */
+final class DirectoryReader {
+
+    // The number of entries from which the stats are spread over the pool
+    private static final int PARALLEL_THRESHOLD = 256;
+    private static final int MAX_THREADS = 3;
+    private static final long KEEP_ALIVE = 10000L;
+
+    private static final ConsoleExecutor STAT_EXECUTOR =
+            new ConsoleExecutor("list-stat", MAX_THREADS, KEEP_ALIVE); //$NON-NLS-1$
+
+    /**
+     * Constructor of <code>DirectoryReader</code>.
+     */
+    private DirectoryReader() {
+        super();
+    }
+
+    /**
+     * Method that reads the content of a directory.
+     *
+     * @param dir The directory
+     * @param parallel If the stats of a large directory can be spread over the pool
+     * @return List<FileSystemObject> The content of the directory (empty if the
+     * directory can't be read)
+     */
+    static List<FileSystemObject> read(File dir, boolean parallel) {
+        String[] names = dir.list();
+        if (names == null || names.length == 0) {
+            return new ArrayList<FileSystemObject>();
+        }
+        String parent = dir.getPath();
+        return read(parent, prefixOf(parent), names, 0, names.length, parallel);
+    }
+
+    /**
+     * Method that iterates over the content of a directory in chunks. The names of the
+     * directory are read once, and the attributes of every chunk are read when the
+     * chunk is requested, so the first entries are available before the whole directory
+     * is read.
+     *
+     * @param dir The directory
+     * @param firstChunk The number of entries of the first chunk
+     * @param chunk The number of entries of the rest of chunks
+     * @return Iterator<List<FileSystemObject>> The chunks of the directory (no chunks if
+     * the directory can't be read)
+     */
+    static Iterator<List<FileSystemObject>> iterate(
+            File dir, final int firstChunk, final int chunk) {
+        String[] list = dir.list();
+        final String[] names = list == null ? new String[0] : list;
+        final String parent = dir.getPath();
+        final String prefix = prefixOf(parent);
+        return new Iterator<List<FileSystemObject>>() {
+            private int mNext = 0;
+
+            @Override
+            public boolean hasNext() {
+                return this.mNext < names.length;
+            }
+
+            @Override
+            public List<FileSystemObject> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int from = this.mNext;
+                int to = Math.min(names.length, from + (from == 0 ? firstChunk : chunk));
+                this.mNext = to;
+                return read(parent, prefix, names, from, to, true);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * Method that reads the attributes of a list of files with a single stat per file.
+     *
+     * @param paths The absolute paths of the files
+     * @param canonical If the files must be referenced by their canonical paths (the
+     * real paths, once the symlinks are resolved)
+     * @param parallel If the stats of a large list can be spread over the pool
+     * @return List<FileSystemObject> The files, in the same order than the paths. The
+     * entry of a file that doesn't exist is <code>null</code>
+     */
+    static List<FileSystemObject> stat(
+            final List<String> paths, final boolean canonical, boolean parallel) {
+        final FileSystemObject[] files = new FileSystemObject[paths.size()];
+        run(new StatRange() {
+            @Override
+            public void stat(int first, int stride) {
+                statPaths(paths, canonical, files, first, stride);
+            }
+        }, files.length, parallel);
+        return Arrays.asList(files);
+    }
+
+    /**
+     * Method that reads the attributes of a range of the entries of a directory.
+     *
+     * @param parent The directory
+     * @param prefix The directory with a trailing separator
+     * @param entries The names of the entries
+     * @param from The first entry to read (inclusive)
+     * @param to The last entry to read (exclusive)
+     * @param parallel If the stats of a large range can be spread over the pool
+     * @return List<FileSystemObject> The entries of the range
+     */
+    private static List<FileSystemObject> read(
+            final String parent, final String prefix, final String[] entries,
+            final int from, final int to, boolean parallel) {
+        final FileSystemObject[] files = new FileSystemObject[to - from];
+        run(new StatRange() {
+            @Override
+            public void stat(int first, int stride) {
+                DirectoryReader.stat(parent, prefix, entries, files, from, first, stride);
+            }
+        }, files.length, parallel);
+
+        List<FileSystemObject> result = new ArrayList<FileSystemObject>(files.length);
+        for (int i = 0; i < files.length; i++) {
+            if (files[i] != null) {
+                result.add(files[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Method that runs the stats of a number of files, spreading them over the pool
+     * if there are enough files.
+     *
+     * @param range The stats to run
+     * @param count The number of files
+     * @param parallel If the stats can be spread over the pool
+     */
+    private static void run(final StatRange range, int count, boolean parallel) {
+        int tasks = parallel && count >= PARALLEL_THRESHOLD ? MAX_THREADS : 0;
+        if (tasks == 0) {
+            range.stat(0, 1);
+            return;
+        }
+
+        // The pool and the current thread read interleaved files
+        final int stride = tasks + 1;
+        final int[] pending = {tasks};
+        for (int i = 0; i < tasks; i++) {
+            final int first = i + 1;
+            STAT_EXECUTOR.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        range.stat(first, stride);
+                    } finally {
+                        synchronized (pending) {
+                            pending[0]--;
+                            pending.notifyAll();
+                        }
+                    }
+                }
+            });
+        }
+        range.stat(0, stride);
+
+        boolean interrupted = false;
+        synchronized (pending) {
+            while (pending[0] > 0) {
+                try {
+                    pending.wait();
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Method that returns the path of a directory with a trailing separator.
+     *
+     * @param parent The directory
+     * @return String The directory with a trailing separator
+     */
+    private static String prefixOf(String parent) {
+        return parent.endsWith(File.separator) ? parent : parent + File.separator;
+    }
+
+    /**
+     * Method that reads the attributes of a range of entries.
+     *
+     * @param parent The directory
+     * @param prefix The directory with a trailing separator
+     * @param names The names of the entries
+     * @param files The array where to store the entries (from the offset)
+     * @param offset The entry of the first position of the array
+     * @param first The first position of the array to read
+     * @param stride The distance between the entries to read
+     */
+    private static void stat(
+            String parent, String prefix, String[] names,
+            FileSystemObject[] files, int offset, int first, int stride) {
+        for (int i = first; i < files.length; i += stride) {
+            boolean directory = false;
+            long lastModified = 0;
+            long size = 0;
+            try {
+                // Same semantics than File (follows the symlinks)
+                StructStat st = Libcore.os.stat(prefix + names[offset + i]);
+                directory = OsConstants.S_ISDIR(st.st_mode);
+                lastModified = st.st_mtime * 1000L;
+                size = st.st_size;
+            } catch (ErrnoException ex) {
+                // A broken link or a removed file. File reports it as an empty file
+                /**NON BLOCK**/
+            }
+            files[i] = FileHelper.createFileSystemObject(
+                    parent, names[offset + i], directory, lastModified, size);
+        }
+    }
+
+    /**
+     * Method that reads the attributes of a range of files.
+     *
+     * @param paths The absolute paths of the files
+     * @param canonical If the files must be referenced by their canonical paths
+     * @param files The array where to store the files
+     * @param first The first position of the array to read
+     * @param stride The distance between the files to read
+     */
+    private static void statPaths(
+            List<String> paths, boolean canonical, FileSystemObject[] files,
+            int first, int stride) {
+        for (int i = first; i < files.length; i += stride) {
+            try {
+                File f = new File(paths.get(i));
+                if (canonical) {
+                    f = f.getCanonicalFile();
+                }
+                // Same semantics than File (follows the symlinks)
+                StructStat st = Libcore.os.stat(f.getAbsolutePath());
+                files[i] = FileHelper.createFileSystemObject(
+                        f.getParent(), f.getName(), OsConstants.S_ISDIR(st.st_mode),
+                        st.st_mtime * 1000L, st.st_size);
+            } catch (ErrnoException ex) {
+                // The file doesn't exist or can't be accessed
+                /**NON BLOCK**/
+            } catch (IOException ex) {
+                // The canonical path can't be resolved
+                /**NON BLOCK**/
+            }
+        }
+    }
+
+    /**
+     * An interface for read the attributes of a range of files.
+     */
+    private interface StatRange {
+        /**
+         * Method that reads the attributes of the files of the range.
+         *
+         * @param first The first position to read
+         * @param stride The distance between the files to read
+         */
+        void stat(int first, int stride);
+    }
+
+}
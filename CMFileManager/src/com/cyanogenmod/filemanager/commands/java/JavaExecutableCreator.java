@@ -17,7 +17,9 @@
 package com.cyanogenmod.filemanager.commands.java;
 
 import com.cyanogenmod.filemanager.R;
+import com.cyanogenmod.filemanager.commands.AsyncListExecutable;
 import com.cyanogenmod.filemanager.commands.AsyncResultListener;
+import com.cyanogenmod.filemanager.commands.BatchFileInfoExecutable;
 import com.cyanogenmod.filemanager.commands.ChangeCurrentDirExecutable;
 import com.cyanogenmod.filemanager.commands.ChangeOwnerExecutable;
 import com.cyanogenmod.filemanager.commands.ChangePermissionsExecutable;
@@ -60,6 +62,8 @@ import com.cyanogenmod.filemanager.model.Query;
 import com.cyanogenmod.filemanager.model.User;
 import com.cyanogenmod.filemanager.preferences.CompressionMode;
 
+import java.util.List;
+
 /**
  * A class for create shell {@link "Executable"} objects.
  */
@@ -248,6 +252,16 @@ public class JavaExecutableCreator implements ExecutableCreator {
         return new ListCommand(this.mConsole.getCtx(), src, LIST_MODE.DIRECTORY);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AsyncListExecutable createAsyncListExecutable(
+            String src, AsyncResultListener asyncResultListener)
+            throws CommandNotFoundException {
+        return new AsyncListCommand(src, asyncResultListener);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -257,6 +271,15 @@ public class JavaExecutableCreator implements ExecutableCreator {
         return new ListCommand(this.mConsole.getCtx(), src, LIST_MODE.FILEINFO);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BatchFileInfoExecutable createFileInfoExecutable(
+            List<String> srcs, boolean followSymlinks) throws CommandNotFoundException {
+        return new BatchFileInfoCommand(srcs, followSymlinks);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -357,6 +380,24 @@ public class JavaExecutableCreator implements ExecutableCreator {
         throw new CommandNotFoundException("Not implemented"); //$NON-NLS-1$
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SendSignalExecutable createSendSignalExecutable(int[] processes, SIGNAL signal)
+            throws CommandNotFoundException {
+        throw new CommandNotFoundException("Not implemented"); //$NON-NLS-1$
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SendSignalExecutable createKillExecutable(int[] processes)
+            throws CommandNotFoundException {
+        throw new CommandNotFoundException("Not implemented"); //$NON-NLS-1$
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -97,18 +97,15 @@ public class ListCommand extends Program implements ListExecutable {
             throw new NoSuchFileOrDirectory(this.mSrc);
         }
         if (this.mMode.compareTo(LIST_MODE.DIRECTORY) == 0) {
-            File[] files = f.listFiles();
-            if (files != null) {
-                for (int i = 0; i < files.length; i++) {
-                    FileSystemObject fso = FileHelper.createFileSystemObject(this.mCtx, files[i]);
-                    if (fso != null) {
-                        if (isTrace()) {
-                            Log.v(TAG, String.valueOf(fso));
-                        }
-                        this.mFiles.add(fso);
-                    }
+            // Read the directory once, with a single stat per entry
+            List<FileSystemObject> files = DirectoryReader.read(f, true);
+            if (isTrace()) {
+                int cc = files.size();
+                for (int i = 0; i < cc; i++) {
+                    Log.v(TAG, String.valueOf(files.get(i)));
                 }
             }
+            this.mFiles.addAll(files);
 
             //Now if not is the root directory
             if (this.mSrc != null &&
@@ -0,0 +1,353 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.commands.shell;
+
+import android.util.Log;
+
+import com.cyanogenmod.filemanager.FileManagerApplication;
+import com.cyanogenmod.filemanager.commands.AsyncListExecutable;
+import com.cyanogenmod.filemanager.commands.AsyncResultListener;
+import com.cyanogenmod.filemanager.commands.SIGNAL;
+import com.cyanogenmod.filemanager.console.CommandNotFoundException;
+import com.cyanogenmod.filemanager.console.ConsoleAllocException;
+import com.cyanogenmod.filemanager.console.ExecutionException;
+import com.cyanogenmod.filemanager.console.InsufficientPermissionsException;
+import com.cyanogenmod.filemanager.console.NoSuchFileOrDirectory;
+import com.cyanogenmod.filemanager.console.OperationTimeoutException;
+import com.cyanogenmod.filemanager.console.shell.ShellConsole;
+import com.cyanogenmod.filemanager.model.FileSystemObject;
+import com.cyanogenmod.filemanager.model.ParentDirectory;
+import com.cyanogenmod.filemanager.model.Symlink;
+import com.cyanogenmod.filemanager.util.CommandHelper;
+import com.cyanogenmod.filemanager.util.FileHelper;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A class for list a directory in an asynchronous way.<br/>
+ * <br/>
+ * The command uses the same structured listing than {@link ListCommand} (see
+ * {@link ListRecordParser}), but the records are parsed while the listing is still
+ * being read, and every partial output is communicated as a chunk of objects. The
+ * symlinks are resolved in the same pass, when the target record arrives (the
+ * targets are listed after all the objects).
+ *
+ * {@link "http://unixhelp.ed.ac.uk/CGI/man-cgi?ls"}
+ */
+public class AsyncListCommand extends AsyncResultProgram implements AsyncListExecutable {
+
+    private static final String TAG = "AsyncListCommand"; //$NON-NLS-1$
+
+    private static final String ID = "ls";  //$NON-NLS-1$
+
+    private final List<FileSystemObject> mFiles;
+    private final String mParentDir;
+    private final StringBuilder mPartial;
+    private final Map<String, Symlink> mSymlinks;
+    private final ExitCodeListener mExitCodeListener;
+
+    /**
+     * Constructor of <code>AsyncListCommand</code>.
+     *
+     * @param src The directory to be listed
+     * @param asyncResultListener The partial result listener
+     * @param console The console in which retrieve the parent directory information.
+     * <code>null</code> to attach to the default console
+     * @throws InvalidCommandDefinitionException If the command has an invalid definition
+     * @throws FileNotFoundException If the initial directory not exists
+     * @throws NoSuchFileOrDirectory If the file or directory was not found
+     * @throws IOException If initial directory couldn't be checked
+     * @throws ConsoleAllocException If the console can't be allocated
+     * @throws InsufficientPermissionsException If an operation requires elevated permissions
+     * @throws CommandNotFoundException If the command was not found
+     * @throws OperationTimeoutException If the operation exceeded the maximum time of wait
+     * @throws ExecutionException If the operation returns a invalid exit code
+     */
+    public AsyncListCommand(
+            String src, AsyncResultListener asyncResultListener, ShellConsole console)
+            throws InvalidCommandDefinitionException, FileNotFoundException,
+            NoSuchFileOrDirectory, IOException, ConsoleAllocException,
+            InsufficientPermissionsException, CommandNotFoundException,
+            OperationTimeoutException, ExecutionException {
+        this(src, new ExitCodeListener(asyncResultListener), console);
+    }
+
+    /**
+     * Constructor of <code>AsyncListCommand</code>.
+     *
+     * @param src The directory to be listed
+     * @param exitCodeListener The partial result listener
+     * @param console The console in which retrieve the parent directory information.
+     * <code>null</code> to attach to the default console
+     * @throws InvalidCommandDefinitionException If the command has an invalid definition
+     * @throws FileNotFoundException If the initial directory not exists
+     * @throws NoSuchFileOrDirectory If the file or directory was not found
+     * @throws IOException If initial directory couldn't be checked
+     * @throws ConsoleAllocException If the console can't be allocated
+     * @throws InsufficientPermissionsException If an operation requires elevated permissions
+     * @throws CommandNotFoundException If the command was not found
+     * @throws OperationTimeoutException If the operation exceeded the maximum time of wait
+     * @throws ExecutionException If the operation returns a invalid exit code
+     */
+    private AsyncListCommand(
+            String src, ExitCodeListener exitCodeListener, ShellConsole console)
+            throws InvalidCommandDefinitionException, FileNotFoundException,
+            NoSuchFileOrDirectory, IOException, ConsoleAllocException,
+            InsufficientPermissionsException, CommandNotFoundException,
+            OperationTimeoutException, ExecutionException {
+        //For avoid problems with symlink, always append a / to the end of the path
+        super(ID, exitCodeListener, new String[]{ FileHelper.addTrailingSlash(src) });
+        this.mExitCodeListener = exitCodeListener;
+        this.mFiles = new ArrayList<FileSystemObject>();
+        this.mPartial = new StringBuilder();
+        this.mSymlinks = new HashMap<String, Symlink>();
+
+        //Retrieve parent directory information
+        if (src.compareTo(FileHelper.ROOT_DIRECTORY) == 0) {
+            this.mParentDir = null;
+        } else {
+            this.mParentDir =
+                CommandHelper.getAbsolutePath(
+                        FileManagerApplication.
+                            getInstance().getApplicationContext(), src, console);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<FileSystemObject> getResult() {
+        synchronized (this.mFiles) {
+            return new ArrayList<FileSystemObject>(this.mFiles);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onStartParsePartialResult() {
+        synchronized (this.mFiles) {
+            this.mFiles.clear();
+        }
+        this.mPartial.setLength(0);
+        this.mSymlinks.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onEndParsePartialResult(boolean cancelled) {
+        if (!cancelled) {
+            // The rest of the listing must be complete
+            List<FileSystemObject> partialFiles = new ArrayList<FileSystemObject>();
+            try {
+                new ListRecordParser(this.mPartial).parse(
+                        getParent(), partialFiles, this.mSymlinks);
+                communicate(partialFiles);
+            } catch (ParseException pEx) {
+                Log.w(TAG, "Partial result fails", pEx); //$NON-NLS-1$
+                if (getAsyncResultListener() != null) {
+                    getAsyncResultListener().onException(pEx);
+                }
+            }
+        }
+        this.mPartial.setLength(0);
+        this.mSymlinks.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onParsePartialResult(final String partialIn) {
+        // Parse the complete records (the rest is parsed with the next data)
+        this.mPartial.append(partialIn);
+        List<FileSystemObject> partialFiles = new ArrayList<FileSystemObject>();
+        int parsed = new ListRecordParser(this.mPartial).parsePartial(
+                getParent(), partialFiles, this.mSymlinks);
+        this.mPartial.delete(0, parsed);
+        communicate(partialFiles);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onParseErrorPartialResult(String partialErr) {/**NON BLOCK**/}
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean parseOnlyCompleteLines() {
+        // The parser knows where every record ends
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SIGNAL onRequestEnd() {
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void checkExitCode(int exitCode)
+            throws InsufficientPermissionsException, CommandNotFoundException, ExecutionException {
+        // 123: stat failed ... Function not implemented (for broken symlinks)
+        if (exitCode != 0 && exitCode != 1 && exitCode != 123) {
+            throw new ExecutionException("exitcode != 0 && != 1 && != 123"); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void checkStdErr(int exitCode, String err)
+            throws InsufficientPermissionsException, NoSuchFileOrDirectory,
+            CommandNotFoundException, ExecutionException {
+        super.checkStdErr(exitCode, err);
+
+        // This is the last check of the console. The listing ended successfully
+        this.mExitCodeListener.communicateExitCode();
+    }
+
+    /**
+     * Method that communicates a chunk of the directory.
+     *
+     * @param partialFiles The objects of the chunk
+     */
+    private void communicate(List<FileSystemObject> partialFiles) {
+        synchronized (this.mFiles) {
+            // The parent directory goes first
+            if (this.mFiles.isEmpty() && this.mParentDir != null &&
+                    this.mParentDir.compareTo(FileHelper.ROOT_DIRECTORY) != 0) {
+                partialFiles.add(0, new ParentDirectory(new File(this.mParentDir).getParent()));
+            }
+            if (partialFiles.isEmpty()) {
+                return;
+            }
+            this.mFiles.addAll(partialFiles);
+        }
+
+        //If a listener is defined, then send the partial result
+        if (getAsyncResultListener() != null) {
+            getAsyncResultListener().onPartialResult(partialFiles);
+        }
+    }
+
+    /**
+     * Method that returns the directory listed.
+     *
+     * @return String The directory listed
+     */
+    private String getParent() {
+        return this.mParentDir == null ? FileHelper.ROOT_DIRECTORY : this.mParentDir;
+    }
+
+    /**
+     * A listener that holds back the exit code of the program until the console has
+     * checked the result of the program. The console communicates the exit code before
+     * it checks the exit code and the error output.
+     */
+    private static class ExitCodeListener implements AsyncResultListener {
+        private final AsyncResultListener mListener;
+        private int mExitCode;
+
+        /**
+         * Constructor of <code>ExitCodeListener</code>.
+         *
+         * @param listener The listener of the program
+         */
+        ExitCodeListener(AsyncResultListener listener) {
+            super();
+            this.mListener = listener;
+        }
+
+        /**
+         * Method that communicates the exit code of the program.
+         */
+        void communicateExitCode() {
+            if (this.mListener != null) {
+                this.mListener.onAsyncExitCode(this.mExitCode);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onAsyncStart() {
+            if (this.mListener != null) {
+                this.mListener.onAsyncStart();
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onAsyncEnd(boolean cancelled) {
+            if (this.mListener != null) {
+                this.mListener.onAsyncEnd(cancelled);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onAsyncExitCode(int exitCode) {
+            this.mExitCode = exitCode;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onPartialResult(Object result) {
+            if (this.mListener != null) {
+                this.mListener.onPartialResult(result);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onException(Exception cause) {
+            if (this.mListener != null) {
+                this.mListener.onException(cause);
+            }
+        }
+    }
+}
@@ -19,6 +19,7 @@ package com.cyanogenmod.filemanager.commands.shell;
 import com.cyanogenmod.filemanager.commands.AsyncResultExecutable;
 import com.cyanogenmod.filemanager.commands.AsyncResultListener;
 import com.cyanogenmod.filemanager.commands.SIGNAL;
+import com.cyanogenmod.filemanager.console.ConsoleExecutor;
 import com.cyanogenmod.filemanager.util.FileHelper;
 
 import java.util.ArrayList;
@@ -41,8 +42,13 @@ public abstract class AsyncResultProgram
      */
     static final Byte STDERR = new Byte((byte)1);
 
+    // The maximum number of partial data chunks pending of parse before the producer waits
+    private static final int MAX_PENDING_PARTIAL_DATA = 64;
+    // The maximum number of partial data chunks parsed by a task before queue again the
+    // rest, so a program doesn't hold a thread of the parser executor
+    private static final int MAX_PARSED_PARTIAL_DATA = 16;
+
     private final AsyncResultListener mAsyncResultListener;
-    private AsyncResultProgramThread mWorkerThread;
     /**
      * @hide
      */
@@ -52,14 +58,14 @@ public abstract class AsyncResultProgram
      */
     final List<Byte> mPartialDataType;
     private final Object mSync = new Object();
-    /**
-     * @hide
-     */
-    final Object mTerminateSync = new Object();
+    private boolean mParsing;
+    private boolean mParseScheduled;
+    private final Runnable mParseTask;
 
     private boolean mCancelled;
     private OnCancelListener mOnCancelListener;
     private OnEndListener mOnEndListener;
+    private volatile long mEndTimeout;
 
     private StringBuffer mTempBuffer;
 
@@ -98,7 +104,16 @@ public abstract class AsyncResultProgram
         this.mTempBuffer = new StringBuffer();
         this.mOnCancelListener = null;
         this.mOnEndListener = null;
+        this.mEndTimeout = DEFAULT_TIMEOUT_HINT;
         this.mCancelled = false;
+        this.mParsing = false;
+        this.mParseScheduled = false;
+        this.mParseTask = new Runnable() {
+            @Override
+            public void run() {
+                parsePendingPartialResults();
+            }
+        };
     }
 
     /**
@@ -106,8 +121,9 @@ public abstract class AsyncResultProgram
      * @hide
      */
     public final void onRequestStartParsePartialResult() {
-        this.mWorkerThread = new AsyncResultProgramThread(this.mSync);
-        this.mWorkerThread.start();
+        synchronized (this.mSync) {
+            this.mParsing = true;
+        }
 
         //Notify start to command class
         this.onStartParsePartialResult();
@@ -127,22 +143,20 @@ public abstract class AsyncResultProgram
      */
     public final void onRequestEndParsePartialResult(boolean cancelled) {
         synchronized (this.mSync) {
-            this.mWorkerThread.mAlive = false;
-            this.mSync.notify();
-        }
-        synchronized (this.mTerminateSync) {
-            try {
-                this.mSync.wait();
-            } catch (Exception e) {
-                /**NON BLOCK**/
+            // A cancelled program discards the pending partial results. Otherwise, wait
+            // for the parse of the pending partial results
+            if (cancelled) {
+                this.mParsing = false;
             }
-            try {
-                if (this.mWorkerThread.isAlive()) {
-                    this.mWorkerThread.interrupt();
+            while (this.mParseScheduled) {
+                try {
+                    this.mSync.wait();
+                } catch (InterruptedException e) {
+                    break;
                 }
-            } catch (Exception e) {
-                /**NON BLOCK**/
             }
+            this.mParsing = false;
+            this.mSync.notifyAll();
         }
 
         //Notify end to command class
@@ -191,7 +205,7 @@ public abstract class AsyncResultProgram
             this.mPartialDataType.add(STDIN);
             this.mPartialData.add(data);
             this.mTempBuffer = new StringBuffer();
-            this.mSync.notify();
+            scheduleParse();
         }
     }
 
@@ -219,7 +233,73 @@ public abstract class AsyncResultProgram
             this.mPartialDataType.add(STDERR);
             this.mPartialData.add(data);
             this.mTempBuffer = new StringBuffer();
-            this.mSync.notify();
+            scheduleParse();
+        }
+    }
+
+    /**
+     * Method that schedules the parse of the pending partial results in the parser
+     * executor. Only one parse is scheduled at the same time, so the partial results are
+     * parsed sequentially. If there are too many pending partial results, the caller
+     * waits for the parse (this slows down the reading of the output of the program).
+     * Must be invoked with the lock held.
+     */
+    private void scheduleParse() {
+        if (!this.mParsing) {
+            // Nobody is going to parse the data
+            this.mPartialDataType.clear();
+            this.mPartialData.clear();
+            return;
+        }
+        if (!this.mParseScheduled) {
+            this.mParseScheduled = true;
+            ConsoleExecutor.getParserExecutor().execute(this.mParseTask);
+        }
+        while (this.mParsing && this.mPartialData.size() > MAX_PENDING_PARTIAL_DATA) {
+            try {
+                this.mSync.wait();
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Method that parses sequentially the pending partial results. Every invocation
+     * parses a bounded number of partial results, and queues again the parse of the rest
+     * at the end of the parser executor, so the rest of programs can parse their data too.
+     * @hide
+     */
+    void parsePendingPartialResults() {
+        int parsed = 0;
+        while (true) {
+            Byte type = null;
+            String data = null;
+            synchronized (this.mSync) {
+                if (!this.mParsing || this.mPartialData.isEmpty()) {
+                    this.mParseScheduled = false;
+                    this.mSync.notifyAll();
+                    return;
+                }
+                if (parsed >= MAX_PARSED_PARTIAL_DATA) {
+                    // The parse is still scheduled
+                    ConsoleExecutor.getParserExecutor().execute(this.mParseTask);
+                    return;
+                }
+                type = this.mPartialDataType.remove(0);
+                data = this.mPartialData.remove(0);
+                this.mSync.notifyAll();
+            }
+            try {
+                if (type.compareTo(STDIN) == 0) {
+                    onParsePartialResult(data);
+                } else {
+                    onParseErrorPartialResult(data);
+                }
+            } catch (Throwable ex) {
+                /**NON BLOCK**/
+            }
+            parsed++;
         }
     }
 
@@ -261,10 +341,10 @@ public abstract class AsyncResultProgram
             return false;
         }
 
-        //Stop the thread
+        //Stop the parse of partial results
         synchronized (this.mSync) {
-            this.mWorkerThread.mAlive = false;
-            this.mSync.notify();
+            this.mParsing = false;
+            this.mSync.notifyAll();
         }
 
         //Notify cancellation
@@ -288,14 +368,19 @@ public abstract class AsyncResultProgram
             return false;
         }
 
-        //Stop the thread
+        //Stop the parse of partial results
         synchronized (this.mSync) {
-            this.mWorkerThread.mAlive = false;
-            this.mSync.notify();
+            this.mParsing = false;
+            this.mSync.notifyAll();
         }
 
         //Notify ending
         SIGNAL signal = onRequestEnd();
+        if (isEndedByItself()) {
+            // The program has finished on its own. There is nothing to kill (the
+            // console may be already executing other program)
+            return true;
+        }
         if (this.mOnEndListener != null) {
             if (signal == null) {
                 this.mCancelled = this.mOnEndListener.onEnd();
@@ -307,6 +392,39 @@ public abstract class AsyncResultProgram
         return false;
     }
 
+    /**
+     * Method that returns if the program has already finished on its own when
+     * its end was requested. It is queried just after {@link #onRequestEnd()}; when
+     * it returns <code>true</code> the program isn't killed nor signaled.
+     *
+     * @return boolean If the program has already finished on its own
+     */
+    @SuppressWarnings("static-method")
+    protected boolean isEndedByItself() {
+        return false;
+    }
+
+    /**
+     * Method that returns the maximum time that the program should wait
+     * for finish on its own after its end was requested.
+     *
+     * @return long The timeout in milliseconds
+     */
+    protected final long getEndTimeout() {
+        return this.mEndTimeout;
+    }
+
+    /**
+     * Method that sets the maximum time that the program should wait
+     * for finish on its own after its end was requested.
+     *
+     * @param endTimeout The timeout in milliseconds
+     * @hide
+     */
+    public final void setEndTimeout(long endTimeout) {
+        this.mEndTimeout = endTimeout;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -343,62 +461,4 @@ public abstract class AsyncResultProgram
         return true;
     }
 
-    /**
-     * An internal class for process partial results sequentially in a
-     * secure way.
-     */
-    private class AsyncResultProgramThread extends Thread {
-        boolean mAlive = true;
-        private final Object mSyncObj;
-
-        /**
-         * Constructor of <code>AsyncResultProgramThread</code>.
-         *
-         * @param sync The synchronized object
-         */
-        AsyncResultProgramThread(Object sync) {
-            super();
-            this.mSyncObj = sync;
-        }
-
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public void run() {
-            try {
-                this.mAlive = true;
-                while (this.mAlive) {
-                   synchronized (this.mSyncObj) {
-                       this.mSyncObj.wait();
-                       while (AsyncResultProgram.this.mPartialData.size() > 0) {
-                           if (!this.mAlive) {
-                               return;
-                           }
-                           Byte type = AsyncResultProgram.this.mPartialDataType.remove(0);
-                           String data = AsyncResultProgram.this.mPartialData.remove(0);
-                           try {
-                               if (type.compareTo(STDIN) == 0) {
-                                   AsyncResultProgram.this.onParsePartialResult(data);
-                               } else {
-                                   AsyncResultProgram.this.onParseErrorPartialResult(data);
-                               }
-                           } catch (Throwable ex) {
-                               /**NON BLOCK**/
-                           }
-                       }
-                   }
-                }
-            } catch (Exception e) {
-                /**NON BLOCK**/
-
-            } finally {
-                this.mAlive = false;
-                synchronized (AsyncResultProgram.this.mTerminateSync) {
-                    AsyncResultProgram.this.mTerminateSync.notify();
-                }
-            }
-        }
-    }
-
 }
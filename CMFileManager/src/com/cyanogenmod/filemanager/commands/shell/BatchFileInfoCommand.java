@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.commands.shell;
+
+import com.cyanogenmod.filemanager.commands.BatchFileInfoExecutable;
+import com.cyanogenmod.filemanager.console.CommandNotFoundException;
+import com.cyanogenmod.filemanager.console.ExecutionException;
+import com.cyanogenmod.filemanager.console.InsufficientPermissionsException;
+import com.cyanogenmod.filemanager.model.FileSystemObject;
+import com.cyanogenmod.filemanager.model.Symlink;
+import com.cyanogenmod.filemanager.util.AIDCache;
+import com.cyanogenmod.filemanager.util.FileHelper;
+import com.cyanogenmod.filemanager.util.ParseHelper;
+
+import java.io.File;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * A class for retrieve the information of a list of files and directories in a single
+ * invocation. Every file is described by a block of lines:<br/>
+ * <br/>
+ * <code>Smode/uid/user/gid/group/size/mtime/</code><br/>
+ * <code>Llink</code><br/>
+ * <code>Rreal path</code><br/>
+ * <code>Tmode/uid/user/gid/group/size/mtime/</code><br/>
+ * <code>/</code><br/>
+ * <br/>
+ * where the <code>S</code> record has the raw attributes of the file (as returned by
+ * <code>stat -c</code>), the <code>L</code>, <code>R</code> and <code>T</code> lines
+ * (only for symlinks) have the link, the real path and the raw attributes of the target,
+ * and the <code>/</code> line ends the block. The block of a file that doesn't exist
+ * only has the end line.
+ *
+ * {@link "http://unixhelp.ed.ac.uk/CGI/man-cgi?stat"}
+ */
+public class BatchFileInfoCommand extends SyncResultProgram implements BatchFileInfoExecutable {
+
+    private static final String ID = "fileinfos";  //$NON-NLS-1$
+
+    private static final String END_OF_BLOCK = "/"; //$NON-NLS-1$
+    private static final char STAT = 'S';
+    private static final char LINK = 'L';
+    private static final char REAL_PATH = 'R';
+    private static final char TARGET = 'T';
+
+    private final List<String> mSrcs;
+    private final boolean mFollowSymlinks;
+    private List<FileSystemObject> mFiles;
+
+    /**
+     * Constructor of <code>BatchFileInfoCommand</code>.
+     *
+     * @param srcs The file system objects to retrieve
+     * @param followSymlinks If follow the symlinks
+     * @throws InvalidCommandDefinitionException If the command has an invalid definition
+     */
+    public BatchFileInfoCommand(List<String> srcs, boolean followSymlinks)
+            throws InvalidCommandDefinitionException {
+        super(ID);
+        this.mSrcs = new ArrayList<String>(srcs);
+        this.mFollowSymlinks = followSymlinks;
+        this.mFiles = new ArrayList<FileSystemObject>();
+
+        //Expand the paths of the files
+        addExpandedArguments(this.mSrcs.toArray(new String[this.mSrcs.size()]), true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void parse(String in, String err) throws ParseException {
+        List<FileSystemObject> files = new ArrayList<FileSystemObject>(this.mSrcs.size());
+        String stat = null;
+        String link = null;
+        String realPath = null;
+        String target = null;
+        int start = 0;
+        int len = in.length();
+        while (start < len && files.size() < this.mSrcs.size()) {
+            int end = in.indexOf('\n', start);
+            if (end == -1) {
+                end = len;
+            }
+            String line = in.substring(start, end);
+            start = end + 1;
+            if (line.length() == 0) {
+                continue;
+            }
+            if (line.compareTo(END_OF_BLOCK) == 0) {
+                files.add(
+                        createObject(
+                                this.mSrcs.get(files.size()), stat, link, realPath, target));
+                stat = null;
+                link = null;
+                realPath = null;
+                target = null;
+                continue;
+            }
+            String value = line.substring(1);
+            switch (line.charAt(0)) {
+                case STAT:
+                    stat = value;
+                    break;
+                case LINK:
+                    link = value;
+                    break;
+                case REAL_PATH:
+                    realPath = value;
+                    break;
+                case TARGET:
+                    target = value;
+                    break;
+                default:
+                    throw new ParseException("unexpected line: " + line, start); //$NON-NLS-1$
+            }
+        }
+        if (files.size() != this.mSrcs.size()) {
+            throw new ParseException("incomplete output", len); //$NON-NLS-1$
+        }
+        this.mFiles = files;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<FileSystemObject> getResult() {
+        return this.mFiles;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void checkExitCode(int exitCode)
+            throws InsufficientPermissionsException, CommandNotFoundException, ExecutionException {
+        //Safely ignore. The files that don't exist have an empty block
+    }
+
+    /**
+     * Method that creates the object of a block.
+     *
+     * @param path The path of the file
+     * @param stat The attributes of the file
+     * @param link The link of the file (only for symlinks)
+     * @param realPath The real path of the file (only for symlinks)
+     * @param target The attributes of the target of the file (only for symlinks)
+     * @return FileSystemObject The file system object reference, or <code>null</code>
+     * if the file doesn't exist (or the target of symlink, if the symlinks are followed)
+     * @throws ParseException If the block can't be parsed
+     */
+    private FileSystemObject createObject(
+            String path, String stat, String link, String realPath, String target)
+            throws ParseException {
+        if (stat == null) {
+            return null;
+        }
+        FileSystemObject fso = createObject(path, link, stat);
+        if (!(fso instanceof Symlink)) {
+            return fso;
+        }
+
+        // Resolve the symlink. A symlink without target is a broken symlink
+        Symlink symlink = (Symlink)fso;
+        FileSystemObject ref = null;
+        if (realPath != null && realPath.length() > 0 && target != null) {
+            ref = createObject(realPath, null, target);
+        }
+        symlink.setLinkRef(ref);
+        return this.mFollowSymlinks ? ref : symlink;
+    }
+
+    /**
+     * Method that creates an object from the raw attributes of a file
+     * (<code>mode/uid/user/gid/group/size/mtime/</code>).
+     *
+     * @param path The path of the file
+     * @param link The link of the file (only for symlinks)
+     * @param record The raw attributes of the file
+     * @return FileSystemObject The file system object reference
+     * @throws ParseException If the attributes can't be parsed
+     */
+    private static FileSystemObject createObject(String path, String link, String record)
+            throws ParseException {
+        String[] fields = record.split(END_OF_BLOCK);
+        if (fields.length < 7) {
+            throw new ParseException("invalid record: " + record, 0); //$NON-NLS-1$
+        }
+        File f = new File(path);
+        String parent = f.getParent();
+        if (parent == null) {
+            parent = FileHelper.ROOT_DIRECTORY;
+        }
+        try {
+            return ParseHelper.toFileSystemObject(
+                    parent, f.getName(), link,
+                    Integer.parseInt(fields[0], 16),
+                    AIDCache.getUser(Integer.parseInt(fields[1]), fields[2]),
+                    AIDCache.getGroup(Integer.parseInt(fields[3]), fields[4]),
+                    Long.parseLong(fields[5]),
+                    Long.parseLong(fields[6]) * 1000L);
+        } catch (NumberFormatException nfEx) {
+            throw new ParseException("invalid record: " + record, 0); //$NON-NLS-1$
+        }
+    }
+}
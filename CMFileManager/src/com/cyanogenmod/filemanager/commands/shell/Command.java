@@ -17,22 +17,14 @@
 package com.cyanogenmod.filemanager.commands.shell;
 
 import android.content.res.Resources;
-import android.content.res.XmlResourceParser;
 
-import com.android.internal.util.XmlUtils;
 import com.cyanogenmod.filemanager.FileManagerApplication;
-import com.cyanogenmod.filemanager.R;
 import com.cyanogenmod.filemanager.console.CommandNotFoundException;
 import com.cyanogenmod.filemanager.console.ExecutionException;
 import com.cyanogenmod.filemanager.console.InsufficientPermissionsException;
-import com.cyanogenmod.filemanager.preferences.FileManagerSettings;
 import com.cyanogenmod.filemanager.preferences.Preferences;
 import com.cyanogenmod.filemanager.util.ShellHelper;
 
-import org.xmlpull.v1.XmlPullParserException;
-
-import java.io.IOException;
-
 /**
  * An abstract class that represents a command to be executed
  * in the underlying operating system.
@@ -41,12 +33,6 @@ import java.io.IOException;
  */
 public abstract class Command {
 
-    // Command list XML tags
-    private static final String TAG_COMMAND_LIST = "CommandList"; //$NON-NLS-1$
-    private static final String TAG_COMMAND = "command"; //$NON-NLS-1$
-    private static final String TAG_STARTCODE = "startcode"; //$NON-NLS-1$
-    private static final String TAG_EXITCODE = "exitcode"; //$NON-NLS-1$
-
     private static final String EXPANDED_ARGS = "[@]"; //$NON-NLS-1$
 
     private final String mId;
@@ -54,9 +40,6 @@ public abstract class Command {
     private String mArgs;   // The real arguments
     private final Object[] mCmdArgs;  //The arguments to be formatted
 
-    private static String sStartCodeCmd;
-    private static String sExitCodeCmd;
-
     private boolean mTrace;
 
     /**
@@ -153,9 +136,7 @@ public abstract class Command {
      * Method that reload the status of trace setting
      */
     public final void reloadTrace() {
-        this.mTrace = Preferences.getSharedPreferences().getBoolean(
-                FileManagerSettings.SETTINGS_SHOW_TRACES.getId(),
-                ((Boolean)FileManagerSettings.SETTINGS_SHOW_TRACES.getDefaultValue()).booleanValue());
+        this.mTrace = Preferences.getSnapshot().isShowTraces();
     }
 
     /**
@@ -206,118 +187,33 @@ public abstract class Command {
     }
 
     /**
-     * Method that loads the resource command list xml and
+     * Method that loads the command definition from the command registry and
      * inflate the internal variables.
      *
      * @param resources The application resource manager
      * @throws InvalidCommandDefinitionException If the command has an invalid definition
      */
     private void getCommandInfo(Resources resources) throws InvalidCommandDefinitionException {
+        CommandDefinitionRegistry.Definition definition =
+                CommandDefinitionRegistry.getInstance(resources).getDefinition(this.mId);
 
-        //Read the command list xml file
-        XmlResourceParser parser = resources.getXml(R.xml.command_list);
-
-        try {
-            //Find the root element
-            XmlUtils.beginDocument(parser, TAG_COMMAND_LIST);
-            while (true) {
-                XmlUtils.nextElement(parser);
-                String element = parser.getName();
-                if (element == null) {
-                    break;
-                }
-
-                if (TAG_COMMAND.equals(element)) {
-                    CharSequence id = parser.getAttributeValue(R.styleable.Command_commandId);
-                    if (id != null && id.toString().compareTo(this.mId) == 0) {
-                        CharSequence path =
-                                parser.getAttributeValue(R.styleable.Command_commandPath);
-                        CharSequence args =
-                                parser.getAttributeValue(R.styleable.Command_commandArgs);
-                        if (path == null) {
-                            throw new InvalidCommandDefinitionException(
-                                    this.mId + ": path is null"); //$NON-NLS-1$
-                        }
-                        if (args == null) {
-                            throw new InvalidCommandDefinitionException(
-                                    this.mId + ": args is null"); //$NON-NLS-1$
-                        }
-
-                        //Save paths
-                        this.mCmd = path.toString();
-                        this.mArgs = args.toString();
-                        //Format the arguments of the process with the command arguments
-                        if (this.mArgs != null && this.mArgs.length() > 0
-                                && this.mCmdArgs != null && this.mCmdArgs.length > 0) {
-                            this.mArgs = String.format(this.mArgs, this.mCmdArgs);
-                        }
-
-                        return;
-                    }
-                }
-            }
-        } catch (XmlPullParserException e) {
-            throw new RuntimeException(e);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        } finally {
-            parser.close();
-        }
-
-        //Command not found
-        throw new InvalidCommandDefinitionException(this.mId);
+        //Save paths
+        this.mCmd = definition.getPath();
+        //Format the arguments of the process with the command arguments
+        this.mArgs = definition.formatArgs(this.mCmdArgs);
     }
 
     /**
-     * Method that returns the exit code command info.
+     * Method that returns the start code command info.
      *
      * @param resources The application resource manager
-     * @return String The exit code command info
+     * @return String The start code command info
      * @throws InvalidCommandDefinitionException If the command is not present or has an
      * invalid definition
      */
-    public static synchronized String getStartCodeCommandInfo(
+    public static String getStartCodeCommandInfo(
             Resources resources) throws InvalidCommandDefinitionException {
-        //Singleton
-        if (sStartCodeCmd != null) {
-            return new String(sStartCodeCmd);
-        }
-
-        //Read the command list xml file
-        XmlResourceParser parser = resources.getXml(R.xml.command_list);
-
-        try {
-            //Find the root element
-            XmlUtils.beginDocument(parser, TAG_COMMAND_LIST);
-            while (true) {
-                XmlUtils.nextElement(parser);
-                String element = parser.getName();
-                if (element == null) {
-                    break;
-                }
-
-                if (TAG_STARTCODE.equals(element)) {
-                    CharSequence path = parser.getAttributeValue(R.styleable.Command_commandPath);
-                    if (path == null) {
-                        throw new InvalidCommandDefinitionException(
-                                TAG_STARTCODE + ": path is null"); //$NON-NLS-1$
-                    }
-
-                    //Save paths
-                    sStartCodeCmd = path.toString();
-                    return new String(sStartCodeCmd);
-                }
-            }
-        } catch (XmlPullParserException e) {
-            throw new RuntimeException(e);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        } finally {
-            parser.close();
-        }
-
-        //Command not found
-        throw new InvalidCommandDefinitionException(TAG_STARTCODE);
+        return CommandDefinitionRegistry.getInstance(resources).getStartCode().getPattern();
     }
 
     /**
@@ -328,47 +224,21 @@ public abstract class Command {
      * @throws InvalidCommandDefinitionException If the command is not present or has an
      * invalid definition
      */
-    public static synchronized String getExitCodeCommandInfo(
+    public static String getExitCodeCommandInfo(
             Resources resources) throws InvalidCommandDefinitionException {
-        //Singleton
-        if (sExitCodeCmd != null) {
-            return new String(sExitCodeCmd);
-        }
-
-        //Read the command list xml file
-        XmlResourceParser parser = resources.getXml(R.xml.command_list);
-
-        try {
-            //Find the root element
-            XmlUtils.beginDocument(parser, TAG_COMMAND_LIST);
-            while (true) {
-                XmlUtils.nextElement(parser);
-                String element = parser.getName();
-                if (element == null) {
-                    break;
-                }
-
-                if (TAG_EXITCODE.equals(element)) {
-                    CharSequence path = parser.getAttributeValue(R.styleable.Command_commandPath);
-                    if (path == null) {
-                        throw new InvalidCommandDefinitionException(
-                                TAG_EXITCODE + ": path is null"); //$NON-NLS-1$
-                    }
-
-                    //Save paths
-                    sExitCodeCmd = path.toString();
-                    return new String(sExitCodeCmd);
-                }
-            }
-        } catch (XmlPullParserException e) {
-            throw new RuntimeException(e);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        } finally {
-            parser.close();
-        }
+        return CommandDefinitionRegistry.getInstance(resources).getExitCode().getPattern();
+    }
 
-        //Command not found
-        throw new InvalidCommandDefinitionException(TAG_EXITCODE);
+    /**
+     * Method that returns the pid code command info.
+     *
+     * @param resources The application resource manager
+     * @return String The pid code command info
+     * @throws InvalidCommandDefinitionException If the command is not present or has an
+     * invalid definition
+     */
+    public static String getPidCodeCommandInfo(
+            Resources resources) throws InvalidCommandDefinitionException {
+        return CommandDefinitionRegistry.getInstance(resources).getPidCode().getPattern();
     }
 }
@@ -0,0 +1,317 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.commands.shell;
+
+import android.content.res.Resources;
+import android.content.res.XmlResourceParser;
+
+import com.android.internal.util.XmlUtils;
+import com.cyanogenmod.filemanager.FileManagerApplication;
+import com.cyanogenmod.filemanager.R;
+
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An immutable registry of the command definitions of <code>command_list.xml</code>.<br/>
+ * <br/>
+ * The command list is parsed only once per process, and the format strings of the
+ * commands and of the control codes are split when the registry is loaded, so the creation
+ * of a {@link Command} only needs to format its arguments.
+ *
+ * @see "command_list.xml"
+ */
+public final class CommandDefinitionRegistry {
+
+    // Command list XML tags
+    private static final String TAG_COMMAND_LIST = "CommandList"; //$NON-NLS-1$
+    private static final String TAG_COMMAND = "command"; //$NON-NLS-1$
+    private static final String TAG_STARTCODE = "startcode"; //$NON-NLS-1$
+    private static final String TAG_EXITCODE = "exitcode"; //$NON-NLS-1$
+    private static final String TAG_PIDCODE = "pidcode"; //$NON-NLS-1$
+
+    /**
+     * The definition of a command.
+     */
+    public static final class Definition {
+        private final String mId;
+        private final String mPath;
+        private final String mArgs;
+        private final FormatTemplate mArgsTemplate;
+
+        /**
+         * Constructor of <code>Definition</code>.
+         *
+         * @param id The identifier of the command
+         * @param path The path of the command (null if not defined)
+         * @param args The arguments of the command (null if not defined)
+         */
+        Definition(String id, String path, String args) {
+            super();
+            this.mId = id;
+            this.mPath = path;
+            this.mArgs = args;
+            this.mArgsTemplate = args == null ? null : new FormatTemplate(args);
+        }
+
+        /**
+         * Method that returns the identifier of the command.
+         *
+         * @return String The identifier of the command
+         */
+        public String getId() {
+            return this.mId;
+        }
+
+        /**
+         * Method that returns the full qualified path of the command.
+         *
+         * @return String The path of the command
+         */
+        public String getPath() {
+            return this.mPath;
+        }
+
+        /**
+         * Method that returns the (unformatted) arguments of the command.
+         *
+         * @return String The arguments of the command
+         */
+        public String getArgs() {
+            return this.mArgs;
+        }
+
+        /**
+         * Method that returns the arguments of the command formatted with the
+         * command arguments.
+         *
+         * @param cmdArgs The command arguments
+         * @return String The formatted arguments
+         */
+        public String formatArgs(Object[] cmdArgs) {
+            if (this.mArgs.length() == 0 || cmdArgs == null || cmdArgs.length == 0) {
+                return this.mArgs;
+            }
+            return this.mArgsTemplate.format(cmdArgs);
+        }
+    }
+
+    private static CommandDefinitionRegistry sInstance;
+
+    private final Map<String, Definition> mDefinitions;
+    private final FormatTemplate mStartCode;
+    private final FormatTemplate mExitCode;
+    private final FormatTemplate mPidCode;
+
+    /**
+     * Constructor of <code>CommandDefinitionRegistry</code>.
+     *
+     * @param definitions The command definitions
+     * @param startCode The start code template (null if not defined)
+     * @param exitCode The exit code template (null if not defined)
+     * @param pidCode The pid code template (null if not defined)
+     */
+    private CommandDefinitionRegistry(Map<String, Definition> definitions,
+            FormatTemplate startCode, FormatTemplate exitCode, FormatTemplate pidCode) {
+        super();
+        this.mDefinitions = Collections.unmodifiableMap(definitions);
+        this.mStartCode = startCode;
+        this.mExitCode = exitCode;
+        this.mPidCode = pidCode;
+    }
+
+    /**
+     * Method that returns the registry of the application.
+     *
+     * @return CommandDefinitionRegistry The registry
+     */
+    public static CommandDefinitionRegistry getInstance() {
+        return getInstance(FileManagerApplication.getInstance().getResources());
+    }
+
+    /**
+     * Method that returns the registry of the application (the command list is loaded
+     * the first time).
+     *
+     * @param resources The application resource manager
+     * @return CommandDefinitionRegistry The registry
+     */
+    public static synchronized CommandDefinitionRegistry getInstance(Resources resources) {
+        if (sInstance == null) {
+            sInstance = load(resources);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Method that parses the command list.
+     *
+     * @param resources The application resource manager
+     * @return CommandDefinitionRegistry A new registry with the command definitions
+     */
+    public static CommandDefinitionRegistry load(Resources resources) {
+        Map<String, Definition> definitions = new HashMap<String, Definition>();
+        String startCode = null;
+        String exitCode = null;
+        String pidCode = null;
+
+        //Read the command list xml file
+        XmlResourceParser parser = resources.getXml(R.xml.command_list);
+        try {
+            //Find the root element
+            XmlUtils.beginDocument(parser, TAG_COMMAND_LIST);
+            while (true) {
+                XmlUtils.nextElement(parser);
+                String element = parser.getName();
+                if (element == null) {
+                    break;
+                }
+
+                if (TAG_COMMAND.equals(element)) {
+                    CharSequence id = parser.getAttributeValue(R.styleable.Command_commandId);
+                    if (id == null || definitions.containsKey(id.toString())) {
+                        // The first definition wins
+                        continue;
+                    }
+                    CharSequence path =
+                            parser.getAttributeValue(R.styleable.Command_commandPath);
+                    CharSequence args =
+                            parser.getAttributeValue(R.styleable.Command_commandArgs);
+                    definitions.put(id.toString(), new Definition(
+                            id.toString(),
+                            path == null ? null : path.toString(),
+                            args == null ? null : args.toString()));
+
+                } else if (TAG_STARTCODE.equals(element) && startCode == null) {
+                    startCode = getPath(parser);
+                } else if (TAG_EXITCODE.equals(element) && exitCode == null) {
+                    exitCode = getPath(parser);
+                } else if (TAG_PIDCODE.equals(element) && pidCode == null) {
+                    pidCode = getPath(parser);
+                }
+            }
+        } catch (XmlPullParserException e) {
+            throw new RuntimeException(e);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            parser.close();
+        }
+
+        return new CommandDefinitionRegistry(
+                definitions,
+                startCode == null ? null : new FormatTemplate(startCode),
+                exitCode == null ? null : new FormatTemplate(exitCode),
+                pidCode == null ? null : new FormatTemplate(pidCode));
+    }
+
+    /**
+     * Method that returns the path attribute of the current element.
+     *
+     * @param parser The parser
+     * @return String The path attribute, or null if isn't defined
+     */
+    private static String getPath(XmlResourceParser parser) {
+        CharSequence path = parser.getAttributeValue(R.styleable.Command_commandPath);
+        return path == null ? null : path.toString();
+    }
+
+    /**
+     * Method that returns the definition of a command.
+     *
+     * @param id The identifier of the command
+     * @return Definition The definition of the command
+     * @throws InvalidCommandDefinitionException If the command is not present or has an
+     * invalid definition
+     */
+    public Definition getDefinition(String id) throws InvalidCommandDefinitionException {
+        Definition definition = this.mDefinitions.get(id);
+        if (definition == null) {
+            //Command not found
+            throw new InvalidCommandDefinitionException(id);
+        }
+        if (definition.getPath() == null) {
+            throw new InvalidCommandDefinitionException(
+                    id + ": path is null"); //$NON-NLS-1$
+        }
+        if (definition.getArgs() == null) {
+            throw new InvalidCommandDefinitionException(
+                    id + ": args is null"); //$NON-NLS-1$
+        }
+        return definition;
+    }
+
+    /**
+     * Method that returns the number of commands of the registry.
+     *
+     * @return int The number of commands
+     */
+    public int size() {
+        return this.mDefinitions.size();
+    }
+
+    /**
+     * Method that returns the start code template.
+     *
+     * @return FormatTemplate The start code template
+     * @throws InvalidCommandDefinitionException If the start code is not present
+     */
+    public FormatTemplate getStartCode() throws InvalidCommandDefinitionException {
+        return checkTemplate(this.mStartCode, TAG_STARTCODE);
+    }
+
+    /**
+     * Method that returns the exit code template.
+     *
+     * @return FormatTemplate The exit code template
+     * @throws InvalidCommandDefinitionException If the exit code is not present
+     */
+    public FormatTemplate getExitCode() throws InvalidCommandDefinitionException {
+        return checkTemplate(this.mExitCode, TAG_EXITCODE);
+    }
+
+    /**
+     * Method that returns the pid code template.
+     *
+     * @return FormatTemplate The pid code template
+     * @throws InvalidCommandDefinitionException If the pid code is not present
+     */
+    public FormatTemplate getPidCode() throws InvalidCommandDefinitionException {
+        return checkTemplate(this.mPidCode, TAG_PIDCODE);
+    }
+
+    /**
+     * Method that checks that a control code template is defined.
+     *
+     * @param template The template
+     * @param tag The tag of the control code
+     * @return FormatTemplate The template
+     * @throws InvalidCommandDefinitionException If the template is not present
+     */
+    private static FormatTemplate checkTemplate(FormatTemplate template, String tag)
+            throws InvalidCommandDefinitionException {
+        if (template == null) {
+            throw new InvalidCommandDefinitionException(tag);
+        }
+        return template;
+    }
+
+}
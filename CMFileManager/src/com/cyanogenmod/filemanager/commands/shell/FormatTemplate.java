@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.commands.shell;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An immutable format string of a command definition, split once in literal fragments and
+ * argument references.<br/>
+ * <br/>
+ * The command definitions only use string arguments (<code>%s</code> and
+ * <code>%n$s</code>) and the <code>%%</code> escape, so the format of a template is a
+ * simple concatenation. A template with any other format specifier (i.e. an overlay) is
+ * formatted with {@link String#format(String, Object...)}.
+ */
+public final class FormatTemplate {
+
+    private final String mPattern;
+    // The literal fragments. mFragments[i] goes before the argument mIndexes[i]
+    private final String[] mFragments;
+    private final int[] mIndexes;
+    private final boolean mSimple;
+    private final int mLength;
+
+    /**
+     * Constructor of <code>FormatTemplate</code>.
+     *
+     * @param pattern The format string
+     */
+    public FormatTemplate(String pattern) {
+        super();
+        this.mPattern = pattern;
+
+        List<String> fragments = new ArrayList<String>();
+        List<Integer> indexes = new ArrayList<Integer>();
+        StringBuilder sb = new StringBuilder();
+        boolean simple = true;
+        int ordinal = 0;
+        int cc = pattern.length();
+        int i = 0;
+        while (i < cc && simple) {
+            char c = pattern.charAt(i);
+            if (c != '%') {
+                sb.append(c);
+                i++;
+                continue;
+            }
+            if (i + 1 >= cc) {
+                simple = false;
+                break;
+            }
+            char next = pattern.charAt(i + 1);
+            if (next == '%') {
+                sb.append('%');
+                i += 2;
+            } else if (next == 's') {
+                fragments.add(sb.toString());
+                indexes.add(Integer.valueOf(ordinal));
+                sb.setLength(0);
+                ordinal++;
+                i += 2;
+            } else {
+                // %n$s
+                int j = i + 1;
+                int index = 0;
+                while (j < cc && pattern.charAt(j) >= '0' && pattern.charAt(j) <= '9') {
+                    index = (index * 10) + (pattern.charAt(j) - '0');
+                    j++;
+                }
+                if (j == i + 1 || index == 0 || j + 1 >= cc
+                        || pattern.charAt(j) != '$' || pattern.charAt(j + 1) != 's') {
+                    simple = false;
+                    break;
+                }
+                fragments.add(sb.toString());
+                indexes.add(Integer.valueOf(index - 1));
+                sb.setLength(0);
+                i = j + 2;
+            }
+        }
+        fragments.add(sb.toString());
+
+        this.mSimple = simple;
+        this.mFragments = fragments.toArray(new String[fragments.size()]);
+        this.mIndexes = new int[indexes.size()];
+        int length = 0;
+        for (int j = 0; j < this.mIndexes.length; j++) {
+            this.mIndexes[j] = indexes.get(j).intValue();
+        }
+        for (int j = 0; j < this.mFragments.length; j++) {
+            length += this.mFragments[j].length();
+        }
+        this.mLength = length;
+    }
+
+    /**
+     * Method that returns the format string of the template.
+     *
+     * @return String The format string
+     */
+    public String getPattern() {
+        return this.mPattern;
+    }
+
+    /**
+     * Method that returns if the template has arguments references.
+     *
+     * @return boolean If the template has arguments references
+     */
+    public boolean hasArguments() {
+        return !this.mSimple || this.mIndexes.length > 0;
+    }
+
+    /**
+     * Method that formats the template with the arguments. The result is the same
+     * as {@link String#format(String, Object...)}.
+     *
+     * @param args The arguments
+     * @return String The formatted string
+     */
+    public String format(Object... args) {
+        if (!this.mSimple) {
+            return String.format(this.mPattern, args);
+        }
+        int cc = this.mIndexes.length;
+        for (int i = 0; i < cc; i++) {
+            if (this.mIndexes[i] >= args.length) {
+                // Let the formatter report the missing argument
+                return String.format(this.mPattern, args);
+            }
+        }
+        StringBuilder sb = new StringBuilder(this.mLength + (cc * 16));
+        for (int i = 0; i < cc; i++) {
+            sb.append(this.mFragments[i]);
+            sb.append(String.valueOf(args[this.mIndexes[i]]));
+        }
+        sb.append(this.mFragments[cc]);
+        return sb.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return this.mPattern;
+    }
+
+}
@@ -43,7 +43,10 @@ import java.util.List;
 
 
 /**
- * A class for list information about files and directories.
+ * A class for list information about files and directories.<br/>
+ * <br/>
+ * The directory listing is a structured listing of the raw attributes of the objects
+ * (see {@link ListRecordParser}), so the symlinks are resolved in the same pass.
  *
  * {@link "http://unixhelp.ed.ac.uk/CGI/man-cgi?ls"}
  */
@@ -52,9 +55,6 @@ public class ListCommand extends SyncResultProgram implements ListExecutable {
     private static final String ID_LS_DIRECTORY = "ls";  //$NON-NLS-1$
     private static final String ID_LS_INFO = "fileinfo";  //$NON-NLS-1$
 
-    private static final String SYMLINK_REF = ">SIMLINKS>";  //$NON-NLS-1$
-    private static final String SYMLINK_DATA_REF = ">SIMLINKS_DATA>";  //$NON-NLS-1$
-
     private final String mSrc;
     private final LIST_MODE mMode;
     private final List<FileSystemObject> mFiles;
@@ -171,159 +171,55 @@ public class ListCommand extends SyncResultProgram implements ListExecutable {
         //Release the array
         this.mFiles.clear();
 
+        if (this.mMode.compareTo(LIST_MODE.DIRECTORY) == 0) {
+            // The directory listing is a structured listing (one record per object)
+            try {
+                new ListRecordParser(in).parse(
+                        this.mParentDir == null ? FileHelper.ROOT_DIRECTORY : this.mParentDir,
+                        this.mFiles);
+            } catch (ParseException pEx) {
+                throw pEx;
+            } catch (Exception ex) {
+                throw new ParseException(ex.getMessage(), 0);
+            }
+
+            // Add the parent directory
+            if (this.mParentDir != null &&
+                    this.mParentDir.compareTo(FileHelper.ROOT_DIRECTORY) != 0) {
+                this.mFiles.add(0, new ParentDirectory(new File(this.mParentDir).getParent()));
+            }
+            return;
+        }
+
         // Check the in buffer to extract information
         BufferedReader br = null;
         int line = 0;
         try {
             br = new BufferedReader(new StringReader(in));
             String szLine = null;
-            boolean symlinks = false;
-            int symlinksCount = 0;
             while ((szLine = br.readLine()) != null) {
                 //Checks that there is some text in the line. Otherwise ignore it
                 if (szLine.trim().length() == 0) {
                     break;
                 }
 
-                //For a fast recovery, command return non symlink first and
-                //symlinks files, the resolution and the his info
-                //Is now symlinks?
-                if (szLine.startsWith(SYMLINK_REF)) {
-                    //Ignore the control line
-                    szLine = br.readLine();
-                    line++;
-                    symlinks = true;
-                }
-
                 //Parse the line into a FileSystemObject reference
-                if (!symlinks) {
-                    try {
-                        FileSystemObject fso =
-                                ParseHelper.toFileSystemObject(this.mParentDir, szLine);
-                        if (this.mMode.compareTo(LIST_MODE.FILEINFO) == 0 &&
-                            fso instanceof Symlink) {
-                            // In some situations, xe when the name has a -> the name is
-                            // incorrect resolved, but src name should by fine in this case
-                            fso.setName(new File(this.mSrc).getName());
-                            // The symlink is not resolved here
-                        }
-                        this.mFiles.add(fso);
-                    } catch (ParseException pEx) {
-                        throw new ParseException(pEx.getMessage(), line);
-                    }
-                } else {
-                    //Is ending symlink reference
-                    if (szLine.startsWith(SYMLINK_DATA_REF)) {
-                        if (symlinksCount == 0) {
-                            //No more data
-                            break;
-                        }
-                        //Ignore the control line
-                        szLine = br.readLine();
-                        line++;
-
-                        //The next information is known:  symlinksCount * 3
-                        String[] name = new String[symlinksCount];
-                        String[] absPath = new String[symlinksCount];
-                        String[] refPath = new String[symlinksCount];
-                        for (int i = 0; i < symlinksCount; i++) {
-                            if (szLine == null || szLine.trim().length() == 0) {
-                                name[i] = null;
-                                szLine = br.readLine();
-                                line++;
-                                continue;
-                            }
-                            name[i] = szLine;
-                            szLine = br.readLine();
-                            line++;
-                        }
-                        for (int i = 0; i < symlinksCount; i++) {
-                            if (szLine == null || szLine.trim().length() == 0) {
-                                absPath[i] = null;
-                                szLine = br.readLine();
-                                line++;
-                                continue;
-                            }
-                            absPath[i] = szLine;
-                            szLine = br.readLine();
-                            line++;
-                        }
-                        for (int i = 0; i < symlinksCount; i++) {
-                            if (szLine == null || szLine.trim().length() == 0) {
-                                refPath[i] = null;
-                                szLine = br.readLine();
-                                line++;
-                                continue;
-                            }
-                            refPath[i] = szLine;
-                            szLine = br.readLine();
-                            line++;
-                        }
-
-                        //Fill the parent if is null
-                        for (int i = 0; i < symlinksCount; i++) {
-                            Symlink symLink =
-                                    ((Symlink)this.mFiles.get(
-                                            this.mFiles.size() - symlinksCount + i));
-                            if (symLink.getParent() == null) {
-                                symLink.setParent(FileHelper.ROOT_DIRECTORY);
-                            }
-                        }
-
-                        // Symlink can cause incoherences in the name because "->" string
-                        // Now, we have the real name of the symlink
-                        for (int i = 0; i < symlinksCount; i++) {
-                            if (name[i] != null) {
-                                Symlink symLink =
-                                        ((Symlink)this.mFiles.get(
-                                                this.mFiles.size() - symlinksCount + i));
-                                symLink.setName(name[i]);
-                            }
-                        }
-
-                        //Fill the data
-                        for (int i = 0; i < symlinksCount; i++) {
-                            try {
-                                if (absPath[i] != null && absPath[i].length() > 0) {
-                                    Symlink symLink =
-                                            ((Symlink)this.mFiles.get(
-                                                    this.mFiles.size() - symlinksCount + i));
-                                    String parentLink = new File(absPath[i]).getParent();
-                                    if (parentLink == null) {
-                                        parentLink = FileHelper.ROOT_DIRECTORY;
-                                    }
-                                    String info = refPath[i];
-                                    FileSystemObject fsoRef =
-                                            ParseHelper.toFileSystemObject(parentLink, info);
-                                    symLink.setLinkRef(fsoRef);
-                                }
-                            } catch (Throwable ex) {
-                                //If parsing the file failed, ignore it and threat as a regular
-                                //file (the destination file not exists or can't be resolved)
-                            }
-                        }
-                        break;
-                    }
-
-                    //Add the symlink
-                    try {
-                        this.mFiles.add(ParseHelper.toFileSystemObject(this.mParentDir, szLine));
-                        symlinksCount++;
-                    } catch (ParseException pEx) {
-                        throw new ParseException(pEx.getMessage(), line);
+                try {
+                    FileSystemObject fso =
+                            ParseHelper.toFileSystemObject(this.mParentDir, szLine);
+                    if (fso instanceof Symlink) {
+                        // In some situations, xe when the name has a -> the name is
+                        // incorrect resolved, but src name should by fine in this case
+                        fso.setName(new File(this.mSrc).getName());
+                        // The symlink is not resolved here
                     }
+                    this.mFiles.add(fso);
+                } catch (ParseException pEx) {
+                    throw new ParseException(pEx.getMessage(), line);
                 }
-
                 line++;
             }
 
-            // Add the parent directory
-            if (this.mParentDir != null &&
-                    this.mParentDir.compareTo(FileHelper.ROOT_DIRECTORY) != 0 &&
-                    this.mMode.compareTo(LIST_MODE.DIRECTORY) == 0) {
-                this.mFiles.add(0, new ParentDirectory(new File(this.mParentDir).getParent()));
-            }
-
         } catch (IOException ioEx) {
             throw new ParseException(ioEx.getMessage(), line);
 
@@ -0,0 +1,452 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.commands.shell;
+
+import com.cyanogenmod.filemanager.model.FileSystemObject;
+import com.cyanogenmod.filemanager.model.Group;
+import com.cyanogenmod.filemanager.model.Symlink;
+import com.cyanogenmod.filemanager.model.User;
+import com.cyanogenmod.filemanager.util.AIDCache;
+import com.cyanogenmod.filemanager.util.FileHelper;
+import com.cyanogenmod.filemanager.util.ParseHelper;
+
+import java.io.File;
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A single pass parser of the structured directory listing (the <code>ls</code> command).
+ * Every entry of the directory is a record with the raw attributes of the entry (as
+ * returned by <code>stat -c</code>):<br/>
+ * <br/>
+ * <code>mode/uid/user/gid/group/size/mtime/./name/link</code><br/>
+ * <br/>
+ * where mode is the raw mode in hexadecimal, mtime is the last modification time in
+ * seconds since the epoch, and link is the name of the entry or, for a symlink,
+ * <code>'./name' -&gt; 'target'</code>. The fields are separated by a slash, the only
+ * character (besides NUL) that can't be part of the name of a file, so any name is
+ * parsed safely (a name with new lines or spaces too).<br/>
+ * <br/>
+ * The records of the symlinks are followed by the records of their targets (the same
+ * format prefixed with an <code>@</code>, without link field). A symlink without a target
+ * record is a broken symlink.<br/>
+ * <br/>
+ * The parser scans the output in place; only the names of the objects are extracted.
+ * A partial output (see {@link #parsePartial(String, List, Map)}) is parsed up to its
+ * last complete record.
+ */
+public final class ListRecordParser {
+
+    /**
+     * The prefix of the records of the targets of the symlinks.
+     */
+    public static final char TARGET_PREFIX = '@';
+
+    private static final char SEPARATOR = '/';
+    private static final String CURRENT_DIR = "./"; //$NON-NLS-1$
+    private static final String LINK_SEPARATOR = " -> "; //$NON-NLS-1$
+
+    private final CharSequence mIn;
+    private final int mLength;
+    private int mPos;
+
+    // Fields of the current record
+    private int mMode;
+    private int mUid;
+    private String mUser;
+    private int mGid;
+    private String mGroup;
+    private long mSize;
+    private long mMtime;
+    private String mName;
+    private String mLink;
+    // If the record was terminated by a new line
+    private boolean mTerminated;
+    // If the end of the record can't be determined without the next data (a name
+    // with new lines)
+    private boolean mAmbiguous;
+
+    /**
+     * Constructor of <code>ListRecordParser</code>.
+     *
+     * @param in The output of the listing
+     */
+    public ListRecordParser(CharSequence in) {
+        super();
+        this.mIn = in;
+        this.mLength = in.length();
+        this.mPos = 0;
+    }
+
+    /**
+     * Method that parses the listing.
+     *
+     * @param parent The directory listed
+     * @param files Where to add the objects of the directory
+     * @throws ParseException If the listing can't be parsed
+     */
+    public void parse(String parent, List<FileSystemObject> files) throws ParseException {
+        parse(parent, files, new HashMap<String, Symlink>());
+    }
+
+    /**
+     * Method that parses the end of a listing. The symlinks without a target record
+     * (in this or in the previous partial listings) are broken symlinks.
+     *
+     * @param parent The directory listed
+     * @param files Where to add the objects of the directory
+     * @param symlinks The symlinks parsed by the previous partial listings (by name)
+     * @throws ParseException If the listing can't be parsed
+     */
+    public void parse(String parent, List<FileSystemObject> files, Map<String, Symlink> symlinks)
+            throws ParseException {
+        parse(parent, files, symlinks, false);
+
+        // The listing is complete. Don't try to resolve the broken symlinks again
+        for (Symlink symlink : symlinks.values()) {
+            if (!symlink.isLinkResolved()) {
+                symlink.setLinkRef(null);
+            }
+        }
+    }
+
+    /**
+     * Method that parses the complete records of a partial listing. The data after the
+     * last complete record must be parsed again with the next partial data.
+     *
+     * @param parent The directory listed
+     * @param files Where to add the objects of the directory
+     * @param symlinks The symlinks parsed by the previous partial listings (by name)
+     * @return int The number of characters parsed
+     */
+    public int parsePartial(
+            String parent, List<FileSystemObject> files, Map<String, Symlink> symlinks) {
+        try {
+            return parse(parent, files, symlinks, true);
+        } catch (ParseException pEx) {
+            // Not possible. A partial parse stops at the first record that can't be parsed
+            return 0;
+        }
+    }
+
+    /**
+     * Method that parses the listing.
+     *
+     * @param parent The directory listed
+     * @param files Where to add the objects of the directory
+     * @param symlinks The symlinks parsed (by name)
+     * @param partial If the listing is partial (the records that can't be parsed
+     * are left for the next data)
+     * @return int The number of characters parsed
+     * @throws ParseException If the listing can't be parsed
+     */
+    private int parse(
+            String parent, List<FileSystemObject> files,
+            Map<String, Symlink> symlinks, boolean partial) throws ParseException {
+        while (skipEmptyLines()) {
+            int start = this.mPos;
+            boolean target = this.mIn.charAt(this.mPos) == TARGET_PREFIX;
+            if (target) {
+                this.mPos++;
+            }
+            User user = null;
+            Group group = null;
+            FileSystemObject fso = null;
+            try {
+                readRecord(!target);
+                if (partial && this.mPos >= this.mLength
+                        && (!this.mTerminated || this.mAmbiguous)) {
+                    // The record could continue in the next data
+                    throw new ParseException("incomplete record", start); //$NON-NLS-1$
+                }
+                user = AIDCache.getUser(this.mUid, this.mUser);
+                group = AIDCache.getGroup(this.mGid, this.mGroup);
+                if (!target) {
+                    fso = ParseHelper.toFileSystemObject(
+                            parent, this.mName, this.mLink, this.mMode,
+                            user, group, this.mSize, this.mMtime * 1000L);
+                }
+            } catch (ParseException pEx) {
+                if (partial) {
+                    this.mPos = start;
+                    return start;
+                }
+                throw pEx;
+            }
+
+            if (!target) {
+                if (fso instanceof Symlink) {
+                    symlinks.put(this.mName, (Symlink)fso);
+                }
+                files.add(fso);
+                continue;
+            }
+
+            // The target of a symlink
+            Symlink symlink = symlinks.get(this.mName);
+            if (symlink == null || symlink.getLink() == null) {
+                continue;
+            }
+            String path = symlink.getLink();
+            if (!path.startsWith(FileHelper.ROOT_DIRECTORY)) {
+                path = new File(symlink.getFullPath()).getParent() + File.separator + path;
+            }
+            // The target is referenced by its normalized path (without . and .. segments)
+            path = FileHelper.normalizePath(path);
+            File ref = new File(path);
+            String refParent = ref.getParent();
+            if (refParent == null) {
+                refParent = FileHelper.ROOT_DIRECTORY;
+            }
+            try {
+                symlink.setLinkRef(
+                        ParseHelper.toFileSystemObject(
+                                refParent, ref.getName(), null, this.mMode,
+                                user, group, this.mSize, this.mMtime * 1000L));
+            } catch (ParseException pEx) {
+                //The target can't be resolved. Treat it as a broken symlink
+            }
+        }
+        return this.mPos;
+    }
+
+    /**
+     * Method that reads a record.
+     *
+     * @param hasLink If the record has a link field
+     * @throws ParseException If the record can't be parsed
+     */
+    private void readRecord(boolean hasLink) throws ParseException {
+        this.mTerminated = false;
+        this.mAmbiguous = false;
+        this.mMode = (int)readNumber(16);
+        this.mUid = (int)readNumber(10);
+        this.mUser = readField();
+        this.mGid = (int)readNumber(10);
+        this.mGroup = readField();
+        this.mSize = readNumber(10);
+        this.mMtime = readNumber(10);
+
+        // ./name/
+        if (!startsWith(CURRENT_DIR)) {
+            throw new ParseException("name expected", this.mPos); //$NON-NLS-1$
+        }
+        this.mPos += CURRENT_DIR.length();
+        this.mName = readField();
+        this.mAmbiguous = this.mName.indexOf('\n') != -1;
+        this.mLink = null;
+        if (!hasLink) {
+            expectEndOfRecord();
+            return;
+        }
+
+        // ./name, './name' or './name' -> 'target' (the quotes depends on the stat tool)
+        String path = CURRENT_DIR + this.mName;
+        char quote = 0;
+        if (startsWith(path)) {
+            this.mPos += path.length();
+        } else if (this.mPos < this.mLength
+                && startsWith(this.mPos + 1, path)
+                && startsWith(this.mPos + 1 + path.length(), this.mIn.charAt(this.mPos))) {
+            quote = this.mIn.charAt(this.mPos);
+            this.mPos += path.length() + 2;
+        } else {
+            // The name was escaped by the tool. Seek the link, if any
+            this.mAmbiguous = true;
+            int end = indexOfEndOfRecord((char)0);
+            int link = indexOf(LINK_SEPARATOR, end);
+            this.mPos = link != -1 ? link : end;
+            if (link != -1 && link > 0) {
+                quote = this.mIn.charAt(link - 1);
+            }
+        }
+        if (startsWith(LINK_SEPARATOR)) {
+            this.mPos += LINK_SEPARATOR.length();
+            if (quote != 0 && this.mPos < this.mLength && this.mIn.charAt(this.mPos) == quote) {
+                this.mPos++;
+            } else {
+                quote = 0;
+            }
+            int start = this.mPos;
+            int end = indexOfEndOfRecord(quote);
+            this.mLink = this.mIn.subSequence(start, end).toString();
+            this.mAmbiguous |= this.mLink.indexOf('\n') != -1;
+            this.mPos = end + (quote != 0 && end < this.mLength ? 1 : 0);
+        }
+        expectEndOfRecord();
+    }
+
+    /**
+     * Method that reads a numeric field.
+     *
+     * @param radix The radix of the number (10 or 16)
+     * @return long The number
+     * @throws ParseException If the field isn't a number
+     */
+    private long readNumber(int radix) throws ParseException {
+        long value = 0;
+        int start = this.mPos;
+        while (this.mPos < this.mLength) {
+            char c = this.mIn.charAt(this.mPos);
+            if (c == SEPARATOR) {
+                break;
+            }
+            int digit = Character.digit(c, radix);
+            if (digit < 0) {
+                throw new ParseException("invalid number", this.mPos); //$NON-NLS-1$
+            }
+            value = (value * radix) + digit;
+            this.mPos++;
+        }
+        if (this.mPos == start || this.mPos >= this.mLength) {
+            throw new ParseException("number expected", this.mPos); //$NON-NLS-1$
+        }
+        this.mPos++;
+        return value;
+    }
+
+    /**
+     * Method that reads a text field.
+     *
+     * @return String The field
+     * @throws ParseException If the field isn't terminated
+     */
+    private String readField() throws ParseException {
+        int start = this.mPos;
+        while (this.mPos < this.mLength && this.mIn.charAt(this.mPos) != SEPARATOR) {
+            this.mPos++;
+        }
+        if (this.mPos >= this.mLength) {
+            throw new ParseException("field expected", this.mPos); //$NON-NLS-1$
+        }
+        String field = this.mIn.subSequence(start, this.mPos).toString();
+        this.mPos++;
+        return field;
+    }
+
+    /**
+     * Method that returns the end of the link field (the end of the record).
+     *
+     * @param quote The quote of the field, or 0 if isn't quoted
+     * @return int The position of the end of the field
+     */
+    private int indexOfEndOfRecord(char quote) {
+        for (int i = this.mPos; i < this.mLength; i++) {
+            char c = this.mIn.charAt(i);
+            if (quote == 0) {
+                if (c == '\n') {
+                    return i;
+                }
+            } else if (c == quote && (i + 1 == this.mLength || this.mIn.charAt(i + 1) == '\n')) {
+                return i;
+            }
+        }
+        return this.mLength;
+    }
+
+    /**
+     * Method that checks that the record ends at the current position.
+     *
+     * @throws ParseException If the record has more data
+     */
+    private void expectEndOfRecord() throws ParseException {
+        if (this.mPos < this.mLength) {
+            if (this.mIn.charAt(this.mPos) != '\n') {
+                throw new ParseException("end of record expected", this.mPos); //$NON-NLS-1$
+            }
+            this.mPos++;
+            this.mTerminated = true;
+        }
+    }
+
+    /**
+     * Method that skips the empty lines.
+     *
+     * @return boolean If there is more data to parse
+     */
+    private boolean skipEmptyLines() {
+        while (this.mPos < this.mLength) {
+            char c = this.mIn.charAt(this.mPos);
+            if (c != '\n' && c != '\r') {
+                return true;
+            }
+            this.mPos++;
+        }
+        return false;
+    }
+
+    /**
+     * Method that checks if the data at the current position starts with a prefix.
+     *
+     * @param prefix The prefix
+     * @return boolean If the data starts with the prefix
+     */
+    private boolean startsWith(String prefix) {
+        return startsWith(this.mPos, prefix);
+    }
+
+    /**
+     * Method that checks if the data at a position starts with a prefix.
+     *
+     * @param pos The position
+     * @param prefix The prefix
+     * @return boolean If the data starts with the prefix
+     */
+    private boolean startsWith(int pos, String prefix) {
+        int cc = prefix.length();
+        if (pos + cc > this.mLength) {
+            return false;
+        }
+        for (int i = 0; i < cc; i++) {
+            if (this.mIn.charAt(pos + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Method that checks if the data at a position is a character.
+     *
+     * @param pos The position
+     * @param c The character
+     * @return boolean If the data at the position is the character
+     */
+    private boolean startsWith(int pos, char c) {
+        return pos < this.mLength && this.mIn.charAt(pos) == c;
+    }
+
+    /**
+     * Method that returns the position of a string between the current position
+     * and a limit.
+     *
+     * @param s The string to find
+     * @param limit The limit of the search
+     * @return int The position of the string, or -1 if not found
+     */
+    private int indexOf(String s, int limit) {
+        for (int i = this.mPos; i + s.length() <= limit; i++) {
+            if (startsWith(i, s)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.commands.shell;
+
+import com.cyanogenmod.filemanager.commands.SyncResultExecutable;
+import com.cyanogenmod.filemanager.console.CommandNotFoundException;
+import com.cyanogenmod.filemanager.console.ExecutionException;
+import com.cyanogenmod.filemanager.console.InsufficientPermissionsException;
+
+import java.text.ParseException;
+
+
+/**
+ * A class for create a named pipe. The named pipe is readable and writable by
+ * any user, so the application can open it independently of the identity of the shell.
+ *
+ * {@link "http://unixhelp.ed.ac.uk/CGI/man-cgi?mkfifo"}
+ */
+public class MakeFifoCommand extends SyncResultProgram implements SyncResultExecutable {
+
+    private static final String ID = "mkfifo";  //$NON-NLS-1$
+    private Boolean mRet;
+
+    /**
+     * Constructor of <code>MakeFifoCommand</code>.
+     *
+     * @param path The path of the new named pipe
+     * @throws InvalidCommandDefinitionException If the command has an invalid definition
+     */
+    public MakeFifoCommand(String path) throws InvalidCommandDefinitionException {
+        super(ID, path);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void parse(String in, String err) throws ParseException {
+        //Release the return object
+        this.mRet = Boolean.TRUE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Boolean getResult() {
+        return this.mRet;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void checkExitCode(int exitCode)
+            throws InsufficientPermissionsException, CommandNotFoundException, ExecutionException {
+        if (exitCode != 0) {
+            throw new ExecutionException("exitcode != 0"); //$NON-NLS-1$
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.commands.shell;
+
+import com.cyanogenmod.filemanager.console.shell.NamedPipe;
+
+/**
+ * An interface for programs that transfer their data through a named pipe instead
+ * of the standard streams of the shell.<br/>
+ * <br/>
+ * The console creates the named pipe before the execution of the program, and
+ * releases and removes it when the program ends.
+ *
+ * @see NamedPipe
+ */
+public interface NamedPipeProgram {
+
+    /**
+     * Method that returns the named pipe used by the program to transfer its data.
+     *
+     * @return NamedPipe The named pipe of the program
+     */
+    NamedPipe getNamedPipe();
+}
@@ -54,9 +54,21 @@ public abstract class Program extends Command implements Executable {
         OutputStream getOutputStream();
     }
 
+    /**
+     * The timeout hint of a program (in milliseconds). The time that the console waits
+     * before checks if the shell is still executing the program.
+     */
+    public static final long DEFAULT_TIMEOUT_HINT = 1000L;
+    /**
+     * The timeout hint of a long running program (in milliseconds).
+     */
+    public static final long LONG_TIMEOUT_HINT = 5000L;
+
     // The listener for the program
     private ProgramListener mProgramListener;
 
+    private long mTimeoutHint = DEFAULT_TIMEOUT_HINT;
+
     /**
      * @Constructor of <code>Program</code>
      *
@@ -101,6 +113,25 @@ public abstract class Program extends Command implements Executable {
         this.mProgramListener = programListener;
     }
 
+    /**
+     * Method that returns the timeout hint of the program. The console uses the hint
+     * until it has latency history of the program.
+     *
+     * @return long The timeout hint (in milliseconds)
+     */
+    public long getTimeoutHint() {
+        return this.mTimeoutHint;
+    }
+
+    /**
+     * Method that sets the timeout hint of the program.
+     *
+     * @param timeoutHint The timeout hint (in milliseconds)
+     */
+    public void setTimeoutHint(long timeoutHint) {
+        this.mTimeoutHint = timeoutHint;
+    }
+
     /**
      * Method that returns if the standard error must be
      * ignored safely by the shell, and don't check for errors
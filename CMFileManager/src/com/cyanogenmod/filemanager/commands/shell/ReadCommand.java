@@ -20,18 +20,32 @@ import com.cyanogenmod.filemanager.commands.AsyncResultListener;
 import com.cyanogenmod.filemanager.commands.ReadExecutable;
 import com.cyanogenmod.filemanager.commands.SIGNAL;
 import com.cyanogenmod.filemanager.console.CommandNotFoundException;
+import com.cyanogenmod.filemanager.console.ConsoleExecutor;
 import com.cyanogenmod.filemanager.console.ExecutionException;
 import com.cyanogenmod.filemanager.console.InsufficientPermissionsException;
+import com.cyanogenmod.filemanager.console.shell.NamedPipe;
+
+import java.io.InputStream;
 
 /**
- * A class for read a file
+ * A class for read a file.<br/>
+ * <br/>
+ * The data of the file is transferred through a named pipe, so it's received as raw
+ * bytes and it never goes through the standard output of the shell.
  *
  * {@link "http://unixhelp.ed.ac.uk/CGI/man-cgi?cat"}
  */
-public class ReadCommand extends AsyncResultProgram implements ReadExecutable {
+public class ReadCommand extends AsyncResultProgram
+    implements ReadExecutable, NamedPipeProgram {
 
     private static final String ID = "read"; //$NON-NLS-1$
 
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final NamedPipe mPipe;
+    private final Object mSync = new Object();
+    private boolean mTransferring;
+
     /**
      * Constructor of <code>ExecCommand</code>.
      *
@@ -42,30 +56,108 @@ public class ReadCommand extends AsyncResultProgram implements ReadExecutable {
     public ReadCommand(
             String file, AsyncResultListener asyncResultListener)
             throws InvalidCommandDefinitionException {
-        super(ID, asyncResultListener, new String[]{file});
+        this(file, NamedPipe.createTempNamedPipe(), asyncResultListener);
+    }
+
+    /**
+     * Constructor of <code>ReadCommand</code>.
+     *
+     * @param file The file to read
+     * @param pipe The named pipe used to transfer the data
+     * @param asyncResultListener The partial result listener
+     * @throws InvalidCommandDefinitionException If the command has an invalid definition
+     */
+    private ReadCommand(
+            String file, NamedPipe pipe, AsyncResultListener asyncResultListener)
+            throws InvalidCommandDefinitionException {
+        super(ID, asyncResultListener, new String[]{file, pipe.getPath()});
+        this.mPipe = pipe;
+        this.mTransferring = false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public NamedPipe getNamedPipe() {
+        return this.mPipe;
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public void onStartParsePartialResult() {/**NON BLOCK**/}
+    public void onStartParsePartialResult() {
+        // The program is starting. Read the data from the pipe in the pipe executor
+        // (the open of the pipe blocks until the program opens the other side). The
+        // console executor can't be used, because this program holds one of its threads
+        // while it waits for the reader
+        synchronized (this.mSync) {
+            this.mTransferring = true;
+        }
+        ConsoleExecutor.getPipeExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                transfer();
+            }
+        });
+    }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public void onEndParsePartialResult(boolean cancelled) {/**NON BLOCK**/}
+    public void onEndParsePartialResult(boolean cancelled) {
+        // The program has ended. Unblock the reader if the program never opened the
+        // pipe, and wait for the rest of data in the pipe
+        this.mPipe.release();
+        synchronized (this.mSync) {
+            while (this.mTransferring) {
+                try {
+                    this.mSync.wait();
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+        }
+    }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public void onParsePartialResult(final String partialIn) {
-        //If a listener is defined, then send the partial result
-        if (partialIn != null && partialIn.length() > 0) {
-            if (getAsyncResultListener() != null) {
-                getAsyncResultListener().onPartialResult(partialIn.getBytes());
+    public void onParsePartialResult(final String partialIn) {/**NON BLOCK**/}
+
+    /**
+     * Method that reads the data of the named pipe and sends it to the listener. The
+     * transfer ends when the program closes its side of the pipe.
+     * @hide
+     */
+    void transfer() {
+        InputStream is = null;
+        try {
+            is = this.mPipe.openInputStream();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read = 0;
+            while ((read = is.read(buffer, 0, buffer.length)) != -1) {
+                //If a listener is defined, then send the partial result
+                if (read > 0 && getAsyncResultListener() != null) {
+                    byte[] partial = new byte[read];
+                    System.arraycopy(buffer, 0, partial, 0, read);
+                    getAsyncResultListener().onPartialResult(partial);
+                }
+            }
+        } catch (Exception ex) {
+            /**NON BLOCK**/
+        } finally {
+            try {
+                if (is != null) {
+                    is.close();
+                }
+            } catch (Exception ex) {/**NON BLOCK**/}
+            synchronized (this.mSync) {
+                this.mTransferring = false;
+                this.mSync.notifyAll();
             }
         }
     }
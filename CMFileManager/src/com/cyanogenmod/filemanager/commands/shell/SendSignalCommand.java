@@ -56,6 +56,47 @@ public class SendSignalCommand extends SyncResultProgram implements SendSignalEx
         super(ID_TERMINATE, String.valueOf(process));
     }
 
+    /**
+     * Constructor of <code>SendSignalCommand</code>. This method sends the signal to several
+     * processes with a single invocation.
+     *
+     * @param processes The processes which to send the signal
+     * @param signal The signal to send
+     * @throws InvalidCommandDefinitionException If the command has an invalid definition
+     */
+    public SendSignalCommand(int[] processes, SIGNAL signal)
+            throws InvalidCommandDefinitionException {
+        super(ID_SIGNAL, String.valueOf(signal.getSignal()), toArgument(processes));
+    }
+
+    /**
+     * Constructor of <code>SendSignalCommand</code>. This method sends a kill (terminate) to
+     * several processes with a single invocation.
+     *
+     * @param processes The processes which to send the signal
+     * @throws InvalidCommandDefinitionException If the command has an invalid definition
+     */
+    public SendSignalCommand(int[] processes) throws InvalidCommandDefinitionException {
+        super(ID_TERMINATE, toArgument(processes));
+    }
+
+    /**
+     * Method that returns the argument of the command for a list of processes.
+     *
+     * @param processes The processes
+     * @return String The argument (the processes separated by spaces)
+     */
+    private static String toArgument(int[] processes) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < processes.length; i++) {
+            if (i > 0) {
+                sb.append(" "); //$NON-NLS-1$
+            }
+            sb.append(processes[i]);
+        }
+        return sb.toString();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -16,7 +16,9 @@
 
 package com.cyanogenmod.filemanager.commands.shell;
 
+import com.cyanogenmod.filemanager.commands.AsyncListExecutable;
 import com.cyanogenmod.filemanager.commands.AsyncResultListener;
+import com.cyanogenmod.filemanager.commands.BatchFileInfoExecutable;
 import com.cyanogenmod.filemanager.commands.ChangeCurrentDirExecutable;
 import com.cyanogenmod.filemanager.commands.ChangeOwnerExecutable;
 import com.cyanogenmod.filemanager.commands.ChangePermissionsExecutable;
@@ -58,6 +60,8 @@ import com.cyanogenmod.filemanager.model.Query;
 import com.cyanogenmod.filemanager.model.User;
 import com.cyanogenmod.filemanager.preferences.CompressionMode;
 
+import java.util.List;
+
 /**
  * A class for create shell {@link "Executable"} objects.
  */
@@ -121,7 +125,7 @@ public class ShellExecutableCreator implements ExecutableCreator {
     public CopyExecutable createCopyExecutable(String src, String dst)
             throws CommandNotFoundException {
         try {
-            return new CopyCommand(src, dst);
+            return longRunning(new CopyCommand(src, dst));
         } catch (InvalidCommandDefinitionException icdEx) {
             throw new CommandNotFoundException("CopyCommand", icdEx); //$NON-NLS-1$
         }
@@ -172,7 +176,7 @@ public class ShellExecutableCreator implements ExecutableCreator {
     public DeleteDirExecutable createDeleteDirExecutable(String dir)
             throws CommandNotFoundException {
         try {
-            return new DeleteDirCommand(dir);
+            return longRunning(new DeleteDirCommand(dir));
         } catch (InvalidCommandDefinitionException icdEx) {
             throw new CommandNotFoundException("DeleteDirCommand", icdEx); //$NON-NLS-1$
         }
@@ -320,6 +324,20 @@ public class ShellExecutableCreator implements ExecutableCreator {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AsyncListExecutable createAsyncListExecutable(
+            String src, AsyncResultListener asyncResultListener)
+            throws CommandNotFoundException {
+        try {
+            return new AsyncListCommand(src, asyncResultListener, this.mConsole);
+        } catch (Throwable throwEx) {
+            throw new CommandNotFoundException("AsyncListCommand", throwEx); //$NON-NLS-1$
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -333,6 +351,19 @@ public class ShellExecutableCreator implements ExecutableCreator {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BatchFileInfoExecutable createFileInfoExecutable(
+            List<String> srcs, boolean followSymlinks) throws CommandNotFoundException {
+        try {
+            return new BatchFileInfoCommand(srcs, followSymlinks);
+        } catch (Throwable throwEx) {
+            throw new CommandNotFoundException("BatchFileInfoCommand", throwEx); //$NON-NLS-1$
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -340,7 +371,7 @@ public class ShellExecutableCreator implements ExecutableCreator {
     public MountExecutable createMountExecutable(MountPoint mp, boolean rw)
             throws CommandNotFoundException {
         try {
-            return new MountCommand(mp, rw);
+            return longRunning(new MountCommand(mp, rw));
         } catch (InvalidCommandDefinitionException icdEx) {
             throw new CommandNotFoundException("MountCommand", icdEx); //$NON-NLS-1$
         }
@@ -366,7 +397,7 @@ public class ShellExecutableCreator implements ExecutableCreator {
     public MoveExecutable createMoveExecutable(String src, String dst)
             throws CommandNotFoundException {
         try {
-            return new MoveCommand(src, dst);
+            return longRunning(new MoveCommand(src, dst));
         } catch (InvalidCommandDefinitionException icdEx) {
             throw new CommandNotFoundException("MoveCommand", icdEx); //$NON-NLS-1$
         }
@@ -476,6 +507,32 @@ public class ShellExecutableCreator implements ExecutableCreator {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SendSignalExecutable createSendSignalExecutable(int[] processes, SIGNAL signal)
+            throws CommandNotFoundException {
+        try {
+            return new SendSignalCommand(processes, signal);
+        } catch (InvalidCommandDefinitionException icdEx) {
+            throw new CommandNotFoundException("SendSignalCommand", icdEx); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SendSignalExecutable createKillExecutable(int[] processes)
+            throws CommandNotFoundException {
+        try {
+            return new SendSignalCommand(processes);
+        } catch (InvalidCommandDefinitionException icdEx) {
+            throw new CommandNotFoundException("SendSignalCommand", icdEx); //$NON-NLS-1$
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -484,7 +541,7 @@ public class ShellExecutableCreator implements ExecutableCreator {
             String file, AsyncResultListener asyncResultListener)
             throws CommandNotFoundException {
         try {
-            return new WriteCommand(file, asyncResultListener);
+            return longRunning(new WriteCommand(file, asyncResultListener));
         } catch (InvalidCommandDefinitionException icdEx) {
             throw new CommandNotFoundException("WriteCommand", icdEx); //$NON-NLS-1$
         }
@@ -535,4 +592,16 @@ public class ShellExecutableCreator implements ExecutableCreator {
         }
     }
 
+    /**
+     * Method that sets the timeout hint of a program that can take a long time (i.e.
+     * a recursive operation over a large tree of files).
+     *
+     * @param program The program
+     * @return T The same program
+     */
+    private static <T extends Program> T longRunning(T program) {
+        program.setTimeoutHint(Program.LONG_TIMEOUT_HINT);
+        return program;
+    }
+
 }
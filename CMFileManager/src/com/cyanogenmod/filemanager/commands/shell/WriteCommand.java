@@ -22,6 +22,7 @@ import com.cyanogenmod.filemanager.commands.WriteExecutable;
 import com.cyanogenmod.filemanager.console.CommandNotFoundException;
 import com.cyanogenmod.filemanager.console.ExecutionException;
 import com.cyanogenmod.filemanager.console.InsufficientPermissionsException;
+import com.cyanogenmod.filemanager.console.shell.NamedPipe;
 
 import java.io.IOException;
 import java.io.OutputStream;
@@ -32,10 +33,15 @@ import java.io.OutputStream;
  * User MUST call the {@link #createOutputStream()} to get the output stream where
  * write the data.<br/>. When no more exist then user MUST call the onEnd method
  * of the asynchronous listener.<br/>
+ * <br/>
+ * The data is transferred through a named pipe, so it's written as raw bytes and
+ * it never goes through the standard input of the shell. The end of the data closes
+ * the pipe, and the program ends by itself when all the data is written to disk.<br/>
  *
  * {@link "http://unixhelp.ed.ac.uk/CGI/man-cgi?dd"}
  */
-public class WriteCommand extends AsyncResultProgram implements WriteExecutable {
+public class WriteCommand extends AsyncResultProgram
+    implements WriteExecutable, NamedPipeProgram {
 
     private static final String ID = "write";  //$NON-NLS-1$
 
@@ -46,11 +52,16 @@ public class WriteCommand extends AsyncResultProgram implements WriteExecutable
      */
     final Object mSync = new Object();
     private boolean mReady;
+    private boolean mFinished;
+    private boolean mTimedOut;
     /**
      * @hide
      */
     boolean mError;
 
+    private final NamedPipe mPipe;
+    private OutputStream mOutputStream;
+
     /**
      * Constructor of <code>WriteCommand</code>.
      *
@@ -61,17 +72,35 @@ public class WriteCommand extends AsyncResultProgram implements WriteExecutable
     public WriteCommand(
             String file, AsyncResultListener asyncResultListener)
             throws InvalidCommandDefinitionException {
-        super(ID, asyncResultListener, file);
+        this(file, NamedPipe.createTempNamedPipe(), asyncResultListener);
+    }
+
+    /**
+     * Constructor of <code>WriteCommand</code>.
+     *
+     * @param file The file where to write the data
+     * @param pipe The named pipe used to transfer the data
+     * @param asyncResultListener The partial result listener
+     * @throws InvalidCommandDefinitionException If the command has an invalid definition
+     */
+    private WriteCommand(
+            String file, NamedPipe pipe, AsyncResultListener asyncResultListener)
+            throws InvalidCommandDefinitionException {
+        super(ID, asyncResultListener, file, pipe.getPath());
+        this.mPipe = pipe;
         this.mReady = false;
+        this.mFinished = false;
+        this.mTimedOut = false;
         this.mError = false;
+        this.mOutputStream = null;
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public boolean isExpectEnd() {
-        return false;
+    public NamedPipe getNamedPipe() {
+        return this.mPipe;
     }
 
     /**
@@ -87,8 +116,21 @@ public class WriteCommand extends AsyncResultProgram implements WriteExecutable
                     this.mSync.wait(TIMEOUT);
                 } catch (Exception e) {/**NON BLOCK**/}
             }
+            if (!this.mReady) {
+                // The named pipe may not exist yet
+                throw new IOException("The program isn't ready"); //$NON-NLS-1$
+            }
+            if (this.mOutputStream != null) {
+                return this.mOutputStream;
+            }
+        }
+
+        // Blocks until the program opens the pipe (or the program ends)
+        OutputStream os = this.mPipe.openOutputStream();
+        synchronized (this.mSync) {
+            this.mOutputStream = os;
         }
-        return getProgramListener().getOutputStream();
+        return os;
     }
 
     /**
@@ -98,7 +140,7 @@ public class WriteCommand extends AsyncResultProgram implements WriteExecutable
     public void onStartParsePartialResult() {
         synchronized (this.mSync) {
             this.mReady = true;
-            this.mSync.notify();
+            this.mSync.notifyAll();
         }
     }
 
@@ -106,24 +148,62 @@ public class WriteCommand extends AsyncResultProgram implements WriteExecutable
      * {@inheritDoc}
      */
     @Override
-    public void onEndParsePartialResult(boolean cancelled) {/**NON BLOCK**/}
+    public void onEndParsePartialResult(boolean cancelled) {
+        // Unblock the writer if the program never opened the pipe
+        this.mPipe.release();
+        synchronized (this.mSync) {
+            this.mFinished = true;
+            this.mSync.notifyAll();
+        }
+    }
 
     /**
      * {@inheritDoc}
      */
     @Override
     public SIGNAL onRequestEnd() {
+        // Close the pipe (the program receives the end of the data) and wait for
+        // the program to write all the data to disk
+        OutputStream os = null;
+        synchronized (this.mSync) {
+            os = this.mOutputStream;
+            this.mOutputStream = null;
+        }
         try {
-            if (this.getProgramListener().getOutputStream() != null) {
-                this.getProgramListener().getOutputStream().flush();
+            if (os != null) {
+                os.close();
             }
         } catch (Exception ex) {/**NON BLOCK**/}
-        try {
-            Thread.yield();
-        } catch (Exception ex) {/**NON BLOCK**/}
+        // The wait is bounded. If the program doesn't finish in time, the console
+        // kills it
+        long deadline = System.currentTimeMillis() + getEndTimeout();
+        synchronized (this.mSync) {
+            while (os != null && !this.mFinished) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    this.mTimedOut = true;
+                    break;
+                }
+                try {
+                    this.mSync.wait(remaining);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+        }
         return null;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean isEndedByItself() {
+        synchronized (this.mSync) {
+            return this.mFinished;
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -150,6 +230,14 @@ public class WriteCommand extends AsyncResultProgram implements WriteExecutable
     @Override
     public void checkExitCode(int exitCode)
             throws InsufficientPermissionsException, CommandNotFoundException, ExecutionException {
+        //The program was killed before write all the data to disk
+        synchronized (this.mSync) {
+            if (this.mTimedOut && exitCode != 0) {
+                throw new ExecutionException(
+                        "the program didn't finish in time"); //$NON-NLS-1$
+            }
+        }
+
         //Ignore exit code 143 (cancelled)
         //Ignore exit code 137 (kill -9)
         if (exitCode != 0 && exitCode != 143 && exitCode != 137) {
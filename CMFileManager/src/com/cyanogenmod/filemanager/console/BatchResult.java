@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.console;
+
+import com.cyanogenmod.filemanager.commands.Executable;
+
+/**
+ * The result of the execution of an {@link Executable} inside a batch of executables.
+ *
+ * @see Console#executeBatch(java.util.List)
+ */
+public class BatchResult {
+
+    /**
+     * The exit code used when the console can't known the exit code of the execution
+     */
+    public static final int UNKNOWN_EXIT_CODE = -1;
+
+    private final Executable mExecutable;
+    private final int mExitCode;
+    private final Exception mException;
+
+    /**
+     * Constructor of <code>BatchResult</code>.
+     *
+     * @param executable The executable
+     * @param exitCode The exit code of the execution
+     * @param exception The exception of the execution, or null if the execution was successfully
+     */
+    public BatchResult(Executable executable, int exitCode, Exception exception) {
+        super();
+        this.mExecutable = executable;
+        this.mExitCode = exitCode;
+        this.mException = exception;
+    }
+
+    /**
+     * Method that returns the executable. The result of the execution (if any) is
+     * in the executable.
+     *
+     * @return Executable The executable
+     */
+    public Executable getExecutable() {
+        return this.mExecutable;
+    }
+
+    /**
+     * Method that returns the exit code of the execution.
+     *
+     * @return int The exit code of the execution, or {@link #UNKNOWN_EXIT_CODE}
+     */
+    public int getExitCode() {
+        return this.mExitCode;
+    }
+
+    /**
+     * Method that returns the exception of the execution.
+     *
+     * @return Exception The exception of the execution, or null if the execution
+     * was successfully
+     */
+    public Exception getException() {
+        return this.mException;
+    }
+
+    /**
+     * Method that returns if the execution was successfully.
+     *
+     * @return boolean If the execution was successfully
+     */
+    public boolean isSuccessful() {
+        return this.mException == null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "BatchResult [executable=" + this.mExecutable //$NON-NLS-1$
+                + ", exitCode=" + this.mExitCode //$NON-NLS-1$
+                + ", exception=" + this.mException + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+}
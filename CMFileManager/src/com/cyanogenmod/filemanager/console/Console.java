@@ -19,9 +19,11 @@ import com.cyanogenmod.filemanager.commands.AsyncResultExecutable;
 import com.cyanogenmod.filemanager.commands.Executable;
 import com.cyanogenmod.filemanager.commands.ExecutableFactory;
 import com.cyanogenmod.filemanager.model.Identity;
-import com.cyanogenmod.filemanager.preferences.FileManagerSettings;
 import com.cyanogenmod.filemanager.preferences.Preferences;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * This class represents a class for executing commands in the operating system layer,
  * being the base for all type of consoles (shell, java, ...).
@@ -29,8 +31,25 @@ import com.cyanogenmod.filemanager.preferences.Preferences;
 public abstract class Console
     implements AsyncResultExecutable.OnEndListener, AsyncResultExecutable.OnCancelListener {
 
+    /**
+     * An interface for listen when the console has no more executions in progress.
+     */
+    public interface OnConsoleIdleListener {
+        /**
+         * Invoked when the console has no more executions in progress.
+         *
+         * @param console The console
+         */
+        void onConsoleIdle(Console console);
+    }
+
     private boolean mTrace;
 
+    private final Object mExecutionSync = new Object();
+    private int mExecutions;
+    private long mReservedUntil;
+    private OnConsoleIdleListener mOnConsoleIdleListener;
+
     /**
      * Constructor of <code>Console</code>
      */
@@ -54,9 +73,7 @@ public abstract class Console
      * Method that reload the status of trace setting
      */
     public final void reloadTrace() {
-        this.mTrace = Preferences.getSharedPreferences().getBoolean(
-                FileManagerSettings.SETTINGS_SHOW_TRACES.getId(),
-                ((Boolean)FileManagerSettings.SETTINGS_SHOW_TRACES.getDefaultValue()).booleanValue());
+        this.mTrace = Preferences.getSnapshot().isShowTraces();
     }
 
     /**
@@ -124,4 +141,106 @@ public abstract class Console
            OperationTimeoutException, ExecutionException, CommandNotFoundException,
            ReadOnlyFilesystemException;
 
+   /**
+    * Method for execute a batch of commands in the operating system layer. The executables
+    * are executed in order, and the result of every executable (exit code and exception) is
+    * reported separately, so a failed executable doesn't stop the rest of the batch.<br/>
+    * <br/>
+    * The default implementation executes the executables one by one. Consoles that can send
+    * several commands at once should override this method. The results of asynchronous
+    * executables are delivered to their listeners as usual.
+    *
+    * @param executables The executables to be executed
+    * @return List<BatchResult> The result of every executable, in the same order
+    */
+   public List<BatchResult> executeBatch(List<? extends Executable> executables) {
+       int cc = executables.size();
+       List<BatchResult> results = new ArrayList<BatchResult>(cc);
+       for (int i = 0; i < cc; i++) {
+           Executable executable = executables.get(i);
+           try {
+               execute(executable);
+               results.add(new BatchResult(executable, 0, null));
+           } catch (Exception ex) {
+               results.add(new BatchResult(executable, BatchResult.UNKNOWN_EXIT_CODE, ex));
+           }
+       }
+       return results;
+   }
+
+   /**
+    * Method that returns the number of executions in progress (or waiting to be executed)
+    * in the console.
+    *
+    * @return int The number of executions in progress
+    */
+   public final int getExecutions() {
+       synchronized (this.mExecutionSync) {
+           return this.mExecutions;
+       }
+   }
+
+   /**
+    * Method that returns if the console has executions in progress, or if it was reserved
+    * for an execution that didn't start yet.
+    *
+    * @return boolean If the console is busy
+    */
+   public final boolean isBusy() {
+       synchronized (this.mExecutionSync) {
+           return this.mExecutions > 0
+                   || this.mReservedUntil > System.currentTimeMillis();
+       }
+   }
+
+   /**
+    * Method that reserves the console for an execution. The reservation ends when
+    * the execution starts or after the timeout.
+    *
+    * @param timeout The maximum time of the reservation (in milliseconds)
+    */
+   final void reserve(long timeout) {
+       synchronized (this.mExecutionSync) {
+           this.mReservedUntil = System.currentTimeMillis() + timeout;
+       }
+   }
+
+   /**
+    * Method that sets the listener for the idle state of the console.
+    *
+    * @param onConsoleIdleListener The listener
+    */
+   final void setOnConsoleIdleListener(OnConsoleIdleListener onConsoleIdleListener) {
+       this.mOnConsoleIdleListener = onConsoleIdleListener;
+   }
+
+   /**
+    * Method that must be invoked by the console implementations when an execution
+    * is requested (before waiting for the console).
+    */
+   protected final void beginExecution() {
+       synchronized (this.mExecutionSync) {
+           this.mExecutions++;
+           this.mReservedUntil = 0;
+       }
+   }
+
+   /**
+    * Method that must be invoked by the console implementations when an execution
+    * ends (also for asynchronous executions).
+    */
+   protected final void endExecution() {
+       boolean idle = false;
+       synchronized (this.mExecutionSync) {
+           if (this.mExecutions > 0) {
+               this.mExecutions--;
+           }
+           idle = this.mExecutions == 0;
+       }
+       OnConsoleIdleListener listener = this.mOnConsoleIdleListener;
+       if (idle && listener != null) {
+           listener.onConsoleIdle(this);
+       }
+   }
+
 }
@@ -44,6 +44,7 @@ public final class ConsoleBuilder {
 
     private static final Object SYNC = new Object();
     private static ConsoleHolder sHolder;
+    private static ConsolePool sPool;
 
     private static final int ROOT_UID = 0;
 
@@ -235,6 +236,7 @@ public final class ConsoleBuilder {
                     (sHolder.getConsole() instanceof NonPriviledgeConsole && superuserMode)
                     || (sHolder.getConsole() instanceof PrivilegedConsole && !superuserMode)) {
                     //Deallocate actual console
+                    disposePool();
                     sHolder.dispose();
                     sHolder = null;
                 }
@@ -262,6 +264,7 @@ public final class ConsoleBuilder {
      */
     public static void destroyConsole() {
         try {
+            disposePool();
             if (sHolder != null) {
                 sHolder.dispose();
             }
@@ -271,6 +274,62 @@ public final class ConsoleBuilder {
         sHolder = null;
     }
 
+    /**
+     * Method that leases a console of the pool of consoles for an execution. The pool
+     * contains consoles of the same type of the current console (the current console is
+     * part of the pool), so independent commands can run concurrently. The lease ends
+     * automatically when the console has no more executions in progress.
+     *
+     * @param context The current context
+     * @return Console An allocated console of the pool
+     * @throws FileNotFoundException If the initial directory not exists
+     * @throws IOException If initial directory couldn't be checked
+     * @throws InvalidCommandDefinitionException If the command has an invalid definition
+     * @throws ConsoleAllocException If the console can't be allocated
+     * @throws InsufficientPermissionsException If the console created is not a privileged console
+     * @see ConsolePool
+     */
+    public static Console leaseConsole(Context context)
+            throws FileNotFoundException, IOException, InvalidCommandDefinitionException,
+            ConsoleAllocException, InsufficientPermissionsException {
+        final Console primary = getConsole(context);
+        ConsolePool pool = null;
+        synchronized (ConsoleBuilder.SYNC) {
+            if (sPool == null || sPool.getPrimaryConsole() != primary) {
+                //The current console has changed. Create a new pool
+                disposePool();
+                final Context ctx = context.getApplicationContext();
+                final boolean privileged = primary instanceof PrivilegedConsole;
+                sPool = new ConsolePool(
+                        primary,
+                        ctx.getResources().getInteger(R.integer.console_pool_size),
+                        new ConsolePool.ConsoleFactory() {
+                            @Override
+                            public Console createConsole() throws Exception {
+                                return privileged
+                                        ? createPrivilegedConsole(ctx, FileHelper.ROOT_DIRECTORY)
+                                        : createNonPrivilegedConsole(
+                                                ctx, FileHelper.ROOT_DIRECTORY);
+                            }
+                        });
+            }
+            pool = sPool;
+        }
+        return pool.lease();
+    }
+
+    /**
+     * Method that disposes the pool of consoles (the current console is not deallocated).
+     */
+    private static void disposePool() {
+        synchronized (ConsoleBuilder.SYNC) {
+            if (sPool != null) {
+                sPool.dispose();
+                sPool = null;
+            }
+        }
+    }
+
     /**
      * Method that creates a new non privileged console.
      *
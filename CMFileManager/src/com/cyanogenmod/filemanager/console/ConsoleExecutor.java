@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.console;
+
+import android.util.Log;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded pool of named worker threads for the asynchronous work of the consoles.<br/>
+ * <br/>
+ * The workers are created on demand up to the maximum number of threads, and they end
+ * after being idle for the keep alive time. When all the workers are busy, the tasks wait
+ * in a FIFO queue. There are three shared executors: one for the asynchronous executions
+ * of the consoles, one for the parse of the partial results of the programs (the
+ * tasks of the parser executor never wait for other tasks, and every task parses a bounded
+ * amount of data before queue again the rest, so they can't exhaust the pool while a
+ * console execution waits for its parse to end), and one for the readers of the named
+ * pipes of the programs (a console execution waits for its reader, so the readers can't
+ * share the threads of the console executor; there is a reader for every running
+ * execution at most, so the readers never wait in the queue).
+ */
+public final class ConsoleExecutor {
+
+    private static final String TAG = "ConsoleExecutor"; //$NON-NLS-1$
+
+    private static final int MAX_CONSOLE_THREADS = 16;
+    private static final int MAX_PARSER_THREADS = 4;
+    private static final long KEEP_ALIVE = 30000L;
+
+    private static final ConsoleExecutor CONSOLE_EXECUTOR =
+            new ConsoleExecutor("console", MAX_CONSOLE_THREADS, KEEP_ALIVE); //$NON-NLS-1$
+    private static final ConsoleExecutor PARSER_EXECUTOR =
+            new ConsoleExecutor("console-parser", MAX_PARSER_THREADS, KEEP_ALIVE); //$NON-NLS-1$
+    private static final ConsoleExecutor PIPE_EXECUTOR =
+            new ConsoleExecutor("console-pipe", MAX_CONSOLE_THREADS, KEEP_ALIVE); //$NON-NLS-1$
+
+    private final String mName;
+    private final int mMaxThreads;
+    private final ThreadPoolExecutor mExecutor;
+
+    /**
+     * Constructor of <code>ConsoleExecutor</code>.
+     *
+     * @param name The name of the executor (the prefix of the name of its threads)
+     * @param maxThreads The maximum number of threads
+     * @param keepAlive The time that an idle thread waits for new tasks (in milliseconds)
+     */
+    public ConsoleExecutor(String name, int maxThreads, long keepAlive) {
+        super();
+        this.mName = name;
+        this.mMaxThreads = Math.max(1, maxThreads);
+
+        // All the threads are core threads (so the tasks are queued only when all the
+        // threads are created) and all of them end when they are idle
+        this.mExecutor = new ThreadPoolExecutor(
+                this.mMaxThreads, this.mMaxThreads,
+                Math.max(1L, keepAlive), TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new WorkerFactory(name));
+        this.mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Method that returns the shared executor for the asynchronous executions
+     * of the consoles.
+     *
+     * @return ConsoleExecutor The console executor
+     */
+    public static ConsoleExecutor getConsoleExecutor() {
+        return CONSOLE_EXECUTOR;
+    }
+
+    /**
+     * Method that returns the shared executor for the parse of partial results.
+     *
+     * @return ConsoleExecutor The parser executor
+     */
+    public static ConsoleExecutor getParserExecutor() {
+        return PARSER_EXECUTOR;
+    }
+
+    /**
+     * Method that returns the shared executor for the readers of the named pipes.
+     *
+     * @return ConsoleExecutor The pipe executor
+     */
+    public static ConsoleExecutor getPipeExecutor() {
+        return PIPE_EXECUTOR;
+    }
+
+    /**
+     * Method that queues a task for its execution in a worker thread.
+     *
+     * @param task The task to execute
+     */
+    public void execute(final Runnable task) {
+        this.mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                } catch (Throwable ex) {
+                    Log.e(TAG, String.format("Task failed in %s", //$NON-NLS-1$
+                            Thread.currentThread().getName()), ex);
+                }
+            }
+        });
+    }
+
+    /**
+     * Method that returns the name of the executor.
+     *
+     * @return String The name of the executor
+     */
+    public String getName() {
+        return this.mName;
+    }
+
+    /**
+     * Method that returns the maximum number of threads of the executor.
+     *
+     * @return int The maximum number of threads
+     */
+    public int getMaxThreads() {
+        return this.mMaxThreads;
+    }
+
+    /**
+     * Method that returns the number of tasks waiting for a worker.
+     *
+     * @return int The number of queued tasks
+     */
+    public int getQueueSize() {
+        return this.mExecutor.getQueue().size();
+    }
+
+    /**
+     * Method that returns the number of workers running a task.
+     *
+     * @return int The number of active threads
+     */
+    public int getActiveCount() {
+        return this.mExecutor.getActiveCount();
+    }
+
+    /**
+     * Method that returns the number of workers alive (active or idle).
+     *
+     * @return int The number of threads
+     */
+    public int getPoolSize() {
+        return this.mExecutor.getPoolSize();
+    }
+
+    /**
+     * Method that returns the number of tasks completed by the executor.
+     *
+     * @return long The number of completed tasks
+     */
+    public long getCompletedCount() {
+        return this.mExecutor.getCompletedTaskCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "ConsoleExecutor [name=" + this.mName //$NON-NLS-1$
+                + ", threads=" + getPoolSize() //$NON-NLS-1$
+                + ", active=" + getActiveCount() //$NON-NLS-1$
+                + ", queued=" + getQueueSize() //$NON-NLS-1$
+                + ", completed=" + getCompletedCount() + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    /**
+     * The factory of the named worker threads of the executor.
+     */
+    private static class WorkerFactory implements ThreadFactory {
+        private final String mPrefix;
+        private final AtomicInteger mSequence = new AtomicInteger();
+
+        /**
+         * Constructor of <code>WorkerFactory</code>.
+         *
+         * @param prefix The prefix of the name of the threads
+         */
+        WorkerFactory(String prefix) {
+            super();
+            this.mPrefix = prefix;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Thread newThread(Runnable r) {
+            return new Thread(r, this.mPrefix + "-" + this.mSequence.incrementAndGet()); //$NON-NLS-1$
+        }
+    }
+}
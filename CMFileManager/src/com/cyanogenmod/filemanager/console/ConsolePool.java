@@ -0,0 +1,324 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.console;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A pool of consoles of the same type (privileged or non-privileged), so independent
+ * commands can run concurrently instead of waiting for a single console.<br/>
+ * <br/>
+ * The first console of the pool is the primary console (the console held by
+ * {@link ConsoleBuilder}). The rest of consoles are created on demand up to the maximum
+ * size of the pool, and they are kept alive until the pool is disposed (this way
+ * the superuser sessions are reused). A lease is served in arrival order: the console
+ * is reserved until the execution starts and is returned to the pool automatically
+ * when the console has no more executions in progress. If all the consoles remain busy
+ * for longer than the wait timeout, the lease shares the least busy console.
+ */
+public class ConsolePool implements Console.OnConsoleIdleListener {
+
+    private static final String TAG = "ConsolePool"; //$NON-NLS-1$
+
+    /**
+     * An interface for create new consoles for the pool.
+     */
+    public interface ConsoleFactory {
+        /**
+         * Method that creates and allocates a new console.
+         *
+         * @return Console The new allocated console
+         * @throws Exception If the console can't be created
+         */
+        Console createConsole() throws Exception;
+    }
+
+    /**
+     * The default maximum time that a lease waits for an idle console (in milliseconds)
+     */
+    public static final long DEFAULT_WAIT_TIMEOUT = 250L;
+
+    // The maximum time that a leased console is reserved until the execution starts
+    private static final long RESERVE_TIMEOUT = 2000L;
+
+    private final Object mSync = new Object();
+    private final List<Console> mConsoles;
+    private final ConsoleFactory mFactory;
+    private final long mWaitTimeout;
+    private int mMaxSize;
+    private int mCreating;
+    private long mNextTicket;
+    private long mServingTicket;
+    private final List<Long> mSkipped;
+    private boolean mDisposed;
+
+    /**
+     * Constructor of <code>ConsolePool</code>.
+     *
+     * @param primary The primary console of the pool
+     * @param maxSize The maximum number of consoles of the pool
+     * @param factory The factory of new consoles
+     */
+    public ConsolePool(Console primary, int maxSize, ConsoleFactory factory) {
+        this(primary, maxSize, factory, DEFAULT_WAIT_TIMEOUT);
+    }
+
+    /**
+     * Constructor of <code>ConsolePool</code>.
+     *
+     * @param primary The primary console of the pool
+     * @param maxSize The maximum number of consoles of the pool
+     * @param factory The factory of new consoles
+     * @param waitTimeout The maximum time that a lease waits for an idle console
+     */
+    public ConsolePool(Console primary, int maxSize, ConsoleFactory factory, long waitTimeout) {
+        super();
+        this.mConsoles = new ArrayList<Console>(Math.max(1, maxSize));
+        this.mConsoles.add(primary);
+        this.mMaxSize = Math.max(1, maxSize);
+        this.mFactory = factory;
+        this.mWaitTimeout = waitTimeout;
+        this.mCreating = 0;
+        this.mNextTicket = 0;
+        this.mServingTicket = 0;
+        this.mSkipped = new ArrayList<Long>();
+        this.mDisposed = false;
+        primary.setOnConsoleIdleListener(this);
+    }
+
+    /**
+     * Method that returns the primary console of the pool.
+     *
+     * @return Console The primary console
+     */
+    public Console getPrimaryConsole() {
+        synchronized (this.mSync) {
+            return this.mConsoles.get(0);
+        }
+    }
+
+    /**
+     * Method that returns the number of consoles currently in the pool.
+     *
+     * @return int The number of consoles
+     */
+    public int getSize() {
+        synchronized (this.mSync) {
+            return this.mConsoles.size();
+        }
+    }
+
+    /**
+     * Method that leases a console of the pool for an execution.
+     *
+     * @return Console The leased console
+     */
+    public Console lease() {
+        while (true) {
+            synchronized (this.mSync) {
+                Console console = acquire();
+                if (console != null) {
+                    return console;
+                }
+            }
+
+            // Create a new console (outside the lock, the allocation is slow)
+            Console console = create();
+            if (console != null) {
+                return console;
+            }
+        }
+    }
+
+    /**
+     * Method that disposes the pool, deallocating all the consoles except the
+     * primary console (that is owned by its holder).
+     */
+    public void dispose() {
+        List<Console> consoles = null;
+        synchronized (this.mSync) {
+            if (this.mDisposed) {
+                return;
+            }
+            this.mDisposed = true;
+            consoles = new ArrayList<Console>(this.mConsoles.subList(1, this.mConsoles.size()));
+            this.mConsoles.get(0).setOnConsoleIdleListener(null);
+            this.mConsoles.subList(1, this.mConsoles.size()).clear();
+            this.mSync.notifyAll();
+        }
+        int cc = consoles.size();
+        for (int i = 0; i < cc; i++) {
+            dealloc(consoles.get(i));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onConsoleIdle(Console console) {
+        synchronized (this.mSync) {
+            this.mSync.notifyAll();
+        }
+    }
+
+    /**
+     * Method that waits for the turn of the lease and returns an idle console.
+     * Must be invoked with the lock held.
+     *
+     * @return Console The leased console, or null if a new console must be created
+     */
+    private Console acquire() {
+        final long ticket = this.mNextTicket++;
+        final long deadline = System.currentTimeMillis() + this.mWaitTimeout;
+        try {
+            while (true) {
+                if (this.mDisposed) {
+                    return this.mConsoles.get(0);
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (ticket == this.mServingTicket) {
+                    Console console = findIdle();
+                    if (console != null) {
+                        console.reserve(RESERVE_TIMEOUT);
+                        return console;
+                    }
+                    if (this.mConsoles.size() + this.mCreating < this.mMaxSize) {
+                        this.mCreating++;
+                        return null;
+                    }
+                    if (remaining <= 0) {
+                        console = findLeastBusy();
+                        console.reserve(RESERVE_TIMEOUT);
+                        return console;
+                    }
+                }
+                try {
+                    // The leases that are not in turn wait until the previous lease is served
+                    if (ticket == this.mServingTicket) {
+                        this.mSync.wait(Math.max(1, remaining));
+                    } else {
+                        this.mSync.wait();
+                    }
+                } catch (InterruptedException ex) {
+                    // Don't wait anymore. Share the least busy console
+                    Thread.currentThread().interrupt();
+                    Console console = findLeastBusy();
+                    console.reserve(RESERVE_TIMEOUT);
+                    return console;
+                }
+            }
+        } finally {
+            // Pass the turn to the next lease (the tickets resolved out of turn are skipped)
+            this.mSkipped.add(Long.valueOf(ticket));
+            while (this.mSkipped.remove(Long.valueOf(this.mServingTicket))) {
+                this.mServingTicket++;
+            }
+            this.mSync.notifyAll();
+        }
+    }
+
+    /**
+     * Method that creates a new console for the pool.
+     *
+     * @return Console The new console already reserved, or null if the console
+     * couldn't be created
+     */
+    private Console create() {
+        Console console = null;
+        try {
+            console = this.mFactory.createConsole();
+        } catch (Throwable ex) {
+            Log.w(TAG, "Failed to create a new console for the pool", ex); //$NON-NLS-1$
+        }
+
+        synchronized (this.mSync) {
+            this.mCreating--;
+            if (console == null) {
+                // Don't try to grow anymore
+                this.mMaxSize = this.mConsoles.size() + this.mCreating;
+                this.mSync.notifyAll();
+                return null;
+            }
+            if (this.mDisposed) {
+                dealloc(console);
+                return this.mConsoles.get(0);
+            }
+            console.setOnConsoleIdleListener(this);
+            console.reserve(RESERVE_TIMEOUT);
+            this.mConsoles.add(console);
+            this.mSync.notifyAll();
+            return console;
+        }
+    }
+
+    /**
+     * Method that returns the first idle console of the pool. The consoles that
+     * are not longer active are removed from the pool.
+     *
+     * @return Console The idle console, or null if all consoles are busy
+     */
+    private Console findIdle() {
+        for (int i = 0; i < this.mConsoles.size(); i++) {
+            Console console = this.mConsoles.get(i);
+            if (i > 0 && !console.isActive()) {
+                console.setOnConsoleIdleListener(null);
+                this.mConsoles.remove(i);
+                i--;
+                continue;
+            }
+            if (!console.isBusy()) {
+                return console;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Method that returns the console with less executions in progress.
+     *
+     * @return Console The least busy console
+     */
+    private Console findLeastBusy() {
+        Console least = this.mConsoles.get(0);
+        int cc = this.mConsoles.size();
+        for (int i = 1; i < cc; i++) {
+            Console console = this.mConsoles.get(i);
+            if (console.getExecutions() < least.getExecutions()) {
+                least = console;
+            }
+        }
+        return least;
+    }
+
+    /**
+     * Method that deallocates a console of the pool.
+     *
+     * @param console The console
+     */
+    private static void dealloc(Console console) {
+        try {
+            console.setOnConsoleIdleListener(null);
+            console.dealloc();
+        } catch (Throwable ex) {
+            /**NON BLOCK**/
+        }
+    }
+}
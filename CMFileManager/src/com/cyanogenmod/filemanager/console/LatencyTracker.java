@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.console;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A class that tracks the observed latency of the commands of a console, and computes
+ * an adaptive timeout for every command.<br/>
+ * <br/>
+ * The timeout follows the smoothed latency and its mean deviation (like the retransmission
+ * timeout of TCP): <code>timeout = srtt + 4 * rttvar</code>, bounded by a minimum timeout.
+ * Until a command has latency history, its timeout hint is used.
+ */
+public class LatencyTracker {
+
+    /**
+     * The minimum timeout of a command (in milliseconds).
+     */
+    public static final long MIN_TIMEOUT = 250L;
+
+    // Gains of the smoothed latency and deviation (1/8 and 1/4)
+    private static final int SRTT_SHIFT = 3;
+    private static final int RTTVAR_SHIFT = 2;
+
+    /**
+     * The latency history of a command.
+     */
+    private static class Stats {
+        long mSrtt;
+        long mRttVar;
+        int mSamples;
+
+        /**
+         * Constructor of <code>Stats</code>. For enclosing access.
+         */
+        Stats() {
+            super();
+        }
+    }
+
+    private final Map<String, Stats> mStats;
+    private final long mMinTimeout;
+
+    /**
+     * Constructor of <code>LatencyTracker</code>.
+     */
+    public LatencyTracker() {
+        this(MIN_TIMEOUT);
+    }
+
+    /**
+     * Constructor of <code>LatencyTracker</code>.
+     *
+     * @param minTimeout The minimum timeout of a command (in milliseconds)
+     */
+    public LatencyTracker(long minTimeout) {
+        super();
+        this.mStats = new HashMap<String, Stats>();
+        this.mMinTimeout = minTimeout;
+    }
+
+    /**
+     * Method that records the latency of a successful execution of a command.
+     *
+     * @param id The identifier of the command
+     * @param latency The observed latency (in milliseconds)
+     */
+    public synchronized void record(String id, long latency) {
+        long sample = Math.max(0, latency);
+        Stats stats = this.mStats.get(id);
+        if (stats == null) {
+            stats = new Stats();
+            this.mStats.put(id, stats);
+        }
+        if (stats.mSamples == 0) {
+            stats.mSrtt = sample;
+            stats.mRttVar = sample / 2;
+        } else {
+            long delta = sample - stats.mSrtt;
+            stats.mSrtt += delta >> SRTT_SHIFT;
+            stats.mRttVar += (Math.abs(delta) - stats.mRttVar) >> RTTVAR_SHIFT;
+        }
+        stats.mSamples++;
+    }
+
+    /**
+     * Method that returns the timeout of a command.
+     *
+     * @param id The identifier of the command
+     * @param hint The timeout hint of the command, used if there is no latency
+     * history of the command (in milliseconds)
+     * @return long The timeout of the command (in milliseconds)
+     */
+    public synchronized long getTimeout(String id, long hint) {
+        Stats stats = this.mStats.get(id);
+        if (stats == null || stats.mSamples == 0) {
+            return Math.max(this.mMinTimeout, hint);
+        }
+        return Math.max(this.mMinTimeout, stats.mSrtt + 4 * stats.mRttVar);
+    }
+
+    /**
+     * Method that returns the number of latency samples of a command.
+     *
+     * @param id The identifier of the command
+     * @return int The number of samples
+     */
+    public synchronized int getSamples(String id) {
+        Stats stats = this.mStats.get(id);
+        return stats == null ? 0 : stats.mSamples;
+    }
+
+    /**
+     * Method that clears the latency history.
+     */
+    public synchronized void clear() {
+        this.mStats.clear();
+    }
+
+}
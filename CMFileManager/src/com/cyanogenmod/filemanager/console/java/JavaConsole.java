@@ -29,6 +29,7 @@ import com.cyanogenmod.filemanager.commands.java.Program;
 import com.cyanogenmod.filemanager.console.CommandNotFoundException;
 import com.cyanogenmod.filemanager.console.Console;
 import com.cyanogenmod.filemanager.console.ConsoleAllocException;
+import com.cyanogenmod.filemanager.console.ConsoleExecutor;
 import com.cyanogenmod.filemanager.console.ExecutionException;
 import com.cyanogenmod.filemanager.console.InsufficientPermissionsException;
 import com.cyanogenmod.filemanager.console.NoSuchFileOrDirectory;
@@ -181,7 +182,7 @@ public final class JavaConsole extends Console {
      * {@inheritDoc}
      */
     @Override
-    public synchronized void execute(Executable executable) throws ConsoleAllocException,
+    public void execute(Executable executable) throws ConsoleAllocException,
                                 InsufficientPermissionsException, NoSuchFileOrDirectory,
                                 OperationTimeoutException, ExecutionException,
                                 CommandNotFoundException, ReadOnlyFilesystemException {
@@ -205,9 +206,10 @@ public final class JavaConsole extends Console {
         final Program program = (Program)executable;
         program.setTrace(isTrace());
         program.setBufferSize(this.mBufferSize);
+        beginExecution();
         if (program.isAsynchronous()) {
-            // Execute in a thread
-            Thread t = new Thread() {
+            // Execute in a worker of the console executor
+            Runnable task = new Runnable() {
                 @Override
                 public void run() {
                     try {
@@ -217,14 +219,26 @@ public final class JavaConsole extends Console {
                         Log.v(TAG,
                                 String.format("Async execute failed program: %s", //$NON-NLS-1$
                                 program.getClass().toString()));
+                    } finally {
+                        endExecution();
                     }
                 }
             };
-            t.start();
+            try {
+                ConsoleExecutor.getConsoleExecutor().execute(task);
+            } catch (RuntimeException ex) {
+                endExecution();
+                throw ex;
+            }
 
         } else {
-            // Synchronous execution
-            program.execute();
+            // Synchronous execution (java programs don't share state, so they
+            // don't need to be serialized)
+            try {
+                program.execute();
+            } finally {
+                endExecution();
+            }
         }
     }
 
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.console.shell;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * A fixed-capacity buffer of bytes that keeps the last bytes written to it.<br/>
+ * <br/>
+ * The buffer never grows: when the data written exceeds the limit of the buffer, the oldest
+ * bytes are overwritten. This way the memory used to hold the output of a long-running
+ * program stays bounded. The content is only decoded when it's requested.
+ */
+public class ByteRingBuffer {
+
+    private final byte[] mBuffer;
+    private int mLimit;
+    private int mStart;
+    private int mSize;
+    private long mTotal;
+
+    /**
+     * Constructor of <code>ByteRingBuffer</code>.
+     *
+     * @param capacity The capacity of the buffer (in bytes)
+     */
+    public ByteRingBuffer(int capacity) {
+        super();
+        this.mBuffer = new byte[Math.max(1, capacity)];
+        reset(this.mBuffer.length);
+    }
+
+    /**
+     * Method that empties the buffer and sets the maximum number of bytes retained.
+     *
+     * @param limit The maximum number of bytes retained (up to the capacity of the buffer)
+     */
+    public final void reset(int limit) {
+        this.mLimit = Math.max(1, Math.min(limit, this.mBuffer.length));
+        this.mStart = 0;
+        this.mSize = 0;
+        this.mTotal = 0;
+    }
+
+    /**
+     * Method that empties the buffer.
+     */
+    public void clear() {
+        reset(this.mLimit);
+    }
+
+    /**
+     * Method that returns the capacity of the buffer.
+     *
+     * @return int The capacity of the buffer
+     */
+    public int getCapacity() {
+        return this.mBuffer.length;
+    }
+
+    /**
+     * Method that returns the number of bytes retained by the buffer.
+     *
+     * @return int The number of bytes retained
+     */
+    public int size() {
+        return this.mSize;
+    }
+
+    /**
+     * Method that returns if bytes were discarded because the limit of the buffer
+     * was exceeded.
+     *
+     * @return boolean If bytes were discarded
+     */
+    public boolean isTruncated() {
+        return this.mTotal > this.mSize;
+    }
+
+    /**
+     * Method that writes bytes to the buffer.
+     *
+     * @param data The data
+     * @param offset The offset of the data
+     * @param count The number of bytes to write
+     */
+    public void write(byte[] data, int offset, int count) {
+        this.mTotal += count;
+        int off = offset;
+        int cc = count;
+        if (cc >= this.mLimit) {
+            // Only the last bytes fit in the buffer
+            off += cc - this.mLimit;
+            cc = this.mLimit;
+            this.mStart = 0;
+            this.mSize = 0;
+        }
+
+        // Copy the data in (at most) two blocks
+        int end = (this.mStart + this.mSize) % this.mLimit;
+        int first = Math.min(cc, this.mLimit - end);
+        System.arraycopy(data, off, this.mBuffer, end, first);
+        System.arraycopy(data, off + first, this.mBuffer, 0, cc - first);
+
+        // Discard the overwritten bytes
+        int size = this.mSize + cc;
+        if (size > this.mLimit) {
+            this.mStart = (this.mStart + (size - this.mLimit)) % this.mLimit;
+            size = this.mLimit;
+        }
+        this.mSize = size;
+    }
+
+    /**
+     * Method that returns the bytes retained by the buffer.
+     *
+     * @return byte[] The bytes retained
+     */
+    public byte[] toByteArray() {
+        byte[] data = new byte[this.mSize];
+        int first = Math.min(this.mSize, this.mLimit - this.mStart);
+        System.arraycopy(this.mBuffer, this.mStart, data, 0, first);
+        System.arraycopy(this.mBuffer, 0, data, first, this.mSize - first);
+        return data;
+    }
+
+    /**
+     * Method that decodes the bytes retained by the buffer. If the buffer was truncated,
+     * the incomplete character at the beginning of the buffer is skipped.
+     *
+     * @param charset The charset of the data
+     * @return String The decoded data
+     */
+    public String decode(Charset charset) {
+        byte[] data = toByteArray();
+        int offset = 0;
+        if (isTruncated()) {
+            // Skip the continuation bytes of an incomplete UTF-8 sequence
+            while (offset < data.length && (data[offset] & 0xC0) == 0x80) {
+                offset++;
+            }
+        }
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        try {
+            CharBuffer out = decoder.decode(ByteBuffer.wrap(data, offset, data.length - offset));
+            return out.toString();
+        } catch (Exception ex) {
+            // Not expected with the replace actions
+            return new String(data, offset, data.length - offset, charset);
+        }
+    }
+
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.console.shell;
+
+/**
+ * A streaming matcher of the control markers that frame the output of a command
+ * (<code>prefix + code + suffix</code>, where code is a number of 1 to 3 digits, or
+ * the configured number of digits).<br/>
+ * <br/>
+ * The matcher consumes every chunk of the output only once (it uses a KMP automaton
+ * for the prefix of the marker), so the cost of the scan is linear in the size of the output.
+ * The data that isn't part of the marker is copied to the output buffer, and the data that
+ * could be the beginning of a marker is held by the matcher until it is resolved.
+ */
+public class ControlMarkerMatcher {
+
+    /**
+     * The default maximum number of digits of the code (an exit code).
+     */
+    public static final int MAX_DIGITS = 3;
+
+    private static final int STATE_PREFIX = 0;
+    private static final int STATE_DIGITS = 1;
+    private static final int STATE_SUFFIX = 2;
+    private static final int STATE_NEWLINE = 3;
+
+    private final char[] mPrefix;
+    private final char[] mSuffix;
+    private final int[] mFailure;
+    private final boolean mNewLine;
+    private final int mMaxDigits;
+
+    private final StringBuilder mPending;
+    private int mState;
+    private int mPos;
+    private int mCode;
+    private int mDigits;
+    private boolean mMatched;
+
+    /**
+     * Constructor of <code>ControlMarkerMatcher</code>.
+     *
+     * @param prefix The prefix of the marker
+     * @param suffix The suffix of the marker
+     * @param newLine If the marker is terminated by a new line
+     */
+    public ControlMarkerMatcher(String prefix, String suffix, boolean newLine) {
+        this(prefix, suffix, newLine, MAX_DIGITS);
+    }
+
+    /**
+     * Constructor of <code>ControlMarkerMatcher</code>.
+     *
+     * @param prefix The prefix of the marker
+     * @param suffix The suffix of the marker
+     * @param newLine If the marker is terminated by a new line
+     * @param maxDigits The maximum number of digits of the code (up to 9)
+     */
+    public ControlMarkerMatcher(String prefix, String suffix, boolean newLine, int maxDigits) {
+        super();
+        this.mPrefix = prefix.toCharArray();
+        this.mSuffix = suffix.toCharArray();
+        this.mNewLine = newLine;
+        this.mMaxDigits = Math.max(1, Math.min(9, maxDigits));
+        this.mPending = new StringBuilder(
+                prefix.length() + suffix.length() + this.mMaxDigits + 1);
+
+        // KMP failure table of the prefix
+        this.mFailure = new int[this.mPrefix.length];
+        int k = 0;
+        for (int i = 1; i < this.mPrefix.length; i++) {
+            while (k > 0 && this.mPrefix[i] != this.mPrefix[k]) {
+                k = this.mFailure[k - 1];
+            }
+            if (this.mPrefix[i] == this.mPrefix[k]) {
+                k++;
+            }
+            this.mFailure[i] = k;
+        }
+        reset();
+    }
+
+    /**
+     * Method that resets the matcher to its initial state.
+     */
+    public final void reset() {
+        this.mPending.setLength(0);
+        this.mState = STATE_PREFIX;
+        this.mPos = 0;
+        this.mCode = 0;
+        this.mDigits = 0;
+        this.mMatched = false;
+    }
+
+    /**
+     * Method that returns if the marker was found.
+     *
+     * @return boolean If the marker was found
+     */
+    public boolean isMatched() {
+        return this.mMatched;
+    }
+
+    /**
+     * Method that returns the code embedded in the marker.
+     *
+     * @return int The code embedded in the marker, or -1 if the marker wasn't found
+     */
+    public int getCode() {
+        return this.mMatched ? this.mCode : -1;
+    }
+
+    /**
+     * Method that scans a chunk of the output seeking the marker. The data that isn't part
+     * of the marker is appended to <code>out</code>. The scan stops when the marker is found.
+     *
+     * @param data The chunk of data
+     * @param offset The offset of the data in the chunk
+     * @param count The number of characters to scan
+     * @param out Where to append the data that isn't part of the marker (can be null)
+     * @return int The position in <code>data</code> just after the marker, or -1 if the
+     * marker wasn't found in this chunk
+     */
+    public int scan(CharSequence data, int offset, int count, StringBuilder out) {
+        if (this.mMatched) {
+            return offset;
+        }
+        final int end = offset + count;
+        for (int i = offset; i < end; i++) {
+            consume(data.charAt(i), out);
+            if (this.mMatched) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Method that consumes a character.
+     *
+     * @param c The character
+     * @param out Where to append the data that isn't part of the marker (can be null)
+     */
+    private void consume(char c, StringBuilder out) {
+        switch (this.mState) {
+            case STATE_PREFIX:
+                while (this.mPos > 0 && c != this.mPrefix[this.mPos]) {
+                    int pos = this.mFailure[this.mPos - 1];
+                    release(this.mPos - pos, out);
+                    this.mPos = pos;
+                }
+                if (c == this.mPrefix[this.mPos]) {
+                    this.mPending.append(c);
+                    this.mPos++;
+                    if (this.mPos == this.mPrefix.length) {
+                        this.mState = STATE_DIGITS;
+                        this.mPos = 0;
+                    }
+                } else if (out != null) {
+                    out.append(c);
+                }
+                return;
+
+            case STATE_DIGITS:
+                if (c >= '0' && c <= '9' && this.mDigits < this.mMaxDigits) {
+                    this.mPending.append(c);
+                    this.mCode = (this.mCode * 10) + (c - '0');
+                    this.mDigits++;
+                    return;
+                }
+                if (this.mDigits > 0 && this.mSuffix.length > 0 && c == this.mSuffix[0]) {
+                    this.mPending.append(c);
+                    this.mState = STATE_SUFFIX;
+                    this.mPos = 1;
+                    checkSuffixEnd();
+                    return;
+                }
+                break;
+
+            case STATE_SUFFIX:
+                if (c == this.mSuffix[this.mPos]) {
+                    this.mPending.append(c);
+                    this.mPos++;
+                    checkSuffixEnd();
+                    return;
+                }
+                break;
+
+            case STATE_NEWLINE:
+                if (c == '\n') {
+                    this.mPending.setLength(0);
+                    this.mMatched = true;
+                    return;
+                }
+                break;
+
+            default:
+                break;
+        }
+
+        // The candidate failed after the prefix. Release the first character of the
+        // candidate and rescan the rest (a new candidate could start inside)
+        this.mPending.append(c);
+        String pending = this.mPending.toString();
+        this.mPending.setLength(0);
+        this.mState = STATE_PREFIX;
+        this.mPos = 0;
+        this.mCode = 0;
+        this.mDigits = 0;
+        if (out != null) {
+            out.append(pending.charAt(0));
+        }
+        int cc = pending.length();
+        for (int i = 1; i < cc && !this.mMatched; i++) {
+            consume(pending.charAt(i), out);
+        }
+    }
+
+    /**
+     * Method that checks if the suffix was completely matched.
+     */
+    private void checkSuffixEnd() {
+        if (this.mPos == this.mSuffix.length) {
+            if (this.mNewLine) {
+                this.mState = STATE_NEWLINE;
+            } else {
+                this.mPending.setLength(0);
+                this.mMatched = true;
+            }
+        }
+    }
+
+    /**
+     * Method that releases the first characters of the pending buffer to the output.
+     *
+     * @param count The number of characters to release
+     * @param out Where to append the data that isn't part of the marker (can be null)
+     */
+    private void release(int count, StringBuilder out) {
+        if (out != null) {
+            out.append(this.mPending, 0, count);
+        }
+        this.mPending.delete(0, count);
+    }
+
+}
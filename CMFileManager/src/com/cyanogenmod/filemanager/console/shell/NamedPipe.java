@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.console.shell;
+
+import com.cyanogenmod.filemanager.FileManagerApplication;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.security.SecureRandom;
+
+/**
+ * A temporary named pipe (fifo) used to transfer the data of a program outside of the
+ * standard streams of the shell.<br/>
+ * <br/>
+ * The data sent through the pipe is raw binary data that never goes through the scan of
+ * the control markers nor the charset conversion of the console. The pipe is created by
+ * the console (in the cache directory of the application) before the program is executed,
+ * and it's removed when the program ends.<br/>
+ * <br/>
+ * The open of a named pipe blocks until the other side is opened. If the program ends
+ * without opening its side (i.e. the command failed), the pipe must be released so the
+ * application side isn't blocked forever.
+ */
+public class NamedPipe {
+
+    private static final String PREFIX = "fifo-"; //$NON-NLS-1$
+
+    // The maximum time that the release waits for a pending open of the pipe
+    private static final long RELEASE_TIMEOUT = 2000L;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final File mFile;
+
+    private final Object mSync = new Object();
+    private boolean mOpening;
+    private boolean mOpened;
+    private boolean mReleased;
+
+    /**
+     * Constructor of <code>NamedPipe</code>.
+     *
+     * @param file The file of the named pipe
+     */
+    public NamedPipe(File file) {
+        super();
+        this.mFile = file;
+        this.mOpening = false;
+        this.mOpened = false;
+        this.mReleased = false;
+    }
+
+    /**
+     * Method that creates a reference to a new temporary named pipe. The named pipe
+     * isn't created in the filesystem until the console creates it.
+     *
+     * @return NamedPipe The temporary named pipe
+     */
+    public static NamedPipe createTempNamedPipe() {
+        File dir = FileManagerApplication.getInstance().getCacheDir();
+        String name = PREFIX + Long.toHexString(RANDOM.nextLong() & Long.MAX_VALUE);
+        return new NamedPipe(new File(dir, name));
+    }
+
+    /**
+     * Method that returns the file of the named pipe.
+     *
+     * @return File The file of the named pipe
+     */
+    public File getFile() {
+        return this.mFile;
+    }
+
+    /**
+     * Method that returns the absolute path of the named pipe.
+     *
+     * @return String The absolute path of the named pipe
+     */
+    public String getPath() {
+        return this.mFile.getAbsolutePath();
+    }
+
+    /**
+     * Method that opens the read side of the named pipe. This method blocks until the
+     * program opens the write side, or until the pipe is released.
+     *
+     * @return InputStream The stream for read the data of the pipe
+     * @throws IOException If the pipe couldn't be opened or it was released
+     */
+    public InputStream openInputStream() throws IOException {
+        beginOpen();
+        try {
+            return new FileInputStream(this.mFile);
+        } finally {
+            endOpen();
+        }
+    }
+
+    /**
+     * Method that opens the write side of the named pipe. This method blocks until the
+     * program opens the read side, or until the pipe is released.
+     *
+     * @return OutputStream The stream for write the data to the pipe
+     * @throws IOException If the pipe couldn't be opened or it was released
+     */
+    public OutputStream openOutputStream() throws IOException {
+        beginOpen();
+        try {
+            return new FileOutputStream(this.mFile);
+        } finally {
+            endOpen();
+        }
+    }
+
+    /**
+     * Method that releases the named pipe. A pending open of the pipe is unblocked (a
+     * released pipe has no data and doesn't accept data). Must be invoked when the
+     * program has ended.
+     */
+    public void release() {
+        synchronized (this.mSync) {
+            this.mReleased = true;
+            if (!this.mOpening || this.mOpened) {
+                return;
+            }
+        }
+
+        // Somebody is waiting for the other side of the pipe. Open both sides
+        // (never blocks) and hold them until the pending open ends
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(this.mFile, "rw"); //$NON-NLS-1$
+            synchronized (this.mSync) {
+                long start = System.currentTimeMillis();
+                while (!this.mOpened) {
+                    long remaining = RELEASE_TIMEOUT - (System.currentTimeMillis() - start);
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    this.mSync.wait(remaining);
+                }
+            }
+        } catch (Exception ex) {
+            /**NON BLOCK**/
+        } finally {
+            try {
+                if (raf != null) {
+                    raf.close();
+                }
+            } catch (Exception ex) {
+                /**NON BLOCK**/
+            }
+        }
+    }
+
+    /**
+     * Method that removes the named pipe from the filesystem.
+     *
+     * @return boolean If the named pipe was removed
+     */
+    public boolean delete() {
+        return this.mFile.delete();
+    }
+
+    /**
+     * Method that marks the begin of the open of the pipe.
+     *
+     * @throws IOException If the pipe was released
+     */
+    private void beginOpen() throws IOException {
+        synchronized (this.mSync) {
+            if (this.mReleased) {
+                throw new IOException("The named pipe was released"); //$NON-NLS-1$
+            }
+            this.mOpening = true;
+        }
+    }
+
+    /**
+     * Method that marks the end of the open of the pipe.
+     */
+    private void endOpen() {
+        synchronized (this.mSync) {
+            this.mOpened = true;
+            this.mSync.notifyAll();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "NamedPipe [file=" + this.mFile + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+}
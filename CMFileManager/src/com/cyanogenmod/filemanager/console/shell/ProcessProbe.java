@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.console.shell;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * A helper class that probes the state of a shell process through the <code>/proc</code>
+ * filesystem, without executing any command.<br/>
+ * <br/>
+ * A shell is busy while it's running (or waiting for the disk), or while it has a child
+ * process (the command in execution). A shell that is sleeping without children is waiting
+ * for its input, so it isn't executing any command.
+ */
+public final class ProcessProbe {
+
+    /**
+     * The shell process is running a command.
+     */
+    public static final int STATE_BUSY = 0;
+    /**
+     * The shell process is waiting for its input.
+     */
+    public static final int STATE_IDLE = 1;
+    /**
+     * The shell process doesn't exists.
+     */
+    public static final int STATE_DEAD = 2;
+    /**
+     * The state of the shell process can't be determined.
+     */
+    public static final int STATE_UNKNOWN = 3;
+
+    private static final File PROC = new File("/proc"); //$NON-NLS-1$
+    private static final String STAT = "stat"; //$NON-NLS-1$
+
+    /**
+     * Constructor of <code>ProcessProbe</code>.
+     */
+    private ProcessProbe() {
+        super();
+    }
+
+    /**
+     * Method that probes the state of a shell process.
+     *
+     * @param pid The process identifier of the shell
+     * @return int The state of the process (one of the <code>STATE_*</code> constants)
+     */
+    public static int probe(int pid) {
+        if (pid <= 0) {
+            return STATE_UNKNOWN;
+        }
+        String stat = readStat(new File(new File(PROC, String.valueOf(pid)), STAT));
+        if (stat == null) {
+            return new File(PROC, String.valueOf(pid)).exists() ? STATE_UNKNOWN : STATE_DEAD;
+        }
+        char state = getState(stat);
+        if (state == 'R' || state == 'D') {
+            return STATE_BUSY;
+        }
+        if (state == 'Z' || state == 'X') {
+            return STATE_DEAD;
+        }
+        if (state != 'S') {
+            return STATE_UNKNOWN;
+        }
+
+        // The shell is sleeping. Is waiting for a child?
+        String[] pids = PROC.list();
+        if (pids == null) {
+            return STATE_UNKNOWN;
+        }
+        for (int i = 0; i < pids.length; i++) {
+            String name = pids[i];
+            if (name.length() == 0 || name.charAt(0) < '0' || name.charAt(0) > '9') {
+                continue;
+            }
+            String childStat = readStat(new File(new File(PROC, name), STAT));
+            if (childStat != null && getParentPid(childStat) == pid) {
+                return STATE_BUSY;
+            }
+        }
+        return STATE_IDLE;
+    }
+
+    /**
+     * Method that returns the descendants of a process (its children, the children of its
+     * children, ...). The parents are returned before their children.
+     *
+     * @param pid The process identifier
+     * @return int[] The process identifiers of the descendants (an empty array if the
+     * process has no descendants or they can't be determined)
+     */
+    public static int[] getDescendants(int pid) {
+        if (pid <= 0) {
+            return new int[0];
+        }
+        String[] names = PROC.list();
+        if (names == null) {
+            return new int[0];
+        }
+
+        // Read the parent of every process (a single scan of /proc)
+        int[] pids = new int[names.length];
+        int[] ppids = new int[names.length];
+        int count = 0;
+        for (int i = 0; i < names.length; i++) {
+            String name = names[i];
+            if (name.length() == 0 || name.charAt(0) < '0' || name.charAt(0) > '9') {
+                continue;
+            }
+            String stat = readStat(new File(new File(PROC, name), STAT));
+            if (stat == null) {
+                continue;
+            }
+            try {
+                pids[count] = Integer.parseInt(name);
+            } catch (NumberFormatException nfEx) {
+                continue;
+            }
+            ppids[count] = getParentPid(stat);
+            count++;
+        }
+
+        // Walk the tree in breadth (parents first)
+        int[] descendants = new int[count];
+        int found = 0;
+        int next = -1;
+        int parent = pid;
+        while (true) {
+            for (int i = 0; i < count; i++) {
+                if (ppids[i] == parent && pids[i] != pid) {
+                    descendants[found] = pids[i];
+                    found++;
+                    ppids[i] = -1;
+                }
+            }
+            next++;
+            if (next >= found) {
+                break;
+            }
+            parent = descendants[next];
+        }
+        int[] result = new int[found];
+        System.arraycopy(descendants, 0, result, 0, found);
+        return result;
+    }
+
+    /**
+     * Method that returns the state field of a <code>/proc/[pid]/stat</code> record.
+     *
+     * @param stat The stat record
+     * @return char The state of the process
+     */
+    private static char getState(String stat) {
+        // The name of the process is between parenthesis and may contain spaces
+        int pos = stat.lastIndexOf(')');
+        if (pos == -1 || pos + 2 >= stat.length()) {
+            return '?';
+        }
+        return stat.charAt(pos + 2);
+    }
+
+    /**
+     * Method that returns the parent process field of a <code>/proc/[pid]/stat</code> record.
+     *
+     * @param stat The stat record
+     * @return int The parent process identifier, or -1 if it can't be parsed
+     */
+    private static int getParentPid(String stat) {
+        int pos = stat.lastIndexOf(')');
+        if (pos == -1) {
+            return -1;
+        }
+        // ") S <ppid> ..."
+        int start = pos + 4;
+        int end = start;
+        while (end < stat.length() && stat.charAt(end) >= '0' && stat.charAt(end) <= '9') {
+            end++;
+        }
+        if (start >= end) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(stat.substring(start, end));
+        } catch (NumberFormatException nfEx) {
+            return -1;
+        }
+    }
+
+    /**
+     * Method that reads a <code>/proc/[pid]/stat</code> record.
+     *
+     * @param file The stat file
+     * @return String The stat record, or null if it can't be read
+     */
+    private static String readStat(File file) {
+        FileInputStream fis = null;
+        try {
+            fis = new FileInputStream(file);
+            byte[] data = new byte[512];
+            int read = fis.read(data, 0, data.length);
+            if (read <= 0) {
+                return null;
+            }
+            return new String(data, 0, read);
+        } catch (IOException ioEx) {
+            return null;
+        } finally {
+            try {
+                if (fis != null) {
+                    fis.close();
+                }
+            } catch (Exception ex) {
+                /**NON BLOCK**/
+            }
+        }
+    }
+
+}
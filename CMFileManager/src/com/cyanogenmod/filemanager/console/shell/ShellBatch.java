@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.console.shell;
+
+import com.cyanogenmod.filemanager.commands.shell.FormatTemplate;
+import com.cyanogenmod.filemanager.commands.shell.Program;
+import com.cyanogenmod.filemanager.util.FileHelper;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A batch of programs sent to the shell in a single write.<br/>
+ * <br/>
+ * Every program is framed with its own random control markers: a start marker and an end
+ * marker (with the exit code) in the standard output, and an end marker in the standard
+ * error. This way the output of the shell is split back into the output of every program,
+ * while the commands are executed one after another without a round trip per command.
+ */
+public class ShellBatch {
+
+    private final Program[] mPrograms;
+    private final String[][] mIds;
+    private final ControlMarkerMatcher[] mStartMatchers;
+    private final ControlMarkerMatcher[] mEndMatchers;
+    private final ControlMarkerMatcher[] mErrMatchers;
+    private final StringBuilder[] mOut;
+    private final StringBuilder[] mErr;
+
+    private int mOutIndex;
+    private boolean mOutStarted;
+    private int mErrIndex;
+
+    /**
+     * Constructor of <code>ShellBatch</code>.
+     *
+     * @param programs The synchronous programs of the batch
+     * @param random The random generator of the control markers
+     */
+    public ShellBatch(List<Program> programs, Random random) {
+        super();
+        int cc = programs.size();
+        this.mPrograms = programs.toArray(new Program[cc]);
+        this.mIds = new String[cc][];
+        this.mStartMatchers = new ControlMarkerMatcher[cc];
+        this.mEndMatchers = new ControlMarkerMatcher[cc];
+        this.mErrMatchers = new ControlMarkerMatcher[cc];
+        this.mOut = new StringBuilder[cc];
+        this.mErr = new StringBuilder[cc];
+        for (int i = 0; i < cc; i++) {
+            String[] ids = new String[6];
+            for (int j = 0; j < ids.length; j++) {
+                ids[j] = String.format("/#%d#/", Long.valueOf(random.nextLong())); //$NON-NLS-1$
+            }
+            this.mIds[i] = ids;
+            this.mStartMatchers[i] = new ControlMarkerMatcher(ids[0], ids[1], true);
+            this.mEndMatchers[i] = new ControlMarkerMatcher(ids[2], ids[3], false);
+            this.mErrMatchers[i] = new ControlMarkerMatcher(ids[4], ids[5], true);
+            this.mOut[i] = new StringBuilder();
+            this.mErr[i] = new StringBuilder();
+        }
+        this.mOutIndex = 0;
+        this.mOutStarted = false;
+        this.mErrIndex = 0;
+    }
+
+    /**
+     * Method that returns the number of programs of the batch.
+     *
+     * @return int The number of programs
+     */
+    public int size() {
+        return this.mPrograms.length;
+    }
+
+    /**
+     * Method that returns a program of the batch.
+     *
+     * @param index The index of the program
+     * @return Program The program
+     */
+    public Program getProgram(int index) {
+        return this.mPrograms[index];
+    }
+
+    /**
+     * Method that builds the commands of the batch (one command per line).
+     *
+     * @param startCmd The template of the start control command
+     * @param endCmd The template of the exit code control command
+     * @return String The commands of the batch
+     */
+    public String getCommands(FormatTemplate startCmd, FormatTemplate endCmd) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < this.mPrograms.length; i++) {
+            String[] ids = this.mIds[i];
+            sb.append(startCmd.format(quote(ids[0]), quote(ids[1])))
+              .append(" ") //$NON-NLS-1$
+              .append(this.mPrograms[i].getCommand())
+              .append(" ") //$NON-NLS-1$
+              .append(this.mPrograms[i].getArguments())
+              .append(" ") //$NON-NLS-1$
+              .append(endCmd.format(quote(ids[2]), quote(ids[3])))
+              .append(" ") //$NON-NLS-1$
+              .append(endCmd.format(quote(ids[4]), quote(ids[5])))
+              .append(" 1>&2") //$NON-NLS-1$
+              .append(FileHelper.NEWLINE);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Method that process a chunk of the standard output of the shell.
+     *
+     * @param data The chunk of data
+     * @return String The data that belongs to the programs (without the control markers)
+     */
+    public String onStdOut(CharSequence data) {
+        StringBuilder partial = new StringBuilder(data.length());
+        int pos = 0;
+        int len = data.length();
+        while (pos < len && this.mOutIndex < this.mPrograms.length) {
+            if (!this.mOutStarted) {
+                // Discard all the data until the start control marker
+                int next = this.mStartMatchers[this.mOutIndex].scan(data, pos, len - pos, null);
+                if (next == -1) {
+                    break;
+                }
+                this.mOutStarted = true;
+                pos = next;
+            }
+            StringBuilder out = this.mOut[this.mOutIndex];
+            int start = out.length();
+            int next = this.mEndMatchers[this.mOutIndex].scan(data, pos, len - pos, out);
+            partial.append(out, start, out.length());
+            if (next == -1) {
+                break;
+            }
+            this.mOutIndex++;
+            this.mOutStarted = false;
+            pos = next;
+        }
+        return partial.toString();
+    }
+
+    /**
+     * Method that process a chunk of the standard error of the shell.
+     *
+     * @param data The chunk of data
+     */
+    public void onStdErr(CharSequence data) {
+        int pos = 0;
+        int len = data.length();
+        while (pos < len && this.mErrIndex < this.mPrograms.length) {
+            int next = this.mErrMatchers[this.mErrIndex].scan(
+                    data, pos, len - pos, this.mErr[this.mErrIndex]);
+            if (next == -1) {
+                break;
+            }
+            this.mErrIndex++;
+            pos = next;
+        }
+    }
+
+    /**
+     * Method that returns the number of programs that have finished.
+     *
+     * @return int The number of programs that have finished
+     */
+    public int getFinished() {
+        return Math.min(this.mOutIndex, this.mErrIndex);
+    }
+
+    /**
+     * Method that returns a value that grows every time the batch progresses.
+     *
+     * @return int The progress of the batch
+     */
+    public int getProgress() {
+        return this.mOutIndex + this.mErrIndex;
+    }
+
+    /**
+     * Method that returns if all the programs of the batch have finished.
+     *
+     * @return boolean If all the programs have finished
+     */
+    public boolean isFinished() {
+        return getFinished() == this.mPrograms.length;
+    }
+
+    /**
+     * Method that returns the exit code of a program.
+     *
+     * @param index The index of the program
+     * @return int The exit code, or 255 if the program hasn't finished
+     */
+    public int getExitCode(int index) {
+        return this.mEndMatchers[index].isMatched() ? this.mEndMatchers[index].getCode() : 255;
+    }
+
+    /**
+     * Method that returns the standard output of a program.
+     *
+     * @param index The index of the program
+     * @return String The standard output
+     */
+    public String getStdOut(int index) {
+        return this.mOut[index].toString();
+    }
+
+    /**
+     * Method that returns the standard error of a program.
+     *
+     * @param index The index of the program
+     * @return String The standard error
+     */
+    public String getStdErr(int index) {
+        return this.mErr[index].toString();
+    }
+
+    /**
+     * Method that quotes a control marker.
+     *
+     * @param id The control marker
+     * @return String The quoted control marker
+     */
+    private static String quote(String id) {
+        return "'" + id + "'"; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+}
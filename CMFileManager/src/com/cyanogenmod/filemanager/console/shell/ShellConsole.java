@@ -27,22 +27,27 @@ import com.cyanogenmod.filemanager.commands.IdentityExecutable;
 import com.cyanogenmod.filemanager.commands.ProcessIdExecutable;
 import com.cyanogenmod.filemanager.commands.SIGNAL;
 import com.cyanogenmod.filemanager.commands.shell.AsyncResultProgram;
-import com.cyanogenmod.filemanager.commands.shell.Command;
+import com.cyanogenmod.filemanager.commands.shell.CommandDefinitionRegistry;
+import com.cyanogenmod.filemanager.commands.shell.FormatTemplate;
 import com.cyanogenmod.filemanager.commands.shell.InvalidCommandDefinitionException;
+import com.cyanogenmod.filemanager.commands.shell.MakeFifoCommand;
+import com.cyanogenmod.filemanager.commands.shell.NamedPipeProgram;
 import com.cyanogenmod.filemanager.commands.shell.Program;
 import com.cyanogenmod.filemanager.commands.shell.Shell;
 import com.cyanogenmod.filemanager.commands.shell.ShellExecutableFactory;
 import com.cyanogenmod.filemanager.commands.shell.SyncResultProgram;
+import com.cyanogenmod.filemanager.console.BatchResult;
 import com.cyanogenmod.filemanager.console.CommandNotFoundException;
 import com.cyanogenmod.filemanager.console.Console;
 import com.cyanogenmod.filemanager.console.ConsoleAllocException;
+import com.cyanogenmod.filemanager.console.ConsoleExecutor;
 import com.cyanogenmod.filemanager.console.ExecutionException;
 import com.cyanogenmod.filemanager.console.InsufficientPermissionsException;
+import com.cyanogenmod.filemanager.console.LatencyTracker;
 import com.cyanogenmod.filemanager.console.NoSuchFileOrDirectory;
 import com.cyanogenmod.filemanager.console.OperationTimeoutException;
 import com.cyanogenmod.filemanager.console.ReadOnlyFilesystemException;
 import com.cyanogenmod.filemanager.model.Identity;
-import com.cyanogenmod.filemanager.preferences.FileManagerSettings;
 import com.cyanogenmod.filemanager.preferences.Preferences;
 import com.cyanogenmod.filemanager.util.CommandHelper;
 import com.cyanogenmod.filemanager.util.FileHelper;
@@ -52,12 +57,12 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.Charset;
 import java.security.SecureRandom;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * An implementation of a {@link Console} based in the execution of shell commands.<br/>
@@ -71,11 +76,26 @@ public abstract class ShellConsole extends Console implements Program.ProgramLis
     private static final String TAG = "ShellConsole"; //$NON-NLS-1$
 
     // A timeout of 5 seconds should be enough for no-debugging environments
+    // (only used if the state of the shell can't be probed)
     private static final long DEFAULT_TIMEOUT =
             FileManagerApplication.isDebuggable() ? 20000L : 5000L;
 
+    // The maximum time between two probes of the state of a busy shell
+    private static final long MAX_PROBE_INTERVAL = 5000L;
+
     private static final int DEFAULT_BUFFER = 512;
 
+    // The maximum number of bytes of the standard error retained for a program.
+    // Asynchronous programs only need the tail of the standard error
+    private static final int MAX_STDERR = 16 * 1024;
+    private static final int MAX_ASYNC_STDERR = 512;
+
+    // The maximum number of programs sent to the shell in a single write
+    private static final int MAX_BATCH_SIZE = 64;
+
+    // The maximum number of digits of a process identifier
+    private static final int MAX_PID_DIGITS = 9;
+
     //Shell References
     private final Shell mShell;
     private final String mInitialDirectory;
@@ -113,15 +133,45 @@ public abstract class ShellConsole extends Console implements Program.ProgramLis
     /**
      * @hide
      */
-    StringBuffer mSbIn = null;
+    final StringBuilder mSbIn;
+    /**
+     * @hide
+     */
+    final ByteRingBuffer mErrBuffer;
+    /**
+     * @hide
+     */
+    final StreamDecoder mInDecoder;
+    /**
+     * @hide
+     */
+    final StreamDecoder mErrDecoder;
     /**
      * @hide
      */
-    StringBuffer mSbErr = null;
+    final StringBuilder mPartialIn;
 
     private final SecureRandom mRandom;
-    private String mStartControlPattern;
-    private String mEndControlPattern;
+    /**
+     * @hide
+     */
+    ControlMarkerMatcher mStartControlMatcher;
+    /**
+     * @hide
+     */
+    ControlMarkerMatcher mEndControlMatcher;
+    /**
+     * @hide
+     */
+    ControlMarkerMatcher mPidControlMatcher;
+    /**
+     * @hide
+     */
+    volatile int mJobPid;
+    /**
+     * @hide
+     */
+    ShellBatch mBatch;
 
     /**
      * @hide
@@ -130,6 +180,9 @@ public abstract class ShellConsole extends Console implements Program.ProgramLis
 
     private final ShellExecutableFactory mExecutableFactory;
 
+    private final LatencyTracker mLatencyTracker;
+    private volatile long mProgress;
+
     /**
      * Constructor of <code>ShellConsole</code>.
      *
@@ -138,9 +191,7 @@ public abstract class ShellConsole extends Console implements Program.ProgramLis
      * @throws IOException If initial directory couldn't be resolved
      */
     public ShellConsole(Shell shell) throws FileNotFoundException, IOException {
-        this(shell, Preferences.getSharedPreferences().getString(
-                            FileManagerSettings.SETTINGS_INITIAL_DIR.getId(),
-                            (String)FileManagerSettings.SETTINGS_INITIAL_DIR.getDefaultValue()));
+        this(shell, Preferences.getSnapshot().getInitialDir());
     }
 
     /**
@@ -169,9 +220,16 @@ public abstract class ShellConsole extends Console implements Program.ProgramLis
         }
         this.mInitialDirectory = initialDirectory;
 
-        //Restart the buffers
-        this.mSbIn = new StringBuffer();
-        this.mSbErr = new StringBuffer();
+        //Create the buffers
+        this.mSbIn = new StringBuilder();
+        this.mErrBuffer = new ByteRingBuffer(MAX_STDERR);
+        this.mInDecoder = new StreamDecoder(Charset.defaultCharset(), DEFAULT_BUFFER);
+        this.mErrDecoder = new StreamDecoder(Charset.defaultCharset(), DEFAULT_BUFFER);
+        this.mPartialIn = new StringBuilder();
+
+        //The latency history of the commands
+        this.mLatencyTracker = new LatencyTracker();
+        this.mProgress = 0;
 
         //Generate an aleatory secure random generator
         try {
@@ -356,8 +414,6 @@ public abstract class ShellConsole extends Console implements Program.ProgramLis
                 this.mIn = null;
                 this.mErr = null;
                 this.mOut = null;
-                this.mSbIn = null;
-                this.mSbErr = null;
             }
         }
     }
@@ -375,7 +431,7 @@ public abstract class ShellConsole extends Console implements Program.ProgramLis
      * {@inheritDoc}
      */
     @Override
-    public final synchronized void execute(final Executable executable)
+    public final void execute(final Executable executable)
             throws ConsoleAllocException, InsufficientPermissionsException,
             CommandNotFoundException, NoSuchFileOrDirectory,
             OperationTimeoutException, ExecutionException, ReadOnlyFilesystemException {
@@ -387,13 +443,22 @@ public abstract class ShellConsole extends Console implements Program.ProgramLis
 
         //Asynchronous or synchronous execution?
         final Program program = (Program)executable;
+        beginExecution();
         if (executable instanceof AsyncResultExecutable) {
-            Thread asyncThread = new Thread(new Runnable() {
+            Runnable asyncTask = new Runnable() {
                 @Override
                 public void run() {
                     //Synchronous execution (but asynchronous running in a thread)
                     //This way syncExecute is locked until this thread ends
+                    NamedPipe pipe = null;
+                    if (program instanceof NamedPipeProgram) {
+                        pipe = ((NamedPipeProgram)program).getNamedPipe();
+                    }
                     try {
+                        //The data of the program is transferred through a named pipe?
+                        if (pipe != null) {
+                            ShellConsole.this.createNamedPipe(pipe);
+                        }
                         if (ShellConsole.this.syncExecute(program, true)) {
                             ShellConsole.this.syncExecute(program, false);
                         }
@@ -405,16 +470,226 @@ public abstract class ShellConsole extends Console implements Program.ProgramLis
                             //Capture exception
                             Log.e(TAG, "Fail asynchronous execution", ex); //$NON-NLS-1$
                         }
+                    } finally {
+                        if (pipe != null) {
+                            pipe.release();
+                            pipe.delete();
+                        }
+                        endExecution();
                     }
                 }
-            });
-            asyncThread.start();
+            };
+            try {
+                ConsoleExecutor.getConsoleExecutor().execute(asyncTask);
+            } catch (RuntimeException ex) {
+                endExecution();
+                throw ex;
+            }
         } else {
             //Synchronous execution (2 tries with 1 reallocation)
-            if (syncExecute(program, true)) {
-                syncExecute(program, false);
+            try {
+                synchronized (this) {
+                    if (syncExecute(program, true)) {
+                        syncExecute(program, false);
+                    }
+                }
+            } finally {
+                endExecution();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br/>
+     * The consecutive synchronous programs are sent to the shell in a single write, and
+     * their output is split back by their control markers. Asynchronous programs
+     * are executed one by one.
+     */
+    @Override
+    public List<BatchResult> executeBatch(List<? extends Executable> executables) {
+        int cc = executables.size();
+        List<BatchResult> results = new ArrayList<BatchResult>(cc);
+        List<Program> programs = new ArrayList<Program>(Math.min(cc, MAX_BATCH_SIZE));
+        beginExecution();
+        try {
+            synchronized (this) {
+                for (int i = 0; i < cc; i++) {
+                    Executable executable = executables.get(i);
+                    if (executable instanceof Program
+                            && !(executable instanceof AsyncResultExecutable)) {
+                        programs.add((Program)executable);
+                        if (programs.size() < MAX_BATCH_SIZE) {
+                            continue;
+                        }
+                    }
+
+                    // Send the pending programs
+                    if (!programs.isEmpty()) {
+                        results.addAll(syncExecuteBatch(programs));
+                        programs.clear();
+                    }
+                    if (!(executable instanceof Program)
+                            || executable instanceof AsyncResultExecutable) {
+                        results.addAll(super.executeBatch(
+                                Collections.singletonList(executable)));
+                    }
+                }
+                if (!programs.isEmpty()) {
+                    results.addAll(syncExecuteBatch(programs));
+                }
             }
+        } finally {
+            endExecution();
         }
+        return results;
+    }
+
+    /**
+     * Method for execute a batch of synchronous programs in a single write to the shell.
+     * The programs that couldn't be executed because of an i/o error of the console are
+     * executed again one by one (reallocating the console).
+     *
+     * @param programs The synchronous programs to execute
+     * @return List<BatchResult> The result of every program
+     * @hide
+     */
+    synchronized List<BatchResult> syncExecuteBatch(List<Program> programs) {
+        ShellBatch batch = new ShellBatch(programs, this.mRandom);
+        int cc = batch.size();
+        List<BatchResult> results = new ArrayList<BatchResult>(cc);
+        OperationTimeoutException timeout = null;
+        try {
+            //Check the console status before send commands
+            checkConsole();
+
+            synchronized (this.mSync) {
+                if (!this.mActive) {
+                    throw new ConsoleAllocException("No console allocated"); //$NON-NLS-1$
+                }
+            }
+
+            //Audit commands
+            if (isTrace()) {
+                for (int i = 0; i < cc; i++) {
+                    Program program = batch.getProgram(i);
+                    Log.v(TAG,
+                            String.format("%s-%s, batch command: %s, args: %s",  //$NON-NLS-1$
+                                    ShellConsole.this.mShell.getId(),
+                                    program.getId(),
+                                    program.getCommand(),
+                                    program.getArguments()));
+                }
+            }
+
+            //Send all the commands in one write
+            FormatTemplate startCmd = null;
+            FormatTemplate endCmd = null;
+            try {
+                CommandDefinitionRegistry registry = CommandDefinitionRegistry.getInstance();
+                startCmd = registry.getStartCode();
+                endCmd = registry.getExitCode();
+            } catch (InvalidCommandDefinitionException icdEx) {
+                throw new CommandNotFoundException(
+                        "ExitCodeCommandInfo not found", icdEx); //$NON-NLS-1$
+            }
+            for (int i = 0; i < cc; i++) {
+                batch.getProgram(i).setProgramListener(this);
+            }
+            synchronized (this.mSync) {
+                this.mCancelled = false;
+                this.mInDecoder.reset();
+                this.mErrDecoder.reset();
+                this.mBatch = batch;
+            }
+            long start = System.currentTimeMillis();
+            this.mOut.write(batch.getCommands(startCmd, endCmd).getBytes());
+
+            //Wait while the batch progresses
+            try {
+                waitForBatch(batch, start);
+            } catch (OperationTimeoutException otEx) {
+                timeout = otEx;
+            }
+            synchronized (this.mSync) {
+                this.mBatch = null;
+            }
+
+        } catch (Exception ex) {
+            synchronized (this.mSync) {
+                this.mBatch = null;
+            }
+            if (!(ex instanceof IOException) && !(ex instanceof InterruptedException)) {
+                // The console can't execute the batch
+                for (int i = 0; i < cc; i++) {
+                    results.add(
+                            new BatchResult(
+                                    batch.getProgram(i), BatchResult.UNKNOWN_EXIT_CODE, ex));
+                }
+                return results;
+            }
+        }
+
+        //Check the result of every finished program
+        int finished = batch.getFinished();
+        for (int i = 0; i < finished; i++) {
+            Program program = batch.getProgram(i);
+            int exitCode = batch.getExitCode(i);
+            String err = batch.getStdErr(i);
+            try {
+                if (isTrace()) {
+                    Log.v(TAG,
+                            String.format("%s-%s, batch command: %s, exitCode: %s",  //$NON-NLS-1$
+                                    ShellConsole.this.mShell.getId(),
+                                    program.getId(),
+                                    program.getCommand(),
+                                    String.valueOf(exitCode)));
+                }
+                if (!program.isIgnoreShellStdErrCheck()) {
+                    this.mShell.checkStdErr(program, exitCode, err);
+                }
+                this.mShell.checkExitCode(exitCode);
+                program.checkExitCode(exitCode);
+                program.checkStdErr(exitCode, err);
+                if (program instanceof SyncResultProgram) {
+                    try {
+                        ((SyncResultProgram)program).parse(batch.getStdOut(i), err);
+                    } catch (ParseException pEx) {
+                        throw new ExecutionException(
+                                "SyncResultProgram parse failed", pEx); //$NON-NLS-1$
+                    }
+                }
+                results.add(new BatchResult(program, exitCode, null));
+            } catch (Exception ex) {
+                results.add(new BatchResult(program, exitCode, ex));
+            }
+        }
+        if (finished == cc) {
+            return results;
+        }
+
+        if (timeout != null) {
+            //The shell is hung, and the pending commands are still queued in the shell.
+            //Drop them reallocating the console, and report the timeout of the rest
+            //of programs
+            Log.w(TAG, "Batch execution timeout. Reallocate console."); //$NON-NLS-1$
+            try {
+                realloc();
+            } catch (Exception ex) {
+                /**NON BLOCK**/
+            }
+            for (int i = finished; i < cc; i++) {
+                results.add(
+                        new BatchResult(
+                                batch.getProgram(i), BatchResult.UNKNOWN_EXIT_CODE, timeout));
+            }
+            return results;
+        }
+
+        //The console failed. Execute the rest of programs one by one (reallocating the console)
+        List<Program> pending = programs.subList(finished, cc);
+        results.addAll(super.executeBatch(pending));
+        return results;
     }
 
     /**
@@ -450,12 +725,6 @@ public abstract class ShellConsole extends Console implements Program.ProgramLis
             //Saves the active command reference
             this.mActiveCommand = program;
 
-            //Reset the buffers
-            this.mStarted = false;
-            this.mCancelled = false;
-            this.mSbIn = new StringBuffer();
-            this.mSbErr = new StringBuffer();
-
             //Random start/end identifiers
             String startId1 =
                     String.format("/#%d#/", Long.valueOf(this.mRandom.nextLong())); //$NON-NLS-1$
@@ -465,6 +734,36 @@ public abstract class ShellConsole extends Console implements Program.ProgramLis
                     String.format("/#%d#/", Long.valueOf(this.mRandom.nextLong())); //$NON-NLS-1$
             String endId2 =
                     String.format("/#%d#/", Long.valueOf(this.mRandom.nextLong())); //$NON-NLS-1$
+            String pidId1 =
+                    String.format("/#%d#/", Long.valueOf(this.mRandom.nextLong())); //$NON-NLS-1$
+            String pidId2 =
+                    String.format("/#%d#/", Long.valueOf(this.mRandom.nextLong())); //$NON-NLS-1$
+
+            //Cancellable programs are launched as a job of the shell, which reports the
+            //process id of the job, so they can be cancelled without look for its process
+            boolean asJob = program instanceof AsyncResultProgram &&
+                    ((AsyncResultProgram)program).isExpectEnd() &&
+                    ((AsyncResultProgram)program).isCancellable();
+
+            //Reset the buffers and the control markers matchers (compiled once per command)
+            this.mStartControlMatcher = new ControlMarkerMatcher(startId1, startId2, true);
+            this.mEndControlMatcher = new ControlMarkerMatcher(endId1, endId2, false);
+            this.mPidControlMatcher = asJob ?
+                    new ControlMarkerMatcher(pidId1, pidId2, true, MAX_PID_DIGITS) :
+                    null;
+            this.mJobPid = -1;
+            this.mStarted = false;
+            this.mCancelled = false;
+            synchronized (this.mSync) {
+                this.mFinished = false;
+            }
+            this.mSbIn.setLength(0);
+            synchronized (this.mErrBuffer) {
+                this.mErrBuffer.reset(
+                        program instanceof AsyncResultProgram ? MAX_ASYNC_STDERR : MAX_STDERR);
+            }
+            this.mInDecoder.reset();
+            this.mErrDecoder.reset();
 
             //Create command string
             String cmd = program.getCommand();
@@ -485,6 +784,11 @@ public abstract class ShellConsole extends Console implements Program.ProgramLis
             if (program instanceof AsyncResultProgram) {
                 ((AsyncResultProgram)program).setOnCancelListener(this);
                 ((AsyncResultProgram)program).setOnEndListener(this);
+                //The time that the program can need to finish on its own once its end
+                //was requested. The program is killed after that time
+                ((AsyncResultProgram)program).setEndTimeout(
+                        this.mLatencyTracker.getTimeout(
+                                program.getId(), program.getTimeoutHint()));
             }
 
             //Send the command + a control code with exit code
@@ -496,19 +800,12 @@ public abstract class ShellConsole extends Console implements Program.ProgramLis
                                            (program instanceof AsyncResultProgram &&
                                             ((AsyncResultProgram)program).isExpectEnd()));
 
-                this.mStartControlPattern = startId1 + "\\d{1,3}" + startId2 + "\\n"; //$NON-NLS-1$ //$NON-NLS-2$
-                this.mEndControlPattern = endId1 + "\\d{1,3}" + endId2; //$NON-NLS-1$
-                String startCmd =
-                        Command.getStartCodeCommandInfo(
-                                FileManagerApplication.getInstance().getResources());
-                startCmd = String.format(
-                        startCmd, "'" + startId1 +//$NON-NLS-1$
+                CommandDefinitionRegistry registry = CommandDefinitionRegistry.getInstance();
+                String startCmd = registry.getStartCode().format(
+                        "'" + startId1 +//$NON-NLS-1$
                         "'", "'" + startId2 + "'"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-                String endCmd =
-                        Command.getExitCodeCommandInfo(
-                                FileManagerApplication.getInstance().getResources());
-                endCmd = String.format(
-                        endCmd, "'" + endId1 + //$NON-NLS-1$
+                String endCmd = registry.getExitCode().format(
+                        "'" + endId1 + //$NON-NLS-1$
                         "'", "'" + endId2 + "'"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
                 StringBuilder sb = new StringBuilder()
                     .append(startCmd)
@@ -516,11 +813,18 @@ public abstract class ShellConsole extends Console implements Program.ProgramLis
                     .append(cmd)
                     .append(" ")  //$NON-NLS-1$
                     .append(args);
-               if (hasEndControl) {
-                   sb = sb.append(" ") //$NON-NLS-1$
-                          .append(endCmd);
-               }
-               sb.append(FileHelper.NEWLINE);
+                if (asJob) {
+                    //Launch as a job and report its process id (pid control code)
+                    String pidCmd = registry.getPidCode().format(
+                            "'" + pidId1 + //$NON-NLS-1$
+                            "'", "'" + pidId2 + "'"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                    sb = sb.append(pidCmd);
+                }
+                if (hasEndControl) {
+                    sb = sb.append(" ") //$NON-NLS-1$
+                           .append(endCmd);
+                }
+                sb.append(FileHelper.NEWLINE);
                 this.mOut.write(sb.toString().getBytes());
             } catch (InvalidCommandDefinitionException icdEx) {
                 throw new CommandNotFoundException(
@@ -528,14 +832,31 @@ public abstract class ShellConsole extends Console implements Program.ProgramLis
             }
 
             //Now, wait for buffers to be filled
-            synchronized (this.mSync) {
-                if (program instanceof AsyncResultProgram) {
-                    this.mSync.wait();
-                } else {
-                    this.mSync.wait(DEFAULT_TIMEOUT);
-                    if (!this.mFinished) {
-                        throw new OperationTimeoutException(DEFAULT_TIMEOUT, cmd);
+            long start = System.currentTimeMillis();
+            if (program instanceof AsyncResultProgram) {
+                waitForAsyncProgram();
+                //The latency of a program that ends on its own (it gives the time that
+                //the program can need to finish once its end is requested)
+                if (!this.mCancelled && this.mEndControlMatcher.isMatched()) {
+                    this.mLatencyTracker.record(
+                            program.getId(), System.currentTimeMillis() - start);
+                }
+            } else {
+                try {
+                    waitForSyncProgram(program, start);
+                } catch (OperationTimeoutException otEx) {
+                    //The shell is hung or the command is still running. Don't reuse
+                    //the shell for the next commands
+                    try {
+                        realloc();
+                    } catch (ConsoleAllocException caEx) {
+                        Log.w(TAG, "Failed to reallocate the console", caEx); //$NON-NLS-1$
                     }
+                    throw otEx;
+                }
+                if (this.mEndControlMatcher.isMatched()) {
+                    this.mLatencyTracker.record(
+                            program.getId(), System.currentTimeMillis() - start);
                 }
             }
 
@@ -547,7 +868,7 @@ public abstract class ShellConsole extends Console implements Program.ProgramLis
             }
 
             //Retrieve exit code
-            int exitCode = getExitCode(this.mSbIn);
+            int exitCode = getExitCode();
             if (program instanceof AsyncResultProgram) {
                 synchronized (this.mPartialSync) {
                     ((AsyncResultProgram)program).onRequestExitCode(exitCode);
@@ -570,17 +891,22 @@ public abstract class ShellConsole extends Console implements Program.ProgramLis
                         Thread.sleep(100L);
                     } catch (Throwable ex) {/**NON BLOCK**/}
                 }
-                this.mShell.checkStdErr(this.mActiveCommand, exitCode, this.mSbErr.toString());
+            }
+            String err = null;
+            synchronized (this.mErrBuffer) {
+                err = this.mErrBuffer.decode(Charset.defaultCharset());
+            }
+            if (!program.isIgnoreShellStdErrCheck()) {
+                this.mShell.checkStdErr(this.mActiveCommand, exitCode, err);
             }
             this.mShell.checkExitCode(exitCode);
             program.checkExitCode(exitCode);
-            program.checkStdErr(exitCode, this.mSbErr.toString());
+            program.checkStdErr(exitCode, err);
 
             //Parse the result? Only if not partial results
             if (program instanceof SyncResultProgram) {
                 try {
-                    ((SyncResultProgram)program).parse(
-                            this.mSbIn.toString(), this.mSbErr.toString());
+                    ((SyncResultProgram)program).parse(this.mSbIn.toString(), err);
                 } catch (ParseException pEx) {
                     throw new ExecutionException(
                             "SyncResultProgram parse failed", pEx); //$NON-NLS-1$
@@ -613,6 +939,122 @@ public abstract class ShellConsole extends Console implements Program.ProgramLis
         return false;
     }
 
+    /**
+     * Method that waits for the end of an asynchronous program.
+     *
+     * @throws InterruptedException If the wait was interrupted
+     */
+    private void waitForAsyncProgram() throws InterruptedException {
+        synchronized (this.mSync) {
+            while (!this.mFinished) {
+                this.mSync.wait();
+            }
+        }
+    }
+
+    /**
+     * Method that waits for the end of a synchronous program.<br/>
+     * <br/>
+     * The console waits the adaptive timeout of the program (based in the latency history
+     * of the program), and then probes the state of the shell. While the shell is executing
+     * the program (or the program is sending data), the console waits again (with an
+     * increasing interval). A shell that isn't executing the program is hung, and it's
+     * detected after two probes.
+     *
+     * @param program The program
+     * @param start The time when the program was sent to the shell
+     * @throws InterruptedException If the wait was interrupted
+     * @throws OperationTimeoutException If the shell is hung
+     */
+    private void waitForSyncProgram(Program program, long start)
+            throws InterruptedException, OperationTimeoutException {
+        ProgramWatcher watcher = new ProgramWatcher(program, start);
+        synchronized (this.mSync) {
+            while (!this.mFinished) {
+                long now = System.currentTimeMillis();
+                long next = watcher.getNextProbe();
+                if (next > now) {
+                    this.mSync.wait(next - now);
+                    continue;
+                }
+                watcher.probe(now);
+            }
+        }
+    }
+
+    /**
+     * Method that waits for the end of a batch of synchronous programs.<br/>
+     * <br/>
+     * Every program of the batch is waited like a single synchronous program (see
+     * {@link #waitForSyncProgram(Program, long)}), from the end of the previous
+     * program. The latency of the programs is recorded in the latency history.
+     *
+     * @param batch The batch of programs
+     * @param start The time when the batch was sent to the shell
+     * @throws InterruptedException If the wait was interrupted
+     * @throws OperationTimeoutException If the shell is hung
+     */
+    private void waitForBatch(ShellBatch batch, long start)
+            throws InterruptedException, OperationTimeoutException {
+        int finished = 0;
+        ProgramWatcher watcher = new ProgramWatcher(batch.getProgram(finished), start);
+        synchronized (this.mSync) {
+            while (this.mActive && !batch.isFinished()) {
+                long now = System.currentTimeMillis();
+                int current = batch.getFinished();
+                if (current != finished) {
+                    //The batch progresses. Only the latency of a program that ends alone
+                    //is known
+                    if (current == finished + 1) {
+                        this.mLatencyTracker.record(
+                                batch.getProgram(finished).getId(), now - watcher.getStart());
+                    }
+                    finished = current;
+                    if (!batch.isFinished()) {
+                        watcher = new ProgramWatcher(batch.getProgram(finished), now);
+                    }
+                    continue;
+                }
+                long next = watcher.getNextProbe();
+                if (next > now) {
+                    this.mSync.wait(next - now);
+                    continue;
+                }
+                watcher.probe(now);
+            }
+        }
+    }
+
+    /**
+     * Method that creates the named pipe used by a program to transfer its data. The
+     * pipe is created by the shell, so it can be opened by the identity of the shell.
+     *
+     * @param pipe The named pipe
+     * @throws ConsoleAllocException If the console is not allocated
+     * @throws InsufficientPermissionsException If an operation requires elevated permissions
+     * @throws CommandNotFoundException If the command was not found
+     * @throws NoSuchFileOrDirectory If the file or directory was not found
+     * @throws OperationTimeoutException If the operation exceeded the maximum time of wait
+     * @throws ExecutionException If the operation returns a invalid exit code
+     * @throws ReadOnlyFilesystemException If the operation writes in a read-only filesystem
+     * @hide
+     */
+    synchronized void createNamedPipe(NamedPipe pipe)
+            throws ConsoleAllocException, InsufficientPermissionsException,
+            CommandNotFoundException, NoSuchFileOrDirectory,
+            OperationTimeoutException, ExecutionException, ReadOnlyFilesystemException {
+        // Remove a stale file
+        pipe.delete();
+        try {
+            Program mkfifo = new MakeFifoCommand(pipe.getPath());
+            if (syncExecute(mkfifo, true)) {
+                syncExecute(mkfifo, false);
+            }
+        } catch (InvalidCommandDefinitionException icdEx) {
+            throw new CommandNotFoundException("mkfifo", icdEx); //$NON-NLS-1$
+        }
+    }
+
     /**
      * Method that creates the standard input thread for read program response.
      *
@@ -620,156 +1062,127 @@ public abstract class ShellConsole extends Console implements Program.ProgramLis
      * @return Thread The standard input thread
      */
     private Thread createStdInThread(final InputStream in) {
-        Thread t = new Thread(new Runnable() {
+        StreamPump t = new StreamPump("stdin", in, this.mBufferSize, //$NON-NLS-1$
+                new StreamPump.OnStreamDataListener() {
             @Override
-            public void run() {
-                int read = 0;
-
-                try {
-                    while (ShellConsole.this.mActive) {
-                        //Read only one byte with active wait
-                        final int r = in.read();
-                        if (r == -1) {
-                            break;
-                        }
-
-                        // Type of command
-                        boolean async =
-                                ShellConsole.this.mActiveCommand != null &&
-                                ShellConsole.this.mActiveCommand instanceof AsyncResultProgram;
-
-                        StringBuffer sb = new StringBuffer();
-                        if (!ShellConsole.this.mCancelled) {
-                            ShellConsole.this.mSbIn.append((char)r);
-                            if (!ShellConsole.this.mStarted) {
-                                ShellConsole.this.mStarted =
-                                        isCommandStarted(ShellConsole.this.mSbIn);
-                                if (ShellConsole.this.mStarted) {
-                                    sb = new StringBuffer(ShellConsole.this.mSbIn.toString());
-                                    if (async) {
-                                        synchronized (ShellConsole.this.mPartialSync) {
-                                            ((AsyncResultProgram)ShellConsole.
-                                                    this.mActiveCommand).
-                                                        onRequestStartParsePartialResult();
-                                        }
-                                    }
-                                } else {
-                                    sb.append(ShellConsole.this.mSbIn.toString());
-                                }
-                            } else {
-                                sb.append((char)r);
-                            }
+            public void onStreamData(byte[] data, int offset, int count) {
+                onStdInData(data, offset, count);
+            }
 
-                            //Notify asynchronous partial data
-                            if (ShellConsole.this.mStarted && async) {
-                                AsyncResultProgram program =
-                                        ((AsyncResultProgram)ShellConsole.this.mActiveCommand);
-                                String partial = sb.toString();
-                                program.onRequestParsePartialResult(partial);
-                                ShellConsole.this.toStdIn(partial);
+            @Override
+            public void onStreamEnd() {
+                notifyProcessExit(null);
+            }
 
-                                // Reset the temp buffer
-                                sb = new StringBuffer();
-                            }
-                        }
+            @Override
+            public void onStreamException(Exception ex) {
+                notifyProcessExit(ex);
+            }
+        });
+        t.start();
+        return t;
+    }
 
-                        if (!async) {
-                            ShellConsole.this.toStdIn(sb.toString());
-                        }
+    /**
+     * Method that process a block of data read from the standard input of the shell.
+     *
+     * @param data The buffer with the data
+     * @param offset The offset of the data in the buffer
+     * @param count The number of bytes of data
+     * @hide
+     */
+    void onStdInData(byte[] data, int offset, int count) {
+        this.mProgress += count;
 
-                        //Has more data? Read with available as more as exists
-                        //or maximum loop count is rebased
-                        int count = 0;
-                        while (in.available() > 0 && count < 10) {
-                            count++;
-                            int available = Math.min(in.available(),
-                                                        ShellConsole.this.mBufferSize);
-                            byte[] data = new byte[available];
-                            read = in.read(data);
-
-                            // Type of command
-                            async =
-                                    ShellConsole.this.mActiveCommand != null &&
-                                    ShellConsole.this.mActiveCommand instanceof AsyncResultProgram;
-
-                            // Exit if active command is cancelled
-                            if (ShellConsole.this.mCancelled) continue;
-
-                            final String s = new String(data, 0, read);
-                            ShellConsole.this.mSbIn.append(s);
-                            if (!ShellConsole.this.mStarted) {
-                                ShellConsole.this.mStarted =
-                                        isCommandStarted(ShellConsole.this.mSbIn);
-                                if (ShellConsole.this.mStarted) {
-                                    sb = new StringBuffer(ShellConsole.this.mSbIn.toString());
-                                    if (async) {
-                                        synchronized (ShellConsole.this.mPartialSync) {
-                                            ((AsyncResultProgram)ShellConsole.
-                                                    this.mActiveCommand).
-                                                        onRequestStartParsePartialResult();
-                                        }
-                                    }
-                                } else {
-                                    sb.append(ShellConsole.this.mSbIn.toString());
-                                }
-                            } else {
-                                sb.append(s);
-                            }
+        // Exit if active command is cancelled
+        if (this.mCancelled) {
+            return;
+        }
 
-                            //Check if the command has finished (and extract the control)
-                            boolean finished = isCommandFinished(ShellConsole.this.mSbIn, sb);
+        // Decode the data (the incomplete characters are held by the decoder)
+        final CharSequence s = this.mInDecoder.decode(data, offset, count);
 
-                            //Notify asynchronous partial data
-                            if (async) {
-                                AsyncResultProgram program =
-                                        ((AsyncResultProgram)ShellConsole.this.mActiveCommand);
-                                String partial = sb.toString();
-                                program.onRequestParsePartialResult(partial);
-                                ShellConsole.this.toStdIn(partial);
+        // A batch of commands?
+        if (this.mBatch != null) {
+            onBatchStdInData(s);
+            return;
+        }
 
-                                // Reset the temp buffer
-                                sb = new StringBuffer();
-                            }
+        // Type of command
+        final Program activeCommand = this.mActiveCommand;
+        boolean async = activeCommand != null && activeCommand instanceof AsyncResultProgram;
 
-                            if (finished) {
-                                if (!async) {
-                                    ShellConsole.this.toStdIn(s);
-                                }
+        // No command was sent yet, or the command has already finished. Discard the data
+        if (this.mStartControlMatcher == null ||
+                (this.mStarted && this.mEndControlMatcher.isMatched())) {
+            return;
+        }
 
-                                //Notify the end
-                                notifyProcessFinished();
-                                break;
-                            }
-                            if (!async && !finished) {
-                                ShellConsole.this.toStdIn(s);
-                            }
+        int pos = 0;
+        if (!this.mStarted) {
+            // Discard all the data until the start control marker
+            pos = this.mStartControlMatcher.scan(s, 0, s.length(), null);
+            if (pos == -1) {
+                if (!async && isTrace()) {
+                    toStdIn(s.toString());
+                }
+                return;
+            }
+            this.mStarted = true;
+            if (async) {
+                synchronized (this.mPartialSync) {
+                    ((AsyncResultProgram)activeCommand).onRequestStartParsePartialResult();
+                }
+            }
+        }
 
-                            //Wait for buffer to be filled
-                            try {
-                                Thread.sleep(50L);
-                            } catch (Throwable ex) {
-                                /**NON BLOCK**/
-                            }
-                        }
+        //Check if the command has finished (and extract the control). Synchronous
+        //programs accumulate the data. Asynchronous programs can cause a lot of
+        //output, so they only receive the partial data
+        StringBuilder sb = async ? this.mPartialIn : this.mSbIn;
+        int start = async ? 0 : sb.length();
+        sb.setLength(start);
+        boolean finished =
+                this.mEndControlMatcher.scan(s, pos, s.length() - pos, sb) != -1;
+
+        //Notify asynchronous partial data
+        if (async) {
+            if (sb.length() > 0) {
+                String partial = sb.toString();
+                ((AsyncResultProgram)activeCommand).onRequestParsePartialResult(partial);
+                toStdIn(partial);
+            }
+        } else if (isTrace()) {
+            toStdIn(sb.substring(start));
+        }
 
-                        //Asynchronous programs can cause a lot of output, control buffers
-                        //for a low memory footprint
-                        if (async) {
-                            trimBuffer(ShellConsole.this.mSbIn);
-                            trimBuffer(ShellConsole.this.mSbErr);
-                        }
+        if (finished) {
+            //Notify the end
+            notifyProcessFinished();
+        }
+    }
 
-                        //Check if process has exited
-                        checkIfProcessExits();
-                    }
-                } catch (Exception ioEx) {
-                    notifyProcessExit(ioEx);
-                }
+    /**
+     * Method that process a block of the standard input of the shell that belongs
+     * to a batch of commands.
+     *
+     * @param s The block of decoded data
+     * @hide
+     */
+    void onBatchStdInData(CharSequence s) {
+        String partial = null;
+        synchronized (this.mSync) {
+            ShellBatch batch = this.mBatch;
+            if (batch == null) {
+                return;
             }
-        });
-        t.setName(String.format("%s", "stdin")); //$NON-NLS-1$//$NON-NLS-2$
-        t.start();
-        return t;
+            int progress = batch.getProgress();
+            partial = batch.onStdOut(s);
+            if (batch.getProgress() != progress) {
+                this.mSync.notify();
+            }
+        }
+        toStdIn(partial);
     }
 
     /**
@@ -794,91 +1207,100 @@ public abstract class ShellConsole extends Console implements Program.ProgramLis
      * @return Thread The standard error thread
      */
     private Thread createStdErrThread(final InputStream err) {
-        Thread t = new Thread(new Runnable() {
+        StreamPump t = new StreamPump("stderr", err, this.mBufferSize, //$NON-NLS-1$
+                new StreamPump.OnStreamDataListener() {
             @Override
-            public void run() {
-                int read = 0;
+            public void onStreamData(byte[] data, int offset, int count) {
+                onStdErrData(data, offset, count);
+            }
 
-                try {
-                    while (ShellConsole.this.mActive) {
-                        //Read only one byte with active wait
-                        int r = err.read();
-                        if (r == -1) {
-                            break;
-                        }
+            @Override
+            public void onStreamEnd() {
+                /**NON BLOCK**/
+            }
 
-                        // Type of command
-                        boolean async =
-                                ShellConsole.this.mActiveCommand != null &&
-                                ShellConsole.this.mActiveCommand instanceof AsyncResultProgram;
-
-                        StringBuffer sb = new StringBuffer();
-                        if (!ShellConsole.this.mCancelled) {
-                            ShellConsole.this.mSbErr.append((char)r);
-                            sb.append((char)r);
-
-                            //Notify asynchronous partial data
-                            if (ShellConsole.this.mStarted && async) {
-                                AsyncResultProgram program =
-                                        ((AsyncResultProgram)ShellConsole.this.mActiveCommand);
-                                program.parsePartialErrResult(new String(new char[]{(char)r}));
-                            }
+            @Override
+            public void onStreamException(Exception ex) {
+                notifyProcessExit(ex);
+            }
+        });
+        t.start();
+        return t;
+    }
 
-                            toStdErr(sb.toString());
-                        }
+    /**
+     * Method that process a block of data read from the standard error of the shell.
+     *
+     * @param data The buffer with the data
+     * @param offset The offset of the data in the buffer
+     * @param count The number of bytes of data
+     * @hide
+     */
+    void onStdErrData(byte[] data, int offset, int count) {
+        this.mProgress += count;
 
-                        //Has more data? Read with available as more as exists
-                        //or maximum loop count is rebased
-                        int count = 0;
-                        while (err.available() > 0 && count < 10) {
-                            count++;
-                            int available = Math.min(err.available(),
-                                                        ShellConsole.this.mBufferSize);
-                            byte[] data = new byte[available];
-                            read = err.read(data);
-
-                            // Type of command
-                            async =
-                                ShellConsole.this.mActiveCommand != null &&
-                                ShellConsole.this.mActiveCommand instanceof AsyncResultProgram;
-
-                            // Add to stderr
-                            String s = new String(data, 0, read);
-                            ShellConsole.this.mSbErr.append(s);
-                            sb.append(s);
-
-                            //Notify asynchronous partial data
-                            if (async) {
-                                AsyncResultProgram program =
-                                        ((AsyncResultProgram)ShellConsole.this.mActiveCommand);
-                                program.parsePartialErrResult(s);
-                            }
-                            toStdErr(s);
+        // Exit if active command is cancelled
+        if (this.mCancelled) {
+            return;
+        }
 
-                            //Wait for buffer to be filled
-                            try {
-                                Thread.sleep(50L);
-                            } catch (Throwable ex) {
-                                /**NON BLOCK**/
-                            }
-                        }
+        // Decode the data (the incomplete characters are held by the decoder)
+        final CharSequence s = this.mErrDecoder.decode(data, offset, count);
 
-                        //Asynchronous programs can cause a lot of output, control buffers
-                        //for a low memory footprint
-                        if (ShellConsole.this.mActiveCommand != null &&
-                                ShellConsole.this.mActiveCommand instanceof AsyncResultProgram) {
-                            trimBuffer(ShellConsole.this.mSbIn);
-                            trimBuffer(ShellConsole.this.mSbErr);
-                        }
+        // A batch of commands?
+        if (this.mBatch != null) {
+            synchronized (this.mSync) {
+                ShellBatch batch = this.mBatch;
+                if (batch != null) {
+                    int progress = batch.getProgress();
+                    batch.onStdErr(s);
+                    if (batch.getProgress() != progress) {
+                        this.mSync.notify();
                     }
-                } catch (Exception ioEx) {
-                    notifyProcessExit(ioEx);
                 }
             }
-        });
-        t.setName(String.format("%s", "stderr")); //$NON-NLS-1$//$NON-NLS-2$
-        t.start();
-        return t;
+            if (isTrace()) {
+                toStdErr(s.toString());
+            }
+            return;
+        }
+
+        // Type of command
+        final Program activeCommand = this.mActiveCommand;
+        boolean async = activeCommand != null && activeCommand instanceof AsyncResultProgram;
+
+        // The process id of a job is reported in the standard error. Extract it
+        // (the pid control code isn't part of the output of the program)
+        CharSequence out = s;
+        final ControlMarkerMatcher pidMatcher = this.mPidControlMatcher;
+        if (pidMatcher != null && !pidMatcher.isMatched()) {
+            StringBuilder sb = new StringBuilder(s.length());
+            int pos = pidMatcher.scan(s, 0, s.length(), sb);
+            if (pos != -1) {
+                sb.append(s, pos, s.length());
+                this.mJobPid = pidMatcher.getCode();
+            }
+            out = sb;
+            byte[] filtered = sb.toString().getBytes();
+            synchronized (this.mErrBuffer) {
+                this.mErrBuffer.write(filtered, 0, filtered.length);
+            }
+        } else {
+            // Add to stderr (the buffer only retains the tail of the output of
+            // asynchronous programs, for a low memory footprint)
+            synchronized (this.mErrBuffer) {
+                this.mErrBuffer.write(data, offset, count);
+            }
+        }
+
+        //Notify asynchronous partial data
+        if (async) {
+            String err = out.toString();
+            ((AsyncResultProgram)activeCommand).parsePartialErrResult(err);
+            toStdErr(err);
+        } else if (isTrace()) {
+            toStdErr(out.toString());
+        }
     }
 
     /**
@@ -968,91 +1390,25 @@ public abstract class ShellConsole extends Console implements Program.ProgramLis
         }
     }
 
-    /**
-     * Method that returns if the command has started by checking the
-     * standard input buffer. This method also removes the control start command
-     * from the buffer, if it's present, leaving in the buffer the new data bytes.
-     *
-     * @param stdin The standard in buffer
-     * @return boolean If the command has started
-     * @hide
-     */
-    boolean isCommandStarted(StringBuffer stdin) {
-        if (stdin == null) return false;
-        Pattern pattern = Pattern.compile(this.mStartControlPattern);
-        Matcher matcher = pattern.matcher(stdin.toString());
-        if (matcher.find()) {
-            stdin.replace(0, matcher.end(), ""); //$NON-NLS-1$
-            return true;
-        }
-        return false;
-    }
-
-    /**
-     * Method that returns if the command has finished by checking the
-     * standard input buffer.
-     *
-     * @param stdin The standard in buffer
-     * @return boolean If the command has finished
-     * @hide
-     */
-    boolean isCommandFinished(StringBuffer stdin, StringBuffer partial) {
-        Pattern pattern = Pattern.compile(this.mEndControlPattern);
-        if (stdin == null) return false;
-        Matcher matcher = pattern.matcher(stdin.toString());
-        boolean ret = matcher.find();
-        // Remove partial
-        if (ret && partial != null) {
-            matcher = pattern.matcher(partial.toString());
-            if (matcher.find()) {
-                partial.replace(matcher.start(), matcher.end(), ""); //$NON-NLS-1$
-            }
-        }
-        return ret;
-    }
-
     /**
      * Method that returns the exit code of the last executed command.
      *
-     * @param stdin The standard in buffer
      * @return int The exit code of the last executed command
      */
-    private int getExitCode(StringBuffer stdin) {
+    private int getExitCode() {
         // If process was cancelled, don't expect a exit code.
         // Returns always 143 code
         if (this.mCancelled) {
             return 143;
         }
 
-        // Parse the stdin seeking exit code pattern
-        String txt = stdin.toString();
-        Pattern pattern = Pattern.compile(this.mEndControlPattern);
-        Matcher matcher = pattern.matcher(txt);
-        if (matcher.find()) {
-            this.mSbIn = new StringBuffer(txt.substring(0, matcher.start()));
-            String exitTxt = matcher.group();
-            return Integer.parseInt(
-                    exitTxt.substring(
-                            exitTxt.indexOf("#/") + 2,  //$NON-NLS-1$
-                            exitTxt.indexOf("/#", 2))); //$NON-NLS-1$
+        // The exit code was extracted by the end control marker matcher
+        if (this.mEndControlMatcher != null && this.mEndControlMatcher.isMatched()) {
+            return this.mEndControlMatcher.getCode();
         }
         return 255;
     }
 
-    /**
-     * Method that trim a buffer, let in the buffer some
-     * text to ensure that the exit code is in there.
-     *
-     * @param sb The buffer to trim
-     * @hide
-     */
-    @SuppressWarnings("static-method") void trimBuffer(StringBuffer sb) {
-        final int bufferSize = 200;
-        if (sb.length() > bufferSize) {
-            sb.delete(0, sb.length() - bufferSize);
-        }
-    }
-
     /**
      * Method that kill the current command.
      *
@@ -1077,24 +1433,30 @@ public abstract class ShellConsole extends Console implements Program.ProgramLis
             if (program.getCommand() != null) {
                 try {
                     if (program.isCancellable()) {
-                        //Get the PID in background
-                        Integer pid =
-                                CommandHelper.getProcessId(
+                        //Kill the job of the program. Otherwise, get the PID in background
+                        boolean killed = signalCurrentJob(null);
+                        if (!killed) {
+                            Integer pid =
+                                    CommandHelper.getProcessId(
+                                            null,
+                                            this.mShell.getPid(),
+                                            program.getCommand(),
+                                            FileManagerApplication.getBackgroundConsole());
+                            if (pid != null) {
+                                CommandHelper.sendSignal(
                                         null,
-                                        this.mShell.getPid(),
-                                        program.getCommand(),
+                                        pid.intValue(),
                                         FileManagerApplication.getBackgroundConsole());
-                        if (pid != null) {
-                            CommandHelper.sendSignal(
-                                    null,
-                                    pid.intValue(),
-                                    FileManagerApplication.getBackgroundConsole());
-                            try {
-                                //Wait for process kill
-                                Thread.sleep(100L);
-                            } catch (Throwable ex) {
-                                /**NON BLOCK**/
+                                try {
+                                    //Wait for process kill
+                                    Thread.sleep(100L);
+                                } catch (Throwable ex) {
+                                    /**NON BLOCK**/
+                                }
+                                killed = true;
                             }
+                        }
+                        if (killed) {
                             this.mCancelled = true;
                             notifyProcessFinished();
                             this.mSync.notify();
@@ -1137,6 +1499,11 @@ public abstract class ShellConsole extends Console implements Program.ProgramLis
                 try {
                     if (program.isCancellable()) {
                         try {
+                            //Signal the job of the program
+                            if (signalCurrentJob(signal)) {
+                                return true;
+                            }
+
                             //Get the PID in background
                             Integer pid =
                                     CommandHelper.getProcessId(
@@ -1175,6 +1542,53 @@ public abstract class ShellConsole extends Console implements Program.ProgramLis
         return false;
     }
 
+    /**
+     * Method that sends a signal to the job of the current command (and to the processes
+     * created by the job), using the process id reported by the shell when the command
+     * was launched. No lookup of the process is needed.
+     *
+     * @param signal The signal to send, or null to send a kill (terminate) signal
+     * @return boolean If the signal was sent (false if the process id of the job is unknown)
+     * @throws Exception If the signal couldn't be sent
+     */
+    private boolean signalCurrentJob(SIGNAL signal) throws Exception {
+        int jobPid = this.mJobPid;
+        if (jobPid <= 0) {
+            return false;
+        }
+
+        // The processes of a pipeline are children of the shell, and the commands of a
+        // list are children of the job, so signal the whole tree of the shell
+        int[] children = ProcessProbe.getDescendants(this.mShell.getPid());
+        boolean hasJob = false;
+        for (int i = 0; i < children.length; i++) {
+            if (children[i] == jobPid) {
+                hasJob = true;
+                break;
+            }
+        }
+        int[] pids = children;
+        if (!hasJob) {
+            pids = new int[children.length + 1];
+            pids[0] = jobPid;
+            System.arraycopy(children, 0, pids, 1, children.length);
+        }
+
+        if (!isPrivileged()) {
+            // The job runs with the uid of the application. Signal it directly
+            int sig = signal == null ? SIGNAL.SIGTERM.getSignal() : signal.getSignal();
+            for (int i = 0; i < pids.length; i++) {
+                android.os.Process.sendSignal(pids[i], sig);
+            }
+        } else if (signal == null) {
+            CommandHelper.sendSignal(null, pids, FileManagerApplication.getBackgroundConsole());
+        } else {
+            CommandHelper.sendSignal(
+                    null, pids, signal, FileManagerApplication.getBackgroundConsole());
+        }
+        return true;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -1213,7 +1627,6 @@ public abstract class ShellConsole extends Console implements Program.ProgramLis
             if (this.mOut != null) {
                 this.mOut.write(data, offset, byteCount);
                 this.mOut.flush();
-                Thread.yield();
                 return true;
             }
         } catch (Exception ex) {
@@ -1233,4 +1646,91 @@ public abstract class ShellConsole extends Console implements Program.ProgramLis
         return this.mOut;
     }
 
+    /**
+     * A class that watches the execution of a synchronous program. It holds the adaptive
+     * timeout of the program (based in the latency history of the program) and the state
+     * of the probes of the shell.
+     */
+    private final class ProgramWatcher {
+        private final Program mProgram;
+        private final long mStart;
+        private long mTimeout;
+        private long mNextProbe;
+        private long mProgress;
+        private int mIdle;
+
+        /**
+         * Constructor of <code>ProgramWatcher</code>.
+         *
+         * @param program The program
+         * @param start The time when the program started
+         */
+        ProgramWatcher(Program program, long start) {
+            super();
+            this.mProgram = program;
+            this.mStart = start;
+            this.mTimeout = ShellConsole.this.mLatencyTracker.getTimeout(
+                    program.getId(), program.getTimeoutHint());
+            this.mNextProbe = start + this.mTimeout;
+            this.mProgress = ShellConsole.this.mProgress;
+            this.mIdle = 0;
+        }
+
+        /**
+         * Method that returns the time when the program started.
+         *
+         * @return long The time when the program started
+         */
+        long getStart() {
+            return this.mStart;
+        }
+
+        /**
+         * Method that returns the time of the next probe of the state of the shell.
+         *
+         * @return long The time of the next probe
+         */
+        long getNextProbe() {
+            return this.mNextProbe;
+        }
+
+        /**
+         * Method that probes the state of the shell. While the shell is executing the
+         * program (or the program is sending data), the next probe is scheduled with an
+         * increasing interval. A shell that isn't executing the program is hung, and it's
+         * detected after two probes.
+         *
+         * @param now The current time
+         * @throws OperationTimeoutException If the shell is hung
+         */
+        void probe(long now) throws OperationTimeoutException {
+            boolean sendingData = ShellConsole.this.mProgress != this.mProgress;
+            this.mProgress = ShellConsole.this.mProgress;
+            int state = ProcessProbe.probe(ShellConsole.this.mShell.getPid());
+            if (state == ProcessProbe.STATE_UNKNOWN) {
+                //The state of the shell is unknown. Use the fixed timeout
+                if (now - this.mStart >= DEFAULT_TIMEOUT) {
+                    throw new OperationTimeoutException(
+                            now - this.mStart, this.mProgram.getCommand());
+                }
+                this.mNextProbe = this.mStart + DEFAULT_TIMEOUT;
+                return;
+            }
+            if (state == ProcessProbe.STATE_BUSY || sendingData) {
+                this.mIdle = 0;
+                this.mTimeout = Math.min(this.mTimeout * 2, MAX_PROBE_INTERVAL);
+            } else {
+                //The shell isn't executing the program (the end of the program could
+                //be still in transit, so check again before abort the program)
+                this.mIdle++;
+                if (state == ProcessProbe.STATE_DEAD || this.mIdle > 1) {
+                    throw new OperationTimeoutException(
+                            now - this.mStart, this.mProgram.getCommand());
+                }
+                this.mTimeout = LatencyTracker.MIN_TIMEOUT;
+            }
+            this.mNextProbe = now + this.mTimeout;
+        }
+    }
+
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.console.shell;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * An incremental decoder of the blocks of bytes read from a stream.<br/>
+ * <br/>
+ * A multi-byte character split between two blocks is held by the decoder until the
+ * rest of its bytes are received, so the characters are never corrupted by the
+ * boundaries of the blocks. The decoded characters are returned in a reusable buffer
+ * (no intermediate strings are created).
+ */
+public class StreamDecoder {
+
+    private final CharsetDecoder mDecoder;
+    private ByteBuffer mIn;
+    private CharBuffer mOut;
+
+    /**
+     * Constructor of <code>StreamDecoder</code>.
+     *
+     * @param charset The charset of the stream
+     * @param bufferSize The initial size of the buffers
+     */
+    public StreamDecoder(Charset charset, int bufferSize) {
+        super();
+        this.mDecoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.mIn = ByteBuffer.allocate(Math.max(16, bufferSize));
+        this.mOut = CharBuffer.allocate(Math.max(16, bufferSize));
+    }
+
+    /**
+     * Method that discards the pending bytes and resets the decoder.
+     */
+    public void reset() {
+        this.mDecoder.reset();
+        this.mIn.clear();
+    }
+
+    /**
+     * Method that decodes a block of bytes. The bytes of an incomplete character at the
+     * end of the block are held until the next block.
+     *
+     * @param data The buffer with the data
+     * @param offset The offset of the data in the buffer
+     * @param count The number of bytes of data
+     * @return CharSequence The decoded characters. The returned buffer is only valid until
+     * the next call to this decoder
+     */
+    public CharSequence decode(byte[] data, int offset, int count) {
+        // Append the new data to the pending bytes
+        if (this.mIn.remaining() < count) {
+            ByteBuffer in = ByteBuffer.allocate(this.mIn.position() + count);
+            this.mIn.flip();
+            in.put(this.mIn);
+            this.mIn = in;
+        }
+        this.mIn.put(data, offset, count);
+        this.mIn.flip();
+
+        // Ensure there is enough room for the decoded characters
+        int chars = (int)Math.ceil(this.mIn.remaining() * this.mDecoder.maxCharsPerByte());
+        if (this.mOut.capacity() < chars) {
+            this.mOut = CharBuffer.allocate(chars);
+        }
+        this.mOut.clear();
+        this.mDecoder.decode(this.mIn, this.mOut, false);
+        this.mIn.compact();
+        this.mOut.flip();
+        return this.mOut;
+    }
+
+}
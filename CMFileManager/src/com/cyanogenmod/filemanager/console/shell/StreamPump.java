@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.console.shell;
+
+import java.io.InputStream;
+
+/**
+ * A thread that pumps the output of a stream to a listener in blocks.<br/>
+ * <br/>
+ * The pump blocks in the underlying stream until data is available, and delivers
+ * all the data read in one call into a reusable buffer, so there is no need of active
+ * waits nor byte-by-byte reads. The buffer passed to the listener is only valid during
+ * the call, and it's overwritten with the next block read.
+ */
+public class StreamPump extends Thread {
+
+    /**
+     * An interface for receive the data pumped from the stream.
+     */
+    public interface OnStreamDataListener {
+        /**
+         * Invoked when a new block of data was read from the stream.
+         *
+         * @param data The reusable buffer with the data
+         * @param offset The offset of the data in the buffer
+         * @param count The number of bytes of data
+         */
+        void onStreamData(byte[] data, int offset, int count);
+
+        /**
+         * Invoked when the end of the stream was reached.
+         */
+        void onStreamEnd();
+
+        /**
+         * Invoked when the stream fails reading data.
+         *
+         * @param ex The exception
+         */
+        void onStreamException(Exception ex);
+    }
+
+    private final InputStream mIn;
+    private final byte[] mBuffer;
+    private final OnStreamDataListener mListener;
+    private volatile boolean mAlive;
+    private long mTotal;
+
+    /**
+     * Constructor of <code>StreamPump</code>.
+     *
+     * @param name The name of the thread
+     * @param in The stream to pump
+     * @param bufferSize The size of the read buffer
+     * @param listener The listener that receives the pumped data
+     */
+    public StreamPump(
+            String name, InputStream in, int bufferSize, OnStreamDataListener listener) {
+        super(name);
+        this.mIn = in;
+        this.mBuffer = new byte[bufferSize];
+        this.mListener = listener;
+        this.mAlive = true;
+        this.mTotal = 0;
+    }
+
+    /**
+     * Method that returns the number of bytes pumped until now.
+     *
+     * @return long The number of bytes pumped
+     */
+    public long getTotal() {
+        return this.mTotal;
+    }
+
+    /**
+     * Method that requests the pump to stop. The pump stops after the current block
+     * is delivered, or when the stream is closed.
+     */
+    public void terminate() {
+        this.mAlive = false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void run() {
+        try {
+            while (this.mAlive) {
+                // Blocks until data is available
+                int read = this.mIn.read(this.mBuffer, 0, this.mBuffer.length);
+                if (read == -1) {
+                    this.mListener.onStreamEnd();
+                    break;
+                }
+                if (read > 0) {
+                    this.mTotal += read;
+                    this.mListener.onStreamData(this.mBuffer, 0, read);
+                }
+            }
+        } catch (Exception ex) {
+            if (this.mAlive) {
+                this.mListener.onStreamException(ex);
+            }
+        }
+    }
+
+}
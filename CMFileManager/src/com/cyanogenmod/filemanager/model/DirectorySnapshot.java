@@ -0,0 +1,549 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.model;
+
+import com.cyanogenmod.filemanager.util.ParseHelper;
+
+import java.text.ParseException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A compact columnar representation of the content of a directory.<br/>
+ * <br/>
+ * Instead of one {@link FileSystemObject} (with its name, parent, date and boxed
+ * attributes) per entry, the snapshot shares the parent path and holds every attribute
+ * in a primitive column: the names in a single char arena, the type and permissions
+ * packed in an int, and the size and the last modification time as longs. The users
+ * and groups are stored once and referenced by index.<br/>
+ * <br/>
+ * The {@link FileSystemObject} of an entry is created on demand by {@link #get(int)} and
+ * it isn't retained, so the heap of a large directory doesn't grow with the scroll. The
+ * entries that can't be rebuilt from the columns (symlinks, the parent directory or the
+ * objects of other directories) keep their original object.<br/>
+ * <br/>
+ * The snapshot isn't thread-safe. It must be used from the thread that owns the listing.
+ */
+public final class DirectorySnapshot {
+
+    // The maximum number of users or groups that can be referenced by index
+    private static final int MAX_OWNERS = 0xFFFF;
+
+    private final String mParent;
+    private int mCount;
+
+    private final char[] mNames;
+    private final int[] mNameOffsets;
+    private final int[] mNameLengths;
+    // The unix type (high 16 bits) and the permissions mode (low 16 bits)
+    private final int[] mModes;
+    private final long[] mSizes;
+    private final long[] mLastModified;
+    // The index of the user (high 16 bits) and the group (low 16 bits)
+    private final int[] mOwners;
+    private final User[] mUsers;
+    private final Group[] mGroups;
+    // The entries that keep their original object (null if there are none)
+    private final FileSystemObject[] mPinned;
+
+    /**
+     * Constructor of <code>DirectorySnapshot</code>.
+     *
+     * @param parent The parent directory of the entries
+     * @param count The number of entries
+     * @param names The char arena with the names of the entries
+     * @param nameOffsets The offset of every name in the arena
+     * @param nameLengths The length of every name in the arena
+     * @param modes The packed type and permissions of every entry
+     * @param sizes The size of every entry
+     * @param lastModified The last modification time of every entry
+     * @param owners The packed user and group indexes of every entry
+     * @param users The users referenced by the entries
+     * @param groups The groups referenced by the entries
+     * @param pinned The entries that keep their original object (may be null)
+     */
+    private DirectorySnapshot(
+            String parent, int count, char[] names, int[] nameOffsets, int[] nameLengths,
+            int[] modes, long[] sizes, long[] lastModified, int[] owners,
+            User[] users, Group[] groups, FileSystemObject[] pinned) {
+        super();
+        this.mParent = parent;
+        this.mCount = count;
+        this.mNames = names;
+        this.mNameOffsets = nameOffsets;
+        this.mNameLengths = nameLengths;
+        this.mModes = modes;
+        this.mSizes = sizes;
+        this.mLastModified = lastModified;
+        this.mOwners = owners;
+        this.mUsers = users;
+        this.mGroups = groups;
+        this.mPinned = pinned;
+    }
+
+    /**
+     * Method that creates the snapshot of the content of a directory.
+     *
+     * @param parent The directory
+     * @param files The content of the directory
+     * @return DirectorySnapshot The snapshot of the content
+     */
+    public static DirectorySnapshot create(String parent, List<FileSystemObject> files) {
+        int cc = files.size();
+        int chars = 0;
+        for (int i = 0; i < cc; i++) {
+            String name = files.get(i).getName();
+            chars += name == null ? 0 : name.length();
+        }
+
+        char[] names = new char[chars];
+        int[] nameOffsets = new int[cc];
+        int[] nameLengths = new int[cc];
+        int[] modes = new int[cc];
+        long[] sizes = new long[cc];
+        long[] lastModified = new long[cc];
+        int[] owners = new int[cc];
+        List<User> users = new ArrayList<User>();
+        List<Group> groups = new ArrayList<Group>();
+        HashMap<User, Integer> userIndexes = new HashMap<User, Integer>();
+        HashMap<Group, Integer> groupIndexes = new HashMap<Group, Integer>();
+        FileSystemObject[] pinned = null;
+
+        int offset = 0;
+        for (int i = 0; i < cc; i++) {
+            FileSystemObject fso = files.get(i);
+            String name = fso.getName();
+            if (name != null) {
+                name.getChars(0, name.length(), names, offset);
+                nameOffsets[i] = offset;
+                nameLengths[i] = name.length();
+                offset += name.length();
+            }
+            Permissions permissions = fso.getPermissions();
+            modes[i] = (fso.getUnixIdentifier() << 16)
+                    | (permissions == null ? 0 : permissions.toMode());
+            sizes[i] = fso.getSize();
+            Date date = fso.getLastModifiedTime();
+            lastModified[i] = date == null ? 0 : date.getTime();
+
+            int user = indexOf(fso.getUser(), users, userIndexes);
+            int group = indexOf(fso.getGroup(), groups, groupIndexes);
+            owners[i] = (user << 16) | group;
+
+            if (name == null || date == null || permissions == null
+                    || user == MAX_OWNERS || group == MAX_OWNERS
+                    || !isRebuildable(parent, fso)) {
+                if (pinned == null) {
+                    pinned = new FileSystemObject[cc];
+                }
+                pinned[i] = fso;
+            }
+        }
+
+        return new DirectorySnapshot(
+                parent, cc, names, nameOffsets, nameLengths, modes, sizes, lastModified,
+                owners, users.toArray(new User[users.size()]),
+                groups.toArray(new Group[groups.size()]), pinned);
+    }
+
+    /**
+     * Method that returns the snapshot behind a list.
+     *
+     * @param files The list
+     * @return DirectorySnapshot The snapshot, or null if the list isn't a view of a snapshot
+     * @see #asList()
+     */
+    public static DirectorySnapshot from(List<FileSystemObject> files) {
+        if (files instanceof SnapshotList) {
+            return ((SnapshotList)files).getSnapshot();
+        }
+        return null;
+    }
+
+    /**
+     * Method that returns the parent directory of the entries.
+     *
+     * @return String The parent directory
+     */
+    public String getParent() {
+        return this.mParent;
+    }
+
+    /**
+     * Method that returns the number of entries.
+     *
+     * @return int The number of entries
+     */
+    public int size() {
+        return this.mCount;
+    }
+
+    /**
+     * Method that returns the name of an entry.
+     *
+     * @param index The index of the entry
+     * @return String The name of the entry
+     */
+    public String getName(int index) {
+        checkIndex(index);
+        if (this.mPinned != null && this.mPinned[index] != null) {
+            return this.mPinned[index].getName();
+        }
+        return new String(this.mNames, this.mNameOffsets[index], this.mNameLengths[index]);
+    }
+
+    /**
+     * Method that returns the unix type identifier of an entry.
+     *
+     * @param index The index of the entry
+     * @return char The unix type identifier
+     */
+    public char getUnixIdentifier(int index) {
+        checkIndex(index);
+        return (char)(this.mModes[index] >>> 16);
+    }
+
+    /**
+     * Method that returns the permissions of an entry.
+     *
+     * @param index The index of the entry
+     * @return Permissions The canonical permissions of the entry
+     */
+    public Permissions getPermissions(int index) {
+        checkIndex(index);
+        return Permissions.valueOf(this.mModes[index] & 0xFFFF);
+    }
+
+    /**
+     * Method that returns the size of an entry.
+     *
+     * @param index The index of the entry
+     * @return long The size in bytes of the entry
+     */
+    public long getSize(int index) {
+        checkIndex(index);
+        return this.mSizes[index];
+    }
+
+    /**
+     * Method that returns the last modification time of an entry.
+     *
+     * @param index The index of the entry
+     * @return long The last modification time (in milliseconds)
+     */
+    public long getLastModified(int index) {
+        checkIndex(index);
+        return this.mLastModified[index];
+    }
+
+    /**
+     * Method that returns the user proprietary of an entry.
+     *
+     * @param index The index of the entry
+     * @return User The user proprietary of the entry
+     */
+    public User getUser(int index) {
+        checkIndex(index);
+        return this.mUsers[this.mOwners[index] >>> 16];
+    }
+
+    /**
+     * Method that returns the group proprietary of an entry.
+     *
+     * @param index The index of the entry
+     * @return Group The group proprietary of the entry
+     */
+    public Group getGroup(int index) {
+        checkIndex(index);
+        return this.mGroups[this.mOwners[index] & 0xFFFF];
+    }
+
+    /**
+     * Method that returns if an entry is represented by its original object
+     * instead of by the columns.
+     *
+     * @param index The index of the entry
+     * @return boolean If the entry is represented by its original object
+     */
+    public boolean isPinned(int index) {
+        checkIndex(index);
+        return this.mPinned != null && this.mPinned[index] != null;
+    }
+
+    /**
+     * Method that returns the {@link FileSystemObject} of an entry. Unless the entry
+     * is pinned, a new object is created in every call.
+     *
+     * @param index The index of the entry
+     * @return FileSystemObject The file system object of the entry
+     */
+    public FileSystemObject get(int index) {
+        checkIndex(index);
+        if (this.mPinned != null && this.mPinned[index] != null) {
+            return this.mPinned[index];
+        }
+        try {
+            return ParseHelper.createObject(
+                    this.mParent,
+                    getUnixIdentifier(index),
+                    getName(index),
+                    null,
+                    getUser(index),
+                    getGroup(index),
+                    getPermissions(index),
+                    new Date(this.mLastModified[index]),
+                    this.mSizes[index]);
+        } catch (ParseException pEx) {
+            // Only the rebuildable types are stored in the columns
+            throw new IllegalStateException(pEx);
+        }
+    }
+
+    /**
+     * Method that returns the index of the entry with the same path and type
+     * of a file system object.
+     *
+     * @param fso The file system object
+     * @return int The index of the entry, or -1 if there is no entry
+     */
+    public int indexOf(FileSystemObject fso) {
+        if (fso == null) {
+            return -1;
+        }
+        String name = fso.getName();
+        boolean sameParent = this.mParent == null
+                ? fso.getParent() == null
+                : this.mParent.equals(fso.getParent());
+        for (int i = 0; i < this.mCount; i++) {
+            if (this.mPinned != null && this.mPinned[i] != null) {
+                if (this.mPinned[i].equals(fso)) {
+                    return i;
+                }
+                continue;
+            }
+            if (sameParent && name != null
+                    && (this.mModes[i] >>> 16) == fso.getUnixIdentifier()
+                    && nameEquals(i, name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Method that removes an entry.
+     *
+     * @param index The index of the entry
+     */
+    public void remove(int index) {
+        checkIndex(index);
+        int moved = this.mCount - index - 1;
+        if (moved > 0) {
+            // The name is kept in the arena, only the offsets are moved
+            System.arraycopy(this.mNameOffsets, index + 1, this.mNameOffsets, index, moved);
+            System.arraycopy(this.mNameLengths, index + 1, this.mNameLengths, index, moved);
+            System.arraycopy(this.mModes, index + 1, this.mModes, index, moved);
+            System.arraycopy(this.mSizes, index + 1, this.mSizes, index, moved);
+            System.arraycopy(this.mLastModified, index + 1, this.mLastModified, index, moved);
+            System.arraycopy(this.mOwners, index + 1, this.mOwners, index, moved);
+            if (this.mPinned != null) {
+                System.arraycopy(this.mPinned, index + 1, this.mPinned, index, moved);
+            }
+        }
+        this.mCount--;
+        if (this.mPinned != null) {
+            this.mPinned[this.mCount] = null;
+        }
+    }
+
+    /**
+     * Method that returns a list view of the snapshot. The list creates the objects
+     * on demand and supports the removal of entries.
+     *
+     * @return List<FileSystemObject> The list view of the snapshot
+     */
+    public List<FileSystemObject> asList() {
+        return new SnapshotList(this);
+    }
+
+    /**
+     * Method that checks if the name of an entry is equals to a name.
+     *
+     * @param index The index of the entry
+     * @param name The name
+     * @return boolean If the name of the entry is equals to the name
+     */
+    private boolean nameEquals(int index, String name) {
+        int len = this.mNameLengths[index];
+        if (len != name.length()) {
+            return false;
+        }
+        int offset = this.mNameOffsets[index];
+        for (int i = 0; i < len; i++) {
+            if (this.mNames[offset + i] != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Method that checks the bounds of an index.
+     *
+     * @param index The index
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= this.mCount) {
+            throw new IndexOutOfBoundsException(
+                    "index=" + index + ", size=" + this.mCount); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+
+    /**
+     * Method that returns the index of a user or a group in the table of owners.
+     *
+     * @param owner The user or the group
+     * @param owners The table of owners
+     * @param indexes The index of every owner of the table
+     * @return int The index of the owner, or {@link #MAX_OWNERS} if the table is full
+     */
+    private static <T> int indexOf(T owner, List<T> owners, HashMap<T, Integer> indexes) {
+        Integer index = indexes.get(owner);
+        if (index == null) {
+            if (owners.size() >= MAX_OWNERS) {
+                return MAX_OWNERS;
+            }
+            index = Integer.valueOf(owners.size());
+            owners.add(owner);
+            indexes.put(owner, index);
+        }
+        return index.intValue();
+    }
+
+    /**
+     * Method that returns if an object can be rebuilt from the columns.
+     *
+     * @param parent The parent directory of the snapshot
+     * @param fso The file system object
+     * @return boolean If the object can be rebuilt from the columns
+     */
+    private static boolean isRebuildable(String parent, FileSystemObject fso) {
+        Class<?> clazz = fso.getClass();
+        if (clazz != RegularFile.class && clazz != Directory.class
+                && clazz != BlockDevice.class && clazz != CharacterDevice.class
+                && clazz != NamedPipe.class && clazz != DomainSocket.class) {
+            return false;
+        }
+        if (clazz != RegularFile.class && fso.getSize() != 0) {
+            // Only the regular files are created with a size
+            return false;
+        }
+        return parent == null ? fso.getParent() == null : parent.equals(fso.getParent());
+    }
+
+    /**
+     * A list view of a {@link DirectorySnapshot}.
+     */
+    private static class SnapshotList
+        extends AbstractList<FileSystemObject> implements RandomAccess {
+
+        private final DirectorySnapshot mSnapshot;
+
+        /**
+         * Constructor of <code>SnapshotList</code>.
+         *
+         * @param snapshot The snapshot
+         */
+        SnapshotList(DirectorySnapshot snapshot) {
+            super();
+            this.mSnapshot = snapshot;
+        }
+
+        /**
+         * Method that returns the snapshot of the list.
+         *
+         * @return DirectorySnapshot The snapshot
+         */
+        DirectorySnapshot getSnapshot() {
+            return this.mSnapshot;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public FileSystemObject get(int location) {
+            return this.mSnapshot.get(location);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int size() {
+            return this.mSnapshot.size();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public FileSystemObject remove(int location) {
+            FileSystemObject fso = this.mSnapshot.get(location);
+            this.mSnapshot.remove(location);
+            this.modCount++;
+            return fso;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean remove(Object object) {
+            int index = indexOf(object);
+            if (index == -1) {
+                return false;
+            }
+            remove(index);
+            return true;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int indexOf(Object object) {
+            if (object instanceof FileSystemObject) {
+                return this.mSnapshot.indexOf((FileSystemObject)object);
+            }
+            return -1;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean contains(Object object) {
+            return indexOf(object) != -1;
+        }
+    }
+
+}
@@ -16,6 +16,8 @@
 
 package com.cyanogenmod.filemanager.model;
 
+import com.cyanogenmod.filemanager.util.AIDCache;
+
 /**
  * A class that represents a group of the operating system.
  */
@@ -33,6 +35,15 @@ public class Group extends AID {
         super(gid, name);
     }
 
+    /**
+     * Method that replaces the deserialized group with the canonical instance.
+     *
+     * @return Object The canonical group
+     */
+    private Object readResolve() {
+        return AIDCache.getGroup(getId(), getName());
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -49,9 +49,9 @@ public abstract class Permission implements Serializable {
      */
     public static final char EXECUTE = 'x';
 
-    private boolean mRead;
-    private boolean mWrite;
-    private boolean mExecute;
+    private final boolean mRead;
+    private final boolean mWrite;
+    private final boolean mExecute;
 
     /**
      * Constructor of <code>Permission</code>.
@@ -76,15 +76,6 @@ public abstract class Permission implements Serializable {
         return this.mRead;
     }
 
-    /**
-     * Method that sets if the object can be read.
-     *
-     * @param read If the object can be read
-     */
-    public void setRead(boolean read) {
-        this.mRead = read;
-    }
-
     /**
      * Method that returns if the object can be written.
      *
@@ -94,15 +85,6 @@ public abstract class Permission implements Serializable {
         return this.mWrite;
     }
 
-    /**
-     * Method that sets if the object can be written.
-     *
-     * @param write If the object can be written
-     */
-    public void setWrite(boolean write) {
-        this.mWrite = write;
-    }
-
     /**
      * Method that returns if the object can be executed.
      *
@@ -112,15 +94,6 @@ public abstract class Permission implements Serializable {
         return this.mExecute;
     }
 
-    /**
-     * Method that sets if the object can be executed.
-     *
-     * @param execute If the object can be executed
-     */
-    public void setExecute(boolean execute) {
-        this.mExecute = execute;
-    }
-
     /**
      * {@inheritDoc}
      */
@@ -22,7 +22,10 @@ import java.io.Serializable;
 import java.text.ParseException;
 
 /**
- * Permissions of a filesystem object.
+ * Permissions of a filesystem object.<br/>
+ * <br/>
+ * The permissions are immutable. Use {@link #valueOf(int)} to obtain the shared
+ * canonical instance of a mode instead of creating a new one.
  *
  * @see Permission
  * @see FileSystemObject
@@ -31,9 +34,14 @@ public class Permissions implements Serializable, Comparable<Permissions> {
 
     private static final long serialVersionUID = -8268598363293965341L;
 
-    private UserPermission mUser;
-    private GroupPermission mGroup;
-    private OthersPermission mOthers;
+    private static final int MODE_MASK = 07777;
+
+    // The canonical instances (by mode), created on demand
+    private static final Permissions[] sCanonical = new Permissions[MODE_MASK + 1];
+
+    private final UserPermission mUser;
+    private final GroupPermission mGroup;
+    private final OthersPermission mOthers;
 
     /**
      * Constructor of <code>Permissions</code>.
@@ -50,57 +58,87 @@ public class Permissions implements Serializable, Comparable<Permissions> {
     }
 
     /**
-     * Method that returns the permissions for the proprietary user of the filesystem object.
+     * Method that returns the canonical permissions of a mode.
      *
-     * @return UserPermission The permissions for the proprietary user of the filesystem object
+     * @param mode The mode (permissions, setuid, setgid and sticky bits)
+     * @return Permissions The canonical permissions
      */
-    public UserPermission getUser() {
-        return this.mUser;
+    public static Permissions valueOf(int mode) {
+        int m = mode & MODE_MASK;
+        Permissions permissions = sCanonical[m];
+        if (permissions == null) {
+            // The permissions are immutable, so a concurrent creation is harmless
+            permissions = new Permissions(
+                    new UserPermission(
+                            (m & 0400) != 0, (m & 0200) != 0, (m & 0100) != 0,
+                            (m & 04000) != 0),
+                    new GroupPermission(
+                            (m & 040) != 0, (m & 020) != 0, (m & 010) != 0,
+                            (m & 02000) != 0),
+                    new OthersPermission(
+                            (m & 04) != 0, (m & 02) != 0, (m & 01) != 0,
+                            (m & 01000) != 0));
+            sCanonical[m] = permissions;
+        }
+        return permissions;
     }
 
     /**
-     * Method that returns the permissions for the proprietary user of the filesystem object.
+     * Method that returns the mode of the permissions.
      *
-     * @param user The permissions for the proprietary user of the filesystem object
+     * @return int The mode (permissions, setuid, setgid and sticky bits)
      */
-    public void setUser(UserPermission user) {
-        this.mUser = user;
+    public int toMode() {
+        int mode = 0;
+        mode |= this.mUser.isRead() ? 0400 : 0;
+        mode |= this.mUser.isWrite() ? 0200 : 0;
+        mode |= this.mUser.isExecute() ? 0100 : 0;
+        mode |= this.mUser.isSetUID() ? 04000 : 0;
+        mode |= this.mGroup.isRead() ? 040 : 0;
+        mode |= this.mGroup.isWrite() ? 020 : 0;
+        mode |= this.mGroup.isExecute() ? 010 : 0;
+        mode |= this.mGroup.isSetGID() ? 02000 : 0;
+        mode |= this.mOthers.isRead() ? 04 : 0;
+        mode |= this.mOthers.isWrite() ? 02 : 0;
+        mode |= this.mOthers.isExecute() ? 01 : 0;
+        mode |= this.mOthers.isStickybit() ? 01000 : 0;
+        return mode;
     }
 
     /**
-     * Method that returns the permissions for the proprietary group of the filesystem object.
+     * Method that replaces the deserialized permissions with the canonical instance.
      *
-     * @return GroupPermission The permissions for the proprietary group of the filesystem object
+     * @return Object The canonical permissions
      */
-    public GroupPermission getGroup() {
-        return this.mGroup;
+    private Object readResolve() {
+        return valueOf(toMode());
     }
 
     /**
-     * Method that returns the permissions for the proprietary group of the filesystem object.
+     * Method that returns the permissions for the proprietary user of the filesystem object.
      *
-     * @param group The permissions for the proprietary group of the filesystem object
+     * @return UserPermission The permissions for the proprietary user of the filesystem object
      */
-    public void setGroup(GroupPermission group) {
-        this.mGroup = group;
+    public UserPermission getUser() {
+        return this.mUser;
     }
 
     /**
-     * Method that returns the permissions for the non proprietary users of the filesystem object.
+     * Method that returns the permissions for the proprietary group of the filesystem object.
      *
-     * @return Permission The permissions for the non proprietary users of the filesystem object
+     * @return GroupPermission The permissions for the proprietary group of the filesystem object
      */
-    public OthersPermission getOthers() {
-        return this.mOthers;
+    public GroupPermission getGroup() {
+        return this.mGroup;
     }
 
     /**
      * Method that returns the permissions for the non proprietary users of the filesystem object.
      *
-     * @param others The permissions for the non proprietary users of the filesystem object
+     * @return Permission The permissions for the non proprietary users of the filesystem object
      */
-    public void setOthers(OthersPermission others) {
-        this.mOthers = others;
+    public OthersPermission getOthers() {
+        return this.mOthers;
     }
 
     /**
@@ -286,25 +324,17 @@ public class Permissions implements Serializable, Comparable<Permissions> {
         cc++;
 
         //Get permissions
-        UserPermission user =
-                new UserPermission(
-                        (u & 0x04) == 0x04,
-                        (u & 0x02) == 0x02,
-                        (u & 0x01) == 0x01,
-                        (b & 0x01) == 0x01);
-        GroupPermission group =
-                new GroupPermission(
-                        (g & 0x04) == 0x04,
-                        (g & 0x02) == 0x02,
-                        (g & 0x01) == 0x01,
-                        (b & 0x02) == 0x02);
-        OthersPermission other =
-                new OthersPermission(
-                        (o & 0x04) == 0x04,
-                        (o & 0x02) == 0x02,
-                        (o & 0x01) == 0x01,
-                        (b & 0x04) == 0x04);
-        return new Permissions(user, group, other);
+        int mode = ((u & 0x07) << 6) | ((g & 0x07) << 3) | (o & 0x07);
+        if ((b & 0x01) == 0x01) {
+            mode |= 04000;
+        }
+        if ((b & 0x02) == 0x02) {
+            mode |= 02000;
+        }
+        if ((b & 0x04) == 0x04) {
+            mode |= 01000;
+        }
+        return valueOf(mode);
     }
 
 }
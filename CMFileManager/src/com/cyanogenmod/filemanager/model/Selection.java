@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.cyanogenmod.filemanager.model;
+
+import com.cyanogenmod.filemanager.util.FileHelper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A class that holds the selected file system objects of a navigation view.<br/>
+ * <br/>
+ * The objects are keyed by their full path, so selecting, deselecting and checking
+ * an object don't depend on the size of the selection (and don't compare all the
+ * attributes of the objects). The number of selected folders and files is maintained
+ * with every change, and the list of the selected objects (see {@link #getItems()})
+ * is shared by all the consumers until the selection changes again.
+ */
+public final class Selection {
+
+    /**
+     * A class that holds a selected object.
+     */
+    private static class Entry {
+        /**
+         * @hide
+         */
+        public Entry() {
+            super();
+        }
+        FileSystemObject mFso;
+        int mPosition;
+        boolean mFolder;
+    }
+
+    private final Map<String, Entry> mEntriesByPath;
+    private final List<Entry> mEntries;
+    private int mFolders;
+    private List<FileSystemObject> mItems;
+
+    /**
+     * Constructor of <code>Selection</code>.
+     */
+    public Selection() {
+        super();
+        this.mEntriesByPath = new HashMap<String, Entry>();
+        this.mEntries = new ArrayList<Entry>();
+        this.mFolders = 0;
+        this.mItems = null;
+    }
+
+    /**
+     * Method that returns the number of selected objects.
+     *
+     * @return int The number of selected objects
+     */
+    public int size() {
+        return this.mEntries.size();
+    }
+
+    /**
+     * Method that returns if there are no selected objects.
+     *
+     * @return boolean If there are no selected objects
+     */
+    public boolean isEmpty() {
+        return this.mEntries.isEmpty();
+    }
+
+    /**
+     * Method that returns the number of selected folders.
+     *
+     * @return int The number of selected folders
+     */
+    public int getFolders() {
+        return this.mFolders;
+    }
+
+    /**
+     * Method that returns the number of selected files (everything that isn't a folder).
+     *
+     * @return int The number of selected files
+     */
+    public int getFiles() {
+        return this.mEntries.size() - this.mFolders;
+    }
+
+    /**
+     * Method that returns if a file system object is selected.
+     *
+     * @param fso The file system object
+     * @return boolean If the file system object is selected
+     */
+    public boolean isSelected(FileSystemObject fso) {
+        return fso != null && this.mEntriesByPath.containsKey(fso.getFullPath());
+    }
+
+    /**
+     * Method that selects or deselects a file system object. The parent directory
+     * can't be selected.
+     *
+     * @param fso The file system object
+     * @param selected If the object must be selected (true) or deselected (false)
+     * @return boolean If the selection changed
+     */
+    public boolean setSelected(FileSystemObject fso, boolean selected) {
+        if (fso == null || fso instanceof ParentDirectory) {
+            return false;
+        }
+        String path = fso.getFullPath();
+        if (selected) {
+            if (this.mEntriesByPath.containsKey(path)) {
+                return false;
+            }
+            Entry entry = new Entry();
+            entry.mFso = fso;
+            entry.mPosition = this.mEntries.size();
+            entry.mFolder = FileHelper.isDirectory(fso);
+            this.mEntries.add(entry);
+            this.mEntriesByPath.put(path, entry);
+            if (entry.mFolder) {
+                this.mFolders++;
+            }
+        } else {
+            Entry entry = this.mEntriesByPath.remove(path);
+            if (entry == null) {
+                return false;
+            }
+            // Move the last entry to the hole, so the removal doesn't shift the list
+            Entry last = this.mEntries.remove(this.mEntries.size() - 1);
+            if (last != entry) {
+                last.mPosition = entry.mPosition;
+                this.mEntries.set(entry.mPosition, last);
+            }
+            if (entry.mFolder) {
+                this.mFolders--;
+            }
+        }
+        this.mItems = null;
+        return true;
+    }
+
+    /**
+     * Method that toggles the selection of a file system object.
+     *
+     * @param fso The file system object
+     * @return boolean If the object is selected after the toggle
+     */
+    public boolean toggle(FileSystemObject fso) {
+        boolean selected = !isSelected(fso);
+        setSelected(fso, selected);
+        return isSelected(fso);
+    }
+
+    /**
+     * Method that selects or deselects a range of file system objects.
+     *
+     * @param items The file system objects (the current listing)
+     * @param from The first object of the range (inclusive)
+     * @param to The last object of the range (exclusive)
+     * @param selected If the objects must be selected (true) or deselected (false)
+     * @return boolean If the selection changed
+     */
+    public boolean setSelected(
+            List<FileSystemObject> items, int from, int to, boolean selected) {
+        boolean changed = false;
+        for (int i = from; i < to; i++) {
+            changed |= setSelected(items.get(i), selected);
+        }
+        return changed;
+    }
+
+    /**
+     * Method that inverts the selection of a range of file system objects.
+     *
+     * @param items The file system objects (the current listing)
+     * @param from The first object of the range (inclusive)
+     * @param to The last object of the range (exclusive)
+     * @return boolean If the selection changed
+     */
+    public boolean invert(List<FileSystemObject> items, int from, int to) {
+        boolean changed = false;
+        for (int i = from; i < to; i++) {
+            FileSystemObject fso = items.get(i);
+            changed |= setSelected(fso, !isSelected(fso));
+        }
+        return changed;
+    }
+
+    /**
+     * Method that replaces the selected objects.
+     *
+     * @param items The new selected objects (can be null)
+     */
+    public void set(List<FileSystemObject> items) {
+        clear();
+        if (items != null) {
+            int cc = items.size();
+            for (int i = 0; i < cc; i++) {
+                setSelected(items.get(i), true);
+            }
+        }
+    }
+
+    /**
+     * Method that deselects all the objects.
+     */
+    public void clear() {
+        this.mEntriesByPath.clear();
+        this.mEntries.clear();
+        this.mFolders = 0;
+        this.mItems = null;
+    }
+
+    /**
+     * Method that returns the selected objects. The list can't be modified, and it's
+     * shared by all the consumers until the selection changes, so it must not be
+     * copied to be kept.
+     *
+     * @return List<FileSystemObject> The selected objects
+     */
+    public List<FileSystemObject> getItems() {
+        if (this.mItems == null) {
+            int cc = this.mEntries.size();
+            List<FileSystemObject> items = new ArrayList<FileSystemObject>(cc);
+            for (int i = 0; i < cc; i++) {
+                items.add(this.mEntries.get(i).mFso);
+            }
+            this.mItems = Collections.unmodifiableList(items);
+        }
+        return this.mItems;
+    }
+
+}
@@ -19,7 +19,10 @@ package com.cyanogenmod.filemanager.model;
 import java.util.Date;
 
 /**
- * A class that represents a symbolic link.
+ * A class that represents a symbolic link.<br/>
+ * <br/>
+ * The reference of the link is resolved on demand. A link that was resolved
+ * (see {@link #isLinkResolved()}) without a reference is a broken link.
  *
  * {@link "http://en.wikipedia.org/wiki/Symbolic_link"}
  */
@@ -34,7 +37,8 @@ public class Symlink extends FileSystemObject {
     public static final char UNIX_ID = 'l';
 
     private String mLink;
-    private FileSystemObject mLinkRef;
+    private volatile FileSystemObject mLinkRef;
+    private volatile boolean mLinkResolved;
 
     /**
      * Constructor of <code>Symlink</code>.
@@ -82,12 +86,24 @@ public class Symlink extends FileSystemObject {
     }
 
     /**
-     * Method that sets the {@link FileSystemObject} reference of the symlink.
+     * Method that sets the {@link FileSystemObject} reference of the symlink. The
+     * link is resolved after this call.
      *
      * @param linkRef The {@link FileSystemObject} reference of the symlink
+     * (<code>null</code> if the link is broken)
      */
     public void setLinkRef(FileSystemObject linkRef) {
         this.mLinkRef = linkRef;
+        this.mLinkResolved = true;
+    }
+
+    /**
+     * Method that returns if the reference of the symlink was resolved.
+     *
+     * @return boolean If the reference of the symlink was resolved
+     */
+    public boolean isLinkResolved() {
+        return this.mLinkResolved;
     }
 
     /**
@@ -16,6 +16,8 @@
 
 package com.cyanogenmod.filemanager.model;
 
+import com.cyanogenmod.filemanager.util.AIDCache;
+
 /**
  * A class that represents a user of the operating system.
  */
@@ -33,6 +35,15 @@ public class User extends AID {
         super(uid, name);
     }
 
+    /**
+     * Method that replaces the deserialized user with the canonical instance.
+     *
+     * @return Object The canonical user
+     */
+    private Object readResolve() {
+        return AIDCache.getUser(getId(), getName());
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -24,29 +24,58 @@ public enum NavigationSortMode implements ObjectIdentifier {
     /**
      * That mode sorts objects by name (ascending).
      */
-    NAME_ASC(0),
+    NAME_ASC(0, false),
     /**
      * That mode sorts objects by name (descending).
      */
-    NAME_DESC(1),
+    NAME_DESC(1, true),
     /**
      * That mode sorts objects by date (ascending).
      */
-    DATE_ASC(2),
+    DATE_ASC(2, false),
     /**
      * That mode sorts objects by date (descending).
      */
-    DATE_DESC(3);
+    DATE_DESC(3, true),
+    /**
+     * That mode sorts objects by size (ascending).
+     */
+    SIZE_ASC(4, false),
+    /**
+     * That mode sorts objects by size (descending).
+     */
+    SIZE_DESC(5, true),
+    /**
+     * That mode sorts objects by type, the extension of the name (ascending).
+     */
+    TYPE_ASC(6, false),
+    /**
+     * That mode sorts objects by type, the extension of the name (descending).
+     */
+    TYPE_DESC(7, true),
+    /**
+     * That mode sorts objects by name, comparing the numbers of the names by
+     * their value (ascending).
+     */
+    NATURAL_ASC(8, false),
+    /**
+     * That mode sorts objects by name, comparing the numbers of the names by
+     * their value (descending).
+     */
+    NATURAL_DESC(9, true);
 
     private int mId;
+    private final boolean mDescending;
 
     /**
      * Constructor of <code>NavigationSortMode</code>.
      *
      * @param id The unique identifier of the enumeration
+     * @param descending If the mode sorts the objects in descending order
      */
-    private NavigationSortMode(int id) {
+    private NavigationSortMode(int id, boolean descending) {
         this.mId = id;
+        this.mDescending = descending;
     }
 
     /**
@@ -57,6 +86,15 @@ public enum NavigationSortMode implements ObjectIdentifier {
         return this.mId;
     }
 
+    /**
+     * Method that returns if the mode sorts the objects in descending order.
+     *
+     * @return boolean If the mode sorts the objects in descending order
+     */
+    public boolean isDescending() {
+        return this.mDescending;
+    }
+
     /**
      * Method that returns an instance of {@link NavigationSortMode} from its
      * unique identifier.
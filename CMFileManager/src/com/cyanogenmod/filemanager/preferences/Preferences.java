@@ -19,6 +19,7 @@ package com.cyanogenmod.filemanager.preferences;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.content.SharedPreferences.Editor;
+import android.content.SharedPreferences.OnSharedPreferenceChangeListener;
 import android.util.Log;
 
 import com.cyanogenmod.filemanager.FileManagerApplication;
@@ -55,6 +56,23 @@ public final class Preferences {
     private static final List<ConfigurationListener> CONFIGURATION_LISTENERS =
             Collections.synchronizedList(new ArrayList<ConfigurationListener>());
 
+    /**
+     * The current snapshot of the preferences.
+     */
+    private static volatile PreferencesSnapshot sSnapshot;
+    private static final Object SNAPSHOT_SYNC = new Object();
+
+    /**
+     * A listener that rebuilds the snapshot when the preferences are written (the shared
+     * preferences only hold a weak reference to its listeners).
+     */
+    private static final OnSharedPreferenceChangeListener SNAPSHOT_LISTENER =
+            new OnSharedPreferenceChangeListener() {
+                @Override
+                public void onSharedPreferenceChanged(SharedPreferences sp, String key) {
+                    reloadSnapshot();
+                }
+            };
 
     /**
      * Constructor of <code>Preferences</code>.
@@ -129,6 +147,48 @@ public final class Preferences {
                 SETTINGS_FILENAME, Context.MODE_PRIVATE);
     }
 
+    /**
+     * Method that returns the snapshot of the current values of the preferences. The
+     * snapshot is immutable; the code that reads the preferences often should read them
+     * from here instead of from the shared preferences.
+     *
+     * @return PreferencesSnapshot The snapshot of the preferences
+     */
+    public static PreferencesSnapshot getSnapshot() {
+        PreferencesSnapshot snapshot = sSnapshot;
+        if (snapshot == null) {
+            synchronized (SNAPSHOT_SYNC) {
+                snapshot = sSnapshot;
+                if (snapshot == null) {
+                    SharedPreferences sp = getSharedPreferences();
+                    sp.registerOnSharedPreferenceChangeListener(SNAPSHOT_LISTENER);
+                    snapshot = new PreferencesSnapshot(sp, 1);
+                    sSnapshot = snapshot;
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Method that rebuilds the snapshot of the preferences from the current values of
+     * the shared preferences.
+     *
+     * @return PreferencesSnapshot The new snapshot of the preferences
+     */
+    public static PreferencesSnapshot reloadSnapshot() {
+        synchronized (SNAPSHOT_SYNC) {
+            PreferencesSnapshot current = sSnapshot;
+            if (current == null) {
+                return getSnapshot();
+            }
+            PreferencesSnapshot snapshot =
+                    new PreferencesSnapshot(getSharedPreferences(), current.getVersion() + 1);
+            sSnapshot = snapshot;
+            return snapshot;
+        }
+    }
+
     /**
      * Method that saves a preference.
      *
@@ -213,6 +273,9 @@ public final class Preferences {
         //Commit settings
         editor.commit();
 
+        //The listeners must see the new values
+        reloadSnapshot();
+
         //Now its time to communicate the configuration change
         if (CONFIGURATION_LISTENERS != null && CONFIGURATION_LISTENERS.size() > 0) {
             it = prefs.keySet().iterator();
@@ -0,0 +1,315 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.preferences;
+
+import android.content.SharedPreferences;
+
+/**
+ * An immutable snapshot of the values of the {@link FileManagerSettings} of the
+ * application.<br/>
+ * <br/>
+ * The snapshot is built once every time the preferences change (see
+ * {@link Preferences#getSnapshot()}), so the code that reads the preferences often
+ * (for every command, file or comparison) reads plain fields instead of
+ * querying the shared preferences.
+ */
+public final class PreferencesSnapshot {
+
+    private final int mVersion;
+
+    private final boolean mFirstUse;
+    private final AccessMode mAccessMode;
+    private final String mInitialDir;
+    private final NavigationLayoutMode mLayoutMode;
+    private final NavigationSortMode mSortMode;
+    private final boolean mShowDirsFirst;
+    private final boolean mShowHidden;
+    private final boolean mShowSystem;
+    private final boolean mShowSymlinks;
+    private final boolean mCaseSensitiveSort;
+    private final String mDiskUsageWarningLevel;
+    private final boolean mComputeFolderStatistics;
+    private final boolean mUseFlinger;
+    private final boolean mHighlightTerms;
+    private final boolean mShowRelevanceWidget;
+    private final SearchSortResultMode mSortSearchResultsMode;
+    private final boolean mSaveSearchTerms;
+    private final boolean mShowTraces;
+
+    /**
+     * Constructor of <code>PreferencesSnapshot</code>.
+     *
+     * @param sp The shared preferences of the application
+     * @param version The version of the snapshot
+     */
+    PreferencesSnapshot(SharedPreferences sp, int version) {
+        super();
+        this.mVersion = version;
+
+        this.mFirstUse = getBoolean(sp, FileManagerSettings.SETTINGS_FIRST_USE);
+        AccessMode accessMode =
+                AccessMode.fromId(getString(sp, FileManagerSettings.SETTINGS_ACCESS_MODE));
+        this.mAccessMode = accessMode != null ?
+                accessMode :
+                (AccessMode)FileManagerSettings.SETTINGS_ACCESS_MODE.getDefaultValue();
+        this.mInitialDir = getString(sp, FileManagerSettings.SETTINGS_INITIAL_DIR);
+        NavigationLayoutMode layoutMode =
+                NavigationLayoutMode.fromId(getInt(sp, FileManagerSettings.SETTINGS_LAYOUT_MODE));
+        this.mLayoutMode = layoutMode != null ?
+                layoutMode :
+                (NavigationLayoutMode)FileManagerSettings.SETTINGS_LAYOUT_MODE.getDefaultValue();
+        NavigationSortMode sortMode =
+                NavigationSortMode.fromId(getInt(sp, FileManagerSettings.SETTINGS_SORT_MODE));
+        this.mSortMode = sortMode != null ?
+                sortMode :
+                (NavigationSortMode)FileManagerSettings.SETTINGS_SORT_MODE.getDefaultValue();
+        this.mShowDirsFirst = getBoolean(sp, FileManagerSettings.SETTINGS_SHOW_DIRS_FIRST);
+        this.mShowHidden = getBoolean(sp, FileManagerSettings.SETTINGS_SHOW_HIDDEN);
+        this.mShowSystem = getBoolean(sp, FileManagerSettings.SETTINGS_SHOW_SYSTEM);
+        this.mShowSymlinks = getBoolean(sp, FileManagerSettings.SETTINGS_SHOW_SYMLINKS);
+        this.mCaseSensitiveSort =
+                getBoolean(sp, FileManagerSettings.SETTINGS_CASE_SENSITIVE_SORT);
+        this.mDiskUsageWarningLevel =
+                getString(sp, FileManagerSettings.SETTINGS_DISK_USAGE_WARNING_LEVEL);
+        this.mComputeFolderStatistics =
+                getBoolean(sp, FileManagerSettings.SETTINGS_COMPUTE_FOLDER_STATISTICS);
+        this.mUseFlinger = getBoolean(sp, FileManagerSettings.SETTINGS_USE_FLINGER);
+        this.mHighlightTerms = getBoolean(sp, FileManagerSettings.SETTINGS_HIGHLIGHT_TERMS);
+        this.mShowRelevanceWidget =
+                getBoolean(sp, FileManagerSettings.SETTINGS_SHOW_RELEVANCE_WIDGET);
+        SearchSortResultMode sortSearchResultsMode =
+                SearchSortResultMode.fromId(
+                        getString(sp, FileManagerSettings.SETTINGS_SORT_SEARCH_RESULTS_MODE));
+        this.mSortSearchResultsMode = sortSearchResultsMode != null ?
+                sortSearchResultsMode :
+                (SearchSortResultMode)FileManagerSettings.
+                        SETTINGS_SORT_SEARCH_RESULTS_MODE.getDefaultValue();
+        this.mSaveSearchTerms = getBoolean(sp, FileManagerSettings.SETTINGS_SAVE_SEARCH_TERMS);
+        this.mShowTraces = getBoolean(sp, FileManagerSettings.SETTINGS_SHOW_TRACES);
+    }
+
+    /**
+     * Method that returns the version of the snapshot. Every time the preferences change
+     * a new snapshot with a greater version is built.
+     *
+     * @return int The version of the snapshot
+     */
+    public int getVersion() {
+        return this.mVersion;
+    }
+
+    /**
+     * Method that returns whether is the first use of the application.
+     *
+     * @return boolean Whether is the first use of the application
+     */
+    public boolean isFirstUse() {
+        return this.mFirstUse;
+    }
+
+    /**
+     * Method that returns the access mode to use.
+     *
+     * @return AccessMode The access mode to use
+     */
+    public AccessMode getAccessMode() {
+        return this.mAccessMode;
+    }
+
+    /**
+     * Method that returns the initial directory to be used.
+     *
+     * @return String The initial directory to be used
+     */
+    public String getInitialDir() {
+        return this.mInitialDir;
+    }
+
+    /**
+     * Method that returns the view mode to use.
+     *
+     * @return NavigationLayoutMode The view mode to use
+     */
+    public NavigationLayoutMode getLayoutMode() {
+        return this.mLayoutMode;
+    }
+
+    /**
+     * Method that returns the sort mode to use.
+     *
+     * @return NavigationSortMode The sort mode to use
+     */
+    public NavigationSortMode getSortMode() {
+        return this.mSortMode;
+    }
+
+    /**
+     * Method that returns when to sort the directories before the files.
+     *
+     * @return boolean When to sort the directories before the files
+     */
+    public boolean isShowDirsFirst() {
+        return this.mShowDirsFirst;
+    }
+
+    /**
+     * Method that returns when to show the hidden files.
+     *
+     * @return boolean When to show the hidden files
+     */
+    public boolean isShowHidden() {
+        return this.mShowHidden;
+    }
+
+    /**
+     * Method that returns when to show the system files.
+     *
+     * @return boolean When to show the system files
+     */
+    public boolean isShowSystem() {
+        return this.mShowSystem;
+    }
+
+    /**
+     * Method that returns when to show the symlinks files.
+     *
+     * @return boolean When to show the symlinks files
+     */
+    public boolean isShowSymlinks() {
+        return this.mShowSymlinks;
+    }
+
+    /**
+     * Method that returns when to use case sensitive comparison in sorting of files.
+     *
+     * @return boolean When to use case sensitive comparison in sorting of files
+     */
+    public boolean isCaseSensitiveSort() {
+        return this.mCaseSensitiveSort;
+    }
+
+    /**
+     * Method that returns when display a warning in free disk widget.
+     *
+     * @return String The warning level (a percentage)
+     */
+    public String getDiskUsageWarningLevel() {
+        return this.mDiskUsageWarningLevel;
+    }
+
+    /**
+     * Method that returns when to compute folder statistics in folder properties dialog.
+     *
+     * @return boolean When to compute folder statistics
+     */
+    public boolean isComputeFolderStatistics() {
+        return this.mComputeFolderStatistics;
+    }
+
+    /**
+     * Method that returns whether use flinger to remove items.
+     *
+     * @return boolean Whether use flinger to remove items
+     */
+    public boolean isUseFlinger() {
+        return this.mUseFlinger;
+    }
+
+    /**
+     * Method that returns when to highlight the terms of the search in the search results.
+     *
+     * @return boolean When to highlight the terms of the search
+     */
+    public boolean isHighlightTerms() {
+        return this.mHighlightTerms;
+    }
+
+    /**
+     * Method that returns when to show the relevance widget on searches.
+     *
+     * @return boolean When to show the relevance widget on searches
+     */
+    public boolean isShowRelevanceWidget() {
+        return this.mShowRelevanceWidget;
+    }
+
+    /**
+     * Method that returns how to sort the search results.
+     *
+     * @return SearchSortResultMode How to sort the search results
+     */
+    public SearchSortResultMode getSortSearchResultsMode() {
+        return this.mSortSearchResultsMode;
+    }
+
+    /**
+     * Method that returns when to save the search terms.
+     *
+     * @return boolean When to save the search terms
+     */
+    public boolean isSaveSearchTerms() {
+        return this.mSaveSearchTerms;
+    }
+
+    /**
+     * Method that returns when to show debug traces.
+     *
+     * @return boolean When to show debug traces
+     */
+    public boolean isShowTraces() {
+        return this.mShowTraces;
+    }
+
+    /**
+     * Method that reads a boolean setting.
+     *
+     * @param sp The shared preferences of the application
+     * @param setting The setting
+     * @return boolean The value of the setting
+     */
+    private static boolean getBoolean(SharedPreferences sp, FileManagerSettings setting) {
+        return sp.getBoolean(
+                setting.getId(), ((Boolean)setting.getDefaultValue()).booleanValue());
+    }
+
+    /**
+     * Method that reads a string setting (a string or a string identifier).
+     *
+     * @param sp The shared preferences of the application
+     * @param setting The setting
+     * @return String The value of the setting
+     */
+    private static String getString(SharedPreferences sp, FileManagerSettings setting) {
+        Object defaultValue = setting.getDefaultValue();
+        if (defaultValue instanceof ObjectStringIdentifier) {
+            return sp.getString(
+                    setting.getId(), ((ObjectStringIdentifier)defaultValue).getId());
+        }
+        return sp.getString(setting.getId(), (String)defaultValue);
+    }
+
+    /**
+     * Method that reads an identifier setting.
+     *
+     * @param sp The shared preferences of the application
+     * @param setting The setting
+     * @return int The value of the setting
+     */
+    private static int getInt(SharedPreferences sp, FileManagerSettings setting) {
+        return sp.getInt(setting.getId(), ((ObjectIdentifier)setting.getDefaultValue()).getId());
+    }
+}
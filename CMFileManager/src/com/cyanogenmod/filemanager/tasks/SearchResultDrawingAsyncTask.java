@@ -28,10 +28,9 @@ import com.cyanogenmod.filemanager.model.FileSystemObject;
 import com.cyanogenmod.filemanager.model.Query;
 import com.cyanogenmod.filemanager.model.SearchResult;
 import com.cyanogenmod.filemanager.preferences.AccessMode;
-import com.cyanogenmod.filemanager.preferences.FileManagerSettings;
 import com.cyanogenmod.filemanager.preferences.NavigationSortMode;
-import com.cyanogenmod.filemanager.preferences.ObjectStringIdentifier;
 import com.cyanogenmod.filemanager.preferences.Preferences;
+import com.cyanogenmod.filemanager.preferences.PreferencesSnapshot;
 import com.cyanogenmod.filemanager.preferences.SearchSortResultMode;
 import com.cyanogenmod.filemanager.util.ExceptionUtil;
 import com.cyanogenmod.filemanager.util.FileHelper;
@@ -101,12 +100,8 @@ public class SearchResultDrawingAsyncTask extends AsyncTask<Object, Integer, Boo
             showHideWaiting(true);
 
             // Get sort mode
-            String defaultValue = ((ObjectStringIdentifier)FileManagerSettings.
-                    SETTINGS_SORT_SEARCH_RESULTS_MODE.getDefaultValue()).getId();
-            String value = Preferences.getSharedPreferences().getString(
-                                FileManagerSettings.SETTINGS_SORT_SEARCH_RESULTS_MODE.getId(),
-                                defaultValue);
-            SearchSortResultMode mode = SearchSortResultMode.fromId(value);
+            final PreferencesSnapshot prefs = Preferences.getSnapshot();
+            SearchSortResultMode mode = prefs.getSortSearchResultsMode();
 
             // Are we in ChRooted environment?
             boolean chRooted =
@@ -119,11 +114,14 @@ public class SearchResultDrawingAsyncTask extends AsyncTask<Object, Integer, Boo
                                     this.mFiles, MimeTypeHelper.ALL_MIME_TYPES, true, chRooted),
                             this.mQueries);
             if (mode.compareTo(SearchSortResultMode.NAME) == 0) {
+                // Read the case sensitive preference once for all the comparisons
+                final boolean caseSensitive = prefs.isCaseSensitiveSort();
                 Collections.sort(result, new Comparator<SearchResult>() {
                     @Override
                     public int compare(SearchResult lhs, SearchResult rhs) {
                         return FileHelper.doCompare(
-                                lhs.getFso(), rhs.getFso(), NavigationSortMode.NAME_ASC);
+                                lhs.getFso(), rhs.getFso(), NavigationSortMode.NAME_ASC,
+                                caseSensitive);
                     }
                 });
             } else if (mode.compareTo(SearchSortResultMode.RELEVANCE) == 0) {
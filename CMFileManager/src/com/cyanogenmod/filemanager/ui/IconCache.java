@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.cyanogenmod.filemanager.ui;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.util.LruCache;
+
+/**
+ * A process-wide cache of the icons of the application.<br/>
+ * <br/>
+ * The cache holds the {@link Drawable.ConstantState} of every icon (the decoded
+ * bitmap), so every view obtains its own {@link Drawable} but all of them share
+ * the same bitmap, and an icon is decoded only once for all the adapters and dialogs.
+ * The cache is bounded by the size in bytes of the bitmaps, and the icons least
+ * recently used are evicted first.
+ */
+public final class IconCache {
+
+    // The fraction of the heap that the icons can use
+    private static final int HEAP_FRACTION = 16;
+    // The size of a drawable which size can't be computed
+    private static final int DEFAULT_SIZE = 1024;
+
+    /**
+     * A class that holds a cached icon.
+     */
+    private static class Entry {
+        /**
+         * @hide
+         */
+        public Entry() {
+            super();
+        }
+        Drawable.ConstantState mState;
+        int mBytes;
+    }
+
+    private static final LruCache<Integer, Entry> sIcons =
+            new LruCache<Integer, Entry>(
+                    (int)Math.min(Integer.MAX_VALUE,
+                            Runtime.getRuntime().maxMemory() / HEAP_FRACTION)) {
+        @Override
+        protected int sizeOf(Integer key, Entry value) {
+            return value.mBytes;
+        }
+    };
+
+    /**
+     * Constructor of <code>IconCache</code>.
+     */
+    private IconCache() {
+        super();
+    }
+
+    /**
+     * Method that returns a drawable of an icon, loading the icon if it isn't cached.
+     *
+     * @param context The current context
+     * @param resid The resource identifier
+     * @return Drawable The drawable icon reference (a new drawable that shares the
+     * bitmap of the cached icon)
+     */
+    public static Drawable getDrawable(Context context, final int resid) {
+        Resources res = context.getResources();
+        Entry entry = sIcons.get(Integer.valueOf(resid));
+        if (entry != null) {
+            return entry.mState.newDrawable(res);
+        }
+
+        //Load the drawable and cache its state (if it can be shared)
+        Drawable dw = res.getDrawable(resid);
+        Drawable.ConstantState state = dw.getConstantState();
+        if (state != null) {
+            entry = new Entry();
+            entry.mState = state;
+            entry.mBytes = sizeOf(dw);
+            sIcons.put(Integer.valueOf(resid), entry);
+        }
+        return dw;
+    }
+
+    /**
+     * Method that returns the size in bytes of a drawable.
+     *
+     * @param dw The drawable
+     * @return int The size in bytes
+     */
+    private static int sizeOf(Drawable dw) {
+        if (dw instanceof BitmapDrawable) {
+            Bitmap bitmap = ((BitmapDrawable)dw).getBitmap();
+            if (bitmap != null) {
+                return bitmap.getByteCount();
+            }
+        }
+        int w = dw.getIntrinsicWidth();
+        int h = dw.getIntrinsicHeight();
+        if (w > 0 && h > 0) {
+            // An estimation (32 bits per pixel)
+            return w * h * 4;
+        }
+        return DEFAULT_SIZE;
+    }
+
+    /**
+     * Method that releases the memory of the cache when the system requests it.
+     *
+     * @param level The level of the request (see {@link ComponentCallbacks2})
+     */
+    public static void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            sIcons.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            sIcons.trimToSize(sIcons.size() / 2);
+        }
+    }
+
+    /**
+     * Method that removes all the cached icons.
+     */
+    public static void clear() {
+        sIcons.evictAll();
+    }
+
+    /**
+     * Method that returns the number of requests of icons that were cached.
+     *
+     * @return int The number of hits
+     */
+    public static int getHitCount() {
+        return sIcons.hitCount();
+    }
+
+    /**
+     * Method that returns the number of requests of icons that weren't cached.
+     *
+     * @return int The number of misses
+     */
+    public static int getMissCount() {
+        return sIcons.missCount();
+    }
+
+    /**
+     * Method that returns the number of icons evicted from the cache.
+     *
+     * @return int The number of evictions
+     */
+    public static int getEvictionCount() {
+        return sIcons.evictionCount();
+    }
+
+    /**
+     * Method that returns the size in bytes of the cached icons.
+     *
+     * @return int The size of the cached icons
+     */
+    public static int getSize() {
+        return sIcons.size();
+    }
+
+    /**
+     * Method that returns the maximum size in bytes of the cached icons.
+     *
+     * @return int The maximum size of the cached icons
+     */
+    public static int getMaxSize() {
+        return sIcons.maxSize();
+    }
+
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.ui;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.cyanogenmod.filemanager.console.ConsoleExecutor;
+import com.cyanogenmod.filemanager.model.FileSystemObject;
+import com.cyanogenmod.filemanager.model.Symlink;
+import com.cyanogenmod.filemanager.util.FileHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A class that resolves the symbolic links on demand, in background. The links
+ * requested (the links of the rows shown by an adapter) are resolved in batches, and
+ * the result is communicated once per batch. The reference is stored in the
+ * {@link Symlink} itself, so a link is resolved only once per listing.
+ */
+public class SymlinkResolver {
+
+    /**
+     * An interface to communicate that a batch of symbolic links was resolved.
+     */
+    public interface OnSymlinksResolvedListener {
+        /**
+         * Method invoked when a batch of symbolic links was resolved (invoked
+         * from the ui thread).
+         */
+        void onSymlinksResolved();
+    }
+
+    /**
+     * An interface to communicate that a symbolic link was resolved.
+     */
+    public interface OnSymlinkResolvedListener {
+        /**
+         * Method invoked when a symbolic link was resolved (invoked from the ui thread).
+         *
+         * @param symlink The symbolic link
+         * @param linkRef The reference of the symbolic link (<code>null</code>
+         * if the link is broken)
+         */
+        void onSymlinkResolved(Symlink symlink, FileSystemObject linkRef);
+    }
+
+    // The maximum number of links resolved in a batch
+    private static final int BATCH = 32;
+    private static final long KEEP_ALIVE = 10000L;
+
+    private static final ConsoleExecutor RESOLVER_EXECUTOR =
+            new ConsoleExecutor("symlink-resolver", 1, KEEP_ALIVE); //$NON-NLS-1$
+
+    private final Context mCtx;
+    private final OnSymlinksResolvedListener mListener;
+    private final Handler mHandler;
+    private final List<Symlink> mPending;
+    private boolean mScheduled;
+    private boolean mDisposed;
+
+    /**
+     * Constructor of <code>SymlinkResolver</code>.
+     *
+     * @param ctx The current context
+     * @param listener The listener where to communicate the resolved links
+     */
+    public SymlinkResolver(Context ctx, OnSymlinksResolvedListener listener) {
+        super();
+        this.mCtx = ctx;
+        this.mListener = listener;
+        this.mHandler = new Handler(Looper.getMainLooper());
+        this.mPending = new ArrayList<Symlink>();
+        this.mScheduled = false;
+        this.mDisposed = false;
+    }
+
+    /**
+     * Method that requests the resolution of a file system object, if it is a symbolic
+     * link that hasn't been resolved yet.
+     *
+     * @param fso The file system object
+     */
+    public void request(FileSystemObject fso) {
+        if (!(fso instanceof Symlink) || ((Symlink)fso).isLinkResolved()) {
+            return;
+        }
+        synchronized (this.mPending) {
+            if (this.mDisposed || this.mPending.contains(fso)) {
+                return;
+            }
+            this.mPending.add((Symlink)fso);
+            if (!this.mScheduled) {
+                this.mScheduled = true;
+                RESOLVER_EXECUTOR.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        resolvePending();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Method that resolves a symbolic link in background, so the ui thread never waits
+     * for the console. A link that is already resolved is communicated immediately.
+     *
+     * @param ctx The current context
+     * @param symlink The symbolic link
+     * @param listener The listener where to communicate the reference of the link
+     */
+    public static void resolve(
+            final Context ctx, final Symlink symlink, final OnSymlinkResolvedListener listener) {
+        if (symlink.isLinkResolved()) {
+            listener.onSymlinkResolved(symlink, symlink.getLinkRef());
+            return;
+        }
+        final Handler handler = new Handler(Looper.getMainLooper());
+        RESOLVER_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final FileSystemObject linkRef = FileHelper.resolveSymlink(ctx, symlink);
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        listener.onSymlinkResolved(symlink, linkRef);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Method that discards the pending links and stops communicating the resolved links.
+     */
+    public void dispose() {
+        synchronized (this.mPending) {
+            this.mDisposed = true;
+            this.mPending.clear();
+        }
+    }
+
+    /**
+     * Method that resolves the pending links, a batch every time.
+     */
+    void resolvePending() {
+        while (true) {
+            List<FileSystemObject> batch = null;
+            synchronized (this.mPending) {
+                if (this.mDisposed || this.mPending.isEmpty()) {
+                    this.mScheduled = false;
+                    return;
+                }
+                int count = Math.min(BATCH, this.mPending.size());
+                batch = new ArrayList<FileSystemObject>(this.mPending.subList(0, count));
+                this.mPending.subList(0, count).clear();
+            }
+
+            // The whole batch is resolved in a single invocation
+            FileHelper.resolveSymlinks(this.mCtx, batch);
+
+            this.mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (SymlinkResolver.this.mPending) {
+                        if (SymlinkResolver.this.mDisposed) {
+                            return;
+                        }
+                    }
+                    SymlinkResolver.this.mListener.onSymlinksResolved();
+                }
+            });
+        }
+    }
+
+}
@@ -55,6 +55,7 @@ import com.cyanogenmod.filemanager.model.UserPermission;
 import com.cyanogenmod.filemanager.preferences.AccessMode;
 import com.cyanogenmod.filemanager.preferences.FileManagerSettings;
 import com.cyanogenmod.filemanager.preferences.Preferences;
+import com.cyanogenmod.filemanager.ui.SymlinkResolver;
 import com.cyanogenmod.filemanager.util.AIDHelper;
 import com.cyanogenmod.filemanager.util.CommandHelper;
 import com.cyanogenmod.filemanager.util.DialogHelper;
@@ -244,7 +245,7 @@ public class FsoPropertiesDialog
         View vCategoryRow = contentView.findViewById(R.id.fso_properties_category_row);
         TextView tvCategory = (TextView)contentView.findViewById(R.id.fso_properties_category);
         View vLinkRow = contentView.findViewById(R.id.fso_properties_link_row);
-        TextView tvLink = (TextView)contentView.findViewById(R.id.fso_properties_link);
+        final TextView tvLink = (TextView)contentView.findViewById(R.id.fso_properties_link);
         this.mTvSize = (TextView)contentView.findViewById(R.id.fso_properties_size);
         View vContatinsRow = contentView.findViewById(R.id.fso_properties_contains_row);
         this.mTvContains = (TextView)contentView.findViewById(R.id.fso_properties_contains);
@@ -263,12 +264,17 @@ public class FsoPropertiesDialog
         }
         tvType.setText(MimeTypeHelper.getMimeTypeDescription(this.mContext, this.mFso));
         if (this.mFso instanceof Symlink) {
-            Symlink link = (Symlink)this.mFso;
-            if (link.getLinkRef() != null) {
-                tvLink.setText(link.getLinkRef().getFullPath());
-            } else {
-                tvLink.setText("-"); //$NON-NLS-1$
-            }
+            // The link is resolved on demand (in background)
+            tvLink.setText("-"); //$NON-NLS-1$
+            SymlinkResolver.resolve(this.mContext, (Symlink)this.mFso,
+                    new SymlinkResolver.OnSymlinkResolvedListener() {
+                @Override
+                public void onSymlinkResolved(Symlink symlink, FileSystemObject linkRef) {
+                    if (linkRef != null) {
+                        tvLink.setText(linkRef.getFullPath());
+                    }
+                }
+            });
         }
         MimeTypeCategory category = MimeTypeHelper.getCategory(this.mContext, this.mFso);
         if (category.compareTo(MimeTypeCategory.NONE) == 0) {
@@ -348,17 +348,20 @@ public final class CopyMoveActionPolicy extends ActionsPolicy {
                 // If the source is the same as destiny then don't do the operation
                 if (src.compareTo(dst) == 0) return;
 
+                boolean exists = false;
+                boolean relaunched = false;
                 try {
-                    // Copy or move?
+                    // Copy or move? (and check that the operation was completed. The check
+                    // is sent with the operation)
                     if (operation.compareTo(COPY_MOVE_OPERATION.MOVE) == 0 ||
                             operation.compareTo(COPY_MOVE_OPERATION.RENAME) == 0) {
-                        CommandHelper.move(
+                        exists = CommandHelper.moveAndCheck(
                                 ctx,
                                 src.getAbsolutePath(),
                                 dst.getAbsolutePath(),
                                 null);
                     } else {
-                        CommandHelper.copy(
+                        exists = CommandHelper.copyAndCheck(
                                 ctx,
                                 src.getAbsolutePath(),
                                 dst.getAbsolutePath(),
@@ -398,6 +401,7 @@ public final class CopyMoveActionPolicy extends ActionsPolicy {
                         synchronized (this.mSync) {
                             this.mSync.wait();
                         }
+                        relaunched = true;
 
                         // Persist the exception?
                         if (this.mCause != null) {
@@ -411,10 +415,12 @@ public final class CopyMoveActionPolicy extends ActionsPolicy {
                     }
                 }
 
-                // Check that the operation was completed retrieving the fso modified
-                FileSystemObject fso =
-                        CommandHelper.getFileInfo(ctx, dst.getAbsolutePath(), false, null);
-                if (fso == null) {
+                // The relaunched operation wasn't checked yet
+                if (relaunched) {
+                    exists = CommandHelper.getFileInfo(
+                            ctx, dst.getAbsolutePath(), false, null) != null;
+                }
+                if (!exists) {
                     throw new NoSuchFileOrDirectory(dst.getAbsolutePath());
                 }
             }
@@ -24,6 +24,7 @@ import android.text.Spanned;
 
 import com.cyanogenmod.filemanager.R;
 import com.cyanogenmod.filemanager.console.ExecutionException;
+import com.cyanogenmod.filemanager.console.NoSuchFileOrDirectory;
 import com.cyanogenmod.filemanager.console.RelaunchableException;
 import com.cyanogenmod.filemanager.listeners.OnRequestRefreshListener;
 import com.cyanogenmod.filemanager.listeners.OnSelectionListener;
@@ -235,12 +236,16 @@ public final class DeleteActionPolicy extends ActionsPolicy {
             @SuppressWarnings("hiding")
             private void doOperation(
                     final Context ctx, final FileSystemObject fso) throws Throwable {
+                boolean deleted = false;
+                boolean relaunched = false;
                 try {
-                    // Remove the item
+                    // Remove the item, and check that the operation was completed (the check
+                    // is sent with the operation)
                     if (FileHelper.isDirectory(fso)) {
-                        CommandHelper.deleteDirectory(ctx, fso.getFullPath(), null);
+                        deleted = CommandHelper.deleteDirectoryAndCheck(
+                                ctx, fso.getFullPath(), null);
                     } else {
-                        CommandHelper.deleteFile(ctx, fso.getFullPath(), null);
+                        deleted = CommandHelper.deleteFileAndCheck(ctx, fso.getFullPath(), null);
                     }
                 } catch (Exception e) {
                     // Need to be relaunched?
@@ -276,6 +281,7 @@ public final class DeleteActionPolicy extends ActionsPolicy {
                         synchronized (this.mSync) {
                             this.mSync.wait();
                         }
+                        relaunched = true;
 
                         // Persist the exception?
                         if (this.mCause != null) {
@@ -299,29 +305,26 @@ public final class DeleteActionPolicy extends ActionsPolicy {
                     }
                 }
 
-                // Check that the operation was completed retrieving the deleted fso
-                boolean failed = false;
-                try {
-                    CommandHelper.getFileInfo(ctx, fso.getFullPath(), false, null);
-                    FileSystemObject fso2 =
-                            CommandHelper.getFileInfo(ctx, fso.getFullPath(), false, null);
-                    if (fso2 != null) {
-                        // Failed. The file still exists
-                        failed = true;
+                // The relaunched operation wasn't checked yet
+                if (relaunched) {
+                    try {
+                        deleted = CommandHelper.getFileInfo(
+                                ctx, fso.getFullPath(), false, null) == null;
+                    } catch (NoSuchFileOrDirectory e) {
+                        deleted = true;
                     }
-
-                } catch (Throwable e) {
-                    // Operation complete successfully
                 }
-                if (failed) {
+                if (!deleted) {
                     // Cancels the flinger
                     if (onItemFlingerResponder != null) {
                         onItemFlingerResponder.cancel();
                     }
 
+                    // Failed. The file still exists
                     throw new ExecutionException(
                             String.format(
-                                    "Failed to delete file: %s", fso.getFullPath())); //$NON-NLS-1$
+                                    "Failed to delete file: %s", //$NON-NLS-1$
+                                    fso.getFullPath()));
                 }
             }
         };
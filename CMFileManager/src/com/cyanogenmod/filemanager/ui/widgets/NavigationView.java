@@ -18,7 +18,6 @@ package com.cyanogenmod.filemanager.ui.widgets;
 
 import android.app.Activity;
 import android.content.Context;
-import android.content.SharedPreferences;
 import android.content.res.TypedArray;
 import android.os.AsyncTask;
 import android.os.storage.StorageVolume;
@@ -37,21 +36,31 @@ import com.cyanogenmod.filemanager.R;
 import com.cyanogenmod.filemanager.activities.NavigationActivity;
 import com.cyanogenmod.filemanager.adapters.FileSystemObjectAdapter;
 import com.cyanogenmod.filemanager.adapters.FileSystemObjectAdapter.OnSelectionChangedListener;
+import com.cyanogenmod.filemanager.commands.AsyncListExecutable;
+import com.cyanogenmod.filemanager.commands.AsyncResultListener;
+import com.cyanogenmod.filemanager.commands.shell.InvalidCommandDefinitionException;
+import com.cyanogenmod.filemanager.console.CommandNotFoundException;
+import com.cyanogenmod.filemanager.console.Console;
 import com.cyanogenmod.filemanager.console.ConsoleAllocException;
+import com.cyanogenmod.filemanager.console.ConsoleBuilder;
+import com.cyanogenmod.filemanager.console.ExecutionException;
+import com.cyanogenmod.filemanager.console.InsufficientPermissionsException;
 import com.cyanogenmod.filemanager.listeners.OnHistoryListener;
 import com.cyanogenmod.filemanager.listeners.OnRequestRefreshListener;
 import com.cyanogenmod.filemanager.listeners.OnSelectionListener;
 import com.cyanogenmod.filemanager.model.Directory;
+import com.cyanogenmod.filemanager.model.DirectorySnapshot;
 import com.cyanogenmod.filemanager.model.FileSystemObject;
 import com.cyanogenmod.filemanager.model.ParentDirectory;
+import com.cyanogenmod.filemanager.model.Selection;
 import com.cyanogenmod.filemanager.model.Symlink;
 import com.cyanogenmod.filemanager.parcelables.NavigationViewInfoParcelable;
 import com.cyanogenmod.filemanager.parcelables.SearchInfoParcelable;
 import com.cyanogenmod.filemanager.preferences.AccessMode;
 import com.cyanogenmod.filemanager.preferences.FileManagerSettings;
 import com.cyanogenmod.filemanager.preferences.NavigationLayoutMode;
-import com.cyanogenmod.filemanager.preferences.ObjectIdentifier;
 import com.cyanogenmod.filemanager.preferences.Preferences;
+import com.cyanogenmod.filemanager.ui.SymlinkResolver;
 import com.cyanogenmod.filemanager.ui.policy.DeleteActionPolicy;
 import com.cyanogenmod.filemanager.ui.policy.IntentsActionPolicy;
 import com.cyanogenmod.filemanager.ui.widgets.FlingerListView.OnItemFlingerListener;
@@ -77,6 +86,15 @@ public class NavigationView extends RelativeLayout implements
 
     private static final String TAG = "NavigationView"; //$NON-NLS-1$
 
+    // The number of files from which the listing is held as a columnar snapshot
+    private static final int SNAPSHOT_THRESHOLD = 2000;
+
+    // The minimum time between two refreshes of a listing in progress
+    private static final long STREAMING_INTERVAL = 250L;
+    // The number of files from which a listing in progress isn't refreshed (the
+    // rest of the files are shown when the listing is complete)
+    private static final int STREAMING_LIMIT = SNAPSHOT_THRESHOLD;
+
     /**
      * An interface to communicate selection changes events.
      */
@@ -85,9 +103,9 @@ public class NavigationView extends RelativeLayout implements
          * Method invoked when the selection changed.
          *
          * @param navView The navigation view that generate the event
-         * @param selectedItems The new selected items
+         * @param selection The selection (shared, not a copy)
          */
-        void onSelectionChanged(NavigationView navView, List<FileSystemObject> selectedItems);
+        void onSelectionChanged(NavigationView navView, Selection selection);
     }
 
     /**
@@ -216,6 +234,11 @@ public class NavigationView extends RelativeLayout implements
 
     private final Object mSync = new Object();
 
+    // The identifier of the last listing requested
+    private int mListingId;
+    // The directory of the listing in progress shown in the adapter
+    private String mStreamedDir;
+
     private OnHistoryListener mOnHistoryListener;
     private OnNavigationSelectionChangedListener mOnNavigationSelectionChangedListener;
     private OnNavigationRequestMenuListener mOnNavigationRequestMenuListener;
@@ -324,7 +347,7 @@ public class NavigationView extends RelativeLayout implements
         this.mCurrentDir = info.getCurrentDir();
         this.mChRooted = info.getChRooted();
         this.mFiles = info.getFiles();
-        this.mAdapter.setSelectedItems(info.getSelectedFiles());
+        this.mAdapter.getSelection().set(info.getSelectedFiles());
         this.mY = info.getY();
         this.mX = info.getX();
         String dirName = info.getSelectedDir();
@@ -378,12 +401,7 @@ public class NavigationView extends RelativeLayout implements
 
         //Retrieve the default configuration
         if (this.mNavigationMode.compareTo(NAVIGATION_MODE.BROWSABLE) == 0) {
-            SharedPreferences preferences = Preferences.getSharedPreferences();
-            int viewMode = preferences.getInt(
-                    FileManagerSettings.SETTINGS_LAYOUT_MODE.getId(),
-                    ((ObjectIdentifier)FileManagerSettings.
-                            SETTINGS_LAYOUT_MODE.getDefaultValue()).getId());
-            changeViewMode(NavigationLayoutMode.fromId(viewMode));
+            changeViewMode(Preferences.getSnapshot().getLayoutMode());
         } else {
             // Pick mode has always a details layout
             changeViewMode(NavigationLayoutMode.DETAILS);
@@ -423,13 +441,26 @@ public class NavigationView extends RelativeLayout implements
     }
 
     /**
-     * Method that returns the current file list of the navigation view.
+     * Method that returns the selected files of the navigation view. The list is shared
+     * with the selection until it changes, so it can't be modified.
      *
-     * @return List<FileSystemObject> The current file list of the navigation view
+     * @return List<FileSystemObject> The selected files of the navigation view
      */
     public List<FileSystemObject> getSelectedFiles() {
-        if (this.mAdapter != null && this.mAdapter.getSelectedItems() != null) {
-            return new ArrayList<FileSystemObject>(this.mAdapter.getSelectedItems());
+        if (this.mAdapter != null) {
+            return this.mAdapter.getSelectedItems();
+        }
+        return null;
+    }
+
+    /**
+     * Method that returns the selection of the navigation view.
+     *
+     * @return Selection The selection of the navigation view
+     */
+    public Selection getSelection() {
+        if (this.mAdapter != null) {
+            return this.mAdapter.getSelection();
         }
         return null;
     }
@@ -601,12 +632,7 @@ public class NavigationView extends RelativeLayout implements
             }
 
             // If we should set the listview to response to flinger gesture detection
-            boolean useFlinger =
-                    Preferences.getSharedPreferences().getBoolean(
-                            FileManagerSettings.SETTINGS_USE_FLINGER.getId(),
-                                ((Boolean)FileManagerSettings.
-                                        SETTINGS_USE_FLINGER.
-                                            getDefaultValue()).booleanValue());
+            boolean useFlinger = Preferences.getSnapshot().isUseFlinger();
 
             //Creates the new layout
             AdapterView<ListAdapter> newView = null;
@@ -643,8 +669,10 @@ public class NavigationView extends RelativeLayout implements
                 }
             }
 
-            //Get the current adapter and its adapter list
-            List<FileSystemObject> files = new ArrayList<FileSystemObject>(this.mFiles);
+            //Get the current adapter and its adapter list (a snapshot is shared)
+            List<FileSystemObject> files = DirectorySnapshot.from(this.mFiles) != null
+                    ? this.mFiles
+                    : new ArrayList<FileSystemObject>(this.mFiles);
             final AdapterView<ListAdapter> current =
                     (AdapterView<ListAdapter>)findViewById(RESOURCE_CURRENT_LAYOUT);
             FileSystemObjectAdapter adapter =
@@ -658,16 +686,16 @@ public class NavigationView extends RelativeLayout implements
             //Remove current layout
             if (current != null) {
                 if (current.getAdapter() != null) {
-                    //Save selected items before dispose adapter
+                    //Keep the selection before dispose adapter
                     FileSystemObjectAdapter currentAdapter =
                             ((FileSystemObjectAdapter)current.getAdapter());
-                    adapter.setSelectedItems(currentAdapter.getSelectedItems());
+                    adapter.setSelection(currentAdapter.getSelection());
                     currentAdapter.dispose();
                 }
                 removeView(current);
             }
             this.mFiles = files;
-            adapter.addAll(files);
+            setAdapterData(adapter, files);
             adapter.notifyDataSetChanged();
 
             //Set the adapter
@@ -706,8 +734,9 @@ public class NavigationView extends RelativeLayout implements
      */
     public void removeItem(FileSystemObject fso) {
         this.mAdapter.remove(fso);
-        // Delete also from internal list
-        if (fso != null) {
+        // Delete also from internal list (a snapshot is shared with the adapter, and
+        // was already removed by it)
+        if (fso != null && DirectorySnapshot.from(this.mFiles) == null) {
             int cc = this.mFiles.size()-1;
             for (int i = cc; i >= 0; i--) {
                 FileSystemObject f = this.mFiles.get(i);
@@ -728,8 +757,7 @@ public class NavigationView extends RelativeLayout implements
     public void removeItem(String path) {
         FileSystemObject fso = this.mAdapter.getItem(path);
         if (fso != null) {
-            this.mAdapter.remove(fso);
-            this.mAdapter.notifyDataSetChanged();
+            removeItem(fso);
         }
     }
 
@@ -789,6 +817,7 @@ public class NavigationView extends RelativeLayout implements
             final boolean hasChanged =
                     !(this.mCurrentDir != null && this.mCurrentDir.compareTo(fNewDir) == 0);
             final boolean isNewHistory = (this.mCurrentDir != null);
+            final int listingId = ++this.mListingId;
 
             //Execute the listing in a background process
             AsyncTask<String, Integer, List<FileSystemObject>> task =
@@ -827,7 +856,7 @@ public class NavigationView extends RelativeLayout implements
                                 //(sort, hidden, ...)
                                 List<FileSystemObject> files = NavigationView.this.mFiles;
                                 if (!useCurrent) {
-                                    files = CommandHelper.listFiles(getContext(), fNewDir, null);
+                                    files = listFiles(fNewDir, listingId);
                                 }
                                 return files;
                             } catch (final ConsoleAllocException e) {
@@ -898,6 +927,101 @@ public class NavigationView extends RelativeLayout implements
         }
     }
 
+    /**
+     * Method that lists a directory. The files are shown while the directory is
+     * listed; the final result is sorted and shown when the listing ends. The directory
+     * is listed again (without showing the files in progress) only if the console
+     * can't list it in background; a failed listing reports its error.
+     *
+     * @param dir The directory to list
+     * @param listingId The identifier of the listing
+     * @return List<FileSystemObject> The files of the directory
+     * @throws Exception If the directory can't be listed
+     * @hide
+     */
+    List<FileSystemObject> listFiles(String dir, int listingId) throws Exception {
+        StreamingListener listener = new StreamingListener(dir, listingId);
+        boolean listed = false;
+        boolean unsupported = false;
+        AsyncListExecutable executable = null;
+        try {
+            try {
+                executable = CommandHelper.listFiles(getContext(), dir, listener, null);
+            } catch (CommandNotFoundException cnfEx) {
+                Log.w(TAG, "Listing in background isn't supported", cnfEx); //$NON-NLS-1$
+                unsupported = true;
+            } catch (InvalidCommandDefinitionException icdEx) {
+                Log.w(TAG, "Listing in background isn't supported", icdEx); //$NON-NLS-1$
+                unsupported = true;
+            }
+            if (!unsupported) {
+                listed = listener.waitForEnd();
+            }
+        } finally {
+            listener.close();
+            if (!listed && listener.isStreamed()) {
+                // Restore the current files
+                this.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        NavigationView.this.mStreamedDir = null;
+                        if (NavigationView.this.mFiles != null) {
+                            loadData(NavigationView.this.mFiles, true);
+                        }
+                    }
+                });
+            }
+        }
+        if (listed) {
+            return executable.getResult();
+        }
+        if (unsupported) {
+            return CommandHelper.listFiles(getContext(), dir, null);
+        }
+
+        // The listing failed
+        Exception cause = listener.getCause();
+        if (cause == null) {
+            throw new ExecutionException(
+                    String.format("Listing of %s cancelled", dir)); //$NON-NLS-1$
+        }
+        if (cause instanceof InsufficientPermissionsException) {
+            // The listing can be relaunched with a privileged console
+            Console console = ConsoleBuilder.getConsole(getContext());
+            throw new InsufficientPermissionsException(
+                    console.getExecutableFactory().newCreator().createListExecutable(dir));
+        }
+        throw cause;
+    }
+
+    /**
+     * Method that shows the files of a listing in progress.
+     *
+     * @param dir The directory listed
+     * @param listingId The identifier of the listing
+     * @param files The files listed so far
+     * @hide
+     */
+    void onStreamedData(String dir, int listingId, List<FileSystemObject> files) {
+        if (listingId != this.mListingId) {
+            // A newer listing was requested
+            return;
+        }
+
+        //Apply user preferences
+        List<FileSystemObject> sortedFiles =
+                FileHelper.applyUserPreferences(files, this.mMimeType, this.mChRooted);
+        if (this.mChRooted && StorageHelper.isStorageVolume(dir)) {
+            if (sortedFiles.size() > 0 && sortedFiles.get(0) instanceof ParentDirectory) {
+                sortedFiles.remove(0);
+            }
+        }
+
+        //The first files are shown from the top of the list
+        boolean first = this.mStreamedDir == null;
+        this.mStreamedDir = dir;
+        loadData(sortedFiles, first);
+    }
 
     /**
      * Method invoked when a execution ends.
@@ -932,8 +1056,16 @@ public class NavigationView extends RelativeLayout implements
                 }
             }
 
-            //Load the data
-            loadData(sortedFiles);
+            //Hold the large directories as a compact snapshot
+            if (sortedFiles.size() >= SNAPSHOT_THRESHOLD) {
+                sortedFiles = DirectorySnapshot.create(newDir, sortedFiles).asList();
+            }
+
+            //Load the data (keep the position if the listing was already shown)
+            boolean streamed =
+                    this.mStreamedDir != null && this.mStreamedDir.compareTo(newDir) == 0;
+            this.mStreamedDir = null;
+            loadData(sortedFiles, !streamed);
             this.mFiles = sortedFiles;
             if (searchInfo != null) {
                 searchInfo.setSuccessNavigation(true);
@@ -994,18 +1126,38 @@ public class NavigationView extends RelativeLayout implements
      * Method that loads the files in the adapter.
      *
      * @param files The files to load in the adapter
+     * @param top If the list must be scrolled to the top
      * @hide
      */
     @SuppressWarnings("unchecked")
-    private void loadData(final List<FileSystemObject> files) {
+    void loadData(final List<FileSystemObject> files, boolean top) {
         //Notify data to adapter view
         final AdapterView<ListAdapter> view =
                 (AdapterView<ListAdapter>)findViewById(RESOURCE_CURRENT_LAYOUT);
         FileSystemObjectAdapter adapter = (FileSystemObjectAdapter)view.getAdapter();
         adapter.clear();
-        adapter.addAll(files);
+        setAdapterData(adapter, files);
         adapter.notifyDataSetChanged();
-        view.setSelection(0);
+        if (top) {
+            view.setSelection(0);
+        }
+    }
+
+    /**
+     * Method that sets the files of an adapter. If the files are a view of a
+     * {@link DirectorySnapshot}, the adapter reads the snapshot directly.
+     *
+     * @param adapter The adapter
+     * @param files The files to set in the adapter
+     */
+    private static void setAdapterData(
+            FileSystemObjectAdapter adapter, List<FileSystemObject> files) {
+        DirectorySnapshot snapshot = DirectorySnapshot.from(files);
+        if (snapshot != null) {
+            adapter.setSnapshot(snapshot);
+        } else {
+            adapter.addAll(files);
+        }
     }
 
     /**
@@ -1081,11 +1233,17 @@ public class NavigationView extends RelativeLayout implements
             	}
                 changeCurrentDir(fso.getFullPath(), true, false, false, null, null);
             } else if (fso instanceof Symlink) {
-                Symlink symlink = (Symlink)fso;
-                if (symlink.getLinkRef() != null && symlink.getLinkRef() instanceof Directory) {
-                    changeCurrentDir(
-                            symlink.getLinkRef().getFullPath(), true, false, false, null, null);
-                }
+                // The link is resolved on demand (in background)
+                SymlinkResolver.resolve(getContext(), (Symlink)fso,
+                        new SymlinkResolver.OnSymlinkResolvedListener() {
+                    @Override
+                    public void onSymlinkResolved(Symlink symlink, FileSystemObject linkRef) {
+                        if (linkRef != null && linkRef instanceof Directory) {
+                            changeCurrentDir(
+                                    linkRef.getFullPath(), true, false, false, null, null);
+                        }
+                    }
+                });
             } else {
                 if (this.mNavigationMode.compareTo(NAVIGATION_MODE.BROWSABLE) == 0) {
                     // Open the file with the preferred registered app
@@ -1148,9 +1306,9 @@ public class NavigationView extends RelativeLayout implements
      * {@inheritDoc}
      */
     @Override
-    public void onSelectionChanged(final List<FileSystemObject> selectedItems) {
+    public void onSelectionChanged(final Selection selection) {
         if (this.mOnNavigationSelectionChangedListener != null) {
-            this.mOnNavigationSelectionChangedListener.onSelectionChanged(this, selectedItems);
+            this.mOnNavigationSelectionChangedListener.onSelectionChanged(this, selection);
         }
     }
 
@@ -1281,4 +1439,156 @@ public class NavigationView extends RelativeLayout implements
         return newDir;
     }
 
+
+    /**
+     * A listener that shows the files of a listing in progress. The files are shown
+     * at most every {@link #STREAMING_INTERVAL} milliseconds (the first files, as soon as
+     * they are listed), until the listing has {@link #STREAMING_LIMIT} files.
+     */
+    private class StreamingListener implements AsyncResultListener {
+        private final String mDir;
+        private final int mId;
+        private final List<FileSystemObject> mListed;
+        private final Runnable mFlush;
+        private long mLastFlush;
+        private boolean mFlushScheduled;
+        private boolean mStreamed;
+        private boolean mClosed;
+        private boolean mEnded;
+        private boolean mSucceeded;
+        private Exception mCause;
+
+        /**
+         * Constructor of <code>StreamingListener</code>.
+         *
+         * @param dir The directory listed
+         * @param id The identifier of the listing
+         */
+        StreamingListener(String dir, int id) {
+            super();
+            this.mDir = dir;
+            this.mId = id;
+            this.mListed = new ArrayList<FileSystemObject>();
+            this.mFlush = new Runnable() {
+                @Override
+                public void run() {
+                    flush();
+                }
+            };
+        }
+
+        /**
+         * Method that waits for the end of the listing.
+         *
+         * @return boolean If the listing ended successfully
+         * @throws InterruptedException If the thread was interrupted
+         */
+        synchronized boolean waitForEnd() throws InterruptedException {
+            while (!this.mEnded) {
+                wait();
+            }
+            return this.mSucceeded;
+        }
+
+        /**
+         * Method that returns the cause of the failure of the listing.
+         *
+         * @return Exception The cause of the failure, or null if the listing didn't fail
+         * or it was cancelled
+         */
+        synchronized Exception getCause() {
+            return this.mCause;
+        }
+
+        /**
+         * Method that stops showing the files of the listing.
+         */
+        synchronized void close() {
+            this.mClosed = true;
+        }
+
+        /**
+         * Method that returns if the files of the listing were shown.
+         *
+         * @return boolean If the files of the listing were shown
+         */
+        synchronized boolean isStreamed() {
+            return this.mStreamed;
+        }
+
+        /**
+         * Method that shows the files listed so far. Must be invoked from the ui thread.
+         */
+        void flush() {
+            List<FileSystemObject> files = null;
+            synchronized (this) {
+                this.mFlushScheduled = false;
+                if (this.mClosed) {
+                    return;
+                }
+                this.mLastFlush = System.currentTimeMillis();
+                this.mStreamed = true;
+                files = new ArrayList<FileSystemObject>(this.mListed);
+            }
+            onStreamedData(this.mDir, this.mId, files);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onAsyncStart() {/**NON BLOCK**/}
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public synchronized void onAsyncEnd(boolean cancelled) {
+            if (cancelled) {
+                this.mEnded = true;
+                notifyAll();
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public synchronized void onAsyncExitCode(int exitCode) {
+            this.mSucceeded = true;
+            this.mEnded = true;
+            notifyAll();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public synchronized void onPartialResult(Object result) {
+            if (this.mClosed || this.mListed.size() >= STREAMING_LIMIT) {
+                return;
+            }
+            this.mListed.addAll((List<FileSystemObject>)result);
+            if (!this.mFlushScheduled) {
+                this.mFlushScheduled = true;
+                long delay = 0L;
+                if (this.mLastFlush != 0) {
+                    delay = Math.max(0L,
+                            STREAMING_INTERVAL - (System.currentTimeMillis() - this.mLastFlush));
+                }
+                NavigationView.this.postDelayed(this.mFlush, delay);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public synchronized void onException(Exception cause) {
+            this.mCause = cause;
+            this.mEnded = true;
+            notifyAll();
+        }
+    }
 }
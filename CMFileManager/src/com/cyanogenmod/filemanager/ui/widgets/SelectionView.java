@@ -28,10 +28,7 @@ import android.widget.LinearLayout;
 import android.widget.TextView;
 
 import com.cyanogenmod.filemanager.R;
-import com.cyanogenmod.filemanager.model.FileSystemObject;
-import com.cyanogenmod.filemanager.util.FileHelper;
-
-import java.util.List;
+import com.cyanogenmod.filemanager.model.Selection;
 
 /**
  * A view that holds the selection of files
@@ -110,18 +107,10 @@ public class SelectionView extends LinearLayout {
      * @param selection The selection
      * @return String The computed text from the selection
      */
-    private String computeSelection(List<FileSystemObject> selection) {
-        int folders = 0;
-        int files = 0;
-        int cc = selection.size();
-        for (int i = 0; i < cc; i++) {
-            FileSystemObject fso = selection.get(i);
-            if (FileHelper.isDirectory(fso)) {
-                folders++;
-            } else {
-                files++;
-            }
-        }
+    private String computeSelection(Selection selection) {
+        // The selection maintains its counters, so the selected items aren't iterated
+        int folders = selection.getFolders();
+        int files = selection.getFiles();
 
         // Get the string
         if (folders == 1 && files == 0) {
@@ -154,11 +143,11 @@ public class SelectionView extends LinearLayout {
     }
 
     /**
-     * Method that sets the {@link FileSystemObject} selection list
+     * Method that sets the {@link Selection} of file system objects
      *
-     * @param newSelection The new selection list
+     * @param newSelection The new selection
      */
-    public void setSelection(List<FileSystemObject> newSelection) {
+    public void setSelection(Selection newSelection) {
         // Compute the selection
         if (newSelection != null && newSelection.size() > 0) {
             this.mStatus.setText(computeSelection(newSelection));
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.util;
+
+import android.os.Process;
+
+import com.cyanogenmod.filemanager.model.Group;
+import com.cyanogenmod.filemanager.model.User;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A process-wide cache of the resolution of the names of the users and groups
+ * to their identifiers.<br/>
+ * <br/>
+ * The objects of a listing are owned by only a few users and groups, so the listing
+ * shares the same {@link User} and {@link Group} instances (they are immutable)
+ * instead of resolving the names for every object. The cache must be cleared when
+ * the installed packages change (the applications have their own identifiers).<br/>
+ * <br/>
+ * The users and groups with a known identifier (i.e. the ones reported by the file
+ * system) are interned too, so there is only one instance of every user and group.
+ */
+public final class AIDCache {
+
+    private static final ConcurrentHashMap<String, User> sUsers =
+            new ConcurrentHashMap<String, User>();
+    private static final ConcurrentHashMap<String, Group> sGroups =
+            new ConcurrentHashMap<String, Group>();
+    // The users and groups with other identifier than the one of their name (or without
+    // a resolved identifier). A name can have more than one identifier
+    private static final ConcurrentHashMap<String, User[]> sOtherUsers =
+            new ConcurrentHashMap<String, User[]>();
+    private static final ConcurrentHashMap<String, Group[]> sOtherGroups =
+            new ConcurrentHashMap<String, Group[]>();
+
+    /**
+     * Constructor of <code>AIDCache</code>.
+     */
+    private AIDCache() {
+        super();
+    }
+
+    /**
+     * Method that returns the user of a name.
+     *
+     * @param name The name of the user
+     * @return User The user (the identifier is -1 if the name can't be resolved)
+     */
+    public static User getUser(String name) {
+        User user = sUsers.get(name);
+        if (user == null) {
+            user = new User(Process.getUidForName(name), name);
+            User prev = sUsers.putIfAbsent(name, user);
+            if (prev != null) {
+                user = prev;
+            }
+        }
+        return user;
+    }
+
+    /**
+     * Method that returns the group of a name.
+     *
+     * @param name The name of the group
+     * @return Group The group (the identifier is -1 if the name can't be resolved)
+     */
+    public static Group getGroup(String name) {
+        Group group = sGroups.get(name);
+        if (group == null) {
+            group = new Group(Process.getGidForName(name), name);
+            Group prev = sGroups.putIfAbsent(name, group);
+            if (prev != null) {
+                group = prev;
+            }
+        }
+        return group;
+    }
+
+    /**
+     * Method that returns the canonical instance of a user with a known identifier.
+     *
+     * @param uid The identifier of the user (-1 if unknown)
+     * @param name The name of the user
+     * @return User The user
+     */
+    public static User getUser(int uid, String name) {
+        User user = sUsers.get(name);
+        if (user == null && uid != -1) {
+            User created = new User(uid, name);
+            user = sUsers.putIfAbsent(name, created);
+            if (user == null) {
+                return created;
+            }
+        }
+        if (user != null && user.getId() == uid) {
+            return user;
+        }
+
+        // The name has other identifier
+        while (true) {
+            User[] users = sOtherUsers.get(name);
+            int cc = users == null ? 0 : users.length;
+            for (int i = 0; i < cc; i++) {
+                if (users[i].getId() == uid) {
+                    return users[i];
+                }
+            }
+            User created = new User(uid, name);
+            User[] newUsers = new User[cc + 1];
+            if (cc > 0) {
+                System.arraycopy(users, 0, newUsers, 0, cc);
+            }
+            newUsers[cc] = created;
+            if (users == null
+                    ? sOtherUsers.putIfAbsent(name, newUsers) == null
+                    : sOtherUsers.replace(name, users, newUsers)) {
+                return created;
+            }
+        }
+    }
+
+    /**
+     * Method that returns the canonical instance of a group with a known identifier.
+     *
+     * @param gid The identifier of the group (-1 if unknown)
+     * @param name The name of the group
+     * @return Group The group
+     */
+    public static Group getGroup(int gid, String name) {
+        Group group = sGroups.get(name);
+        if (group == null && gid != -1) {
+            Group created = new Group(gid, name);
+            group = sGroups.putIfAbsent(name, created);
+            if (group == null) {
+                return created;
+            }
+        }
+        if (group != null && group.getId() == gid) {
+            return group;
+        }
+
+        // The name has other identifier
+        while (true) {
+            Group[] groups = sOtherGroups.get(name);
+            int cc = groups == null ? 0 : groups.length;
+            for (int i = 0; i < cc; i++) {
+                if (groups[i].getId() == gid) {
+                    return groups[i];
+                }
+            }
+            Group created = new Group(gid, name);
+            Group[] newGroups = new Group[cc + 1];
+            if (cc > 0) {
+                System.arraycopy(groups, 0, newGroups, 0, cc);
+            }
+            newGroups[cc] = created;
+            if (groups == null
+                    ? sOtherGroups.putIfAbsent(name, newGroups) == null
+                    : sOtherGroups.replace(name, groups, newGroups)) {
+                return created;
+            }
+        }
+    }
+
+    /**
+     * Method that clears the cache. Must be called when the installed packages change.
+     */
+    public static void clear() {
+        sUsers.clear();
+        sGroups.clear();
+        sOtherUsers.clear();
+        sOtherGroups.clear();
+    }
+
+}
@@ -25,17 +25,26 @@ import android.util.SparseArray;
 import com.cyanogenmod.filemanager.R;
 import com.cyanogenmod.filemanager.model.AID;
 
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 /**
- * A helper class with useful methods for deal with AID (Android IDs).
+ * A helper class with useful methods for deal with AID (Android IDs).<br/>
+ * <br/>
+ * The AIDs are loaded once and cached (indexed by identifier and by name) until the
+ * installed packages change (see {@link #clearCache()}).
  */
 public final class AIDHelper {
 
     private static final String TAG = "AIDHelper"; //$NON-NLS-1$
 
+    // The cached AIDs (by identifier and by name)
+    private static SparseArray<AID> sAIDs;
+    private static Map<String, AID> sAIDsByName;
+
     /**
      * Constructor of <code>AIDHelper</code>.
      */
@@ -44,12 +53,41 @@ public final class AIDHelper {
     }
 
     /**
-     * Method that returns the Android IDs (system + application AID)
+     * Method that returns the Android IDs (system + application AID). The returned
+     * array is shared, and must not be modified.
+     *
+     * @param context The current context
+     * @return SparseArray<AID> The array of {@link AID}
+     */
+    public static synchronized SparseArray<AID> getAIDs(Context context) {
+        if (sAIDs == null) {
+            SparseArray<AID> aids = loadAIDs(context);
+            if (aids == null) {
+                return null;
+            }
+
+            // Index by name. The lower identifier wins
+            int len = aids.size();
+            Map<String, AID> byName = new HashMap<String, AID>(len);
+            for (int i = 0; i < len; i++) {
+                AID aid = aids.valueAt(i);
+                if (aid.getName() != null && !byName.containsKey(aid.getName())) {
+                    byName.put(aid.getName(), aid);
+                }
+            }
+            sAIDs = aids;
+            sAIDsByName = byName;
+        }
+        return sAIDs;
+    }
+
+    /**
+     * Method that loads the Android IDs (system + application AID)
      *
      * @param context The current context
      * @return SparseArray<AID> The array of {@link AID}
      */
-    public static SparseArray<AID> getAIDs(Context context) {
+    private static SparseArray<AID> loadAIDs(Context context) {
         Properties systemAIDs = null;
         try {
             // Load the default known system identifiers
@@ -95,16 +133,35 @@ public final class AIDHelper {
      * @param name The user identifier
      * @return AID The AID
      */
-    public static AID getAIDFromName(Context ctx, String name) {
+    public static synchronized AID getAIDFromName(Context ctx, String name) {
+        if (getAIDs(ctx) == null) {
+            return null;
+        }
+        return sAIDsByName.get(name);
+    }
+
+    /**
+     * Method that return AID from his identifier
+     *
+     * @param ctx The current context
+     * @param id The identifier
+     * @return AID The AID
+     */
+    public static synchronized AID getAID(Context ctx, int id) {
         SparseArray<AID> aids = getAIDs(ctx);
-        int len = aids.size();
-        for (int i = 0; i < len; i++) {
-            AID aid = aids.valueAt(i);
-            if (aid.getName().compareTo(name) == 0) {
-                return aid;
-            }
+        if (aids == null) {
+            return null;
         }
-        return null;
+        return aids.get(id);
+    }
+
+    /**
+     * Method that clears the cached AIDs. Must be called when the installed
+     * packages change.
+     */
+    public static synchronized void clearCache() {
+        sAIDs = null;
+        sAIDsByName = null;
     }
 
 }
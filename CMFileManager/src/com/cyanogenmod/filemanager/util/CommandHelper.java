@@ -18,7 +18,9 @@ package com.cyanogenmod.filemanager.util;
 
 import android.content.Context;
 
+import com.cyanogenmod.filemanager.commands.AsyncListExecutable;
 import com.cyanogenmod.filemanager.commands.AsyncResultListener;
+import com.cyanogenmod.filemanager.commands.BatchFileInfoExecutable;
 import com.cyanogenmod.filemanager.commands.ChangeCurrentDirExecutable;
 import com.cyanogenmod.filemanager.commands.ChangeOwnerExecutable;
 import com.cyanogenmod.filemanager.commands.ChangePermissionsExecutable;
@@ -54,6 +56,7 @@ import com.cyanogenmod.filemanager.commands.UncompressExecutable;
 import com.cyanogenmod.filemanager.commands.WritableExecutable;
 import com.cyanogenmod.filemanager.commands.WriteExecutable;
 import com.cyanogenmod.filemanager.commands.shell.InvalidCommandDefinitionException;
+import com.cyanogenmod.filemanager.console.BatchResult;
 import com.cyanogenmod.filemanager.console.CommandNotFoundException;
 import com.cyanogenmod.filemanager.console.Console;
 import com.cyanogenmod.filemanager.console.ConsoleAllocException;
@@ -77,6 +80,8 @@ import com.cyanogenmod.filemanager.preferences.CompressionMode;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 
@@ -387,6 +392,44 @@ public final class CommandHelper {
         return executable.getResult().booleanValue();
     }
 
+    /**
+     * Method that deletes a directory, and checks that the directory doesn't exist
+     * after the operation.<br/>
+     * <br/>
+     * The check is sent to the console together with the operation (a single round trip
+     * in the consoles that execute batches of commands).
+     *
+     * @param context The current context (needed if console == null)
+     * @param directory The directory to delete
+     * @param console The console in which execute the program. <code>null</code>
+     * to attach to the default console
+     * @return boolean If the directory was deleted (it doesn't exist after the operation)
+     * @throws FileNotFoundException If the initial directory not exists
+     * @throws IOException If initial directory couldn't be checked
+     * @throws InvalidCommandDefinitionException If the command has an invalid definition
+     * @throws NoSuchFileOrDirectory If the file or directory was not found
+     * @throws ConsoleAllocException If the console can't be allocated
+     * @throws InsufficientPermissionsException If an operation requires elevated permissions
+     * @throws CommandNotFoundException If the command was not found
+     * @throws OperationTimeoutException If the operation exceeded the maximum time of wait
+     * @throws ExecutionException If the operation returns a invalid exit code
+     * @throws ReadOnlyFilesystemException If the operation writes in a read-only filesystem
+     * @see DeleteDirExecutable
+     */
+    public static boolean deleteDirectoryAndCheck(
+            Context context, String directory, Console console)
+            throws FileNotFoundException, IOException, ConsoleAllocException,
+            NoSuchFileOrDirectory, InsufficientPermissionsException,
+            CommandNotFoundException, OperationTimeoutException,
+            ExecutionException, InvalidCommandDefinitionException, ReadOnlyFilesystemException {
+        Console c = ensureConsole(context, console);
+        DeleteDirExecutable executable =
+                c.getExecutableFactory().newCreator().createDeleteDirExecutable(directory);
+        ListExecutable check =
+                c.getExecutableFactory().newCreator().createFileInfoExecutable(directory, false);
+        return !exists(writableExecuteAndCheck(context, executable, check, c));
+    }
+
     /**
      * Method that deletes a file.
      *
@@ -419,6 +462,43 @@ public final class CommandHelper {
         return executable.getResult().booleanValue();
     }
 
+    /**
+     * Method that deletes a file, and checks that the file doesn't exist after
+     * the operation.<br/>
+     * <br/>
+     * The check is sent to the console together with the operation (a single round trip
+     * in the consoles that execute batches of commands).
+     *
+     * @param context The current context (needed if console == null)
+     * @param file The file to delete
+     * @param console The console in which execute the program. <code>null</code>
+     * to attach to the default console
+     * @return boolean If the file was deleted (it doesn't exist after the operation)
+     * @throws FileNotFoundException If the initial directory not exists
+     * @throws IOException If initial directory couldn't be checked
+     * @throws InvalidCommandDefinitionException If the command has an invalid definition
+     * @throws NoSuchFileOrDirectory If the file or directory was not found
+     * @throws ConsoleAllocException If the console can't be allocated
+     * @throws InsufficientPermissionsException If an operation requires elevated permissions
+     * @throws CommandNotFoundException If the command was not found
+     * @throws OperationTimeoutException If the operation exceeded the maximum time of wait
+     * @throws ExecutionException If the operation returns a invalid exit code
+     * @throws ReadOnlyFilesystemException If the operation writes in a read-only filesystem
+     * @see DeleteFileExecutable
+     */
+    public static boolean deleteFileAndCheck(Context context, String file, Console console)
+            throws FileNotFoundException, IOException, ConsoleAllocException,
+            NoSuchFileOrDirectory, InsufficientPermissionsException,
+            CommandNotFoundException, OperationTimeoutException,
+            ExecutionException, InvalidCommandDefinitionException, ReadOnlyFilesystemException {
+        Console c = ensureConsole(context, console);
+        DeleteFileExecutable executable =
+                c.getExecutableFactory().newCreator().createDeleteFileExecutable(file);
+        ListExecutable check =
+                c.getExecutableFactory().newCreator().createFileInfoExecutable(file, false);
+        return !exists(writableExecuteAndCheck(context, executable, check, c));
+    }
+
     /**
      * Method that retrieves the absolute path of a file or directory.
      *
@@ -582,6 +662,76 @@ public final class CommandHelper {
         return null;
     }
 
+    /**
+     * Method that retrieves the information of a list of file system objects in a
+     * single invocation.
+     *
+     * @param context The current context (needed if console == null)
+     * @param srcs The file system objects
+     * @param followSymlinks It should be follow the symlinks
+     * @param console The console in which execute the program. <code>null</code>
+     * to attach to the default console
+     * @return List<FileSystemObject> The file system object references, in the same
+     * order than the requested objects. The reference of an object that doesn't exist
+     * is <code>null</code>
+     * @throws FileNotFoundException If the initial directory not exists
+     * @throws IOException If initial directory couldn't be checked
+     * @throws InvalidCommandDefinitionException If the command has an invalid definition
+     * @throws NoSuchFileOrDirectory If the file or directory was not found
+     * @throws ConsoleAllocException If the console can't be allocated
+     * @throws InsufficientPermissionsException If an operation requires elevated permissions
+     * @throws CommandNotFoundException If the command was not found
+     * @throws OperationTimeoutException If the operation exceeded the maximum time of wait
+     * @throws ExecutionException If the operation returns a invalid exit code
+     * @see BatchFileInfoExecutable
+     */
+    public static List<FileSystemObject> getFileInfo(
+            Context context, List<String> srcs, boolean followSymlinks, Console console)
+            throws FileNotFoundException, IOException, ConsoleAllocException,
+            NoSuchFileOrDirectory, InsufficientPermissionsException,
+            CommandNotFoundException, OperationTimeoutException,
+            ExecutionException, InvalidCommandDefinitionException {
+        if (srcs.isEmpty()) {
+            return new ArrayList<FileSystemObject>();
+        }
+        Console c = ensureConsole(context, console);
+        BatchFileInfoExecutable executable =
+                c.getExecutableFactory().
+                    newCreator().createFileInfoExecutable(srcs, followSymlinks);
+        execute(context, executable, c);
+        return executable.getResult();
+    }
+
+    /**
+     * Method that resolves a list of symlinks to their real file system objects in a
+     * single invocation.
+     *
+     * @param context The current context (needed if console == null)
+     * @param symlinks The links to be resolved
+     * @param console The console in which execute the program. <code>null</code>
+     * to attach to the default console
+     * @return List<FileSystemObject> The resolved links, in the same order than the
+     * requested links. The reference of a broken link is <code>null</code>
+     * @throws FileNotFoundException If the initial directory not exists
+     * @throws IOException If initial directory couldn't be checked
+     * @throws InvalidCommandDefinitionException If the command has an invalid definition
+     * @throws NoSuchFileOrDirectory If the file or directory was not found
+     * @throws ConsoleAllocException If the console can't be allocated
+     * @throws InsufficientPermissionsException If an operation requires elevated permissions
+     * @throws CommandNotFoundException If the command was not found
+     * @throws OperationTimeoutException If the operation exceeded the maximum time of wait
+     * @throws ExecutionException If the operation returns a invalid exit code
+     * @see BatchFileInfoExecutable
+     */
+    public static List<FileSystemObject> resolveSymlinks(
+            Context context, List<String> symlinks, Console console)
+            throws FileNotFoundException, IOException, ConsoleAllocException,
+            NoSuchFileOrDirectory, InsufficientPermissionsException,
+            CommandNotFoundException, OperationTimeoutException,
+            ExecutionException, InvalidCommandDefinitionException {
+        return getFileInfo(context, symlinks, true, console);
+    }
+
     /**
      * Method that retrieves the information of the groups of the current user.
      *
@@ -768,9 +918,44 @@ public final class CommandHelper {
                 c.getExecutableFactory().newCreator().
                     createListExecutable(directory);
         execute(context, executable, c);
-        List<FileSystemObject> result = executable.getResult();
-        FileHelper.resolveSymlinks(context, result);
-        return result;
+        // The symlinks are resolved on demand (see FileHelper#resolveSymlink)
+        return executable.getResult();
+    }
+
+    /**
+     * Method that lists a directory in background. The objects of the directory are
+     * communicated in chunks through the listener while the directory is listed.
+     *
+     * @param context The current context (needed if console == null)
+     * @param directory The path of the directory to list
+     * @param asyncResultListener The partial result listener
+     * @param console The console in which execute the program. <code>null</code>
+     * to attach to the default console
+     * @return AsyncListExecutable The command executed in background
+     * @throws FileNotFoundException If the initial directory not exists
+     * @throws IOException If initial directory couldn't be checked
+     * @throws InvalidCommandDefinitionException If the command has an invalid definition
+     * @throws NoSuchFileOrDirectory If the file or directory was not found
+     * @throws ConsoleAllocException If the console can't be allocated
+     * @throws InsufficientPermissionsException If an operation requires elevated permissions
+     * @throws CommandNotFoundException If the command was not found
+     * @throws OperationTimeoutException If the operation exceeded the maximum time of wait
+     * @throws ExecutionException If the operation returns a invalid exit code
+     * @see AsyncListExecutable
+     */
+    public static AsyncListExecutable listFiles(
+            Context context, String directory,
+            AsyncResultListener asyncResultListener, Console console)
+            throws FileNotFoundException, IOException, ConsoleAllocException,
+            NoSuchFileOrDirectory, InsufficientPermissionsException,
+            CommandNotFoundException, OperationTimeoutException,
+            ExecutionException, InvalidCommandDefinitionException {
+        Console c = ensureConsole(context, console);
+        AsyncListExecutable executable =
+                c.getExecutableFactory().newCreator().
+                    createAsyncListExecutable(directory, asyncResultListener);
+        execute(context, executable, c);
+        return executable;
     }
 
     /**
@@ -806,6 +991,45 @@ public final class CommandHelper {
         return executable.getResult().booleanValue();
     }
 
+    /**
+     * Method that moves a file system object, and checks that the destination
+     * exists after the operation.<br/>
+     * <br/>
+     * The check is sent to the console together with the operation (a single round trip
+     * in the consoles that execute batches of commands).
+     *
+     * @param context The current context (needed if console == null)
+     * @param src The file system object to move
+     * @param dst The destination file system object
+     * @param console The console in which execute the program. <code>null</code>
+     * to attach to the default console
+     * @return boolean If the destination exists after the operation
+     * @throws FileNotFoundException If the initial directory not exists
+     * @throws IOException If initial directory couldn't be checked
+     * @throws InvalidCommandDefinitionException If the command has an invalid definition
+     * @throws NoSuchFileOrDirectory If the file or directory was not found
+     * @throws ConsoleAllocException If the console can't be allocated
+     * @throws InsufficientPermissionsException If an operation requires elevated permissions
+     * @throws CommandNotFoundException If the command was not found
+     * @throws OperationTimeoutException If the operation exceeded the maximum time of wait
+     * @throws ExecutionException If the operation returns a invalid exit code
+     * @throws ReadOnlyFilesystemException If the operation writes in a read-only filesystem
+     * @see MoveExecutable
+     */
+    public static boolean moveAndCheck(
+            Context context, String src, String dst, Console console)
+            throws FileNotFoundException, IOException, ConsoleAllocException,
+            NoSuchFileOrDirectory, InsufficientPermissionsException,
+            CommandNotFoundException, OperationTimeoutException,
+            ExecutionException, InvalidCommandDefinitionException, ReadOnlyFilesystemException {
+        Console c = ensureConsole(context, console);
+        MoveExecutable executable =
+                c.getExecutableFactory().newCreator().createMoveExecutable(src, dst);
+        ListExecutable check =
+                c.getExecutableFactory().newCreator().createFileInfoExecutable(dst, false);
+        return exists(writableExecuteAndCheck(context, executable, check, c));
+    }
+
     /**
      * Method that copies a file system object.
      *
@@ -839,6 +1063,45 @@ public final class CommandHelper {
         return executable.getResult().booleanValue();
     }
 
+    /**
+     * Method that copies a file system object, and checks that the destination
+     * exists after the operation.<br/>
+     * <br/>
+     * The check is sent to the console together with the operation (a single round trip
+     * in the consoles that execute batches of commands).
+     *
+     * @param context The current context (needed if console == null)
+     * @param src The file system object to copy
+     * @param dst The destination file system object
+     * @param console The console in which execute the program. <code>null</code>
+     * to attach to the default console
+     * @return boolean If the destination exists after the operation
+     * @throws FileNotFoundException If the initial directory not exists
+     * @throws IOException If initial directory couldn't be checked
+     * @throws InvalidCommandDefinitionException If the command has an invalid definition
+     * @throws NoSuchFileOrDirectory If the file or directory was not found
+     * @throws ConsoleAllocException If the console can't be allocated
+     * @throws InsufficientPermissionsException If an operation requires elevated permissions
+     * @throws CommandNotFoundException If the command was not found
+     * @throws OperationTimeoutException If the operation exceeded the maximum time of wait
+     * @throws ExecutionException If the operation returns a invalid exit code
+     * @throws ReadOnlyFilesystemException If the operation writes in a read-only filesystem
+     * @see CopyExecutable
+     */
+    public static boolean copyAndCheck(
+            Context context, String src, String dst, Console console)
+            throws FileNotFoundException, IOException, ConsoleAllocException,
+            NoSuchFileOrDirectory, InsufficientPermissionsException,
+            CommandNotFoundException, OperationTimeoutException,
+            ExecutionException, InvalidCommandDefinitionException, ReadOnlyFilesystemException {
+        Console c = ensureConsole(context, console);
+        CopyExecutable executable =
+                c.getExecutableFactory().newCreator().createCopyExecutable(src, dst);
+        ListExecutable check =
+                c.getExecutableFactory().newCreator().createFileInfoExecutable(dst, false);
+        return exists(writableExecuteAndCheck(context, executable, check, c));
+    }
+
     /**
      * Method that executes a command.
      *
@@ -1199,6 +1462,68 @@ public final class CommandHelper {
         execute(context, executable, c);
     }
 
+    /**
+     * Method that send a signal to several processes (with a single invocation).
+     *
+     * @param context The current context (needed if console == null)
+     * @param processes The processes which to send the signal
+     * @param signal The signal to send
+     * @param console The console in which execute the program. <code>null</code>
+     * to attach to the default console
+     * @throws FileNotFoundException If the initial directory not exists
+     * @throws IOException If initial directory couldn't be checked
+     * @throws InvalidCommandDefinitionException If the command has an invalid definition
+     * @throws NoSuchFileOrDirectory If the file or directory was not found
+     * @throws ConsoleAllocException If the console can't be allocated
+     * @throws InsufficientPermissionsException If an operation requires elevated permissions
+     * @throws CommandNotFoundException If the command was not found
+     * @throws OperationTimeoutException If the operation exceeded the maximum time of wait
+     * @throws ExecutionException If the operation returns a invalid exit code
+     * @see ProcessIdExecutable
+     */
+    public static void sendSignal(
+            Context context, int[] processes, SIGNAL signal, Console console)
+            throws FileNotFoundException, IOException, ConsoleAllocException,
+            NoSuchFileOrDirectory, InsufficientPermissionsException,
+            CommandNotFoundException, OperationTimeoutException,
+            ExecutionException, InvalidCommandDefinitionException {
+        Console c = ensureConsole(context, console);
+        SendSignalExecutable executable =
+                c.getExecutableFactory().newCreator().createSendSignalExecutable(
+                        processes, signal);
+        execute(context, executable, c);
+    }
+
+    /**
+     * Method that send a kill signal to several processes (with a single invocation).
+     *
+     * @param context The current context (needed if console == null)
+     * @param processes The processes which to send the signal
+     * @param console The console in which execute the program. <code>null</code>
+     * to attach to the default console
+     * @throws FileNotFoundException If the initial directory not exists
+     * @throws IOException If initial directory couldn't be checked
+     * @throws InvalidCommandDefinitionException If the command has an invalid definition
+     * @throws NoSuchFileOrDirectory If the file or directory was not found
+     * @throws ConsoleAllocException If the console can't be allocated
+     * @throws InsufficientPermissionsException If an operation requires elevated permissions
+     * @throws CommandNotFoundException If the command was not found
+     * @throws OperationTimeoutException If the operation exceeded the maximum time of wait
+     * @throws ExecutionException If the operation returns a invalid exit code
+     * @see ProcessIdExecutable
+     */
+    public static void sendSignal(
+            Context context, int[] processes, Console console)
+            throws FileNotFoundException, IOException, ConsoleAllocException,
+            NoSuchFileOrDirectory, InsufficientPermissionsException,
+            CommandNotFoundException, OperationTimeoutException,
+            ExecutionException, InvalidCommandDefinitionException {
+        Console c = ensureConsole(context, console);
+        SendSignalExecutable executable =
+                c.getExecutableFactory().newCreator().createKillExecutable(processes);
+        execute(context, executable, c);
+    }
+
     /**
      * Method that read data from disk.
      *
@@ -1723,12 +2048,135 @@ public final class CommandHelper {
     }
 
     /**
-     * Method that ensure the console retrieve the default console if a console
-     * is not passed.
+     * Method that execute a program that requires write permissions over the filesystem,
+     * and then a program that checks the result of the operation. Both programs are sent
+     * to the console in a single batch, unless the filesystem must be remounted
+     * around the operation.
+     *
+     * @param context The current context (needed if console == null)
+     * @param executable The writable executable program to execute
+     * @param check The executable program that checks the result of the operation
+     * @param console The console in which execute the program
+     * @return BatchResult The result of the check
+     * @throws NoSuchFileOrDirectory If the file or directory was not found
+     * @throws ConsoleAllocException If the console can't be allocated
+     * @throws InsufficientPermissionsException If an operation requires elevated permissions
+     * @throws CommandNotFoundException If the command was not found
+     * @throws OperationTimeoutException If the operation exceeded the maximum time of wait
+     * @throws ExecutionException If the operation returns a invalid exit code
+     * @throws ReadOnlyFilesystemException If the operation writes in a read-only filesystem
+     */
+    private static BatchResult writableExecuteAndCheck(
+            Context context, WritableExecutable executable, Executable check, Console console)
+            throws ConsoleAllocException, InsufficientPermissionsException, NoSuchFileOrDirectory,
+            OperationTimeoutException, ExecutionException,
+            CommandNotFoundException, ReadOnlyFilesystemException {
+        if (isRemountNeeded(executable.getDstWritableMountPoint()) ||
+                isRemountNeeded(executable.getSrcWritableMountPoint())) {
+            //The mount/unmount operations must wrap the operation. Check after it
+            writableExecute(context, executable, console);
+            return console.executeBatch(Collections.singletonList(check)).get(0);
+        }
+
+        List<Executable> batch = new ArrayList<Executable>(2);
+        batch.add(executable);
+        batch.add(check);
+        List<BatchResult> results = console.executeBatch(batch);
+        throwBatchException(results.get(0).getException());
+        return results.get(1);
+    }
+
+    /**
+     * Method that returns if a mount point must be remounted as read-write before
+     * execute a writable operation over it.
+     *
+     * @param mp The mount point, or null if there isn't information about it
+     * @return boolean If the mount point must be remounted
+     */
+    private static boolean isRemountNeeded(MountPoint mp) {
+        return mp != null &&
+                MountPointHelper.isMountAllowed(mp) &&
+                !MountPointHelper.isReadWrite(mp);
+    }
+
+    /**
+     * Method that returns if a file system object exists from the result of the
+     * check of its information. A check that failed for other reason than a nonexistent
+     * file system object is an error (the result of the operation is unknown).
+     *
+     * @param check The result of the check
+     * @return boolean If the file system object exists
+     * @throws NoSuchFileOrDirectory If the file or directory was not found
+     * @throws ConsoleAllocException If the console can't be allocated
+     * @throws InsufficientPermissionsException If an operation requires elevated permissions
+     * @throws CommandNotFoundException If the command was not found
+     * @throws OperationTimeoutException If the operation exceeded the maximum time of wait
+     * @throws ExecutionException If the operation returns a invalid exit code
+     * @throws ReadOnlyFilesystemException If the operation writes in a read-only filesystem
+     */
+    private static boolean exists(BatchResult check)
+            throws ConsoleAllocException, InsufficientPermissionsException, NoSuchFileOrDirectory,
+            OperationTimeoutException, ExecutionException,
+            CommandNotFoundException, ReadOnlyFilesystemException {
+        if (check.getException() instanceof NoSuchFileOrDirectory) {
+            return false;
+        }
+        throwBatchException(check.getException());
+        List<FileSystemObject> files = ((ListExecutable)check.getExecutable()).getResult();
+        return files != null && files.size() > 0;
+    }
+
+    /**
+     * Method that throws the exception of an executable executed inside a batch.
+     *
+     * @param ex The exception of the executable, or null if the execution was successfully
+     * @throws NoSuchFileOrDirectory If the file or directory was not found
+     * @throws ConsoleAllocException If the console can't be allocated
+     * @throws InsufficientPermissionsException If an operation requires elevated permissions
+     * @throws CommandNotFoundException If the command was not found
+     * @throws OperationTimeoutException If the operation exceeded the maximum time of wait
+     * @throws ExecutionException If the operation returns a invalid exit code
+     * @throws ReadOnlyFilesystemException If the operation writes in a read-only filesystem
+     */
+    private static void throwBatchException(Exception ex)
+            throws ConsoleAllocException, InsufficientPermissionsException, NoSuchFileOrDirectory,
+            OperationTimeoutException, ExecutionException,
+            CommandNotFoundException, ReadOnlyFilesystemException {
+        if (ex == null) {
+            return;
+        }
+        if (ex instanceof ConsoleAllocException) {
+            throw (ConsoleAllocException)ex;
+        }
+        if (ex instanceof InsufficientPermissionsException) {
+            throw (InsufficientPermissionsException)ex;
+        }
+        if (ex instanceof NoSuchFileOrDirectory) {
+            throw (NoSuchFileOrDirectory)ex;
+        }
+        if (ex instanceof OperationTimeoutException) {
+            throw (OperationTimeoutException)ex;
+        }
+        if (ex instanceof ExecutionException) {
+            throw (ExecutionException)ex;
+        }
+        if (ex instanceof CommandNotFoundException) {
+            throw (CommandNotFoundException)ex;
+        }
+        if (ex instanceof ReadOnlyFilesystemException) {
+            throw (ReadOnlyFilesystemException)ex;
+        }
+        throw new ExecutionException(ex.getMessage(), ex);
+    }
+
+    /**
+     * Method that ensure the console retrieve a console of the pool of consoles if
+     * a console is not passed.
      *
      * @param context The current context (needed if console == null)
      * @param console The console passed
-     * @return Console The console passed if not is null. Otherwise, the default console
+     * @return Console The console passed if not is null. Otherwise, a console leased
+     * from the pool of consoles
      * @throws InsufficientPermissionsException If an operation requires elevated permissions
      * @throws ConsoleAllocException If the console can't be allocated
      * @throws InvalidCommandDefinitionException If the command has an invalid definition
@@ -1740,7 +2188,7 @@ public final class CommandHelper {
             ConsoleAllocException, InsufficientPermissionsException {
         Console c = console;
         if (c == null) {
-            c = ConsoleBuilder.getConsole(context);
+            c = ConsoleBuilder.leaseConsole(context);
         }
         return c;
     }
@@ -17,14 +17,12 @@
 package com.cyanogenmod.filemanager.util;
 
 import android.content.Context;
-import android.content.SharedPreferences;
 import android.content.res.Resources;
 import android.util.Log;
 
 import com.cyanogenmod.filemanager.FileManagerApplication;
 import com.cyanogenmod.filemanager.R;
 import com.cyanogenmod.filemanager.commands.shell.ResolveLinkCommand;
-import com.cyanogenmod.filemanager.model.AID;
 import com.cyanogenmod.filemanager.model.BlockDevice;
 import com.cyanogenmod.filemanager.model.CharacterDevice;
 import com.cyanogenmod.filemanager.model.Directory;
@@ -38,15 +36,13 @@ import com.cyanogenmod.filemanager.model.RegularFile;
 import com.cyanogenmod.filemanager.model.Symlink;
 import com.cyanogenmod.filemanager.model.SystemFile;
 import com.cyanogenmod.filemanager.model.User;
-import com.cyanogenmod.filemanager.preferences.FileManagerSettings;
 import com.cyanogenmod.filemanager.preferences.NavigationSortMode;
-import com.cyanogenmod.filemanager.preferences.ObjectIdentifier;
 import com.cyanogenmod.filemanager.preferences.Preferences;
+import com.cyanogenmod.filemanager.preferences.PreferencesSnapshot;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
@@ -474,103 +470,59 @@ public final class FileHelper {
      */
     public static List<FileSystemObject> applyUserPreferences(
             List<FileSystemObject> files, String mimeType, boolean noSort, boolean chRooted) {
-        //Retrieve user preferences
-        SharedPreferences prefs = Preferences.getSharedPreferences();
-        FileManagerSettings sortModePref = FileManagerSettings.SETTINGS_SORT_MODE;
-        FileManagerSettings showDirsFirstPref = FileManagerSettings.SETTINGS_SHOW_DIRS_FIRST;
-        FileManagerSettings showHiddenPref = FileManagerSettings.SETTINGS_SHOW_HIDDEN;
-        FileManagerSettings showSystemPref = FileManagerSettings.SETTINGS_SHOW_SYSTEM;
-        FileManagerSettings showSymlinksPref = FileManagerSettings.SETTINGS_SHOW_SYMLINKS;
-
-        //Remove all unnecessary files (no required by the user)
+        //Retrieve user preferences (once for all the files)
+        PreferencesSnapshot prefs = Preferences.getSnapshot();
+        final boolean showHidden = !chRooted && prefs.isShowHidden();
+        final boolean showSystem = !chRooted && prefs.isShowSystem();
+        final boolean showSymlinks = !chRooted && prefs.isShowSymlinks();
+        final boolean filterMimeType = chRooted && mimeType != null
+                && mimeType.compareTo(MimeTypeHelper.ALL_MIME_TYPES) != 0;
+
+        //Remove all unnecessary files (no required by the user). The files that
+        //are kept are compacted at the start of the list in a single pass
         int cc = files.size();
-        for (int i = cc - 1; i >= 0; i--) {
+        int count = 0;
+        for (int i = 0; i < cc; i++) {
             FileSystemObject file = files.get(i);
 
             //Hidden files
-            if (!prefs.getBoolean(
-                    showHiddenPref.getId(),
-                    ((Boolean)showHiddenPref.getDefaultValue()).booleanValue()) || chRooted) {
-                if (file.isHidden()) {
-                    files.remove(i);
-                    continue;
-                }
+            if (!showHidden && file.isHidden()) {
+                continue;
             }
 
             //System files
-            if (!prefs.getBoolean(
-                    showSystemPref.getId(),
-                    ((Boolean)showSystemPref.getDefaultValue()).booleanValue()) || chRooted) {
-                if (file instanceof SystemFile) {
-                    files.remove(i);
-                    continue;
-                }
+            if (!showSystem && file instanceof SystemFile) {
+                continue;
             }
 
             //Symlinks files
-            if (!prefs.getBoolean(
-                    showSymlinksPref.getId(),
-                    ((Boolean)showSymlinksPref.getDefaultValue()).booleanValue()) || chRooted) {
-                if (file instanceof Symlink) {
-                    files.remove(i);
-                    continue;
-                }
+            if (!showSymlinks && file instanceof Symlink) {
+                continue;
             }
 
             //Mime/Type
-            if (chRooted && !isDirectory(file)) {
-                if (mimeType != null && mimeType.compareTo(MimeTypeHelper.ALL_MIME_TYPES) != 0) {
-                    // NOTE: We don't need the context here, because mime-type database should
-                    // be loaded prior to this call
-                    if (!MimeTypeHelper.matchesMimeType(null, file, mimeType)) {
-                        files.remove(i);
-                        continue;
-                    }
+            if (filterMimeType && !isDirectory(file)) {
+                // NOTE: We don't need the context here, because mime-type database should
+                // be loaded prior to this call
+                if (!MimeTypeHelper.matchesMimeType(null, file, mimeType)) {
+                    continue;
                 }
             }
+
+            if (count != i) {
+                files.set(count, file);
+            }
+            count++;
+        }
+        if (count < cc) {
+            files.subList(count, cc).clear();
         }
 
         //Apply sort mode
         if (!noSort) {
-            final boolean showDirsFirst =
-                    prefs.getBoolean(
-                            showDirsFirstPref.getId(),
-                        ((Boolean)showDirsFirstPref.getDefaultValue()).booleanValue());
-            final NavigationSortMode sortMode =
-                    NavigationSortMode.fromId(
-                            prefs.getInt(sortModePref.getId(),
-                            ((ObjectIdentifier)sortModePref.getDefaultValue()).getId()));
-            Collections.sort(files, new Comparator<FileSystemObject>() {
-                @Override
-                public int compare(FileSystemObject lhs, FileSystemObject rhs) {
-                    //Parent directory always goes first
-                    boolean isLhsParentDirectory = lhs instanceof ParentDirectory;
-                    boolean isRhsParentDirectory = rhs instanceof ParentDirectory;
-                    if (isLhsParentDirectory || isRhsParentDirectory) {
-                        if (isLhsParentDirectory && isRhsParentDirectory) {
-                            return 0;
-                        }
-                        return (isLhsParentDirectory) ? -1 : 1;
-                    }
-
-                    //Need to sort directory first?
-                    if (showDirsFirst) {
-                        boolean isLhsDirectory = FileHelper.isDirectory(lhs);
-                        boolean isRhsDirectory = FileHelper.isDirectory(rhs);
-                        if (isLhsDirectory || isRhsDirectory) {
-                            if (isLhsDirectory && isRhsDirectory) {
-                                //Apply sort mode
-                                return FileHelper.doCompare(lhs, rhs, sortMode);
-                            }
-                            return (isLhsDirectory) ? -1 : 1;
-                        }
-                    }
-
-                    //Apply sort mode
-                    return FileHelper.doCompare(lhs, rhs, sortMode);
-                }
-
-            });
+            SortHelper.sort(
+                    files, prefs.getSortMode(), prefs.isShowDirsFirst(),
+                    prefs.isCaseSensitiveSort());
         }
 
         //Return the files
@@ -579,24 +531,58 @@ public final class FileHelper {
 
     /**
      * Method that resolve the symbolic links of the list of files passed as argument.<br />
-     * This method invokes the {@link ResolveLinkCommand} in those files that hasn't a valid
-     * symlink reference
+     * This method invokes the {@link ResolveLinkCommand} in those files that hasn't
+     * been resolved yet
      *
      * @param context The current context
      * @param files The listed files
      */
     public static void resolveSymlinks(Context context, List<FileSystemObject> files) {
+        // Resolve all the pending symbolic links in a single invocation
+        List<Symlink> symlinks = new ArrayList<Symlink>();
+        List<String> paths = new ArrayList<String>();
         int cc = files.size();
         for (int i = 0; i < cc; i++) {
             FileSystemObject fso = files.get(i);
-            if (fso instanceof Symlink && ((Symlink)fso).getLinkRef() == null) {
-                try {
-                    FileSystemObject symlink =
-                            CommandHelper.resolveSymlink(context, fso.getFullPath(), null);
-                    ((Symlink)fso).setLinkRef(symlink);
-                } catch (Throwable ex) {/**NON BLOCK**/}
+            if (fso instanceof Symlink && !((Symlink)fso).isLinkResolved()) {
+                symlinks.add((Symlink)fso);
+                paths.add(fso.getFullPath());
             }
         }
+        if (symlinks.isEmpty()) {
+            return;
+        }
+
+        List<FileSystemObject> linkRefs = null;
+        try {
+            linkRefs = CommandHelper.resolveSymlinks(context, paths, null);
+        } catch (Throwable ex) {/**NON BLOCK**/}
+        cc = symlinks.size();
+        for (int i = 0; i < cc; i++) {
+            // The links that can't be resolved are treated as broken links
+            symlinks.get(i).setLinkRef(
+                    linkRefs != null && i < linkRefs.size() ? linkRefs.get(i) : null);
+        }
+    }
+
+    /**
+     * Method that resolve a symbolic link, if it hasn't been resolved yet. A symbolic
+     * link that can't be resolved is treated as a broken link (it isn't resolved again).
+     *
+     * @param context The current context
+     * @param symlink The symbolic link
+     * @return FileSystemObject The reference of the symbolic link (<code>null</code>
+     * if the link is broken)
+     */
+    public static FileSystemObject resolveSymlink(Context context, Symlink symlink) {
+        if (!symlink.isLinkResolved()) {
+            FileSystemObject linkRef = null;
+            try {
+                linkRef = CommandHelper.resolveSymlink(context, symlink.getFullPath(), null);
+            } catch (Throwable ex) {/**NON BLOCK**/}
+            symlink.setLinkRef(linkRef);
+        }
+        return symlink.getLinkRef();
     }
 
     /**
@@ -615,39 +601,30 @@ public final class FileHelper {
             final NavigationSortMode mode) {
 
         // Retrieve the user preference for case sensitive sort
-        boolean caseSensitive =
-                Preferences.getSharedPreferences().
-                    getBoolean(
-                        FileManagerSettings.SETTINGS_CASE_SENSITIVE_SORT.getId(),
-                        ((Boolean)FileManagerSettings.SETTINGS_CASE_SENSITIVE_SORT.
-                                getDefaultValue()).booleanValue());
-
-        //Name (ascending)
-        if (mode.getId() == NavigationSortMode.NAME_ASC.getId()) {
-            if (!caseSensitive) {
-                return fso1.getName().compareToIgnoreCase(fso2.getName());
-            }
-            return fso1.getName().compareTo(fso2.getName());
-        }
-        //Name (descending)
-        if (mode.getId() == NavigationSortMode.NAME_DESC.getId()) {
-            if (!caseSensitive) {
-                return fso1.getName().compareToIgnoreCase(fso2.getName()) * -1;
-            }
-            return fso1.getName().compareTo(fso2.getName()) * -1;
-        }
-
-        //Date (ascending)
-        if (mode.getId() == NavigationSortMode.DATE_ASC.getId()) {
-            return fso1.getLastModifiedTime().compareTo(fso2.getLastModifiedTime());
-        }
-        //Date (descending)
-        if (mode.getId() == NavigationSortMode.DATE_DESC.getId()) {
-            return fso1.getLastModifiedTime().compareTo(fso2.getLastModifiedTime()) * -1;
-        }
+        return doCompare(fso1, fso2, mode, Preferences.getSnapshot().isCaseSensitiveSort());
+    }
 
-        //Comparison between files directly
-        return fso1.compareTo(fso2);
+    /**
+     * Method that do a comparison between 2 file system objects. The comparisons of
+     * a sort should use this method, so the case sensitive preference is read once
+     * (or better, {@link SortHelper}, that doesn't need to build the keys of the objects
+     * for every comparison). The names are compared with the same collation than the
+     * sort of the listings.
+     *
+     * @param fso1 The first file system objects
+     * @param fso2 The second file system objects
+     * @param mode The sort mode
+     * @param caseSensitive If the names are compared case sensitive
+     * @return int a negative integer if {@code fso1} is less than {@code fso2};
+     *         a positive integer if {@code fso1} is greater than {@code fso2};
+     *         0 if {@code fso1} has the same order as {@code fso2}.
+     */
+    public static int doCompare(
+            final FileSystemObject fso1,
+            final FileSystemObject fso2,
+            final NavigationSortMode mode,
+            final boolean caseSensitive) {
+        return SortHelper.compare(fso1, fso2, mode, caseSensitive);
     }
 
     /**
@@ -757,6 +734,43 @@ public final class FileHelper {
         return false;
     }
 
+    /**
+     * Method that normalizes an absolute path, collapsing the current directory
+     * (<code>.</code>) and parent directory (<code>..</code>) segments and the
+     * repeated separators. The filesystem is not accessed, so the symlinks of the
+     * path are not resolved.
+     *
+     * @param path The absolute path to normalize
+     * @return String The normalized path
+     */
+    public static String normalizePath(String path) {
+        String[] segments = path.split(File.separator);
+        List<String> normalized = new ArrayList<String>(segments.length);
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if (segment.length() == 0 || segment.compareTo(CURRENT_DIRECTORY) == 0) {
+                continue;
+            }
+            if (segment.compareTo(PARENT_DIRECTORY) == 0) {
+                // The parent of the root directory is the root directory
+                if (!normalized.isEmpty()) {
+                    normalized.remove(normalized.size() - 1);
+                }
+                continue;
+            }
+            normalized.add(segment);
+        }
+        if (normalized.isEmpty()) {
+            return ROOT_DIRECTORY;
+        }
+        StringBuilder sb = new StringBuilder(path.length());
+        int cc = normalized.size();
+        for (int i = 0; i < cc; i++) {
+            sb.append(File.separator).append(normalized.get(i));
+        }
+        return sb.toString();
+    }
+
     /**
      * Method that converts an absolute path to a relative path
      *
@@ -797,6 +811,24 @@ public final class FileHelper {
      * @return FileSystemObject The file system object reference
      */
     public static FileSystemObject createFileSystemObject(Context ctx, File file) {
+        return createFileSystemObject(
+                file.getParent(), file.getName(), file.isDirectory(),
+                file.lastModified(), file.length());
+    }
+
+    /**
+     * Method that creates a {@link FileSystemObject} from the attributes of a file
+     * (as returned by a single stat of the file).
+     *
+     * @param parent The parent directory of the file
+     * @param name The name of the file
+     * @param directory If the file is a directory
+     * @param lastModified The last modification time of the file (in milliseconds)
+     * @param size The size in bytes of the file
+     * @return FileSystemObject The file system object reference
+     */
+    public static FileSystemObject createFileSystemObject(
+            String parent, String name, boolean directory, long lastModified, long size) {
         try {
             // The user and group name of the files. In ChRoot, aosp give restrict access to
             // this user and group.
@@ -807,30 +839,28 @@ public final class FileHelper {
             // The user and group name of the files. In ChRoot, aosp give restrict access to
             // this user and group. This applies for permission also. This has no really much
             // interest if we not allow to change the permissions
-            AID userAID = AIDHelper.getAIDFromName(ctx, USER);
-            AID groupAID = AIDHelper.getAIDFromName(ctx, GROUP);
-            User user = new User(userAID.getId(), userAID.getName());
-            Group group = new Group(groupAID.getId(), groupAID.getName());
+            User user = AIDCache.getUser(USER);
+            Group group = AIDCache.getGroup(GROUP);
             Permissions perm = Permissions.fromRawString(PERMISSIONS);
 
             // Build a directory?
-            if (file.isDirectory()) {
+            if (directory) {
                 return
                     new Directory(
-                            file.getName(),
-                            file.getParent(),
+                            name,
+                            parent,
                             user, group, perm,
-                            new Date(file.lastModified()));
+                            new Date(lastModified));
             }
 
             // Build a regular file
             return
                 new RegularFile(
-                        file.getName(),
-                        file.getParent(),
+                        name,
+                        parent,
                         user, group, perm,
-                        new Date(file.lastModified()),
-                        file.length());
+                        new Date(lastModified),
+                        size);
         } catch (Exception e) {
             Log.e(TAG, "Exception retrieving the fso", e); //$NON-NLS-1$
         }
@@ -31,6 +31,7 @@ import com.cyanogenmod.filemanager.model.Symlink;
 import com.cyanogenmod.filemanager.model.SystemFile;
 
 import java.io.File;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Map;
@@ -459,8 +460,9 @@ public final class MimeTypeHelper {
     public static synchronized void loadMimeTypes(Context context) {
         if (sMimeTypes == null) {
             try {
-                // Create a new icon holder
-                sCachedIndentifiers = new HashMap<String, Integer>();
+                // Create a new icon holder (the icons are resolved from background too)
+                sCachedIndentifiers =
+                        Collections.synchronizedMap(new HashMap<String, Integer>());
 
                 Properties mimeTypes = new Properties();
                 mimeTypes.load(context.getResources().openRawResource(R.raw.mime_types));
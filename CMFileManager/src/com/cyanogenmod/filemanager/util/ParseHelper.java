@@ -16,8 +16,6 @@
 
 package com.cyanogenmod.filemanager.util;
 
-import android.os.Process;
-
 import com.cyanogenmod.filemanager.model.BlockDevice;
 import com.cyanogenmod.filemanager.model.CharacterDevice;
 import com.cyanogenmod.filemanager.model.Directory;
@@ -37,20 +35,36 @@ import com.cyanogenmod.filemanager.model.User;
 import com.cyanogenmod.filemanager.model.UserPermission;
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.util.Calendar;
 import java.util.Date;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * A helper class with useful methods for deal with parse of results.
  */
 public final class ParseHelper {
 
-    private static final String DATE_PATTERN =
-            "\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}"; //$NON-NLS-1$
-    private static final SimpleDateFormat DATE_FORMAT =
-            new SimpleDateFormat("yyyy-MM-dd HH:mm"); //$NON-NLS-1$
+    // The last modification date (yyyy-MM-dd HH:mm)
+    private static final int DATE_LENGTH = 16;
+    private static final String LINK_SEPARATOR = " -> "; //$NON-NLS-1$
+
+    // A calendar per thread for the conversion of the dates (the calendars aren't
+    // thread-safe, and the parse is called from several threads)
+    private static final ThreadLocal<Calendar> CALENDAR = new ThreadLocal<Calendar>() {
+        @Override
+        protected Calendar initialValue() {
+            return Calendar.getInstance();
+        }
+    };
+
+    // File type bits of a raw mode
+    private static final int S_IFMT = 0170000;
+    private static final int S_IFSOCK = 0140000;
+    private static final int S_IFLNK = 0120000;
+    private static final int S_IFREG = 0100000;
+    private static final int S_IFBLK = 0060000;
+    private static final int S_IFDIR = 0040000;
+    private static final int S_IFCHR = 0020000;
+    private static final int S_IFIFO = 0010000;
 
     /**
      * Constructor of <code>ParseHelper</code>.
@@ -137,81 +151,104 @@ public final class ParseHelper {
     //
     public static FileSystemObject toFileSystemObject(
             final String parent, final String src, final boolean quick) throws ParseException {
+        return toFileSystemObject(parent, src, 0, src.length(), quick);
+    }
 
-        String raw = src;
+    /**
+     * Method that parses and creates a {@link FileSystemObject} references from
+     * a slice of a buffer with a unix string style line. The line is tokenized in
+     * place, without regular expressions or intermediate strings.
+     *
+     * @param parent The parent of the object
+     * @param src The buffer
+     * @param start The start of the line in the buffer
+     * @param end The end of the line in the buffer (exclusive)
+     * @param quick Do not resolve data (User and Group doesn't have a valid reference)
+     * @return FileSystemObject The file system object reference
+     * @throws ParseException If the line can't be parsed
+     * @see #toFileSystemObject(String, String, boolean)
+     */
+    public static FileSystemObject toFileSystemObject(
+            final String parent, final CharSequence src, final int start, final int end,
+            final boolean quick) throws ParseException {
+        if (end - start < 11) {
+            throw new ParseException("permissions not found", 0); //$NON-NLS-1$
+        }
 
         //0.- Object Type
-        char type = raw.charAt(0);
+        char type = src.charAt(start);
 
         //1.- Extract permissions
-        String szPermissions = raw.substring(0, 10);
-        Permissions oPermissions = parsePermission(szPermissions);
-        raw = raw.substring(11);
+        Permissions oPermissions = parsePermission(src, start);
 
         //2.- Extract the last modification date
-        Pattern pattern = Pattern.compile(DATE_PATTERN);
-        Matcher matcher = pattern.matcher(raw);
-        if (!matcher.find()) {
+        int date = indexOfDate(src, start + 11, end);
+        if (date == -1) {
             throw new ParseException("last modification date not found", 0); //$NON-NLS-1$
         }
-        Date dLastModified = null;
-        try {
-            dLastModified = DATE_FORMAT.parse(matcher.group());
-        } catch (ParseException pEx) {
-            throw new ParseException(pEx.getMessage(), 0);
-        }
-        String szStartLine = raw.substring(0, matcher.start()).trim();
-        String szEndLine = raw.substring(matcher.end()).trim();
+        Date dLastModified = parseDate(src, date);
 
         //3.- Extract user (user name has no spaces.
-        int pos = szStartLine.indexOf(" "); //$NON-NLS-1$
-        String szUser = szStartLine.substring(0, pos).trim();
-        szStartLine = szStartLine.substring(pos).trim();
+        int pos = skipWhitespaces(src, start + 11, date);
+        int lineEnd = trimEnd(src, pos, date);
+        int sep = indexOf(src, ' ', pos, lineEnd);
+        if (sep == -1) {
+            throw new ParseException("group not found", 0); //$NON-NLS-1$
+        }
+        String szUser = src.subSequence(pos, trimEnd(src, pos, sep)).toString();
         User oUser = null;
         if (!quick) {
-            oUser = new User(Process.getUidForName(szUser), szUser);
+            oUser = AIDCache.getUser(szUser);
         } else {
-            oUser = new User(-1, szUser);
+            oUser = AIDCache.getUser(-1, szUser);
         }
 
         //4.- Extract group (group name has no spaces.
-        pos = szStartLine.indexOf(" "); //$NON-NLS-1$
-        String szGroup = szStartLine.substring(0, (pos == -1) ? szStartLine.length() : pos).trim();
-        szStartLine = szStartLine.substring((pos == -1) ? szStartLine.length() : pos).trim();
+        pos = skipWhitespaces(src, sep, lineEnd);
+        sep = indexOf(src, ' ', pos, lineEnd);
+        if (sep == -1) {
+            sep = lineEnd;
+        }
+        String szGroup = src.subSequence(pos, trimEnd(src, pos, sep)).toString();
         Group oGroup = null;
         if (!quick) {
-            oGroup = new Group(Process.getGidForName(szGroup), szGroup);
+            oGroup = AIDCache.getGroup(szGroup);
         } else {
-            oGroup = new Group(-1, szGroup);
+            oGroup = AIDCache.getGroup(-1, szGroup);
         }
 
         //5.- Extract size
         long lSize = 0;
-        if (szStartLine.length() != 0) {
+        pos = skipWhitespaces(src, sep, lineEnd);
+        if (pos < lineEnd) {
             //At this moment only size of files is interesting. Mayor/minor block
             //devices are no required
             if (type == RegularFile.UNIX_ID) {
-                try {
-                    lSize = Long.parseLong(szStartLine);
-                } catch (NumberFormatException nfEx) {
-                    throw new ParseException(nfEx.getMessage(), 0);
-                }
-
+                lSize = parseLong(src, pos, lineEnd);
             }
         }
 
         //6.- Extract object name
-        String szName = szEndLine;
-        if (szName.trim().length() == 0) {
+        pos = skipWhitespaces(src, date + DATE_LENGTH, end);
+        lineEnd = trimEnd(src, pos, end);
+        String szName = null;
+        String szLink = null;
+        if (pos == lineEnd) {
             // Assume that the object name is the root folder
             szName = FileHelper.ROOT_DIRECTORY;
         }
-        String szLink = null;
         if (type == Symlink.UNIX_ID) {
             //"link name -> real name"
-            String[] names = szEndLine.split(" -> "); //$NON-NLS-1$
-            szName = names[0].trim();
-            szLink = names[1].trim();
+            sep = indexOf(src, LINK_SEPARATOR, pos, lineEnd);
+            if (sep == -1) {
+                throw new ParseException("symlink target not found", 0); //$NON-NLS-1$
+            }
+            szName = src.subSequence(pos, trimEnd(src, pos, sep)).toString();
+            pos = skipWhitespaces(src, sep + LINK_SEPARATOR.length(), lineEnd);
+            sep = indexOf(src, LINK_SEPARATOR, pos, lineEnd);
+            szLink = src.subSequence(pos, trimEnd(src, pos, sep == -1 ? lineEnd : sep)).toString();
+        } else if (szName == null) {
+            szName = src.subSequence(pos, lineEnd).toString();
         }
 
         // All the line is parsed now. Create the object
@@ -221,6 +258,253 @@ public final class ParseHelper {
         return fso;
     }
 
+    /**
+     * Method that returns the position of the first last modification date
+     * (<code>yyyy-MM-dd HH:mm</code>) of a line.
+     *
+     * @param src The buffer
+     * @param start The start of the search
+     * @param end The end of the search (exclusive)
+     * @return int The position of the date, or -1 if the line hasn't a date
+     */
+    private static int indexOfDate(CharSequence src, int start, int end) {
+        for (int i = start; i + DATE_LENGTH <= end; i++) {
+            if (isDigit(src, i, 4)
+                    && src.charAt(i + 4) == '-'
+                    && isDigit(src, i + 5, 2)
+                    && src.charAt(i + 7) == '-'
+                    && isDigit(src, i + 8, 2)
+                    && src.charAt(i + 10) == ' '
+                    && isDigit(src, i + 11, 2)
+                    && src.charAt(i + 13) == ':'
+                    && isDigit(src, i + 14, 2)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Method that parses a last modification date (<code>yyyy-MM-dd HH:mm</code>)
+     * in the default time zone.
+     *
+     * @param src The buffer
+     * @param pos The position of the date
+     * @return Date The date
+     */
+    private static Date parseDate(CharSequence src, int pos) {
+        Calendar calendar = CALENDAR.get();
+        calendar.clear();
+        calendar.set(
+                toInt(src, pos, 4),
+                toInt(src, pos + 5, 2) - 1,
+                toInt(src, pos + 8, 2),
+                toInt(src, pos + 11, 2),
+                toInt(src, pos + 14, 2));
+        return new Date(calendar.getTimeInMillis());
+    }
+
+    /**
+     * Method that checks if a range of a buffer only has digits.
+     *
+     * @param src The buffer
+     * @param pos The position of the range
+     * @param count The length of the range
+     * @return boolean If the range only has digits
+     */
+    private static boolean isDigit(CharSequence src, int pos, int count) {
+        for (int i = pos; i < pos + count; i++) {
+            char c = src.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Method that converts a range of digits of a buffer to an integer.
+     *
+     * @param src The buffer
+     * @param pos The position of the digits
+     * @param count The number of digits
+     * @return int The value
+     */
+    private static int toInt(CharSequence src, int pos, int count) {
+        int value = 0;
+        for (int i = pos; i < pos + count; i++) {
+            value = (value * 10) + (src.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Method that parses a number of a range of a buffer.
+     *
+     * @param src The buffer
+     * @param start The start of the number
+     * @param end The end of the number (exclusive)
+     * @return long The number
+     * @throws ParseException If the range isn't a number
+     */
+    private static long parseLong(CharSequence src, int start, int end) throws ParseException {
+        long value = 0;
+        if (end - start < 19) {
+            int i = start;
+            for (; i < end; i++) {
+                char c = src.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                value = (value * 10) + (c - '0');
+            }
+            if (i == end) {
+                return value;
+            }
+        }
+        // Not a plain number. Let the platform deal with it
+        try {
+            return Long.parseLong(src.subSequence(start, end).toString());
+        } catch (NumberFormatException nfEx) {
+            throw new ParseException(nfEx.getMessage(), 0);
+        }
+    }
+
+    /**
+     * Method that returns the first position of a range that isn't a whitespace.
+     *
+     * @param src The buffer
+     * @param start The start of the range
+     * @param end The end of the range (exclusive)
+     * @return int The first position that isn't a whitespace, or end
+     */
+    private static int skipWhitespaces(CharSequence src, int start, int end) {
+        int pos = start;
+        while (pos < end && src.charAt(pos) <= ' ') {
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * Method that returns the end of a range without its trailing whitespaces.
+     *
+     * @param src The buffer
+     * @param start The start of the range
+     * @param end The end of the range (exclusive)
+     * @return int The end of the trimmed range
+     */
+    private static int trimEnd(CharSequence src, int start, int end) {
+        int pos = end;
+        while (pos > start && src.charAt(pos - 1) <= ' ') {
+            pos--;
+        }
+        return pos;
+    }
+
+    /**
+     * Method that returns the position of a char in a range of a buffer.
+     *
+     * @param src The buffer
+     * @param c The char to find
+     * @param start The start of the range
+     * @param end The end of the range (exclusive)
+     * @return int The position of the char, or -1 if not found
+     */
+    private static int indexOf(CharSequence src, char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (src.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Method that returns the position of a string in a range of a buffer.
+     *
+     * @param src The buffer
+     * @param s The string to find
+     * @param start The start of the range
+     * @param end The end of the range (exclusive)
+     * @return int The position of the string, or -1 if not found
+     */
+    private static int indexOf(CharSequence src, String s, int start, int end) {
+        int cc = s.length();
+        for (int i = start; i + cc <= end; i++) {
+            int j = 0;
+            while (j < cc && src.charAt(i + j) == s.charAt(j)) {
+                j++;
+            }
+            if (j == cc) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Method that creates a {@link FileSystemObject} reference from the raw attributes
+     * of a file (as returned by <code>lstat</code>).
+     *
+     * @param parent The parent of the object
+     * @param name The name of the object
+     * @param link The target of the object, if the object is a symlink
+     * @param mode The raw mode of the object (type and permissions bits)
+     * @param user The user proprietary of the object
+     * @param group The group proprietary of the object
+     * @param size The size in bytes of the object
+     * @param lastModified The last modification time of the object (in milliseconds)
+     * @return FileSystemObject The file system object reference
+     * @throws ParseException If the type of the object is unknown
+     */
+    public static FileSystemObject toFileSystemObject(
+            final String parent, final String name, final String link, final int mode,
+            final User user, final Group group, final long size, final long lastModified)
+            throws ParseException {
+        char type = toUnixType(mode);
+        return createObject(
+                parent, type, name, link, user, group, toPermissions(mode),
+                new Date(lastModified), type == RegularFile.UNIX_ID ? size : 0);
+    }
+
+    /**
+     * Method that returns the unix type identifier of a raw mode.
+     *
+     * @param mode The raw mode
+     * @return char The unix type identifier, or 0 if the type is unknown
+     */
+    public static char toUnixType(int mode) {
+        switch (mode & S_IFMT) {
+            case S_IFREG:
+                return RegularFile.UNIX_ID;
+            case S_IFDIR:
+                return Directory.UNIX_ID;
+            case S_IFLNK:
+                return Symlink.UNIX_ID;
+            case S_IFBLK:
+                return BlockDevice.UNIX_ID;
+            case S_IFCHR:
+                return CharacterDevice.UNIX_ID;
+            case S_IFIFO:
+                return NamedPipe.UNIX_ID;
+            case S_IFSOCK:
+                return DomainSocket.UNIX_ID;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Method that extracts the permissions from a raw mode.
+     *
+     * @param mode The raw mode
+     * @return Permissions An object with all the permissions
+     */
+    public static Permissions toPermissions(int mode) {
+        return Permissions.valueOf(mode);
+    }
+
     /**
      * Method that parses and extracts the permissions from a unix string format.
      *
@@ -233,28 +517,34 @@ public final class ParseHelper {
         if (permissions.length() != 10) {
             throw new ParseException("permission length() != 10", 0); //$NON-NLS-1$
         }
-        UserPermission up = new UserPermission(
-                permissions.charAt(1) == Permission.READ,
-                permissions.charAt(2) == Permission.WRITE,
-                permissions.charAt(3) ==  Permission.EXECUTE
-                    || permissions.charAt(3) == UserPermission.SETUID_E,
-                permissions.charAt(3) == UserPermission.SETUID_E
-                    || permissions.charAt(3) == UserPermission.SETUID);
-        GroupPermission gp = new GroupPermission(
-                permissions.charAt(4) == Permission.READ,
-                permissions.charAt(5) == Permission.WRITE,
-                permissions.charAt(6) == Permission.EXECUTE
-                    || permissions.charAt(6) == GroupPermission.SETGID_E,
-                permissions.charAt(6) == GroupPermission.SETGID_E
-                    || permissions.charAt(6) == GroupPermission.SETGID);
-        OthersPermission op = new OthersPermission(
-                permissions.charAt(7) == Permission.READ,
-                permissions.charAt(8) == Permission.WRITE,
-                permissions.charAt(9) == Permission.EXECUTE
-                    || permissions.charAt(9) == OthersPermission.STICKY_E,
-                permissions.charAt(9) == OthersPermission.STICKY_E
-                    || permissions.charAt(9) == OthersPermission.STICKY);
-        return new Permissions(up, gp, op);
+        return parsePermission(permissions, 0);
+    }
+
+    /**
+     * Method that parses and extracts the permissions from a unix string format.
+     *
+     * @param src The buffer with the raw permissions
+     * @param pos The position of the raw permissions (10 chars)
+     * @return Permissions The canonical permissions
+     */
+    private static Permissions parsePermission(CharSequence src, int pos) {
+        int mode = 0;
+        char c = src.charAt(pos + 3);
+        mode |= src.charAt(pos + 1) == Permission.READ ? 0400 : 0;
+        mode |= src.charAt(pos + 2) == Permission.WRITE ? 0200 : 0;
+        mode |= c == Permission.EXECUTE || c == UserPermission.SETUID_E ? 0100 : 0;
+        mode |= c == UserPermission.SETUID_E || c == UserPermission.SETUID ? 04000 : 0;
+        c = src.charAt(pos + 6);
+        mode |= src.charAt(pos + 4) == Permission.READ ? 040 : 0;
+        mode |= src.charAt(pos + 5) == Permission.WRITE ? 020 : 0;
+        mode |= c == Permission.EXECUTE || c == GroupPermission.SETGID_E ? 010 : 0;
+        mode |= c == GroupPermission.SETGID_E || c == GroupPermission.SETGID ? 02000 : 0;
+        c = src.charAt(pos + 9);
+        mode |= src.charAt(pos + 7) == Permission.READ ? 04 : 0;
+        mode |= src.charAt(pos + 8) == Permission.WRITE ? 02 : 0;
+        mode |= c == Permission.EXECUTE || c == OthersPermission.STICKY_E ? 01 : 0;
+        mode |= c == OthersPermission.STICKY_E || c == OthersPermission.STICKY ? 01000 : 0;
+        return Permissions.valueOf(mode);
     }
 
     /**
@@ -273,7 +563,7 @@ public final class ParseHelper {
      * @throws ParseException If type couldn't be translate into a reference
      * file system object
      */
-    private static FileSystemObject createObject(
+    public static FileSystemObject createObject(
             String parentDir, char type, String name, String link, User user,
             Group group, Permissions permissions, Date lastModifiedTime, long size)
             throws ParseException {
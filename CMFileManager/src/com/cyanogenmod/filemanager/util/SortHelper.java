@@ -0,0 +1,378 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.util;
+
+import com.cyanogenmod.filemanager.model.FileSystemObject;
+import com.cyanogenmod.filemanager.model.ParentDirectory;
+import com.cyanogenmod.filemanager.preferences.NavigationSortMode;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A helper class for sort the files of a listing.<br/>
+ * <br/>
+ * The sort keys of every file (the collation key of the name, the date, the size, ...)
+ * are computed once before sorting, so the comparisons don't need to build them again
+ * (neither read the preferences). The parent directory always goes first.<br/>
+ * <br/>
+ * The comparisons of single objects ({@link #compare(FileSystemObject, FileSystemObject,
+ * NavigationSortMode, boolean)}) use the same keys, so every screen sorts the names
+ * in the same order.
+ */
+public final class SortHelper {
+
+    // The groups of files, in the order in which they are sorted
+    private static final int GROUP_PARENT = 0;
+    private static final int GROUP_DIRECTORY = 1;
+    private static final int GROUP_FILE = 2;
+
+    // The shared collators of the names (case insensitive and case sensitive) of the
+    // comparisons of single objects, and the locale of the collators
+    private static final Collator[] COLLATORS = new Collator[2];
+    private static Locale sLocale;
+
+    /**
+     * Constructor of <code>SortHelper</code>.
+     */
+    private SortHelper() {
+        super();
+    }
+
+    /**
+     * Method that sorts the files of a listing.
+     *
+     * @param files The files to sort
+     * @param mode The sort mode
+     * @param dirsFirst If the directories go before the rest of files
+     * @param caseSensitive If the names are sorted case sensitive
+     */
+    public static void sort(
+            List<FileSystemObject> files, NavigationSortMode mode,
+            boolean dirsFirst, boolean caseSensitive) {
+        int cc = files.size();
+        if (cc < 2) {
+            return;
+        }
+
+        // Compute the keys of the files
+        Collator collator = createCollator(caseSensitive);
+        SortKey[] keys = new SortKey[cc];
+        for (int i = 0; i < cc; i++) {
+            keys[i] = new SortKey(files.get(i), mode, dirsFirst, caseSensitive, collator);
+        }
+
+        // Sort the keys (a stable sort) and copy the files back
+        Arrays.sort(keys, new SortKeyComparator(mode));
+        for (int i = 0; i < cc; i++) {
+            files.set(i, keys[i].mFso);
+        }
+    }
+
+    /**
+     * Method that compares two file system objects with the same keys and rules than
+     * the sort of the listings. The parent directory always goes first.
+     *
+     * @param fso1 The first file system object
+     * @param fso2 The second file system object
+     * @param mode The sort mode
+     * @param caseSensitive If the names are compared case sensitive
+     * @return int a negative integer if {@code fso1} is less than {@code fso2};
+     *         a positive integer if {@code fso1} is greater than {@code fso2};
+     *         0 if {@code fso1} has the same order as {@code fso2}.
+     */
+    public static int compare(
+            FileSystemObject fso1, FileSystemObject fso2,
+            NavigationSortMode mode, boolean caseSensitive) {
+        Collator collator = getCollator(caseSensitive);
+        SortKey key1 = null;
+        SortKey key2 = null;
+        synchronized (collator) {
+            key1 = new SortKey(fso1, mode, false, caseSensitive, collator);
+            key2 = new SortKey(fso2, mode, false, caseSensitive, collator);
+        }
+        return compareKeys(key1, key2, mode);
+    }
+
+    /**
+     * Method that creates the collator of the names.
+     *
+     * @param caseSensitive If the names are compared case sensitive
+     * @return Collator The collator of the names
+     */
+    private static Collator createCollator(boolean caseSensitive) {
+        Collator collator = Collator.getInstance();
+        collator.setStrength(caseSensitive ? Collator.TERTIARY : Collator.SECONDARY);
+        return collator;
+    }
+
+    /**
+     * Method that returns the shared collator of the names. The collators are created
+     * again when the locale changes. The collator must be used with its lock held.
+     *
+     * @param caseSensitive If the names are compared case sensitive
+     * @return Collator The shared collator of the names
+     */
+    private static synchronized Collator getCollator(boolean caseSensitive) {
+        Locale locale = Locale.getDefault();
+        if (!locale.equals(sLocale)) {
+            sLocale = locale;
+            COLLATORS[0] = null;
+            COLLATORS[1] = null;
+        }
+        int i = caseSensitive ? 1 : 0;
+        if (COLLATORS[i] == null) {
+            COLLATORS[i] = createCollator(caseSensitive);
+        }
+        return COLLATORS[i];
+    }
+
+    /**
+     * Method that compares two names, comparing the numbers of the names by their value
+     * (<code>file2</code> goes before <code>file10</code>).
+     *
+     * @param name1 The first name
+     * @param name2 The second name
+     * @return int a negative integer if {@code name1} is less than {@code name2};
+     *         a positive integer if {@code name1} is greater than {@code name2};
+     *         0 if {@code name1} has the same order as {@code name2}.
+     */
+    public static int compareNatural(String name1, String name2) {
+        int len1 = name1.length();
+        int len2 = name2.length();
+        int i = 0;
+        int j = 0;
+        while (i < len1 && j < len2) {
+            char c1 = name1.charAt(i);
+            char c2 = name2.charAt(j);
+            if (isDigit(c1) && isDigit(c2)) {
+                // Skip the leading zeros, and compare the numbers by their length first
+                int start1 = skipZeros(name1, i);
+                int start2 = skipZeros(name2, j);
+                int end1 = skipDigits(name1, start1);
+                int end2 = skipDigits(name2, start2);
+                int digits1 = end1 - start1;
+                int digits2 = end2 - start2;
+                if (digits1 != digits2) {
+                    return digits1 < digits2 ? -1 : 1;
+                }
+                for (int k = 0; k < digits1; k++) {
+                    char d1 = name1.charAt(start1 + k);
+                    char d2 = name2.charAt(start2 + k);
+                    if (d1 != d2) {
+                        return d1 < d2 ? -1 : 1;
+                    }
+                }
+                i = end1;
+                j = end2;
+                continue;
+            }
+            if (c1 != c2) {
+                return c1 < c2 ? -1 : 1;
+            }
+            i++;
+            j++;
+        }
+        return (len1 - i) - (len2 - j);
+    }
+
+    /**
+     * Method that returns if a character is a decimal digit.
+     *
+     * @param c The character
+     * @return boolean If the character is a decimal digit
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Method that skips the zeros of a name.
+     *
+     * @param name The name
+     * @param from The first position to check
+     * @return int The position of the first character that isn't a zero
+     */
+    private static int skipZeros(String name, int from) {
+        int i = from;
+        while (i < name.length() && name.charAt(i) == '0') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Method that skips the digits of a name.
+     *
+     * @param name The name
+     * @param from The first position to check
+     * @return int The position of the first character that isn't a digit
+     */
+    private static int skipDigits(String name, int from) {
+        int i = from;
+        while (i < name.length() && isDigit(name.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Method that compares the precomputed sort keys of two files.
+     *
+     * @param lhs The keys of the first file
+     * @param rhs The keys of the second file
+     * @param mode The sort mode
+     * @return int a negative integer if {@code lhs} is less than {@code rhs};
+     *         a positive integer if {@code lhs} is greater than {@code rhs};
+     *         0 if {@code lhs} has the same order as {@code rhs}.
+     */
+    private static int compareKeys(SortKey lhs, SortKey rhs, NavigationSortMode mode) {
+        // Parent directory always goes first, and then the directories (if required)
+        if (lhs.mGroup != rhs.mGroup) {
+            return lhs.mGroup < rhs.mGroup ? -1 : 1;
+        }
+        if (lhs.mGroup == GROUP_PARENT) {
+            return 0;
+        }
+
+        int result;
+        switch (mode) {
+            case DATE_ASC:
+            case DATE_DESC:
+            case SIZE_ASC:
+            case SIZE_DESC:
+                result = lhs.mValue < rhs.mValue ? -1 : (lhs.mValue == rhs.mValue ? 0 : 1);
+                break;
+            case TYPE_ASC:
+            case TYPE_DESC:
+                result = lhs.mText.compareTo(rhs.mText);
+                break;
+            case NATURAL_ASC:
+            case NATURAL_DESC:
+                result = compareNatural(lhs.mText, rhs.mText);
+                break;
+            default:
+                result = lhs.mName.compareTo(rhs.mName);
+                break;
+        }
+        if (mode.isDescending()) {
+            result = -result;
+        }
+
+        // The files with the same key are sorted by name
+        if (result == 0) {
+            result = lhs.mName.compareTo(rhs.mName);
+        }
+        return result;
+    }
+
+    /**
+     * The precomputed sort keys of a file.
+     */
+    private static class SortKey {
+        final FileSystemObject mFso;
+        final int mGroup;
+        final CollationKey mName;
+        // The name with the case folded (natural sort) or the extension (type sort)
+        final String mText;
+        // The date or the size
+        final long mValue;
+
+        /**
+         * Constructor of <code>SortKey</code>.
+         *
+         * @param fso The file
+         * @param mode The sort mode
+         * @param dirsFirst If the directories go before the rest of files
+         * @param caseSensitive If the names are sorted case sensitive
+         * @param collator The collator of the names
+         */
+        SortKey(FileSystemObject fso, NavigationSortMode mode,
+                boolean dirsFirst, boolean caseSensitive, Collator collator) {
+            super();
+            this.mFso = fso;
+            if (fso instanceof ParentDirectory) {
+                this.mGroup = GROUP_PARENT;
+            } else if (dirsFirst && FileHelper.isDirectory(fso)) {
+                this.mGroup = GROUP_DIRECTORY;
+            } else {
+                this.mGroup = GROUP_FILE;
+            }
+            this.mName = collator.getCollationKey(fso.getName());
+
+            String text = null;
+            long value = 0;
+            switch (mode) {
+                case DATE_ASC:
+                case DATE_DESC:
+                    Date date = fso.getLastModifiedTime();
+                    value = date != null ? date.getTime() : 0;
+                    break;
+                case SIZE_ASC:
+                case SIZE_DESC:
+                    value = fso.getSize();
+                    break;
+                case TYPE_ASC:
+                case TYPE_DESC:
+                    text = FileHelper.isDirectory(fso) ? null : FileHelper.getExtension(fso);
+                    if (text != null && !caseSensitive) {
+                        text = text.toLowerCase();
+                    }
+                    break;
+                case NATURAL_ASC:
+                case NATURAL_DESC:
+                    text = caseSensitive ? fso.getName() : fso.getName().toLowerCase();
+                    break;
+                default:
+                    break;
+            }
+            this.mText = text == null ? "" : text; //$NON-NLS-1$
+            this.mValue = value;
+        }
+    }
+
+    /**
+     * A comparator of the precomputed sort keys of the files.
+     */
+    private static class SortKeyComparator implements Comparator<SortKey> {
+        private final NavigationSortMode mMode;
+
+        /**
+         * Constructor of <code>SortKeyComparator</code>.
+         *
+         * @param mode The sort mode
+         */
+        SortKeyComparator(NavigationSortMode mode) {
+            super();
+            this.mMode = mode;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int compare(SortKey lhs, SortKey rhs) {
+            return compareKeys(lhs, rhs, this.mMode);
+        }
+    }
+
+}
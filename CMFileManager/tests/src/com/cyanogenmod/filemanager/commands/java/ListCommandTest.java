@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.commands.java;
+
+import android.test.suitebuilder.annotation.LargeTest;
+import android.test.suitebuilder.annotation.MediumTest;
+import android.util.Log;
+
+import com.cyanogenmod.filemanager.commands.ListExecutable.LIST_MODE;
+import com.cyanogenmod.filemanager.model.Directory;
+import com.cyanogenmod.filemanager.model.FileSystemObject;
+import com.cyanogenmod.filemanager.model.ParentDirectory;
+import com.cyanogenmod.filemanager.util.FileHelper;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A class for testing the java list command.
+ *
+ * @see ListCommand
+ * @see BatchFileInfoCommand
+ * @see DirectoryReader
+ */
+public class ListCommandTest extends android.test.AndroidTestCase {
+
+    private static final String TAG = "JavaListCommandTest"; //$NON-NLS-1$
+
+    private static final int FILES = 300;
+    private static final int BENCHMARK_FILES = 20000;
+    // One directory every this number of entries
+    private static final int DIRECTORY_RATIO = 50;
+
+    private File mDir;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.mDir = new File(getContext().getCacheDir(), "list-test"); //$NON-NLS-1$
+        delete(this.mDir);
+        assertTrue(this.mDir.mkdirs());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void tearDown() throws Exception {
+        delete(this.mDir);
+        super.tearDown();
+    }
+
+    /**
+     * Method that performs a test over the list of a directory, compared with
+     * the list through the {@link File} api.
+     *
+     * @throws Exception If test failed
+     */
+    @MediumTest
+    public void testList() throws Exception {
+        createTree(this.mDir, FILES);
+
+        ListCommand cmd = new ListCommand(getContext(), this.mDir.getPath(), LIST_MODE.DIRECTORY);
+        cmd.execute();
+        List<FileSystemObject> files = cmd.getResult();
+        assertTrue(files.get(0) instanceof ParentDirectory);
+        files.remove(0);
+
+        List<FileSystemObject> expected = listWithFileApi(this.mDir);
+        assertEquals(FILES, expected.size());
+        assertEquals(expected, files);
+        assertEquals(expected, DirectoryReader.read(this.mDir, false));
+        assertEquals(this.mDir.getPath(), files.get(0).getParent());
+        int directories = 0;
+        for (int i = 0; i < files.size(); i++) {
+            if (files.get(i) instanceof Directory) {
+                directories++;
+            }
+        }
+        assertEquals(FILES / DIRECTORY_RATIO, directories);
+    }
+
+    /**
+     * Method that performs a test over the information of a list of files, compared
+     * with the information through the {@link File} api.
+     *
+     * @throws Exception If test failed
+     */
+    @MediumTest
+    public void testBatchFileInfo() throws Exception {
+        createTree(this.mDir, FILES);
+
+        List<FileSystemObject> expected = listWithFileApi(this.mDir);
+        List<String> paths = new ArrayList<String>(expected.size() + 1);
+        for (int i = 0; i < expected.size(); i++) {
+            paths.add(expected.get(i).getFullPath());
+        }
+        paths.add(new File(this.mDir, "unknown").getPath()); //$NON-NLS-1$
+
+        BatchFileInfoCommand cmd = new BatchFileInfoCommand(paths, false);
+        cmd.execute();
+        List<FileSystemObject> files = cmd.getResult();
+        assertEquals(paths.size(), files.size());
+        assertNull(files.get(expected.size()));
+        assertEquals(expected, files.subList(0, expected.size()));
+        assertEquals(files, DirectoryReader.stat(paths, false, false));
+    }
+
+    /**
+     * Method that measures the list of a large directory with the {@link File} api,
+     * and with a single stat per entry (sequential and spread over the pool).
+     *
+     * @throws Exception If test failed
+     */
+    @LargeTest
+    public void testListThroughput() throws Exception {
+        createTree(this.mDir, BENCHMARK_FILES);
+
+        // Warm the caches of the file system
+        listWithFileApi(this.mDir);
+
+        long start = System.nanoTime();
+        List<FileSystemObject> legacy = listWithFileApi(this.mDir);
+        long legacyTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        List<FileSystemObject> sequential = DirectoryReader.read(this.mDir, false);
+        long sequentialTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        List<FileSystemObject> parallel = DirectoryReader.read(this.mDir, true);
+        long parallelTime = System.nanoTime() - start;
+
+        Log.v(TAG, String.format(
+                "list of %d entries: File=%dms, stat=%dms, stat (pool)=%dms", //$NON-NLS-1$
+                Integer.valueOf(BENCHMARK_FILES),
+                Long.valueOf(legacyTime / 1000000L),
+                Long.valueOf(sequentialTime / 1000000L),
+                Long.valueOf(parallelTime / 1000000L)));
+        assertEquals(legacy, sequential);
+        assertEquals(legacy, parallel);
+    }
+
+    /**
+     * Method that lists a directory through the {@link File} api.
+     *
+     * @param dir The directory
+     * @return List<FileSystemObject> The content of the directory
+     */
+    private List<FileSystemObject> listWithFileApi(File dir) {
+        File[] files = dir.listFiles();
+        List<FileSystemObject> result = new ArrayList<FileSystemObject>(files.length);
+        for (int i = 0; i < files.length; i++) {
+            result.add(FileHelper.createFileSystemObject(getContext(), files[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Method that creates the files and directories of a directory.
+     *
+     * @param dir The directory
+     * @param count The number of entries
+     * @throws Exception If the tree can't be created
+     */
+    private static void createTree(File dir, int count) throws Exception {
+        byte[] data = new byte[16];
+        for (int i = 0; i < count; i++) {
+            if (i % DIRECTORY_RATIO == 0) {
+                assertTrue(new File(dir, "dir" + i).mkdir()); //$NON-NLS-1$
+                continue;
+            }
+            FileOutputStream fos =
+                    new FileOutputStream(new File(dir, "file" + i + ".txt")); //$NON-NLS-1$ //$NON-NLS-2$
+            try {
+                fos.write(data, 0, i % data.length);
+            } finally {
+                fos.close();
+            }
+        }
+    }
+
+    /**
+     * Method that deletes a tree.
+     *
+     * @param file The root of the tree
+     */
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (int i = 0; i < files.length; i++) {
+                delete(files[i]);
+            }
+        }
+        file.delete();
+    }
+
+}
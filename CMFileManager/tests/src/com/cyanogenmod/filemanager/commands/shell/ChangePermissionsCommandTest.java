@@ -57,11 +57,13 @@ public class ChangePermissionsCommandTest extends AbstractConsoleTest {
             //Change the permissions
             Permissions oldpermissions = file.getPermissions();
             String oldOctalPermissions = oldpermissions.toOctalString();
-            boolean read = oldpermissions.getUser().isRead();
-            oldpermissions.getUser().setRead(!read);
+            // The permissions are immutable. Toggle the user read bit in a new instance
+            Permissions permissions = Permissions.valueOf(oldpermissions.toMode() ^ 0400);
+            assertTrue(
+                    permissions.getUser().isRead() != oldpermissions.getUser().isRead());
             boolean ret =
                     CommandHelper.changePermissions(
-                            getContext(), PATH_FILE, oldpermissions, getConsole());
+                            getContext(), PATH_FILE, permissions, getConsole());
             assertTrue("response==false", ret); //$NON-NLS-1$
 
             //List the files again
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.commands.shell;
+
+import android.content.res.Resources;
+import android.test.suitebuilder.annotation.LargeTest;
+import android.test.suitebuilder.annotation.SmallTest;
+import android.util.Log;
+
+import com.cyanogenmod.filemanager.FileManagerApplication;
+import com.cyanogenmod.filemanager.model.Permissions;
+
+/**
+ * A class for testing the command definition registry.
+ *
+ * @see CommandDefinitionRegistry
+ * @see FormatTemplate
+ */
+public class CommandDefinitionRegistryTest extends android.test.AndroidTestCase {
+
+    private static final String TAG = "CommandDefinitionRegistryTest"; //$NON-NLS-1$
+
+    private static final String[] IDS = {
+        "ls", "fileinfo", "find", "chmod", "chown", "cp", "mv", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
+        "rm", "mkdir", "echo", "pid_cmd", "sendsignal", "tar", "untar" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
+    };
+
+    private static final Object[] ARGS = {
+        "\"/sdcard/a b\"", "\"x\"", "\"y\"", "\"z\"", "\"w\"", "\"v\"" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+    };
+
+    private static final int ITERATIONS = 10000;
+
+    /**
+     * Method that performs a test over the format of the templates.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testFormatTemplate() throws Exception {
+        String[] patterns = {
+                "", //$NON-NLS-1$
+                "-l %1$s", //$NON-NLS-1$
+                "%2$s %1$s %2$s", //$NON-NLS-1$
+                "%s and %s", //$NON-NLS-1$
+                "100%% %1$s.%1$s*", //$NON-NLS-1$
+                "-%1$s %2$s", //$NON-NLS-1$
+                "%1$5s|%2$-3s|%3$S", //$NON-NLS-1$
+        };
+        for (int i = 0; i < patterns.length; i++) {
+            FormatTemplate template = new FormatTemplate(patterns[i]);
+            assertEquals(patterns[i],
+                    String.format(patterns[i], ARGS), template.format(ARGS));
+        }
+
+        // A missing argument must fail like the formatter does
+        try {
+            new FormatTemplate("%3$s").format("a", "b"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            fail("missing argument formatted"); //$NON-NLS-1$
+        } catch (java.util.MissingFormatArgumentException ex) {
+            /**NON BLOCK**/
+        }
+    }
+
+    /**
+     * Method that performs a test over the command definitions.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testDefinitions() throws Exception {
+        CommandDefinitionRegistry registry = CommandDefinitionRegistry.load(getResources());
+        assertTrue(registry.size() > 0);
+        for (int i = 0; i < IDS.length; i++) {
+            CommandDefinitionRegistry.Definition definition = registry.getDefinition(IDS[i]);
+            assertNotNull(definition.getPath());
+            assertEquals(IDS[i],
+                    String.format(definition.getArgs(), ARGS), definition.formatArgs(ARGS));
+        }
+        FormatTemplate[] codes = {
+                registry.getStartCode(), registry.getExitCode(), registry.getPidCode()
+        };
+        for (int i = 0; i < codes.length; i++) {
+            assertEquals(
+                    String.format(codes[i].getPattern(), "'/#1#/'", "'/#2#/'"), //$NON-NLS-1$ //$NON-NLS-2$
+                    codes[i].format("'/#1#/'", "'/#2#/'")); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+
+        try {
+            registry.getDefinition("__unknown__"); //$NON-NLS-1$
+            fail("unknown command found"); //$NON-NLS-1$
+        } catch (InvalidCommandDefinitionException icdEx) {
+            /**NON BLOCK**/
+        }
+    }
+
+    /**
+     * Method that measures the throughput of the creation of commands, compared
+     * with the parse of the command list.
+     *
+     * @throws Exception If test failed
+     */
+    @LargeTest
+    public void testCommandCreationThroughput() throws Exception {
+        // Warm up
+        Permissions permissions = Permissions.fromOctalString("0644"); //$NON-NLS-1$
+        CommandDefinitionRegistry.getInstance(getResources());
+        for (int i = 0; i < 100; i++) {
+            new ChangePermissionsCommand("/sdcard/file" + i, permissions); //$NON-NLS-1$
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            CommandDefinitionRegistry.load(getResources());
+        }
+        long parse = (System.nanoTime() - start) / 10;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            new ChangePermissionsCommand("/sdcard/file" + i, permissions); //$NON-NLS-1$
+            new EchoCommand("message" + i); //$NON-NLS-1$
+        }
+        long create = (System.nanoTime() - start) / (ITERATIONS * 2);
+
+        Log.i(TAG, String.format(
+                "parse of the command list: %dus, command creation: %dns (%d commands/s)", //$NON-NLS-1$
+                Long.valueOf(parse / 1000L),
+                Long.valueOf(create),
+                Long.valueOf(1000000000L / Math.max(1L, create))));
+        assertTrue("command creation isn't cheaper than a parse", //$NON-NLS-1$
+                create < parse);
+    }
+
+    /**
+     * Method that returns the resources of the application.
+     *
+     * @return Resources The resources of the application
+     */
+    private static Resources getResources() {
+        return FileManagerApplication.getInstance().getResources();
+    }
+
+}
@@ -80,6 +80,43 @@ public class ListCommandTest extends AbstractConsoleTest {
                 file.getName().compareTo(LS_INFOFILE_NAME) == 0);
     }
 
+    /**
+     * Method that performs a test over the list of a directory with a dangling symlink.
+     *
+     * @throws Exception If test failed
+     */
+    @MediumTest
+    public void testListDanglingLink() throws Exception {
+        String dir = getContext().getFilesDir().getAbsolutePath() + "/ls-dangling"; //$NON-NLS-1$
+        String file = dir + "/file.txt"; //$NON-NLS-1$
+        String link = dir + "/dangling"; //$NON-NLS-1$
+        try {
+            CommandHelper.createDirectory(getContext(), dir, getConsole());
+            CommandHelper.createFile(getContext(), file, getConsole());
+            CommandHelper.createLink(
+                    getContext(), dir + "/missing.txt", link, getConsole()); //$NON-NLS-1$
+
+            List<FileSystemObject> files = CommandHelper.listFiles(getContext(), dir, getConsole());
+            assertNotNull("files==null", files); //$NON-NLS-1$
+            FileSystemObject dangling = null;
+            boolean hasFile = false;
+            for (FileSystemObject fso : files) {
+                if (fso.getName().compareTo("dangling") == 0) { //$NON-NLS-1$
+                    dangling = fso;
+                } else if (fso.getName().compareTo("file.txt") == 0) { //$NON-NLS-1$
+                    hasFile = true;
+                }
+            }
+            assertTrue("file.txt not listed", hasFile); //$NON-NLS-1$
+            assertNotNull("dangling not listed", dangling); //$NON-NLS-1$
+            assertTrue("dangling is not a symlink", dangling instanceof Symlink); //$NON-NLS-1$
+        } finally {
+            try {
+                CommandHelper.deleteDirectory(getContext(), dir, getConsole());
+            } catch (Exception e) {/**NON BLOCK**/}
+        }
+    }
+
     /**
      * Method that performs a test over a known parse result.
      *
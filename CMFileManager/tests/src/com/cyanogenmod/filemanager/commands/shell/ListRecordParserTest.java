@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.commands.shell;
+
+import android.test.suitebuilder.annotation.LargeTest;
+import android.test.suitebuilder.annotation.SmallTest;
+import android.util.Log;
+
+import com.cyanogenmod.filemanager.model.Directory;
+import com.cyanogenmod.filemanager.model.FileSystemObject;
+import com.cyanogenmod.filemanager.model.NamedPipe;
+import com.cyanogenmod.filemanager.model.RegularFile;
+import com.cyanogenmod.filemanager.model.Symlink;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A class for testing the parser of the structured directory listing.
+ *
+ * @see ListRecordParser
+ */
+public class ListRecordParserTest extends android.test.AndroidTestCase {
+
+    private static final String TAG = "ListRecordParserTest"; //$NON-NLS-1$
+
+    private static final String PARENT = "/sdcard/test"; //$NON-NLS-1$
+
+    // The listing of a directory (the format of the GNU stat, with quoted and escaped names)
+    private static final String LISTING =
+            "a1ff/0/root/0/root/9/1350000000/./broken/'./broken' -> '/nonexist'\n" + //$NON-NLS-1$
+            "81a4/1000/system/1015/sdcard_rw/0/1350000000/./nl\n" + //$NON-NLS-1$
+            "name/'./nl'$'\\n''name'\n" + //$NON-NLS-1$
+            "81a4/1000/system/1015/sdcard_rw/3/1350000000/./a b.txt/'./a b.txt'\n" + //$NON-NLS-1$
+            "11a4/0/root/0/root/0/1350000000/./fifo/'./fifo'\n" + //$NON-NLS-1$
+            "a1ff/0/root/0/root/7/1350000000/./l->x/'./l->x' -> 'a b.txt'\n" + //$NON-NLS-1$
+            "a1ff/0/root/0/root/3/1350000000/./lnk/./lnk -> sub\n" + //$NON-NLS-1$
+            "41ed/0/root/0/root/4096/1350000000/./sub/./sub\n" + //$NON-NLS-1$
+            "@81a4/1000/system/1015/sdcard_rw/3/1350000000/./l->x/\n" + //$NON-NLS-1$
+            "@41ed/0/root/0/root/4096/1350000000/./lnk/\n"; //$NON-NLS-1$
+
+    /**
+     * Method that performs a test over the parse of a listing.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testParse() throws Exception {
+        List<FileSystemObject> files = new ArrayList<FileSystemObject>();
+        new ListRecordParser(LISTING).parse(PARENT, files);
+        assertEquals(7, files.size());
+
+        // Broken symlink
+        Symlink broken = (Symlink)files.get(0);
+        assertEquals("broken", broken.getName()); //$NON-NLS-1$
+        assertEquals("/nonexist", broken.getLink()); //$NON-NLS-1$
+        assertNull(broken.getLinkRef());
+        // A broken symlink isn't resolved again
+        assertTrue(broken.isLinkResolved());
+
+        // A name with a new line
+        RegularFile nl = (RegularFile)files.get(1);
+        assertEquals("nl\nname", nl.getName()); //$NON-NLS-1$
+        assertEquals(PARENT, nl.getParent());
+        assertEquals(1000, nl.getUser().getId());
+        assertEquals("sdcard_rw", nl.getGroup().getName()); //$NON-NLS-1$
+        assertEquals("rw-r--r--", nl.getPermissions().toRawString()); //$NON-NLS-1$
+        assertEquals(1350000000000L, nl.getLastModifiedTime().getTime());
+
+        // A name with spaces
+        RegularFile ab = (RegularFile)files.get(2);
+        assertEquals("a b.txt", ab.getName()); //$NON-NLS-1$
+        assertEquals(3L, ab.getSize());
+
+        assertTrue(files.get(3) instanceof NamedPipe);
+
+        // A symlink with "->" in the name
+        Symlink lx = (Symlink)files.get(4);
+        assertEquals("l->x", lx.getName()); //$NON-NLS-1$
+        assertEquals("a b.txt", lx.getLink()); //$NON-NLS-1$
+        assertTrue(lx.getLinkRef() instanceof RegularFile);
+        assertEquals(PARENT + "/a b.txt", lx.getLinkRef().getFullPath()); //$NON-NLS-1$
+
+        // An unquoted symlink to a directory
+        Symlink lnk = (Symlink)files.get(5);
+        assertEquals("sub", lnk.getLink()); //$NON-NLS-1$
+        assertTrue(lnk.getLinkRef() instanceof Directory);
+
+        assertTrue(files.get(6) instanceof Directory);
+    }
+
+    /**
+     * Method that performs a test over the parse of symlinks with relative targets. The
+     * targets are referenced by their normalized paths.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testParseRelativeLinks() throws Exception {
+        String listing =
+                "a1ff/0/root/0/root/4/1350000000/./up/'./up' -> '../x'\n" + //$NON-NLS-1$
+                "a1ff/0/root/0/root/3/1350000000/./cur/'./cur' -> './y'\n" + //$NON-NLS-1$
+                "a1ff/0/root/0/root/8/1350000000/./mid/'./mid' -> 'a/../b/z'\n" + //$NON-NLS-1$
+                "@81a4/0/root/0/root/1/1350000000/./up/\n" + //$NON-NLS-1$
+                "@81a4/0/root/0/root/1/1350000000/./cur/\n" + //$NON-NLS-1$
+                "@81a4/0/root/0/root/1/1350000000/./mid/\n"; //$NON-NLS-1$
+        List<FileSystemObject> files = new ArrayList<FileSystemObject>();
+        new ListRecordParser(listing).parse(PARENT, files);
+        assertEquals(3, files.size());
+
+        Symlink up = (Symlink)files.get(0);
+        assertEquals("../x", up.getLink()); //$NON-NLS-1$
+        assertEquals("/sdcard/x", up.getLinkRef().getFullPath()); //$NON-NLS-1$
+        assertEquals("/sdcard", up.getLinkRef().getParent()); //$NON-NLS-1$
+
+        Symlink cur = (Symlink)files.get(1);
+        assertEquals(PARENT + "/y", cur.getLinkRef().getFullPath()); //$NON-NLS-1$
+
+        Symlink mid = (Symlink)files.get(2);
+        assertEquals(PARENT + "/b/z", mid.getLinkRef().getFullPath()); //$NON-NLS-1$
+    }
+
+    /**
+     * Method that performs a test over the parse of a listing split at every position,
+     * as it is read by an asynchronous listing.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testParsePartial() throws Exception {
+        List<FileSystemObject> expected = new ArrayList<FileSystemObject>();
+        new ListRecordParser(LISTING).parse(PARENT, expected);
+
+        for (int i = 0; i <= LISTING.length(); i++) {
+            List<FileSystemObject> files = new ArrayList<FileSystemObject>();
+            Map<String, Symlink> symlinks = new HashMap<String, Symlink>();
+            StringBuilder partial = new StringBuilder(LISTING.substring(0, i));
+            int parsed = new ListRecordParser(partial).parsePartial(PARENT, files, symlinks);
+            partial.delete(0, parsed);
+            partial.append(LISTING.substring(i));
+            parsed = new ListRecordParser(partial).parsePartial(PARENT, files, symlinks);
+            partial.delete(0, parsed);
+            new ListRecordParser(partial).parse(PARENT, files);
+
+            assertEquals("split at " + i, expected, files); //$NON-NLS-1$
+            Symlink lx = (Symlink)files.get(4);
+            assertTrue("split at " + i, lx.getLinkRef() instanceof RegularFile); //$NON-NLS-1$
+        }
+
+        // A record is never parsed until it is complete
+        List<FileSystemObject> files = new ArrayList<FileSystemObject>();
+        String record = "81a4/1000/system/1015/sdcard_rw/3/1350000000/./a/'./a'"; //$NON-NLS-1$
+        assertEquals(0, new ListRecordParser(record).parsePartial(
+                PARENT, files, new HashMap<String, Symlink>()));
+        assertEquals(0, files.size());
+    }
+
+    /**
+     * Method that performs a test over the parse of an invalid listing.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testParseInvalid() throws Exception {
+        String[] invalid = {
+                "81a4/0/root/0/root/0/./file/./file\n", //$NON-NLS-1$
+                "zz/0/root/0/root/0/1350000000/./file/./file\n", //$NON-NLS-1$
+                "81a4/0/root/0/root/0/1350000000/file/file\n", //$NON-NLS-1$
+                "81a4/0/root/0/root/0/1350000000/./file/./file/trailing\n", //$NON-NLS-1$
+        };
+        for (int i = 0; i < invalid.length; i++) {
+            try {
+                new ListRecordParser(invalid[i]).parse(
+                        PARENT, new ArrayList<FileSystemObject>());
+                fail("parsed: " + invalid[i]); //$NON-NLS-1$
+            } catch (ParseException pEx) {
+                /**NON BLOCK**/
+            }
+        }
+
+        // An empty listing is an empty directory
+        List<FileSystemObject> files = new ArrayList<FileSystemObject>();
+        new ListRecordParser("\n").parse(PARENT, files); //$NON-NLS-1$
+        assertEquals(0, files.size());
+    }
+
+    /**
+     * Method that measures the parse of a large listing.
+     *
+     * @throws Exception If test failed
+     */
+    @LargeTest
+    public void testParseThroughput() throws Exception {
+        final int count = 10000;
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            String name = "file" + i + ".txt"; //$NON-NLS-1$ //$NON-NLS-2$
+            sb.append("81a4/1000/system/1015/sdcard_rw/") //$NON-NLS-1$
+              .append(i).append("/1350000000/./").append(name) //$NON-NLS-1$
+              .append("/'./").append(name).append("'\n"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        String listing = sb.toString();
+
+        List<FileSystemObject> files = new ArrayList<FileSystemObject>(count);
+        long start = System.currentTimeMillis();
+        new ListRecordParser(listing).parse(PARENT, files);
+        long elapsed = System.currentTimeMillis() - start;
+        assertEquals(count, files.size());
+        Log.v(TAG, String.format(
+                "parse of %d records: %dms", //$NON-NLS-1$
+                Integer.valueOf(count), Long.valueOf(elapsed)));
+    }
+
+}
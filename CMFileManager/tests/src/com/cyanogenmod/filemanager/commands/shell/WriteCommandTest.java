@@ -16,7 +16,9 @@
 
 package com.cyanogenmod.filemanager.commands.shell;
 
+import java.io.ByteArrayOutputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.Random;
 
 import android.os.Environment;
@@ -38,6 +40,8 @@ public class WriteCommandTest extends AbstractConsoleTest {
             Environment.getDataDirectory().getAbsolutePath() + "/write-test-s.txt"; //$NON-NLS-1$
     private static final String WRITE_FILE_LARGE =
             Environment.getDataDirectory().getAbsolutePath() + "/write-test-l.txt"; //$NON-NLS-1$
+    private static final String WRITE_FILE_BINARY =
+            Environment.getDataDirectory().getAbsolutePath() + "/write-test-b.bin"; //$NON-NLS-1$
     private static final byte[] TEST_DATA = new byte[]{(byte)33, (byte)36, '\n'};
 
     private static final int DATA_SIZE = 4096;
@@ -119,4 +123,92 @@ public class WriteCommandTest extends AbstractConsoleTest {
         }
     }
 
+    /**
+     * Method that performs a write and read test of binary data (the data is
+     * transferred through a named pipe, so it must not be altered).
+     *
+     * @throws Exception If an exception occurs while executing the test
+     */
+    @LargeTest
+    public void testBinaryWriteAndRead() throws Exception {
+        try {
+            byte[] data = new byte[DATA_SIZE * 64];
+            new Random().nextBytes(data);
+
+            // Write the data
+            final Object sync = new Object();
+            final boolean[] finished = {false};
+            final boolean[] writeCancelled = {false};
+            final int[] writeExitCode = {-1};
+            WriteExecutable cmd =
+                    CommandHelper.write(getContext(),
+                    WRITE_FILE_BINARY, new AsyncResultListener() {
+                            public void onAsyncStart() {/**NON BLOCK**/}
+                            public void onAsyncEnd(boolean cancelled) {
+                                synchronized (sync) {
+                                    writeCancelled[0] = cancelled;
+                                }
+                            }
+                            public void onAsyncExitCode(int exitCode) {
+                                synchronized (sync) {
+                                    writeExitCode[0] = exitCode;
+                                    finished[0] = true;
+                                    sync.notify();
+                                }
+                            }
+                            public void onException(Exception cause) {
+                                fail(String.valueOf(cause));
+                            }
+                            public void onPartialResult(Object results) {/**NON BLOCK**/}
+                       }, getConsole());
+            OutputStream os = cmd.createOutputStream();
+            os.write(data, 0, data.length);
+            cmd.end();
+            synchronized (sync) {
+                if (!finished[0]) {
+                    sync.wait(15000L);
+                }
+            }
+            assertTrue("write not finished", finished[0]); //$NON-NLS-1$
+            synchronized (sync) {
+                // The program ends by itself. It must not be killed
+                assertEquals("write exit code", 0, writeExitCode[0]); //$NON-NLS-1$
+                assertFalse("write cancelled", writeCancelled[0]); //$NON-NLS-1$
+            }
+
+            // Read the data back
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            finished[0] = false;
+            CommandHelper.read(getContext(),
+                    WRITE_FILE_BINARY, new AsyncResultListener() {
+                            public void onAsyncStart() {/**NON BLOCK**/}
+                            public void onAsyncEnd(boolean cancelled) {/**NON BLOCK**/}
+                            public void onAsyncExitCode(int exitCode) {
+                                synchronized (sync) {
+                                    finished[0] = true;
+                                    sync.notify();
+                                }
+                            }
+                            public void onException(Exception cause) {
+                                fail(String.valueOf(cause));
+                            }
+                            public void onPartialResult(Object results) {
+                                byte[] partial = (byte[])results;
+                                baos.write(partial, 0, partial.length);
+                            }
+                       }, getConsole());
+            synchronized (sync) {
+                if (!finished[0]) {
+                    sync.wait(15000L);
+                }
+            }
+            assertTrue("read not finished", finished[0]); //$NON-NLS-1$
+            assertTrue("data != read", Arrays.equals(data, baos.toByteArray())); //$NON-NLS-1$
+        } finally {
+            try {
+                CommandHelper.deleteFile(getContext(), WRITE_FILE_BINARY, getConsole());
+            } catch (Exception e) {/**NON BLOCK**/}
+        }
+    }
+
 }
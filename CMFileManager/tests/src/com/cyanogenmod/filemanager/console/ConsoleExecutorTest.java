@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.console;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A class for testing the executor of the consoles.
+ *
+ * @see ConsoleExecutor
+ */
+public class ConsoleExecutorTest extends android.test.AndroidTestCase {
+
+    /**
+     * Method that performs a test over the bound of threads of the executor.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testBoundedThreads() throws Exception {
+        final int max = 3;
+        final int tasks = 20;
+        final ConsoleExecutor executor = new ConsoleExecutor("test", max, 1000L); //$NON-NLS-1$
+        final Object sync = new Object();
+        final boolean[] release = {false};
+        final int[] running = {0, 0, 0}; // current, max, done
+        for (int i = 0; i < tasks; i++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (sync) {
+                        running[0]++;
+                        running[1] = Math.max(running[1], running[0]);
+                        while (!release[0]) {
+                            try {
+                                sync.wait();
+                            } catch (InterruptedException e) {
+                                /**NON BLOCK**/
+                            }
+                        }
+                        running[0]--;
+                        running[2]++;
+                        sync.notifyAll();
+                    }
+                }
+            });
+        }
+
+        // Wait for all the threads to be busy (running the tasks)
+        long end = System.currentTimeMillis() + 5000L;
+        synchronized (sync) {
+            while (running[0] < max && System.currentTimeMillis() < end) {
+                sync.wait(10L);
+            }
+        }
+        assertEquals(max, executor.getPoolSize());
+        assertEquals(max, executor.getActiveCount());
+        assertEquals(tasks - max, executor.getQueueSize());
+
+        // Release the tasks and wait for all of them
+        synchronized (sync) {
+            release[0] = true;
+            sync.notifyAll();
+            while (running[2] < tasks) {
+                sync.wait(5000L);
+            }
+        }
+        assertEquals(max, running[1]);
+        end = System.currentTimeMillis() + 5000L;
+        while (executor.getCompletedCount() < tasks && System.currentTimeMillis() < end) {
+            Thread.sleep(10L);
+        }
+        assertEquals(tasks, executor.getCompletedCount());
+        assertEquals(0, executor.getQueueSize());
+    }
+
+    /**
+     * Method that performs a test over the order of the queued tasks.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testFifoOrder() throws Exception {
+        final ConsoleExecutor executor = new ConsoleExecutor("test", 1, 1000L); //$NON-NLS-1$
+        final List<Integer> order = new ArrayList<Integer>();
+        final int tasks = 50;
+        for (int i = 0; i < tasks; i++) {
+            final int id = i;
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (order) {
+                        order.add(Integer.valueOf(id));
+                        order.notifyAll();
+                    }
+                }
+            });
+        }
+        synchronized (order) {
+            long end = System.currentTimeMillis() + 5000L;
+            while (order.size() < tasks && System.currentTimeMillis() < end) {
+                order.wait(100L);
+            }
+        }
+        assertEquals(tasks, order.size());
+        for (int i = 0; i < tasks; i++) {
+            assertEquals(Integer.valueOf(i), order.get(i));
+        }
+        assertEquals(1, executor.getPoolSize());
+    }
+
+    /**
+     * Method that performs a test over the end of the idle threads.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testKeepAlive() throws Exception {
+        final ConsoleExecutor executor = new ConsoleExecutor("test", 2, 50L); //$NON-NLS-1$
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                /**NON BLOCK**/
+            }
+        });
+        long end = System.currentTimeMillis() + 5000L;
+        while (executor.getPoolSize() > 0 && System.currentTimeMillis() < end) {
+            Thread.sleep(10L);
+        }
+        assertEquals(0, executor.getPoolSize());
+        assertEquals(1, executor.getCompletedCount());
+    }
+
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.console;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import com.cyanogenmod.filemanager.commands.Executable;
+import com.cyanogenmod.filemanager.commands.ExecutableFactory;
+import com.cyanogenmod.filemanager.commands.SIGNAL;
+import com.cyanogenmod.filemanager.model.Identity;
+
+/**
+ * A class for testing the pool of consoles.
+ *
+ * @see ConsolePool
+ */
+public class ConsolePoolTest extends android.test.AndroidTestCase {
+
+    /**
+     * A console that only tracks its executions.
+     */
+    private static class MockConsole extends Console {
+        boolean mActive = true;
+        public MockConsole() {
+            super();
+        }
+        void begin() {
+            beginExecution();
+        }
+        void end() {
+            endExecution();
+        }
+        @Override
+        public Identity getIdentity() {
+            return null;
+        }
+        @Override
+        public void alloc() {
+            this.mActive = true;
+        }
+        @Override
+        public void dealloc() {
+            this.mActive = false;
+        }
+        @Override
+        public void realloc() {
+            this.mActive = true;
+        }
+        @Override
+        public boolean isPrivileged() {
+            return false;
+        }
+        @Override
+        public boolean isActive() {
+            return this.mActive;
+        }
+        @Override
+        public ExecutableFactory getExecutableFactory() {
+            return null;
+        }
+        @Override
+        public void execute(Executable executable) {
+            /**NON BLOCK**/
+        }
+        @Override
+        public boolean onCancel() {
+            return false;
+        }
+        @Override
+        public boolean onSendSignal(SIGNAL signal) {
+            return false;
+        }
+        @Override
+        public boolean onEnd() {
+            return false;
+        }
+    }
+
+    /**
+     * A factory of mock consoles.
+     */
+    private static class MockConsoleFactory implements ConsolePool.ConsoleFactory {
+        int mCreated = 0;
+        @Override
+        public Console createConsole() {
+            this.mCreated++;
+            return new MockConsole();
+        }
+    }
+
+    /**
+     * Method that performs a test over leasing idle and new consoles.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testLeaseIdleAndGrow() throws Exception {
+        MockConsole primary = new MockConsole();
+        MockConsoleFactory factory = new MockConsoleFactory();
+        ConsolePool pool = new ConsolePool(primary, 2, factory, 50L);
+        try {
+            // The primary console is idle
+            assertSame(primary, pool.lease());
+            primary.begin();
+
+            // The primary console is busy. A new console must be created
+            MockConsole second = (MockConsole)pool.lease();
+            assertNotSame(primary, second);
+            assertEquals(1, factory.mCreated);
+            assertEquals(2, pool.getSize());
+            second.begin();
+            second.begin();
+
+            // All consoles are busy and the pool is full. Share the least busy console
+            assertSame(primary, pool.lease());
+            assertEquals(1, factory.mCreated);
+
+            // Once idle, the console is reused
+            second.end();
+            second.end();
+            assertSame(second, pool.lease());
+            assertEquals(1, factory.mCreated);
+        } finally {
+            pool.dispose();
+        }
+    }
+
+    /**
+     * Method that performs a test over waiting for a busy console to become idle.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testLeaseWaitsForIdle() throws Exception {
+        final MockConsole primary = new MockConsole();
+        ConsolePool pool = new ConsolePool(primary, 1, new MockConsoleFactory(), 10000L);
+        try {
+            primary.begin();
+            Thread t = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        Thread.sleep(100L);
+                    } catch (InterruptedException ex) {
+                        /**NON BLOCK**/
+                    }
+                    primary.end();
+                }
+            };
+            long start = System.currentTimeMillis();
+            t.start();
+            assertSame(primary, pool.lease());
+            long elapsed = System.currentTimeMillis() - start;
+            assertTrue(String.format("elapsed: %d", Long.valueOf(elapsed)), //$NON-NLS-1$
+                    elapsed < 5000L);
+            assertEquals(0, primary.getExecutions());
+        } finally {
+            pool.dispose();
+        }
+    }
+
+    /**
+     * Method that performs a test over the deallocation of the consoles of the pool.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testDispose() throws Exception {
+        MockConsole primary = new MockConsole();
+        ConsolePool pool = new ConsolePool(primary, 2, new MockConsoleFactory(), 50L);
+        primary.begin();
+        MockConsole second = (MockConsole)pool.lease();
+        pool.dispose();
+        assertTrue(primary.isActive());
+        assertFalse(second.isActive());
+        assertSame(primary, pool.lease());
+    }
+
+}
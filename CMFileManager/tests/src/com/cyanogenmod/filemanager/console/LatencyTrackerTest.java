@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.console;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+/**
+ * A class for testing the adaptive timeouts of the consoles.
+ *
+ * @see LatencyTracker
+ */
+public class LatencyTrackerTest extends android.test.AndroidTestCase {
+
+    private static final String FAST = "pwd"; //$NON-NLS-1$
+    private static final String SLOW = "cp"; //$NON-NLS-1$
+
+    /**
+     * Method that performs a test over the timeout of a command without history.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testHint() throws Exception {
+        LatencyTracker tracker = new LatencyTracker(100L);
+        assertEquals(0, tracker.getSamples(FAST));
+        assertEquals(3000L, tracker.getTimeout(FAST, 3000L));
+        // The hint is bounded by the minimum timeout
+        assertEquals(100L, tracker.getTimeout(FAST, 10L));
+    }
+
+    /**
+     * Method that performs a test over the adaptation of the timeout to the
+     * observed latency.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testAdaptiveTimeout() throws Exception {
+        LatencyTracker tracker = new LatencyTracker(100L);
+
+        // A fast command reaches the minimum timeout
+        for (int i = 0; i < 20; i++) {
+            tracker.record(FAST, 5L);
+        }
+        assertEquals(20, tracker.getSamples(FAST));
+        assertEquals(100L, tracker.getTimeout(FAST, 5000L));
+
+        // A slow command gets a timeout over its latency
+        for (int i = 0; i < 20; i++) {
+            tracker.record(SLOW, 2000L + (i % 2) * 400L);
+        }
+        long timeout = tracker.getTimeout(SLOW, 100L);
+        assertTrue("timeout=" + timeout, timeout > 2400L); //$NON-NLS-1$
+        assertTrue("timeout=" + timeout, timeout < 5000L); //$NON-NLS-1$
+
+        // The history of the commands is independent
+        assertEquals(100L, tracker.getTimeout(FAST, 5000L));
+
+        tracker.clear();
+        assertEquals(0, tracker.getSamples(SLOW));
+    }
+
+    /**
+     * Method that performs a test over the increase of the timeout when the latency
+     * of a command grows.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testLatencyIncrease() throws Exception {
+        LatencyTracker tracker = new LatencyTracker(100L);
+        for (int i = 0; i < 10; i++) {
+            tracker.record(SLOW, 200L);
+        }
+        long before = tracker.getTimeout(SLOW, 100L);
+        tracker.record(SLOW, 3000L);
+        long after = tracker.getTimeout(SLOW, 100L);
+        // The deviation reacts faster than the mean
+        assertTrue("before=" + before + ", after=" + after, after > before + 1000L); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+}
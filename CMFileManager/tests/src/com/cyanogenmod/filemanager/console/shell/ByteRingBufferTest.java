@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.console.shell;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import java.nio.charset.Charset;
+
+/**
+ * A class for testing the byte ring buffer and the incremental decoder of the
+ * console output.
+ *
+ * @see ByteRingBuffer
+ * @see StreamDecoder
+ */
+public class ByteRingBufferTest extends android.test.AndroidTestCase {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8"); //$NON-NLS-1$
+
+    // Mixes 1, 2, 3 and 4 bytes UTF-8 characters
+    private static final String TEXT =
+            "/sdcard/Música/日本語/café 😀.mp3\n"; //$NON-NLS-1$
+
+    /**
+     * Method that performs a test over the bytes retained by the buffer.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testRetainsTail() throws Exception {
+        ByteRingBuffer buffer = new ByteRingBuffer(8);
+        buffer.write("abc".getBytes(), 0, 3); //$NON-NLS-1$
+        assertEquals("abc", new String(buffer.toByteArray())); //$NON-NLS-1$
+        assertFalse(buffer.isTruncated());
+        buffer.write("defgh".getBytes(), 0, 5); //$NON-NLS-1$
+        assertEquals("abcdefgh", new String(buffer.toByteArray())); //$NON-NLS-1$
+        buffer.write("ij".getBytes(), 0, 2); //$NON-NLS-1$
+        assertEquals("cdefghij", new String(buffer.toByteArray())); //$NON-NLS-1$
+        assertTrue(buffer.isTruncated());
+        buffer.write("0123456789".getBytes(), 0, 10); //$NON-NLS-1$
+        assertEquals("23456789", new String(buffer.toByteArray())); //$NON-NLS-1$
+        assertEquals(8, buffer.size());
+
+        // A lower limit
+        buffer.reset(4);
+        buffer.write("abcdef".getBytes(), 1, 5); //$NON-NLS-1$
+        assertEquals("cdef", new String(buffer.toByteArray())); //$NON-NLS-1$
+        assertEquals(8, buffer.getCapacity());
+    }
+
+    /**
+     * Method that performs a test over the decode of a truncated buffer.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testDecodeTruncated() throws Exception {
+        byte[] data = "ééé".getBytes(UTF8); //$NON-NLS-1$
+        ByteRingBuffer buffer = new ByteRingBuffer(5);
+        buffer.write(data, 0, data.length);
+        // The first character was cut in the middle. It must be skipped
+        assertEquals("éé", buffer.decode(UTF8)); //$NON-NLS-1$
+    }
+
+    /**
+     * Method that performs a test over the decode of multi-byte characters split
+     * in several blocks.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testIncrementalDecode() throws Exception {
+        byte[] data = TEXT.getBytes(UTF8);
+        for (int block = 1; block <= data.length; block++) {
+            StreamDecoder decoder = new StreamDecoder(UTF8, 4);
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < data.length; i += block) {
+                sb.append(decoder.decode(data, i, Math.min(block, data.length - i)));
+            }
+            assertEquals("block=" + block, TEXT, sb.toString()); //$NON-NLS-1$
+        }
+    }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.console.shell;
+
+import android.test.suitebuilder.annotation.LargeTest;
+import android.test.suitebuilder.annotation.SmallTest;
+import android.util.Log;
+
+/**
+ * A class for testing the control marker matcher.
+ *
+ * @see ControlMarkerMatcher
+ */
+public class ControlMarkerMatcherTest extends android.test.AndroidTestCase {
+
+    private static final String TAG = "ControlMarkerMatcherTest"; //$NON-NLS-1$
+
+    private static final String START1 = "/#1234#/"; //$NON-NLS-1$
+    private static final String START2 = "/#-5678#/"; //$NON-NLS-1$
+    private static final String END1 = "/#4321#/"; //$NON-NLS-1$
+    private static final String END2 = "/#-8765#/"; //$NON-NLS-1$
+
+    // The runs of every measure, and the maximum growth of the cost per byte
+    private static final int RUNS = 5;
+    private static final double MAX_COST_FACTOR = 4.0;
+
+    private static final String LINE =
+            "-rw-r--r-- root     root          229 2012-05-04 01:51 boot.txt\n"; //$NON-NLS-1$
+
+    /**
+     * Method that performs a test over a framed output split in chunks of every size.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testFramedOutput() throws Exception {
+        String data = "\n\n" + START1 + "0" + START2 + "\n" + //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                      "a /#1234 b\n" + END1 + "1" + END1 + "12" + //$NON-NLS-1$ //$NON-NLS-2$
+                      END1 + "127" + END2 + "\n"; //$NON-NLS-1$ //$NON-NLS-2$
+        String expected = "a /#1234 b\n" + END1 + "1" + END1 + "12"; //$NON-NLS-1$ //$NON-NLS-2$
+        for (int chunk = 1; chunk <= data.length(); chunk++) {
+            StringBuilder out = new StringBuilder();
+            int code = scan(data, chunk, out);
+            assertEquals("out != expected", expected, out.toString()); //$NON-NLS-1$
+            assertEquals("code != 127", 127, code); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Method that performs a test over an output without end marker.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testUnterminatedOutput() throws Exception {
+        ControlMarkerMatcher end = new ControlMarkerMatcher(END1, END2, false);
+        String data = "abc" + END1 + "1234" + END2; //$NON-NLS-1$ //$NON-NLS-2$
+        StringBuilder out = new StringBuilder();
+        assertEquals("marker found", -1, end.scan(data, 0, data.length(), out)); //$NON-NLS-1$
+        assertFalse("isMatched", end.isMatched()); //$NON-NLS-1$
+        assertEquals("code != -1", -1, end.getCode()); //$NON-NLS-1$
+    }
+
+    /**
+     * Method that measures that the cost of the scan is linear in the size of the output.
+     *
+     * @throws Exception If test failed
+     */
+    @LargeTest
+    public void testLinearCost() throws Exception {
+        final int chunk = 4096;
+        int[] sizes = {1000, 10000, 100000};
+        double[] costs = new double[sizes.length];
+        for (int i = 0; i < sizes.length; i++) {
+            StringBuilder sb = new StringBuilder(START1 + "0" + START2 + "\n"); //$NON-NLS-1$ //$NON-NLS-2$
+            for (int j = 0; j < sizes[i]; j++) {
+                sb.append(LINE);
+            }
+            sb.append(END1 + "0" + END2 + "\n"); //$NON-NLS-1$ //$NON-NLS-2$
+            String data = sb.toString();
+
+            // Warm up
+            scan(data, chunk, new StringBuilder(data.length()));
+
+            // The best of some runs, to discard the pauses of the gc and the scheduler
+            long best = Long.MAX_VALUE;
+            for (int j = 0; j < RUNS; j++) {
+                long start = System.nanoTime();
+                StringBuilder out = new StringBuilder(data.length());
+                assertEquals("code != 0", 0, scan(data, chunk, out)); //$NON-NLS-1$
+                best = Math.min(best, System.nanoTime() - start);
+                assertEquals("out.length", sizes[i] * LINE.length(), out.length()); //$NON-NLS-1$
+            }
+            costs[i] = (double)best / data.length();
+
+            Log.i(TAG, String.format(
+                    "%d bytes: %d us (%.2f ns/byte)", //$NON-NLS-1$
+                    Integer.valueOf(data.length()),
+                    Long.valueOf(best / 1000L),
+                    Double.valueOf(costs[i])));
+        }
+
+        // The cost per byte must be almost the same for every size (a quadratic scan
+        // costs 10 times more per byte with 10 times more data)
+        for (int i = 1; i < sizes.length; i++) {
+            assertTrue(String.format(
+                    "scan is not linear: %.2f ns/byte vs %.2f ns/byte", //$NON-NLS-1$
+                    Double.valueOf(costs[i]), Double.valueOf(costs[i - 1])),
+                    costs[i] <= costs[i - 1] * MAX_COST_FACTOR);
+        }
+    }
+
+    /**
+     * Method that scans the data in chunks as the console does.
+     *
+     * @param data The framed data
+     * @param chunk The size of the chunks
+     * @param out Where to put the data of the program
+     * @return int The exit code, or -1 if the end marker wasn't found
+     */
+    private static int scan(String data, int chunk, StringBuilder out) {
+        ControlMarkerMatcher start = new ControlMarkerMatcher(START1, START2, true);
+        ControlMarkerMatcher end = new ControlMarkerMatcher(END1, END2, false);
+        boolean started = false;
+        int cc = data.length();
+        for (int i = 0; i < cc; i += chunk) {
+            int offset = i;
+            int count = Math.min(chunk, cc - i);
+            if (!started) {
+                int pos = start.scan(data, offset, count, null);
+                if (pos == -1) {
+                    continue;
+                }
+                started = true;
+                count -= pos - offset;
+                offset = pos;
+            }
+            if (end.scan(data, offset, count, out) != -1) {
+                return end.getCode();
+            }
+        }
+        return -1;
+    }
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.console.shell;
+
+import android.test.suitebuilder.annotation.MediumTest;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * A class for testing the named pipes used to transfer the data of the programs.
+ *
+ * @see NamedPipe
+ */
+public class NamedPipeTest extends android.test.AndroidTestCase {
+
+    private static final String MKFIFO = "/system/xbin/mkfifo"; //$NON-NLS-1$
+
+    /**
+     * @hide
+     */
+    NamedPipe mPipe;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void setUp() throws Exception {
+        File file = new File(getContext().getCacheDir(), "test-fifo"); //$NON-NLS-1$
+        file.delete();
+        Process p = Runtime.getRuntime().exec(
+                new String[]{MKFIFO, "-m", "0666", file.getAbsolutePath()}); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals(0, p.waitFor());
+        this.mPipe = new NamedPipe(file);
+        super.setUp();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void tearDown() throws Exception {
+        this.mPipe.delete();
+        super.tearDown();
+    }
+
+    /**
+     * Method that performs a test over the transfer of binary data through the pipe.
+     *
+     * @throws Exception If test failed
+     */
+    @MediumTest
+    public void testBinaryTransfer() throws Exception {
+        final byte[] data = new byte[256 * 1024];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte)(i * 31);
+        }
+        final Exception[] cause = {null};
+        Thread writer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    OutputStream os = NamedPipeTest.this.mPipe.openOutputStream();
+                    try {
+                        os.write(data);
+                    } finally {
+                        os.close();
+                    }
+                } catch (Exception ex) {
+                    cause[0] = ex;
+                }
+            }
+        };
+        writer.start();
+
+        InputStream is = this.mPipe.openInputStream();
+        byte[] received = new byte[data.length];
+        int total = 0;
+        try {
+            int read = 0;
+            while ((read = is.read(received, total, received.length - total)) > 0) {
+                total += read;
+            }
+        } finally {
+            is.close();
+        }
+        writer.join(5000L);
+        assertNull(cause[0]);
+        assertEquals(data.length, total);
+        assertTrue(Arrays.equals(data, received));
+    }
+
+    /**
+     * Method that performs a test over the release of a pipe that the other side
+     * never opens.
+     *
+     * @throws Exception If test failed
+     */
+    @MediumTest
+    public void testReleaseUnblocksOpen() throws Exception {
+        final int[] read = {0};
+        final Exception[] cause = {null};
+        Thread reader = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    InputStream is = NamedPipeTest.this.mPipe.openInputStream();
+                    try {
+                        read[0] = is.read();
+                    } finally {
+                        is.close();
+                    }
+                } catch (Exception ex) {
+                    cause[0] = ex;
+                }
+            }
+        };
+        reader.start();
+        Thread.sleep(100L);
+        assertTrue(reader.isAlive());
+
+        // The reader is blocked until the release of the pipe (and then, there is no data)
+        this.mPipe.release();
+        reader.join(5000L);
+        assertFalse(reader.isAlive());
+        assertNull(cause[0]);
+        assertEquals(-1, read[0]);
+
+        // A released pipe can't be opened
+        try {
+            this.mPipe.openOutputStream();
+            fail("The released pipe was opened"); //$NON-NLS-1$
+        } catch (Exception ex) {
+            /**NON BLOCK**/
+        }
+    }
+
+}
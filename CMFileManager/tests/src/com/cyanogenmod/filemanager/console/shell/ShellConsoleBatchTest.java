@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.console.shell;
+
+import android.test.suitebuilder.annotation.LargeTest;
+import android.test.suitebuilder.annotation.SmallTest;
+import android.util.Log;
+
+import com.cyanogenmod.filemanager.commands.EchoExecutable;
+import com.cyanogenmod.filemanager.commands.Executable;
+import com.cyanogenmod.filemanager.commands.ExecutableCreator;
+import com.cyanogenmod.filemanager.commands.shell.AbstractConsoleTest;
+import com.cyanogenmod.filemanager.console.BatchResult;
+import com.cyanogenmod.filemanager.console.NoSuchFileOrDirectory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A class for testing the batch execution of commands in a shell console.
+ *
+ * @see ShellConsole#executeBatch(List)
+ */
+public class ShellConsoleBatchTest extends AbstractConsoleTest {
+
+    private static final String TAG = "ShellConsoleBatchTest"; //$NON-NLS-1$
+
+    private static final String NON_EXISTENT_FILE = "/sdcard/__non_existent__.txt"; //$NON-NLS-1$
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isRootConsoleNeeded() {
+        return false;
+    }
+
+    /**
+     * Method that performs a test over the split of the output of a batch.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testBatchEcho() throws Exception {
+        final int count = 100;
+        List<Executable> executables = createEchoExecutables(count);
+        List<BatchResult> results = getConsole().executeBatch(executables);
+        assertEquals(count, results.size());
+        for (int i = 0; i < count; i++) {
+            BatchResult result = results.get(i);
+            assertTrue(String.valueOf(result), result.isSuccessful());
+            assertEquals(0, result.getExitCode());
+            assertEquals(
+                    "batch" + i, //$NON-NLS-1$
+                    ((EchoExecutable)result.getExecutable()).getResult());
+        }
+    }
+
+    /**
+     * Method that performs a test over a failed command inside a batch.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testBatchFailure() throws Exception {
+        ExecutableCreator creator = getConsole().getExecutableFactory().newCreator();
+        List<Executable> executables = new ArrayList<Executable>();
+        executables.add(creator.createEchoExecutable("before")); //$NON-NLS-1$
+        executables.add(creator.createFileInfoExecutable(NON_EXISTENT_FILE, false));
+        executables.add(creator.createEchoExecutable("after")); //$NON-NLS-1$
+        List<BatchResult> results = getConsole().executeBatch(executables);
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isSuccessful());
+        assertFalse(results.get(1).isSuccessful());
+        assertTrue(String.valueOf(results.get(1).getException()),
+                results.get(1).getException() instanceof NoSuchFileOrDirectory);
+        assertTrue(results.get(2).isSuccessful());
+        assertEquals("after", //$NON-NLS-1$
+                ((EchoExecutable)results.get(2).getExecutable()).getResult());
+    }
+
+    /**
+     * Method that measures the batch execution against one round trip per command.
+     *
+     * @throws Exception If test failed
+     */
+    @LargeTest
+    public void testBatchThroughput() throws Exception {
+        final int count = 200;
+
+        long start = System.currentTimeMillis();
+        List<Executable> executables = createEchoExecutables(count);
+        for (int i = 0; i < count; i++) {
+            getConsole().execute(executables.get(i));
+        }
+        long sequential = System.currentTimeMillis() - start;
+
+        start = System.currentTimeMillis();
+        List<BatchResult> results = getConsole().executeBatch(createEchoExecutables(count));
+        long batch = System.currentTimeMillis() - start;
+        for (int i = 0; i < count; i++) {
+            assertTrue(String.valueOf(results.get(i)), results.get(i).isSuccessful());
+        }
+
+        Log.v(TAG, String.format(
+                "%d commands: sequential=%dms, batch=%dms", //$NON-NLS-1$
+                Integer.valueOf(count), Long.valueOf(sequential), Long.valueOf(batch)));
+        assertTrue(String.format("sequential=%dms, batch=%dms", //$NON-NLS-1$
+                Long.valueOf(sequential), Long.valueOf(batch)), batch < sequential);
+    }
+
+    /**
+     * Method that creates a list of echo executables.
+     *
+     * @param count The number of executables
+     * @return List<Executable> The executables
+     * @throws Exception If the executables couldn't be created
+     */
+    private List<Executable> createEchoExecutables(int count) throws Exception {
+        ExecutableCreator creator = getConsole().getExecutableFactory().newCreator();
+        List<Executable> executables = new ArrayList<Executable>(count);
+        for (int i = 0; i < count; i++) {
+            executables.add(creator.createEchoExecutable("batch" + i)); //$NON-NLS-1$
+        }
+        return executables;
+    }
+
+}
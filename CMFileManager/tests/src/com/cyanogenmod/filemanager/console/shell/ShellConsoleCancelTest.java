@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.console.shell;
+
+import android.test.suitebuilder.annotation.LargeTest;
+import android.util.Log;
+
+import com.cyanogenmod.filemanager.commands.AsyncResultListener;
+import com.cyanogenmod.filemanager.commands.ExecExecutable;
+import com.cyanogenmod.filemanager.commands.shell.AbstractConsoleTest;
+import com.cyanogenmod.filemanager.util.CommandHelper;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+/**
+ * A class for testing the latency of the cancellation of the commands of a shell console.
+ *
+ * @see ShellConsole
+ */
+public class ShellConsoleCancelTest extends AbstractConsoleTest {
+
+    private static final String TAG = "ShellConsoleCancelTest"; //$NON-NLS-1$
+
+    // A program that never ends by itself (and creates children processes)
+    private static final String LOOP_PROGRAM =
+            "#!/system/bin/sh\n" + //$NON-NLS-1$
+            "while true; do echo tick; /system/bin/sleep 1; done\n"; //$NON-NLS-1$
+
+    private static final int ROUNDS = 10;
+    private static final long MAX_CANCEL_LATENCY = 1000L;
+
+    /**
+     * @hide
+     */
+    final Object mSync = new Object();
+    /**
+     * @hide
+     */
+    boolean mRunning;
+    /**
+     * @hide
+     */
+    boolean mEnded;
+
+    private File mScript;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isRootConsoleNeeded() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.mScript = new File(getContext().getCacheDir(), "loop.sh"); //$NON-NLS-1$
+        FileOutputStream fos = new FileOutputStream(this.mScript);
+        try {
+            fos.write(LOOP_PROGRAM.getBytes());
+        } finally {
+            fos.close();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void tearDown() throws Exception {
+        if (this.mScript != null) {
+            this.mScript.delete();
+        }
+        super.tearDown();
+    }
+
+    /**
+     * Method that measures the time between the cancellation of a running command and
+     * its end.
+     *
+     * @throws Exception If test failed
+     */
+    @LargeTest
+    public void testCancelLatency() throws Exception {
+        long total = 0;
+        long max = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            this.mRunning = false;
+            this.mEnded = false;
+            ExecExecutable cmd =
+                    CommandHelper.exec(
+                            getContext(),
+                            this.mScript.getAbsolutePath(),
+                            new AsyncResultListener() {
+                                public void onAsyncStart() {
+                                    /**NON BLOCK**/
+                                }
+                                public void onAsyncEnd(boolean cancelled) {
+                                    synchronized (ShellConsoleCancelTest.this.mSync) {
+                                        ShellConsoleCancelTest.this.mEnded = true;
+                                        ShellConsoleCancelTest.this.mSync.notifyAll();
+                                    }
+                                }
+                                public void onAsyncExitCode(int exitCode) {
+                                    /**NON BLOCK**/
+                                }
+                                public void onException(Exception cause) {
+                                    /**NON BLOCK**/
+                                }
+                                public void onPartialResult(Object results) {
+                                    synchronized (ShellConsoleCancelTest.this.mSync) {
+                                        ShellConsoleCancelTest.this.mRunning = true;
+                                        ShellConsoleCancelTest.this.mSync.notifyAll();
+                                    }
+                                }
+                            },
+                            getConsole());
+
+            // Wait until the program is running
+            synchronized (this.mSync) {
+                long end = System.currentTimeMillis() + 5000L;
+                while (!this.mRunning && System.currentTimeMillis() < end) {
+                    this.mSync.wait(100L);
+                }
+            }
+            assertTrue("the program isn't running", this.mRunning); //$NON-NLS-1$
+
+            // Cancel and wait for the end of the program
+            long start = System.currentTimeMillis();
+            assertTrue("cancel failed", cmd.cancel()); //$NON-NLS-1$
+            synchronized (this.mSync) {
+                long end = start + 5000L;
+                while (!this.mEnded && System.currentTimeMillis() < end) {
+                    this.mSync.wait(10L);
+                }
+            }
+            long latency = System.currentTimeMillis() - start;
+            assertTrue("the program didn't end", this.mEnded); //$NON-NLS-1$
+            total += latency;
+            max = Math.max(max, latency);
+        }
+
+        Log.v(TAG, String.format(
+                "cancel latency: rounds=%d, avg=%dms, max=%dms", //$NON-NLS-1$
+                Integer.valueOf(ROUNDS),
+                Long.valueOf(total / ROUNDS),
+                Long.valueOf(max)));
+        assertTrue("max latency=" + max, max < MAX_CANCEL_LATENCY); //$NON-NLS-1$
+
+        // The console must remain usable after the cancellations
+        assertNotNull(CommandHelper.getCurrentDir(getContext(), getConsole()));
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.console.shell;
+
+import android.test.suitebuilder.annotation.LargeTest;
+import android.util.Log;
+
+import java.io.File;
+
+/**
+ * A class for measuring the throughput of the stream pump against a local shell.
+ *
+ * @see StreamPump
+ */
+public class StreamPumpTest extends android.test.AndroidTestCase {
+
+    private static final String TAG = "StreamPumpTest"; //$NON-NLS-1$
+
+    private static final String[] SHELLS = {"/system/bin/sh", "/bin/sh"}; //$NON-NLS-1$ //$NON-NLS-2$
+
+    private static final int BUFFER_SIZE = 4096;
+    // Lines of 100 bytes
+    private static final int LINES = 50000;
+    private static final long TIMEOUT = 60000L;
+
+    /**
+     * @hide
+     */
+    final Object mSync = new Object();
+    /**
+     * @hide
+     */
+    boolean mEnd;
+    /**
+     * @hide
+     */
+    long mRead;
+    /**
+     * @hide
+     */
+    Exception mError;
+
+    /**
+     * Method that measures the throughput of the pump reading the output
+     * of a local shell.
+     *
+     * @throws Exception If test failed
+     */
+    @LargeTest
+    public void testThroughput() throws Exception {
+        String shell = null;
+        for (String sh : SHELLS) {
+            if (new File(sh).exists()) {
+                shell = sh;
+                break;
+            }
+        }
+        assertNotNull("shell==null", shell); //$NON-NLS-1$
+
+        // Every line has 99 characters + the new line
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < 99; i++) {
+            line.append('x');
+        }
+        String script = String.format(
+                "i=0; while [ $i -lt %d ]; do echo %s; i=$((i+1)); done", //$NON-NLS-1$
+                Integer.valueOf(LINES), line.toString());
+        final long expected = LINES * 100L;
+
+        this.mEnd = false;
+        this.mRead = 0;
+        this.mError = null;
+        Process p = Runtime.getRuntime().exec(new String[]{shell, "-c", script}); //$NON-NLS-1$
+        try {
+            long start = System.currentTimeMillis();
+            StreamPump pump = new StreamPump("pump", p.getInputStream(), BUFFER_SIZE, //$NON-NLS-1$
+                    new StreamPump.OnStreamDataListener() {
+                        public void onStreamData(byte[] data, int offset, int count) {
+                            StreamPumpTest.this.mRead += count;
+                        }
+                        public void onStreamEnd() {
+                            synchronized (StreamPumpTest.this.mSync) {
+                                StreamPumpTest.this.mEnd = true;
+                                StreamPumpTest.this.mSync.notify();
+                            }
+                        }
+                        public void onStreamException(Exception ex) {
+                            // The assertions of the pump thread don't reach the test
+                            synchronized (StreamPumpTest.this.mSync) {
+                                StreamPumpTest.this.mError = ex;
+                                StreamPumpTest.this.mSync.notify();
+                            }
+                        }
+                    });
+            pump.start();
+            synchronized (this.mSync) {
+                if (!this.mEnd && this.mError == null) {
+                    this.mSync.wait(TIMEOUT);
+                }
+            }
+            long elapsed = Math.max(1, System.currentTimeMillis() - start);
+
+            assertNull("pump failed: " + this.mError, this.mError); //$NON-NLS-1$
+            assertTrue("pump not ended", this.mEnd); //$NON-NLS-1$
+            assertEquals("read != expected", expected, this.mRead); //$NON-NLS-1$
+            assertEquals("total != expected", expected, pump.getTotal()); //$NON-NLS-1$
+            Log.i(TAG, String.format(
+                    "%d bytes in %d ms (%d KiB/s)", //$NON-NLS-1$
+                    Long.valueOf(this.mRead), Long.valueOf(elapsed),
+                    Long.valueOf((this.mRead * 1000L / elapsed) / 1024L)));
+        } finally {
+            p.destroy();
+        }
+    }
+
+}
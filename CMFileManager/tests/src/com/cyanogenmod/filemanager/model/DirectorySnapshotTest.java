@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.model;
+
+import android.test.suitebuilder.annotation.LargeTest;
+import android.test.suitebuilder.annotation.SmallTest;
+import android.util.Log;
+
+import com.cyanogenmod.filemanager.util.AIDCache;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A class for testing the columnar snapshot of a directory.
+ *
+ * @see DirectorySnapshot
+ */
+public class DirectorySnapshotTest extends android.test.AndroidTestCase {
+
+    private static final String TAG = "DirectorySnapshotTest"; //$NON-NLS-1$
+
+    private static final String PARENT = "/sdcard/DCIM"; //$NON-NLS-1$
+
+    private static final int ENTRIES = 100000;
+
+    /**
+     * Method that performs a test over the entries of a snapshot.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testEntries() throws Exception {
+        List<FileSystemObject> files = createFiles(10);
+        Symlink symlink = new Symlink("link", "/system", PARENT, //$NON-NLS-1$ //$NON-NLS-2$
+                AIDCache.getUser(0, "root"), AIDCache.getGroup(0, "root"), //$NON-NLS-1$ //$NON-NLS-2$
+                Permissions.valueOf(0777), new Date(1000L));
+        files.add(0, new ParentDirectory("/sdcard")); //$NON-NLS-1$
+        files.add(symlink);
+
+        DirectorySnapshot snapshot = DirectorySnapshot.create(PARENT, files);
+        assertEquals(files.size(), snapshot.size());
+        for (int i = 0; i < files.size(); i++) {
+            FileSystemObject fso = files.get(i);
+            assertEquals(fso, snapshot.get(i));
+            assertEquals(fso.getName(), snapshot.getName(i));
+            assertEquals(fso.getUnixIdentifier(), snapshot.getUnixIdentifier(i));
+            assertSame(fso.getUser(), snapshot.getUser(i));
+            assertEquals(i, snapshot.indexOf(fso));
+        }
+
+        // The entries that can't be rebuilt keep their original object
+        assertTrue(snapshot.isPinned(0));
+        assertSame(symlink, snapshot.get(files.size() - 1));
+        assertFalse(snapshot.isPinned(1));
+        assertNotSame(snapshot.get(1), snapshot.get(1));
+        assertEquals(-1, snapshot.indexOf(
+                new RegularFile("unknown", PARENT, null, null, null, null, 0L))); //$NON-NLS-1$
+    }
+
+    /**
+     * Method that performs a test over the list view of a snapshot.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testList() throws Exception {
+        List<FileSystemObject> files = createFiles(5);
+        List<FileSystemObject> list = DirectorySnapshot.create(PARENT, files).asList();
+        assertNotNull(DirectorySnapshot.from(list));
+        assertNull(DirectorySnapshot.from(files));
+        assertEquals(files, list);
+
+        // Remove the entries
+        assertTrue(list.remove(files.get(2)));
+        assertEquals(files.get(0), list.remove(0));
+        assertEquals(3, list.size());
+        assertEquals(files.get(1), list.get(0));
+        assertEquals(files.get(3), list.get(1));
+        assertEquals(files.get(4), list.get(2));
+        assertFalse(list.contains(files.get(2)));
+    }
+
+    /**
+     * Method that measures the heap footprint of a large directory held as a
+     * snapshot, compared with a list of objects.
+     *
+     * @throws Exception If test failed
+     */
+    @LargeTest
+    public void testHeapFootprint() throws Exception {
+        long before = usedMemory();
+        List<FileSystemObject> files = createFiles(ENTRIES);
+        long listSize = usedMemory() - before;
+
+        before = usedMemory();
+        DirectorySnapshot snapshot = DirectorySnapshot.create(PARENT, files);
+        long snapshotSize = usedMemory() - before;
+
+        Log.v(TAG, String.format(
+                "heap of %d entries: objects=%dKB, snapshot=%dKB", //$NON-NLS-1$
+                Integer.valueOf(ENTRIES),
+                Long.valueOf(listSize / 1024L),
+                Long.valueOf(snapshotSize / 1024L)));
+        assertEquals(ENTRIES, snapshot.size());
+        assertTrue("objects=" + listSize + ", snapshot=" + snapshotSize, //$NON-NLS-1$ //$NON-NLS-2$
+                snapshotSize * 2 < listSize);
+    }
+
+    /**
+     * Method that creates the content of a directory.
+     *
+     * @param count The number of files
+     * @return List<FileSystemObject> The content of the directory
+     */
+    private static List<FileSystemObject> createFiles(int count) {
+        User user = AIDCache.getUser(1023, "media_rw"); //$NON-NLS-1$
+        Group group = AIDCache.getGroup(1015, "sdcard_rw"); //$NON-NLS-1$
+        List<FileSystemObject> files = new ArrayList<FileSystemObject>(count);
+        for (int i = 0; i < count; i++) {
+            Date date = new Date(1340000000000L + i * 1000L);
+            if (i % 10 == 0) {
+                files.add(new Directory("dir" + i, PARENT, //$NON-NLS-1$
+                        user, group, Permissions.valueOf(0775), date));
+            } else {
+                files.add(new RegularFile("IMG_" + i + ".jpg", PARENT, //$NON-NLS-1$ //$NON-NLS-2$
+                        user, group, Permissions.valueOf(0664), date, i * 1024L));
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Method that returns the used heap memory (after a garbage collection).
+     *
+     * @return long The used heap memory
+     */
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            System.runFinalization();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.model;
+
+import android.test.suitebuilder.annotation.LargeTest;
+import android.test.suitebuilder.annotation.SmallTest;
+import android.util.Log;
+
+import com.cyanogenmod.filemanager.util.AIDCache;
+import com.cyanogenmod.filemanager.util.ParseHelper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A class for testing the canonical instances of the permissions, users and groups.
+ *
+ * @see Permissions
+ */
+public class PermissionsTest extends android.test.AndroidTestCase {
+
+    private static final String TAG = "PermissionsTest"; //$NON-NLS-1$
+
+    private static final int ENTRIES = 50000;
+
+    private static final String[] MODES = {
+        "rw-r--r--", "rwxr-xr-x", "rwxrwx---", "rw-rw-r--", "rwxrwxrwx" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+    };
+    private static final String[] OWNERS = {
+        "root", "system", "shell" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    };
+
+    /**
+     * Method that performs a test over the canonical permissions.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testCanonical() throws Exception {
+        for (int mode = 0; mode <= 07777; mode++) {
+            Permissions permissions = Permissions.valueOf(mode);
+            assertEquals(mode, permissions.toMode());
+            assertSame(permissions, Permissions.valueOf(mode));
+            assertSame(permissions,
+                    Permissions.fromRawString("-" + permissions.toRawString())); //$NON-NLS-1$
+        }
+        assertSame(Permissions.valueOf(0644), Permissions.fromOctalString("644")); //$NON-NLS-1$
+        assertSame(Permissions.valueOf(0755), Permissions.fromOctalString("0755")); //$NON-NLS-1$
+
+        // The parsed objects share the permissions, users and groups
+        FileSystemObject fso1 = ParseHelper.toFileSystemObject("/", //$NON-NLS-1$
+                "-rw-r--r-- root     root          229 2012-05-04 01:51 a", true); //$NON-NLS-1$
+        FileSystemObject fso2 = ParseHelper.toFileSystemObject("/", //$NON-NLS-1$
+                "-rw-r--r-- root     root          229 2012-05-04 01:51 b", true); //$NON-NLS-1$
+        assertSame(fso1.getPermissions(), fso2.getPermissions());
+        assertSame(fso1.getUser(), fso2.getUser());
+        assertSame(fso1.getGroup(), fso2.getGroup());
+    }
+
+    /**
+     * Method that performs a test over the deserialization of the canonical instances.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testSerialization() throws Exception {
+        FileSystemObject fso = ParseHelper.toFileSystemObject("/", //$NON-NLS-1$
+                "-rwsr-x--- root     shell         229 2012-05-04 01:51 a", false); //$NON-NLS-1$
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(baos);
+        oos.writeObject(fso);
+        oos.close();
+        ObjectInputStream ois =
+                new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()));
+        FileSystemObject copy = (FileSystemObject)ois.readObject();
+        ois.close();
+
+        assertNotSame(fso, copy);
+        assertSame(fso.getPermissions(), copy.getPermissions());
+        assertSame(fso.getUser(), copy.getUser());
+        assertSame(fso.getGroup(), copy.getGroup());
+    }
+
+    /**
+     * Method that measures the heap footprint of a listing with canonical instances,
+     * compared with a listing with its own instances.
+     *
+     * @throws Exception If test failed
+     */
+    @LargeTest
+    public void testHeapFootprint() throws Exception {
+        Date date = new Date();
+
+        long before = usedMemory();
+        List<FileSystemObject> canonical = new ArrayList<FileSystemObject>(ENTRIES);
+        for (int i = 0; i < ENTRIES; i++) {
+            String owner = OWNERS[i % OWNERS.length];
+            canonical.add(new RegularFile(
+                    "file" + i, "/sdcard", //$NON-NLS-1$ //$NON-NLS-2$
+                    AIDCache.getUser(0, owner),
+                    AIDCache.getGroup(0, owner),
+                    Permissions.fromRawString("-" + MODES[i % MODES.length]), //$NON-NLS-1$
+                    date, i));
+        }
+        long canonicalSize = usedMemory() - before;
+
+        before = usedMemory();
+        List<FileSystemObject> owned = new ArrayList<FileSystemObject>(ENTRIES);
+        for (int i = 0; i < ENTRIES; i++) {
+            String owner = OWNERS[i % OWNERS.length];
+            Permissions p = Permissions.fromRawString("-" + MODES[i % MODES.length]); //$NON-NLS-1$
+            owned.add(new RegularFile(
+                    "file" + i, "/sdcard", //$NON-NLS-1$ //$NON-NLS-2$
+                    new User(0, owner),
+                    new Group(0, owner),
+                    new Permissions(
+                            new UserPermission(
+                                    p.getUser().isRead(), p.getUser().isWrite(),
+                                    p.getUser().isExecute(), p.getUser().isSetUID()),
+                            new GroupPermission(
+                                    p.getGroup().isRead(), p.getGroup().isWrite(),
+                                    p.getGroup().isExecute(), p.getGroup().isSetGID()),
+                            new OthersPermission(
+                                    p.getOthers().isRead(), p.getOthers().isWrite(),
+                                    p.getOthers().isExecute(), p.getOthers().isStickybit())),
+                    date, i));
+        }
+        long ownedSize = usedMemory() - before;
+
+        Log.v(TAG, String.format(
+                "heap of %d entries: canonical=%dKB, own instances=%dKB", //$NON-NLS-1$
+                Integer.valueOf(ENTRIES),
+                Long.valueOf(canonicalSize / 1024L),
+                Long.valueOf(ownedSize / 1024L)));
+        assertEquals(ENTRIES, canonical.size());
+        assertEquals(ENTRIES, owned.size());
+        assertTrue("canonical=" + canonicalSize + ", owned=" + ownedSize, //$NON-NLS-1$ //$NON-NLS-2$
+                canonicalSize < ownedSize);
+    }
+
+    /**
+     * Method that returns the used heap memory (after a garbage collection).
+     *
+     * @return long The used heap memory
+     */
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            System.runFinalization();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.cyanogenmod.filemanager.model;
+
+import android.test.suitebuilder.annotation.LargeTest;
+import android.test.suitebuilder.annotation.SmallTest;
+import android.util.Log;
+
+import com.cyanogenmod.filemanager.util.AIDCache;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A class for testing the selection of file system objects.
+ *
+ * @see Selection
+ */
+public class SelectionTest extends android.test.AndroidTestCase {
+
+    private static final String TAG = "SelectionTest"; //$NON-NLS-1$
+
+    private static final String PARENT = "/sdcard/DCIM"; //$NON-NLS-1$
+
+    private static final int ENTRIES = 50000;
+
+    /**
+     * Method that performs a test over the selection and deselection of objects.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testToggle() throws Exception {
+        List<FileSystemObject> files = createFiles(10);
+        Selection selection = new Selection();
+        assertTrue(selection.isEmpty());
+
+        assertTrue(selection.toggle(files.get(0)));
+        assertTrue(selection.toggle(files.get(3)));
+        assertTrue(selection.toggle(files.get(5)));
+        assertEquals(3, selection.size());
+        assertEquals(1, selection.getFolders());
+        assertEquals(2, selection.getFiles());
+
+        // The objects are keyed by path, not by all their attributes
+        FileSystemObject modified = new RegularFile(files.get(3).getName(), PARENT,
+                null, null, null, new Date(), 0L);
+        assertTrue(selection.isSelected(modified));
+        assertFalse(selection.toggle(modified));
+        assertFalse(selection.isSelected(files.get(3)));
+        assertFalse(selection.setSelected(files.get(3), false));
+        assertEquals(2, selection.size());
+        assertEquals(1, selection.getFiles());
+
+        // The parent directory can't be selected
+        assertFalse(selection.toggle(new ParentDirectory("/sdcard"))); //$NON-NLS-1$
+        assertEquals(2, selection.size());
+
+        selection.clear();
+        assertTrue(selection.isEmpty());
+        assertEquals(0, selection.getFolders());
+    }
+
+    /**
+     * Method that performs a test over the range and the inverted selections.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testRangeAndInvert() throws Exception {
+        List<FileSystemObject> files = createFiles(20);
+        files.add(0, new ParentDirectory("/sdcard")); //$NON-NLS-1$
+        Selection selection = new Selection();
+
+        assertTrue(selection.setSelected(files, 0, 11, true));
+        assertEquals(10, selection.size());
+        assertFalse(selection.setSelected(files, 1, 11, true));
+        assertTrue(selection.setSelected(files, 6, 11, false));
+        assertEquals(5, selection.size());
+
+        assertTrue(selection.invert(files, 0, files.size()));
+        assertEquals(15, selection.size());
+        for (int i = 1; i < files.size(); i++) {
+            assertEquals(i > 5, selection.isSelected(files.get(i)));
+        }
+        assertFalse(selection.isSelected(files.get(0)));
+    }
+
+    /**
+     * Method that performs a test over the list of the selected objects.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testItems() throws Exception {
+        List<FileSystemObject> files = createFiles(5);
+        Selection selection = new Selection();
+        selection.set(files);
+
+        // The list is shared until the selection changes
+        List<FileSystemObject> items = selection.getItems();
+        assertSame(items, selection.getItems());
+        assertEquals(files, items);
+        try {
+            items.remove(0);
+            fail("The list of the selected items can be modified"); //$NON-NLS-1$
+        } catch (UnsupportedOperationException ex) {
+            /**NON BLOCK**/
+        }
+
+        selection.setSelected(files.get(1), false);
+        assertNotSame(items, selection.getItems());
+        assertEquals(4, selection.getItems().size());
+        assertFalse(selection.getItems().contains(files.get(1)));
+        assertEquals(5, items.size());
+    }
+
+    /**
+     * Method that measures the selection and deselection of all the objects of a
+     * large directory.
+     *
+     * @throws Exception If test failed
+     */
+    @LargeTest
+    public void testSelectAllThroughput() throws Exception {
+        List<FileSystemObject> files = createFiles(ENTRIES);
+        Selection selection = new Selection();
+
+        long start = System.nanoTime();
+        selection.setSelected(files, 0, files.size(), true);
+        long selectTime = System.nanoTime() - start;
+        assertEquals(ENTRIES, selection.size());
+
+        start = System.nanoTime();
+        selection.setSelected(files, 0, files.size(), false);
+        long deselectTime = System.nanoTime() - start;
+        assertTrue(selection.isEmpty());
+
+        Log.v(TAG, String.format(
+                "selection of %d entries: select=%dms, deselect=%dms", //$NON-NLS-1$
+                Integer.valueOf(ENTRIES),
+                Long.valueOf(selectTime / 1000000L),
+                Long.valueOf(deselectTime / 1000000L)));
+    }
+
+    /**
+     * Method that creates the content of a directory.
+     *
+     * @param count The number of files
+     * @return List<FileSystemObject> The content of the directory
+     */
+    private static List<FileSystemObject> createFiles(int count) {
+        User user = AIDCache.getUser(1023, "media_rw"); //$NON-NLS-1$
+        Group group = AIDCache.getGroup(1015, "sdcard_rw"); //$NON-NLS-1$
+        List<FileSystemObject> files = new ArrayList<FileSystemObject>(count);
+        for (int i = 0; i < count; i++) {
+            Date date = new Date(1340000000000L + i * 1000L);
+            if (i % 10 == 0) {
+                files.add(new Directory("dir" + i, PARENT, //$NON-NLS-1$
+                        user, group, Permissions.valueOf(0775), date));
+            } else {
+                files.add(new RegularFile("IMG_" + i + ".jpg", PARENT, //$NON-NLS-1$ //$NON-NLS-2$
+                        user, group, Permissions.valueOf(0664), date, i * 1024L));
+            }
+        }
+        return files;
+    }
+
+}
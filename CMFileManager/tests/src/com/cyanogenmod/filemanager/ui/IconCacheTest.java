@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.cyanogenmod.filemanager.ui;
+
+import android.graphics.drawable.Drawable;
+import android.test.suitebuilder.annotation.SmallTest;
+
+/**
+ * A class for testing the process-wide cache of icons.
+ *
+ * @see IconCache
+ */
+public class IconCacheTest extends android.test.AndroidTestCase {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        IconCache.clear();
+    }
+
+    /**
+     * Method that performs a test over the hits and misses of the cache.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testHitsAndMisses() throws Exception {
+        int resid = android.R.drawable.ic_menu_delete;
+        int hits = IconCache.getHitCount();
+        int misses = IconCache.getMissCount();
+
+        Drawable dw1 = IconCache.getDrawable(getContext(), resid);
+        assertEquals(misses + 1, IconCache.getMissCount());
+        assertTrue(IconCache.getSize() > 0);
+
+        // Every request returns its own drawable, which shares the state of the icon
+        Drawable dw2 = IconCache.getDrawable(getContext(), resid);
+        Drawable dw3 = IconCache.getDrawable(getContext(), resid);
+        assertEquals(hits + 2, IconCache.getHitCount());
+        assertEquals(misses + 1, IconCache.getMissCount());
+        assertNotSame(dw2, dw3);
+        assertSame(dw1.getConstantState(), dw2.getConstantState());
+        assertSame(dw2.getConstantState(), dw3.getConstantState());
+    }
+
+    /**
+     * Method that performs a test over the release of the memory of the cache.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testTrimMemory() throws Exception {
+        IconCache.getDrawable(getContext(), android.R.drawable.ic_menu_delete);
+        IconCache.getDrawable(getContext(), android.R.drawable.ic_menu_add);
+        assertTrue(IconCache.getSize() <= IconCache.getMaxSize());
+
+        IconCache.trimMemory(android.content.ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        assertEquals(0, IconCache.getSize());
+        int misses = IconCache.getMissCount();
+        IconCache.getDrawable(getContext(), android.R.drawable.ic_menu_delete);
+        assertEquals(misses + 1, IconCache.getMissCount());
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.util;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import com.cyanogenmod.filemanager.model.FileSystemObject;
+import com.cyanogenmod.filemanager.model.Group;
+import com.cyanogenmod.filemanager.model.User;
+
+/**
+ * A class for testing the cache of users and groups.
+ *
+ * @see AIDCache
+ */
+public class AIDCacheTest extends android.test.AndroidTestCase {
+
+    private static final String LINE_1 =
+            "-rw-r--r-- root     shell         229 2012-05-04 01:51 a.txt"; //$NON-NLS-1$
+    private static final String LINE_2 =
+            "drwxr-xr-x root     shell             2012-05-04 01:51 b"; //$NON-NLS-1$
+
+    /**
+     * Method that performs a test over the resolution of the users and groups.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testResolve() throws Exception {
+        User root = AIDCache.getUser("root"); //$NON-NLS-1$
+        assertEquals(0, root.getId());
+        assertSame(root, AIDCache.getUser("root")); //$NON-NLS-1$
+        Group system = AIDCache.getGroup("system"); //$NON-NLS-1$
+        assertEquals(1000, system.getId());
+        assertSame(system, AIDCache.getGroup("system")); //$NON-NLS-1$
+
+        // Unknown names aren't resolved
+        assertEquals(-1, AIDCache.getUser("__unknown_user__").getId()); //$NON-NLS-1$
+
+        // After a clear, the names are resolved again
+        AIDCache.clear();
+        User root2 = AIDCache.getUser("root"); //$NON-NLS-1$
+        assertNotSame(root, root2);
+        assertEquals(root.getId(), root2.getId());
+    }
+
+    /**
+     * Method that performs a test over the sharing of the users and groups between
+     * the objects of a listing.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testSharedInstances() throws Exception {
+        FileSystemObject fso1 = ParseHelper.toFileSystemObject("/", LINE_1); //$NON-NLS-1$
+        FileSystemObject fso2 = ParseHelper.toFileSystemObject("/", LINE_2); //$NON-NLS-1$
+        assertSame(fso1.getUser(), fso2.getUser());
+        assertSame(fso1.getGroup(), fso2.getGroup());
+        assertEquals(0, fso1.getUser().getId());
+    }
+
+    /**
+     * Method that performs a test over the sharing of the users and groups whose name
+     * has more than one identifier.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testSharedInstancesWithOtherIds() throws Exception {
+        AIDCache.clear();
+        User root = AIDCache.getUser(0, "root"); //$NON-NLS-1$
+        User other = AIDCache.getUser(1234, "root"); //$NON-NLS-1$
+        assertEquals(1234, other.getId());
+        assertNotSame(root, other);
+        assertSame(root, AIDCache.getUser(0, "root")); //$NON-NLS-1$
+        assertSame(other, AIDCache.getUser(1234, "root")); //$NON-NLS-1$
+        assertSame(
+                AIDCache.getUser(-1, "root"), AIDCache.getUser(-1, "root")); //$NON-NLS-1$ //$NON-NLS-2$
+
+        Group system = AIDCache.getGroup(1000, "system"); //$NON-NLS-1$
+        Group otherGroup = AIDCache.getGroup(4321, "system"); //$NON-NLS-1$
+        assertEquals(4321, otherGroup.getId());
+        assertSame(system, AIDCache.getGroup(1000, "system")); //$NON-NLS-1$
+        assertSame(otherGroup, AIDCache.getGroup(4321, "system")); //$NON-NLS-1$
+    }
+
+}
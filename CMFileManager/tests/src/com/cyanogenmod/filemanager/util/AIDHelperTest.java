@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.util;
+
+import android.test.suitebuilder.annotation.LargeTest;
+import android.test.suitebuilder.annotation.SmallTest;
+import android.util.Log;
+import android.util.SparseArray;
+
+import com.cyanogenmod.filemanager.model.AID;
+import com.cyanogenmod.filemanager.model.FileSystemObject;
+
+import java.io.File;
+
+/**
+ * A class for testing the cached AIDs.
+ *
+ * @see AIDHelper
+ */
+public class AIDHelperTest extends android.test.AndroidTestCase {
+
+    private static final String TAG = "AIDHelperTest"; //$NON-NLS-1$
+
+    private static final int FILES = 1000;
+
+    /**
+     * Method that performs a test over the lookups of the AIDs.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testLookups() throws Exception {
+        AIDHelper.clearCache();
+        SparseArray<AID> aids = AIDHelper.getAIDs(getContext());
+        assertNotNull(aids);
+        assertTrue(aids.size() > 0);
+        assertSame(aids, AIDHelper.getAIDs(getContext()));
+
+        AID system = AIDHelper.getAIDFromName(getContext(), "system"); //$NON-NLS-1$
+        assertNotNull(system);
+        assertEquals(1000, system.getId());
+        assertSame(system, AIDHelper.getAID(getContext(), 1000));
+        assertNull(AIDHelper.getAIDFromName(getContext(), "__unknown__")); //$NON-NLS-1$
+
+        // A clear reloads the AIDs
+        AIDHelper.clearCache();
+        assertNotSame(aids, AIDHelper.getAIDs(getContext()));
+    }
+
+    /**
+     * Method that measures the cost of the resolution of the AIDs of the files of
+     * a directory, compared with the load of the AIDs.
+     *
+     * @throws Exception If test failed
+     */
+    @LargeTest
+    public void testLookupCost() throws Exception {
+        AIDHelper.clearCache();
+        long start = System.nanoTime();
+        AIDHelper.getAIDs(getContext());
+        long load = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < FILES; i++) {
+            assertNotNull(AIDHelper.getAIDFromName(getContext(), "system")); //$NON-NLS-1$
+            assertNotNull(AIDHelper.getAIDFromName(getContext(), "sdcard_r")); //$NON-NLS-1$
+        }
+        long lookup = (System.nanoTime() - start) / (FILES * 2);
+
+        File dir = getContext().getFilesDir();
+        start = System.nanoTime();
+        for (int i = 0; i < FILES; i++) {
+            FileSystemObject fso = FileHelper.createFileSystemObject(getContext(), dir);
+            assertNotNull(fso);
+        }
+        long create = (System.nanoTime() - start) / FILES;
+
+        Log.v(TAG, String.format(
+                "load of the AIDs: %dus, lookup: %dns, createFileSystemObject: %dns", //$NON-NLS-1$
+                Long.valueOf(load / 1000L), Long.valueOf(lookup), Long.valueOf(create)));
+        assertTrue("lookup=" + lookup + ", load=" + load, //$NON-NLS-1$ //$NON-NLS-2$
+                lookup * 100 < load);
+    }
+
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.util;
+
+import android.test.suitebuilder.annotation.LargeTest;
+import android.test.suitebuilder.annotation.MediumTest;
+import android.test.suitebuilder.annotation.SmallTest;
+import android.util.Log;
+
+import com.cyanogenmod.filemanager.model.FileSystemObject;
+import com.cyanogenmod.filemanager.model.RegularFile;
+import com.cyanogenmod.filemanager.model.Symlink;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+
+/**
+ * A class for testing the parse of the <code>ls -al</code> lines.
+ *
+ * @see ParseHelper
+ */
+public class ParseHelperTest extends android.test.AndroidTestCase {
+
+    private static final String TAG = "ParseHelperTest"; //$NON-NLS-1$
+
+    private static final String PARENT = "/system"; //$NON-NLS-1$
+
+    // Regression corpus: real ls -al lines
+    // {line, type, name, link, user, group, size, date, permissions}
+    private static final String[][] CORPUS = {
+        {"-rw-r--r-- root     root          229 2012-05-04 01:51 boot.txt", //$NON-NLS-1$
+         "-", "boot.txt", null, "root", "root", "229", "2012-05-04 01:51", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+         "rw-r--r--"}, //$NON-NLS-1$
+        {"drwxr-xr-x root     root              2012-05-04 01:51 acct", //$NON-NLS-1$
+         "d", "acct", null, "root", "root", "0", "2012-05-04 01:51", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+         "rwxr-xr-x"}, //$NON-NLS-1$
+        {"lrwxrwxrwx root     root              2012-05-04 01:51 etc -> /system/etc", //$NON-NLS-1$
+         "l", "etc", "/system/etc", "root", "root", "0", "2012-05-04 01:51", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
+         "rwxrwxrwx"}, //$NON-NLS-1$
+        {"crw-rw-rw- system   system    10, 243 2012-05-04 01:51 HPD", //$NON-NLS-1$
+         "c", "HPD", null, "system", "system", "0", "2012-05-04 01:51", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+         "rw-rw-rw-"}, //$NON-NLS-1$
+        {"brw------- root     root       7,   0 2012-05-04 01:51 loop0", //$NON-NLS-1$
+         "b", "loop0", null, "root", "root", "0", "2012-05-04 01:51", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+         "rw-------"}, //$NON-NLS-1$
+        {"srw------- root     root            0 2012-05-04 01:51 socket", //$NON-NLS-1$
+         "s", "socket", null, "root", "root", "0", "2012-05-04 01:51", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+         "rw-------"}, //$NON-NLS-1$
+        {"prw------- root     root            0 2012-05-04 01:51 pipe", //$NON-NLS-1$
+         "p", "pipe", null, "root", "root", "0", "2012-05-04 01:51", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+         "rw-------"}, //$NON-NLS-1$
+        {"-rwsr-sr-t root     shell     1234567 2012-12-31 23:59 su", //$NON-NLS-1$
+         "-", "su", null, "root", "shell", "1234567", "2012-12-31 23:59", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+         "rwsr-sr-t"}, //$NON-NLS-1$
+        {"drwxrwx--T system   cache             2012-08-21 11:02 cache", //$NON-NLS-1$
+         "d", "cache", null, "system", "cache", "0", "2012-08-21 11:02", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+         "rwxrwx--T"}, //$NON-NLS-1$
+        {"-rw-rw-r-- system   sdcard_rw  5242880 2012-01-02 03:04 a file 2012-01-01 00:00.txt", //$NON-NLS-1$
+         "-", "a file 2012-01-01 00:00.txt", null, "system", "sdcard_rw", "5242880", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+         "2012-01-02 03:04", "rw-rw-r--"}, //$NON-NLS-1$ //$NON-NLS-2$
+        {"lrwxrwxrwx root     root              2012-05-04 01:51 sdcard -> /mnt/sdcard", //$NON-NLS-1$
+         "l", "sdcard", "/mnt/sdcard", "root", "root", "0", "2012-05-04 01:51", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
+         "rwxrwxrwx"}, //$NON-NLS-1$
+        {"drwxr-xr-x root     root              2012-05-04 01:51 ", //$NON-NLS-1$
+         "d", FileHelper.ROOT_DIRECTORY, null, "root", "root", "0", "2012-05-04 01:51", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+         "rwxr-xr-x"}, //$NON-NLS-1$
+    };
+
+    // Lines that can't be parsed
+    private static final String[] INVALID = {
+        "", //$NON-NLS-1$
+        "-rw-r--r--", //$NON-NLS-1$
+        "-rw-r--r-- root     root          229 2012-05-04 boot.txt", //$NON-NLS-1$
+        "-rw-r--r-- root     root          2x9 2012-05-04 01:51 boot.txt", //$NON-NLS-1$
+        "lrwxrwxrwx root     root              2012-05-04 01:51 etc", //$NON-NLS-1$
+        "xrw-r--r-- root     root          229 2012-05-04 01:51 boot.txt", //$NON-NLS-1$
+    };
+
+    /**
+     * Method that performs a test over the parse of the regression corpus.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testCorpus() throws Exception {
+        SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd HH:mm"); //$NON-NLS-1$
+        for (int i = 0; i < CORPUS.length; i++) {
+            String[] entry = CORPUS[i];
+            FileSystemObject fso = ParseHelper.toFileSystemObject(PARENT, entry[0], true);
+            assertEquals(entry[0], entry[1].charAt(0), fso.getUnixIdentifier());
+            assertEquals(entry[0], entry[2], fso.getName());
+            assertEquals(entry[0], PARENT, fso.getParent());
+            if (entry[3] != null) {
+                assertEquals(entry[0], entry[3], ((Symlink)fso).getLink());
+            }
+            assertEquals(entry[0], entry[4], fso.getUser().getName());
+            assertEquals(entry[0], entry[5], fso.getGroup().getName());
+            assertEquals(entry[0], Long.parseLong(entry[6]), fso.getSize());
+            assertEquals(entry[0], df.parse(entry[7]), fso.getLastModifiedTime());
+            assertEquals(entry[0], entry[8], fso.getPermissions().toRawString());
+
+            // A slice of a buffer must produce the same object
+            String buffer = "\n" + entry[0] + "\n"; //$NON-NLS-1$ //$NON-NLS-2$
+            FileSystemObject slice =
+                    ParseHelper.toFileSystemObject(
+                            PARENT, buffer, 1, buffer.length() - 1, true);
+            assertEquals(entry[0], fso.getFullPath(), slice.getFullPath());
+            assertEquals(entry[0], fso.getLastModifiedTime(), slice.getLastModifiedTime());
+        }
+
+        for (int i = 0; i < INVALID.length; i++) {
+            try {
+                ParseHelper.toFileSystemObject(PARENT, INVALID[i], true);
+                fail("parsed: " + INVALID[i]); //$NON-NLS-1$
+            } catch (ParseException pEx) {
+                /**NON BLOCK**/
+            }
+        }
+    }
+
+    /**
+     * Method that performs a test over the parse of lines from several threads.
+     *
+     * @throws Exception If test failed
+     */
+    @MediumTest
+    public void testConcurrentParse() throws Exception {
+        final String line = CORPUS[7][0];
+        final long expected =
+                ParseHelper.toFileSystemObject(PARENT, line, true).
+                    getLastModifiedTime().getTime();
+        final Throwable[] error = new Throwable[1];
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int j = 0; j < 5000; j++) {
+                            FileSystemObject fso =
+                                    ParseHelper.toFileSystemObject(
+                                            PARENT, CORPUS[j % 7][0], true);
+                            if (fso.getLastModifiedTime() == null) {
+                                throw new ParseException("no date", j); //$NON-NLS-1$
+                            }
+                            long time =
+                                    ParseHelper.toFileSystemObject(PARENT, line, true).
+                                        getLastModifiedTime().getTime();
+                            if (time != expected) {
+                                throw new ParseException("date mismatch", j); //$NON-NLS-1$
+                            }
+                        }
+                    } catch (Throwable ex) {
+                        synchronized (error) {
+                            error[0] = ex;
+                        }
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].join();
+        }
+        synchronized (error) {
+            assertNull(String.valueOf(error[0]), error[0]);
+        }
+    }
+
+    /**
+     * Method that measures the throughput of the parse of the lines.
+     *
+     * @throws Exception If test failed
+     */
+    @LargeTest
+    public void testParseThroughput() throws Exception {
+        final int iterations = 20000;
+
+        // Warm up
+        for (int i = 0; i < 1000; i++) {
+            ParseHelper.toFileSystemObject(PARENT, CORPUS[i % CORPUS.length][0], true);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            FileSystemObject fso =
+                    ParseHelper.toFileSystemObject(PARENT, CORPUS[i % 7][0], true);
+            if (fso instanceof RegularFile) {
+                assertTrue(fso.getSize() > 0);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        Log.v(TAG, String.format(
+                "parse of %d lines: %dms, %dns/line", //$NON-NLS-1$
+                Integer.valueOf(iterations),
+                Long.valueOf(elapsed / 1000000L),
+                Long.valueOf(elapsed / iterations)));
+    }
+
+}
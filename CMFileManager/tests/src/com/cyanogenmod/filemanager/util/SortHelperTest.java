@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2012 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyanogenmod.filemanager.util;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import com.cyanogenmod.filemanager.model.Directory;
+import com.cyanogenmod.filemanager.model.FileSystemObject;
+import com.cyanogenmod.filemanager.model.ParentDirectory;
+import com.cyanogenmod.filemanager.model.RegularFile;
+import com.cyanogenmod.filemanager.preferences.NavigationSortMode;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A class for testing the sort of the files of a listing.
+ *
+ * @see SortHelper
+ */
+public class SortHelperTest extends android.test.AndroidTestCase {
+
+    private static final String PARENT = "/sdcard"; //$NON-NLS-1$
+
+    /**
+     * Method that performs a test over the sort by name.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testSortByName() throws Exception {
+        List<FileSystemObject> files = createFiles();
+        SortHelper.sort(files, NavigationSortMode.NAME_ASC, true, false);
+        assertOrder(files, "..", "dir", "a.txt", "B.jpg", "file10.txt", "file2.txt"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+
+        SortHelper.sort(files, NavigationSortMode.NAME_DESC, false, false);
+        assertOrder(files, "..", "file2.txt", "file10.txt", "dir", "B.jpg", "a.txt"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+    }
+
+    /**
+     * Method that performs a test over the sort by the precomputed dates and sizes.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testSortByValue() throws Exception {
+        List<FileSystemObject> files = createFiles();
+        SortHelper.sort(files, NavigationSortMode.DATE_DESC, true, false);
+        assertOrder(files, "..", "dir", "file2.txt", "file10.txt", "B.jpg", "a.txt"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+
+        // The files with the same size are sorted by name
+        SortHelper.sort(files, NavigationSortMode.SIZE_ASC, true, false);
+        assertOrder(files, "..", "dir", "a.txt", "file10.txt", "file2.txt", "B.jpg"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+    }
+
+    /**
+     * Method that performs a test over the sort by type and by natural order.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testSortByTypeAndNatural() throws Exception {
+        List<FileSystemObject> files = createFiles();
+        SortHelper.sort(files, NavigationSortMode.TYPE_ASC, true, false);
+        assertOrder(files, "..", "dir", "B.jpg", "a.txt", "file10.txt", "file2.txt"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+
+        SortHelper.sort(files, NavigationSortMode.NATURAL_ASC, true, false);
+        assertOrder(files, "..", "dir", "a.txt", "B.jpg", "file2.txt", "file10.txt"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+
+        assertTrue(SortHelper.compareNatural("img9", "img010") < 0); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue(SortHelper.compareNatural("img10b", "img10a") > 0); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue(SortHelper.compareNatural("img10", "img10a") < 0); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals(0, SortHelper.compareNatural("img10", "img10")); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    /**
+     * Method that performs a test over the comparisons of single objects, that must
+     * follow the order of the sort of the listings.
+     *
+     * @throws Exception If test failed
+     */
+    @SmallTest
+    public void testCompareFollowsSort() throws Exception {
+        NavigationSortMode[] modes = NavigationSortMode.values();
+        for (int i = 0; i < modes.length; i++) {
+            List<FileSystemObject> files = createFiles();
+            SortHelper.sort(files, modes[i], false, false);
+            for (int j = 1; j < files.size(); j++) {
+                assertTrue(modes[i].name(),
+                        SortHelper.compare(files.get(j - 1), files.get(j), modes[i], false) < 0);
+            }
+        }
+    }
+
+    /**
+     * Method that asserts the order of the names of a listing.
+     *
+     * @param files The listing
+     * @param names The expected names
+     */
+    private static void assertOrder(List<FileSystemObject> files, String... names) {
+        assertEquals(names.length, files.size());
+        for (int i = 0; i < names.length; i++) {
+            assertEquals(names[i], files.get(i).getName());
+        }
+    }
+
+    /**
+     * Method that creates the content of a directory.
+     *
+     * @return List<FileSystemObject> The content of the directory
+     */
+    private static List<FileSystemObject> createFiles() {
+        List<FileSystemObject> files = new ArrayList<FileSystemObject>();
+        files.add(createFile("file10.txt", 3000L, 10L)); //$NON-NLS-1$
+        files.add(createFile("a.txt", 1000L, 5L)); //$NON-NLS-1$
+        files.add(new Directory("dir", PARENT, null, null, null, new Date(5000L))); //$NON-NLS-1$
+        files.add(createFile("B.jpg", 2000L, 20L)); //$NON-NLS-1$
+        files.add(new ParentDirectory("/")); //$NON-NLS-1$
+        files.add(createFile("file2.txt", 4000L, 10L)); //$NON-NLS-1$
+        return files;
+    }
+
+    /**
+     * Method that creates a regular file.
+     *
+     * @param name The name of the file
+     * @param lastModified The last modification time of the file
+     * @param size The size of the file
+     * @return FileSystemObject The file
+     */
+    private static FileSystemObject createFile(String name, long lastModified, long size) {
+        return new RegularFile(name, PARENT, null, null, null, new Date(lastModified), size);
+    }
+
+}